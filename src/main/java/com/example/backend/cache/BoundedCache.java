@@ -0,0 +1,233 @@
+package com.example.backend.cache;
+
+import com.example.backend.dto.CacheStatsResponse;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Small in-process LRU cache with a weight bound and a per-entry time-to-live.
+ * Entries are evicted least-recently-used first once the total weight exceeds {@code maxWeight};
+ * expired entries are dropped lazily on access. Hit, miss and eviction counts are kept for monitoring.
+ * <p>
+ * With the default weigher every entry weighs 1, so {@code maxWeight} is simply the maximum entry count.
+ */
+public class BoundedCache<K, V> {
+
+    private final String name;
+    private final long maxWeight;
+    private final long ttlNanos;
+    private final ToLongFunction<V> weigher;
+
+    private final LinkedHashMap<K, Entry<V>> map = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    /** Bumped on every invalidation so that loads racing an invalidation do not re-cache stale values. */
+    private long invalidationEpoch;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /** {@code expiresAtNanos} is compared against {@link System#nanoTime()}; ignored when {@code eternal}. */
+    private record Entry<V>(V value, long weight, long expiresAtNanos, boolean eternal) {
+
+        boolean isLive(long now) {
+            return eternal || now - expiresAtNanos < 0;
+        }
+    }
+
+    public BoundedCache(String name, long maxEntries, long ttlMillis) {
+        this(name, maxEntries, ttlMillis, v -> 1L);
+    }
+
+    public BoundedCache(String name, long maxWeight, long ttlMillis, ToLongFunction<V> weigher) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("maxWeight must be positive");
+        }
+        this.name = name;
+        this.maxWeight = maxWeight;
+        this.ttlNanos = ttlMillis > 0 ? ttlMillis * 1_000_000L : 0;
+        this.weigher = weigher;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Returns the cached value or null when absent or expired. */
+    public V get(K key) {
+        synchronized (map) {
+            Entry<V> e = map.get(key);
+            if (e != null && e.isLive(System.nanoTime())) {
+                hits.increment();
+                return e.value();
+            }
+            if (e != null) {
+                removeEntry(key, e);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Returns the cached value, or loads it with {@code loader} and caches the result.
+     * The loader runs outside the lock; a null result is returned but not cached, and a result
+     * is not cached either if an invalidation happened while it was loading.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        return get(key, loader, v -> true);
+    }
+
+    /** Like {@link #get(Object, Function)}, but loaded values failing {@code cacheable} are returned without caching. */
+    public V get(K key, Function<? super K, ? extends V> loader, Predicate<? super V> cacheable) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        long epoch;
+        synchronized (map) {
+            epoch = invalidationEpoch;
+        }
+        value = loader.apply(key);
+        if (value != null && cacheable.test(value)) {
+            store(key, value, 0, epoch);
+        }
+        return value;
+    }
+
+    /**
+     * Loads {@code key} with {@code loader} and caches the result like {@link #get(Object, Function)} does on a
+     * miss, but without looking up or counting a hit or miss: for refreshing entries in the background.
+     */
+    public V reload(K key, Function<? super K, ? extends V> loader) {
+        long epoch;
+        synchronized (map) {
+            epoch = invalidationEpoch;
+        }
+        V value = loader.apply(key);
+        if (value != null) {
+            store(key, value, 0, epoch);
+        }
+        return value;
+    }
+
+    public void put(K key, V value) {
+        store(key, value, 0, -1);
+    }
+
+    /**
+     * Caches {@code value} with a custom time-to-live in milliseconds; the cache default still applies
+     * as an upper bound. Values heavier than the whole cache are not stored.
+     */
+    public void put(K key, V value, long ttlMillis) {
+        store(key, value, ttlMillis, -1);
+    }
+
+    private void store(K key, V value, long ttlMillis, long expectedEpoch) {
+        long ttl = ttlNanos;
+        if (ttlMillis > 0) {
+            ttl = ttl > 0 ? Math.min(ttl, ttlMillis * 1_000_000L) : ttlMillis * 1_000_000L;
+        }
+        long w = Math.max(0, weigher.applyAsLong(value));
+        if (w > maxWeight) {
+            invalidate(key);
+            return;
+        }
+        Entry<V> entry = new Entry<>(value, w, System.nanoTime() + ttl, ttl == 0);
+        synchronized (map) {
+            if (expectedEpoch >= 0 && expectedEpoch != invalidationEpoch) {
+                return;
+            }
+            Entry<V> previous = map.put(key, entry);
+            if (previous != null) {
+                weight -= previous.weight();
+            }
+            weight += w;
+            Iterator<Map.Entry<K, Entry<V>>> it = map.entrySet().iterator();
+            while (weight > maxWeight && it.hasNext()) {
+                Map.Entry<K, Entry<V>> eldest = it.next();
+                it.remove();
+                weight -= eldest.getValue().weight();
+                evictions.increment();
+            }
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (map) {
+            invalidationEpoch++;
+            Entry<V> e = map.get(key);
+            if (e != null) {
+                removeEntry(key, e);
+            }
+        }
+    }
+
+    /**
+     * Removes every entry whose key matches {@code predicate}.
+     * @return the removed entries, live or expired
+     */
+    public Map<K, V> invalidateIf(Predicate<? super K> predicate) {
+        Map<K, V> removed = new LinkedHashMap<>();
+        synchronized (map) {
+            invalidationEpoch++;
+            Iterator<Map.Entry<K, Entry<V>>> it = map.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<K, Entry<V>> e = it.next();
+                if (predicate.test(e.getKey())) {
+                    it.remove();
+                    weight -= e.getValue().weight();
+                    removed.put(e.getKey(), e.getValue().value());
+                }
+            }
+        }
+        return removed;
+    }
+
+    public void invalidateAll() {
+        synchronized (map) {
+            invalidationEpoch++;
+            map.clear();
+            weight = 0;
+        }
+    }
+
+    public long size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    public CacheStatsResponse stats() {
+        long size;
+        long currentWeight;
+        synchronized (map) {
+            size = map.size();
+            currentWeight = weight;
+        }
+        long h = hits.sum();
+        long m = misses.sum();
+        return CacheStatsResponse.builder()
+                .name(name)
+                .size(size)
+                .weight(currentWeight)
+                .maxWeight(maxWeight)
+                .hits(h)
+                .misses(m)
+                .evictions(evictions.sum())
+                .hitRatio(h + m == 0 ? 0.0 : (double) h / (h + m))
+                .build();
+    }
+
+    private void removeEntry(K key, Entry<V> e) {
+        map.remove(key);
+        weight -= e.weight();
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.backend.cache;
+
+import com.example.backend.config.TransactionCallbacks;
+import com.example.backend.dto.ApiResponse;
+import com.example.backend.dto.CacheStatsResponse;
+import com.example.backend.dto.CursorPage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Caches pages of the public catalog listings (GET /api/categories, /api/items, /api/items/category/{id}) by
+ * listing and request parameters as ready-to-send response bodies: the {@link ApiResponse} envelope serialized
+ * once to JSON, gzipped too when at least {@code app.catalog.cache.gzip-min-bytes}, with a strong ETag over the
+ * JSON. Serving a cached page writes one of the two byte arrays. The cache is bounded by the total bytes held
+ * ({@code app.catalog.cache.max-bytes}).
+ * <p>
+ * CategoryService and ItemService report changes after their transaction commits: a category change drops the
+ * category pages, an item change drops the pages of all items and of the item's category. A page loaded while
+ * the change was committing is not cached (see {@link BoundedCache#get(Object, java.util.function.Function)}).
+ * Dropped first pages, the most requested ones, are rendered again on a background thread, so the next request
+ * finds them ready. The time-to-live only bounds staleness after changes made outside those services.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogCache implements MonitoredCache {
+
+    public enum Listing { CATEGORIES, ITEMS, CATEGORY_ITEMS }
+
+    /** Response body of one page; {@code gzip} is null for bodies below the compression threshold. */
+    public record Snapshot(byte[] json, byte[] gzip, String etag) {
+
+        /** The gzip body is another representation, so it gets its own strong ETag. */
+        public String gzipEtag() {
+            return etag.substring(0, etag.length() - 1) + "-gzip\"";
+        }
+    }
+
+    /** {@code categoryId} is null except for {@link Listing#CATEGORY_ITEMS}; parameters as requested. */
+    private record Key(Listing listing, String categoryId, String cursor, Integer limit, String sort) {}
+
+    /** The loader is kept to render the page again after an invalidation. */
+    private record Entry(Snapshot snapshot, Supplier<? extends CursorPage<?>> loader) {
+
+        long weight() {
+            return snapshot.json().length + (snapshot.gzip() != null ? snapshot.gzip().length : 0);
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.catalog.cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${app.catalog.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${app.catalog.cache.gzip-min-bytes:1024}")
+    private int gzipMinBytes;
+
+    private BoundedCache<Key, Entry> cache;
+    private ExecutorService refreshPool;
+
+    @PostConstruct
+    void init() {
+        cache = new BoundedCache<>("catalog", maxBytes, ttlSeconds * 1000, Entry::weight);
+        refreshPool = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "catalog-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refreshPool.shutdownNow();
+    }
+
+    public Snapshot categories(String cursor, Integer limit, String sort, Supplier<? extends CursorPage<?>> loader) {
+        return get(new Key(Listing.CATEGORIES, null, cursor, limit, sort), loader);
+    }
+
+    public Snapshot items(String cursor, Integer limit, String sort, Supplier<? extends CursorPage<?>> loader) {
+        return get(new Key(Listing.ITEMS, null, cursor, limit, sort), loader);
+    }
+
+    public Snapshot itemsInCategory(String categoryId, String cursor, Integer limit, String sort,
+                                    Supplier<? extends CursorPage<?>> loader) {
+        return get(new Key(Listing.CATEGORY_ITEMS, categoryId, cursor, limit, sort), loader);
+    }
+
+    /** A category was created, updated or deleted. */
+    public void categoriesChanged() {
+        invalidateAfterCommit(key -> key.listing() == Listing.CATEGORIES);
+    }
+
+    /**
+     * An item of {@code categoryId} was created, updated or deleted; null when the category is not known,
+     * which drops the pages of every category.
+     */
+    public void itemsChanged(String categoryId) {
+        invalidateAfterCommit(key -> key.listing() == Listing.ITEMS
+                || key.listing() == Listing.CATEGORY_ITEMS
+                && (categoryId == null || Objects.equals(key.categoryId(), categoryId)));
+    }
+
+    @Override
+    public CacheStatsResponse stats() {
+        return cache.stats();
+    }
+
+    private Snapshot get(Key key, Supplier<? extends CursorPage<?>> loader) {
+        return cache.get(key, k -> render(loader)).snapshot();
+    }
+
+    private Entry render(Supplier<? extends CursorPage<?>> loader) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(ApiResponse.success("OK", loader.get()));
+            byte[] gzip = json.length >= gzipMinBytes ? gzip(json) : null;
+            String etag = "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json), 0, 16)
+                    + "\"";
+            return new Entry(new Snapshot(json, gzip, etag), loader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(json);
+        }
+        return out.toByteArray();
+    }
+
+    /** Outside a transaction the entries are dropped right away. */
+    private void invalidateAfterCommit(Predicate<Key> keys) {
+        TransactionCallbacks.afterCommit(() -> invalidate(keys));
+    }
+
+    private void invalidate(Predicate<Key> keys) {
+        for (Map.Entry<Key, Entry> dropped : cache.invalidateIf(keys).entrySet()) {
+            if (dropped.getKey().cursor() == null) {
+                Supplier<? extends CursorPage<?>> loader = dropped.getValue().loader();
+                refreshPool.execute(() -> refresh(dropped.getKey(), loader));
+            }
+        }
+    }
+
+    private void refresh(Key key, Supplier<? extends CursorPage<?>> loader) {
+        try {
+            cache.reload(key, k -> render(loader));
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh catalog page {}: {}", key, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.backend.cache;
+
+import com.example.backend.config.TransactionCallbacks;
+import com.example.backend.dto.CacheStatsResponse;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Caches what serving an image needs (absolute path, content type, size, validators) for uploads by short code,
+ * item and category images by id and content-addressed blobs by hash, so repeated requests read neither the
+ * row nor the file attributes. Entries are loaded on first request; ItemService, CategoryService and
+ * ImageBlobStore evict them when an image is replaced or deleted. The time-to-live only bounds staleness after
+ * changes made outside those services.
+ */
+@Component
+public class ImageMetadataCache implements MonitoredCache {
+
+    public enum Kind { UPLOAD, ITEM, CATEGORY, BLOB }
+
+    /** {@code size} is -1 when the row exists but the file does not; such results are not cached. */
+    public record ImageMetadata(Path path, String contentType, long size, String etag, long lastModifiedMillis) {
+
+        public boolean fileExists() {
+            return size >= 0;
+        }
+
+        /** Upload files are never rewritten, so validators come from the row: code and creation time. */
+        public static ImageMetadata forUpload(Path path, String contentType, String shortCode, Instant createdAt) {
+            BasicFileAttributes attrs = regularFileAttributes(path);
+            String etag = "\"" + shortCode + "-" + Long.toHexString(createdAt.toEpochMilli()) + "\"";
+            return new ImageMetadata(path, contentType, attrs != null ? attrs.size() : -1, etag, createdAt.toEpochMilli());
+        }
+
+        /** Item and category images are replaced in place, so validators come from file size and mtime. */
+        public static ImageMetadata forFile(Path path, String contentType) {
+            BasicFileAttributes attrs = regularFileAttributes(path);
+            if (attrs == null) {
+                return new ImageMetadata(path, contentType, -1, null, 0);
+            }
+            String etag = "\"" + Long.toHexString(attrs.lastModifiedTime().to(TimeUnit.MICROSECONDS))
+                    + "-" + Long.toHexString(attrs.size()) + "\"";
+            return new ImageMetadata(path, contentType, attrs.size(), etag, attrs.lastModifiedTime().toMillis());
+        }
+
+        /** Content-addressed files never change, so the ETag is (a prefix of) the content hash itself. */
+        public static ImageMetadata forBlob(Path path, String contentType, String hash) {
+            BasicFileAttributes attrs = regularFileAttributes(path);
+            String etag = "\"" + hash.substring(0, 32) + "\"";
+            return attrs == null
+                    ? new ImageMetadata(path, contentType, -1, etag, 0)
+                    : new ImageMetadata(path, contentType, attrs.size(), etag, attrs.lastModifiedTime().toMillis());
+        }
+    }
+
+    private record Key(Kind kind, String id) {}
+
+    @Value("${app.upload.metadata-cache.max-entries:10000}")
+    private long maxEntries;
+
+    @Value("${app.upload.metadata-cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    private BoundedCache<Key, ImageMetadata> cache;
+
+    @PostConstruct
+    void init() {
+        cache = new BoundedCache<>("image-metadata", maxEntries, ttlSeconds * 1000);
+    }
+
+    /** Cached metadata, or the loader's result (null if unknown). Results for missing files are not cached. */
+    public ImageMetadata get(Kind kind, String id, Function<String, ImageMetadata> loader) {
+        return cache.get(new Key(kind, id), k -> loader.apply(k.id()), ImageMetadata::fileExists);
+    }
+
+    /**
+     * Drops the entry now and again after commit, so a request that reloaded it before the transaction
+     * committed cannot keep serving the old file's metadata.
+     */
+    public void evict(Kind kind, String id) {
+        Key key = new Key(kind, id);
+        TransactionCallbacks.nowAndAfterCommit(() -> cache.invalidate(key));
+    }
+
+    @Override
+    public CacheStatsResponse stats() {
+        return cache.stats();
+    }
+
+    private static BasicFileAttributes regularFileAttributes(Path path) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            return attrs.isRegularFile() ? attrs : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
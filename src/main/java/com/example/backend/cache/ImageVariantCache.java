@@ -0,0 +1,210 @@
+package com.example.backend.cache;
+
+import com.example.backend.dto.CacheStatsResponse;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Resized image variants on disk, one file per variant name, bounded by total bytes.
+ * The index of files (name to size) is kept in memory in least-recently-used order and rebuilt from the
+ * directory at startup, oldest files first; once the total exceeds {@code max-bytes} the least recently
+ * used files are deleted. Concurrent requests for a variant that is not on disk yet share one write.
+ * <p>
+ * Names are expected to identify the source content (callers include the source ETag), so entries are
+ * never invalidated: variants of replaced or deleted images are simply no longer requested and age out.
+ */
+@Component
+@Slf4j
+public class ImageVariantCache implements MonitoredCache {
+
+    /** Produces the variant at {@code target}; the file is moved into place only if this returns normally. */
+    @FunctionalInterface
+    public interface VariantWriter {
+        void write(Path target) throws IOException;
+    }
+
+    public record Variant(Path path, long size) {}
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    @Value("${app.upload.variant-cache.dir:uploads/variants}")
+    private String dir;
+
+    @Value("${app.upload.variant-cache.max-bytes:268435456}")
+    private long maxBytes;
+
+    private Path root;
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(256, 0.75f, true);
+    private long bytes;
+    private final ConcurrentHashMap<String, CompletableFuture<Variant>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @PostConstruct
+    void init() throws IOException {
+        root = Path.of(dir).toAbsolutePath();
+        Files.createDirectories(root);
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> list = Files.list(root)) {
+            list.forEach(files::add);
+        }
+        List<Map.Entry<Path, BasicFileAttributes>> existing = new ArrayList<>();
+        for (Path file : files) {
+            if (file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                Files.deleteIfExists(file);
+                continue;
+            }
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            if (attrs.isRegularFile()) {
+                existing.add(Map.entry(file, attrs));
+            }
+        }
+        existing.sort(Comparator.comparing(e -> e.getValue().lastModifiedTime()));
+        synchronized (index) {
+            for (Map.Entry<Path, BasicFileAttributes> e : existing) {
+                index.put(e.getKey().getFileName().toString(), e.getValue().size());
+                bytes += e.getValue().size();
+            }
+        }
+        deleteFiles(trim());
+        log.info("Image variant cache at {}: {} files, {} bytes", root, index.size(), bytes);
+    }
+
+    /** The variant called {@code name}, written with {@code writer} first if it is not on disk yet. */
+    public Variant get(String name, VariantWriter writer) throws IOException {
+        synchronized (index) {
+            Long size = index.get(name);
+            if (size != null) {
+                hits.increment();
+                return new Variant(root.resolve(name), size);
+            }
+        }
+        misses.increment();
+        CompletableFuture<Variant> mine = new CompletableFuture<>();
+        CompletableFuture<Variant> running = inFlight.putIfAbsent(name, mine);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            Variant variant;
+            synchronized (index) {
+                // Another writer may have finished between the index lookup and claiming the name.
+                Long size = index.get(name);
+                variant = size != null ? new Variant(root.resolve(name), size) : null;
+            }
+            if (variant == null) {
+                variant = write(name, writer);
+            }
+            mine.complete(variant);
+            return variant;
+        } catch (IOException | RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(name, mine);
+        }
+    }
+
+    private Variant write(String name, VariantWriter writer) throws IOException {
+        Path target = root.resolve(name);
+        Path temp = Files.createTempFile(root, name + ".", TEMP_SUFFIX);
+        try {
+            writer.write(temp);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        long size = Files.size(target);
+        List<String> evicted;
+        synchronized (index) {
+            Long previous = index.put(name, size);
+            bytes += size - (previous != null ? previous : 0);
+            evicted = trim();
+        }
+        deleteFiles(evicted);
+        return new Variant(target, size);
+    }
+
+    /** Drops least recently used names until the total fits; the caller deletes the files outside the lock. */
+    private List<String> trim() {
+        List<String> evicted = new ArrayList<>();
+        synchronized (index) {
+            Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+            while (bytes > maxBytes && it.hasNext()) {
+                Map.Entry<String, Long> eldest = it.next();
+                it.remove();
+                bytes -= eldest.getValue();
+                evicted.add(eldest.getKey());
+                evictions.increment();
+            }
+        }
+        return evicted;
+    }
+
+    private void deleteFiles(List<String> names) {
+        for (String name : names) {
+            try {
+                Files.deleteIfExists(root.resolve(name));
+            } catch (IOException e) {
+                log.warn("Could not delete image variant {}: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    private static Variant await(CompletableFuture<Variant> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw (Error) e.getCause();
+        }
+    }
+
+    @Override
+    public CacheStatsResponse stats() {
+        long size;
+        long currentBytes;
+        synchronized (index) {
+            size = index.size();
+            currentBytes = bytes;
+        }
+        long h = hits.sum();
+        long m = misses.sum();
+        return CacheStatsResponse.builder()
+                .name("image-variants")
+                .size(size)
+                .weight(currentBytes)
+                .maxWeight(maxBytes)
+                .hits(h)
+                .misses(m)
+                .evictions(evictions.sum())
+                .hitRatio(h + m == 0 ? 0.0 : (double) h / (h + m))
+                .build();
+    }
+}
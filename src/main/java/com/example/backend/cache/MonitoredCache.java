@@ -0,0 +1,11 @@
+package com.example.backend.cache;
+
+import com.example.backend.dto.CacheStatsResponse;
+
+/**
+ * Implemented by cache components so their statistics can be listed on the admin API.
+ */
+public interface MonitoredCache {
+
+    CacheStatsResponse stats();
+}
@@ -0,0 +1,41 @@
+package com.example.backend.cache;
+
+import com.example.backend.dto.CacheStatsResponse;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+/**
+ * Caches rendered QR code images by (short code, size, error correction, format), bounded by total bytes.
+ * A QR code only encodes the public /s/{code} URL, which never changes for a code, so entries need no
+ * invalidation and have no time-to-live; least recently used images are evicted first.
+ */
+@Component
+public class RenderedQrCache implements MonitoredCache {
+
+    public record Key(String shortCode, int size, String errorCorrection, String format) {}
+
+    /** Encoded image with its content type and strong ETag (computed once, when rendered). */
+    public record RenderedQr(byte[] bytes, String contentType, String etag) {}
+
+    @Value("${app.qr.cache.max-bytes:33554432}")
+    private long maxBytes;
+
+    private BoundedCache<Key, RenderedQr> cache;
+
+    @PostConstruct
+    void init() {
+        cache = new BoundedCache<>("rendered-qr", maxBytes, 0, qr -> qr.bytes().length);
+    }
+
+    public RenderedQr get(Key key, Function<Key, RenderedQr> renderer) {
+        return cache.get(key, renderer);
+    }
+
+    @Override
+    public CacheStatsResponse stats() {
+        return cache.stats();
+    }
+}
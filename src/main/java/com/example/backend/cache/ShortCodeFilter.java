@@ -0,0 +1,165 @@
+package com.example.backend.cache;
+
+import com.example.backend.config.TransactionCallbacks;
+import com.example.backend.dto.ShortCodeFilterStatsResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bloom filters over all existing shortener and image short codes, so GET /s/{code} and GET /i/{code}
+ * can answer codes that certainly do not exist with 404 without querying the database.
+ * <p>
+ * Filters are built when the application is ready and rebuilt every
+ * {@code app.shortcode.filter.rebuild-interval-ms} (sized for the current row count, which also drops
+ * deleted codes). New codes are added right after their transaction commits, before the code is returned
+ * to anyone. While a rebuild runs they go into both the current and the next filter; a code added before
+ * the rebuild started was already committed, so the rebuild's scan sees it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ShortCodeFilter {
+
+    public enum Kind {
+        SHORTENER("shorteners"),
+        IMAGE("image_uploads");
+
+        private final String table;
+
+        Kind(String table) {
+            this.table = table;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.shortcode.filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${app.shortcode.filter.min-capacity:100000}")
+    private long minCapacity;
+
+    private final Slot[] slots = Arrays.stream(Kind.values()).map(k -> new Slot()).toArray(Slot[]::new);
+
+    private static class Slot {
+        volatile BloomFilter current;
+        volatile BloomFilter building;
+        volatile Instant lastRebuildAt;
+        final LongAdder checks = new LongAdder();
+        final LongAdder rejects = new LongAdder();
+        final LongAdder falsePositives = new LongAdder();
+    }
+
+    /**
+     * False only if {@code code} is certainly not an existing code of this kind.
+     * Always true until the first build has finished.
+     */
+    public boolean mightExist(Kind kind, String code) {
+        Slot slot = slots[kind.ordinal()];
+        BloomFilter filter = slot.current;
+        if (filter == null) {
+            return true;
+        }
+        slot.checks.increment();
+        if (filter.mightContain(code.toLowerCase(Locale.ROOT))) {
+            return true;
+        }
+        slot.rejects.increment();
+        return false;
+    }
+
+    /** Registers a newly created code once the current transaction commits (immediately if there is none). */
+    public void add(Kind kind, String code) {
+        String key = code.toLowerCase(Locale.ROOT);
+        TransactionCallbacks.afterCommit(() -> put(kind, key));
+    }
+
+    private void put(Kind kind, String key) {
+        Slot slot = slots[kind.ordinal()];
+        BloomFilter building = slot.building;
+        if (building != null) {
+            building.put(key);
+        }
+        BloomFilter filter = slot.current;
+        if (filter != null) {
+            filter.put(key);
+        }
+    }
+
+    /** Called when a code passed the filter but the lookup found nothing. */
+    public void recordFalsePositive(Kind kind) {
+        Slot slot = slots[kind.ordinal()];
+        if (slot.current != null) {
+            slot.falsePositives.increment();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.shortcode.filter.rebuild-interval-ms:3600000}",
+            initialDelayString = "${app.shortcode.filter.rebuild-interval-ms:3600000}")
+    public synchronized void rebuild() {
+        for (Kind kind : Kind.values()) {
+            try {
+                rebuild(kind);
+            } catch (RuntimeException e) {
+                // Keep serving with the previous filter (or none); the next run retries.
+                log.warn("Could not rebuild {} short code filter: {}", kind, e.getMessage());
+            }
+        }
+    }
+
+    private void rebuild(Kind kind) {
+        Slot slot = slots[kind.ordinal()];
+        Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + kind.table, Long.class);
+        BloomFilter next = new BloomFilter(Math.max(minCapacity, 2 * (rows == null ? 0 : rows)), falsePositiveRate);
+        slot.building = next;
+        try {
+            jdbcTemplate.query("SELECT short_code FROM " + kind.table,
+                    rs -> { next.put(rs.getString(1).toLowerCase(Locale.ROOT)); });
+            slot.current = next;
+            slot.lastRebuildAt = Instant.now();
+        } finally {
+            slot.building = null;
+        }
+        log.info("Built {} short code filter: {} codes, {} bits, estimated false-positive rate {}",
+                kind, next.getInsertions(), next.getBitSize(), String.format("%.5f", next.expectedFalsePositiveRate()));
+    }
+
+    public List<ShortCodeFilterStatsResponse> stats() {
+        return Arrays.stream(Kind.values()).map(kind -> {
+            Slot slot = slots[kind.ordinal()];
+            BloomFilter filter = slot.current;
+            ShortCodeFilterStatsResponse.ShortCodeFilterStatsResponseBuilder b = ShortCodeFilterStatsResponse.builder()
+                    .name(kind.name().toLowerCase(Locale.ROOT))
+                    .ready(filter != null)
+                    .checks(slot.checks.sum())
+                    .rejects(slot.rejects.sum())
+                    .falsePositives(slot.falsePositives.sum())
+                    .lastRebuildAt(slot.lastRebuildAt);
+            if (filter != null) {
+                b.bitSize(filter.getBitSize())
+                        .hashFunctions(filter.getHashFunctions())
+                        .expectedInsertions(filter.getExpectedInsertions())
+                        .insertions(filter.getInsertions())
+                        .expectedFalsePositiveRate(filter.expectedFalsePositiveRate());
+            }
+            return b.build();
+        }).toList();
+    }
+}
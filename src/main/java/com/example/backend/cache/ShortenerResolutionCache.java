@@ -0,0 +1,59 @@
+package com.example.backend.cache;
+
+import com.example.backend.dto.CacheStatsResponse;
+import com.example.backend.entity.Shortener;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.function.Function;
+
+/**
+ * Caches short code to redirect target for GET /s/{code}, so repeated hits do not read the shorteners table.
+ * Entries live at most {@code app.shortener.cache.ttl-seconds}; the link's own active/expiry flags are cached
+ * with it and still checked on every redirect.
+ * ShortenerService invalidates entries when a link is updated or deleted.
+ */
+@Component
+public class ShortenerResolutionCache implements MonitoredCache {
+
+    /** Only what the redirect path needs; detached from the JPA entity. */
+    public record ResolvedShortener(Long id, String fullUrl, boolean active, Instant expiresAt) {
+
+        public static ResolvedShortener fromEntity(Shortener s) {
+            return new ResolvedShortener(s.getId(), s.getFullUrl(), s.isActive(), s.getExpiresAt());
+        }
+
+        public boolean isExpired(Instant now) {
+            return expiresAt != null && now.isAfter(expiresAt);
+        }
+    }
+
+    @Value("${app.shortener.cache.max-entries:10000}")
+    private long maxEntries;
+
+    @Value("${app.shortener.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private BoundedCache<String, ResolvedShortener> cache;
+
+    @PostConstruct
+    void init() {
+        cache = new BoundedCache<>("shortener-resolution", maxEntries, ttlSeconds * 1000);
+    }
+
+    /** Returns the cached resolution for a (lower-case) short code, loading it on a miss. Null if unknown. */
+    public ResolvedShortener get(String shortCode, Function<String, ResolvedShortener> loader) {
+        return cache.get(shortCode, loader);
+    }
+
+    public void invalidate(String shortCode) {
+        cache.invalidate(shortCode);
+    }
+
+    @Override
+    public CacheStatsResponse stats() {
+        return cache.stats();
+    }
+}
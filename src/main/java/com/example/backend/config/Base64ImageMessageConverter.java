@@ -0,0 +1,174 @@
+package com.example.backend.config;
+
+import com.example.backend.dto.Base64ImageRequest;
+import com.example.backend.dto.SpooledImage;
+import com.example.backend.service.ImageBlobStore;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads JSON bodies of {@link Base64ImageRequest}s (image uploads, item and category create/update) with
+ * Jackson's streaming parser. The Base64 image property is decoded by {@link JsonBase64InputStream} straight into
+ * a spooled file of {@link ImageBlobStore} as the body arrives; all other properties are bound as usual.
+ * Without this, Jackson would hold the Base64 text twice (parser buffer and String) and the services the
+ * decoded {@code byte[]} on top, all proportional to the image size.
+ * <p>
+ * Only a top-level property is streamed. The parser is handed the raw bytes after the closing quote, prefixed
+ * with {@code {"":null}, to continue with the remaining properties. A spooled file that is not stored by the
+ * end of the request is deleted. Decoded images are limited to {@code spring.servlet.multipart.max-file-size},
+ * like multipart uploads. The converter is read-only: {@link #canWrite} is always false.
+ */
+@Component
+public class Base64ImageMessageConverter implements HttpMessageConverter<Base64ImageRequest> {
+
+    private static final List<MediaType> SUPPORTED_MEDIA_TYPES =
+            List.of(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+
+    /** Re-opens the object after the streamed value, so the parser can read the properties that follow it. */
+    private static final byte[] RESUME = "{\"\":null".getBytes(StandardCharsets.US_ASCII);
+
+    private final ObjectMapper objectMapper;
+    private final ImageBlobStore imageBlobStore;
+    private final long maxImageBytes;
+    private final Map<Class<?>, String> base64Properties = new ConcurrentHashMap<>();
+
+    public Base64ImageMessageConverter(ObjectMapper objectMapper, ImageBlobStore imageBlobStore,
+                                       @Value("${spring.servlet.multipart.max-file-size:20MB}") DataSize maxImageSize) {
+        this.objectMapper = objectMapper;
+        this.imageBlobStore = imageBlobStore;
+        this.maxImageBytes = maxImageSize.toBytes();
+    }
+
+    @Override
+    public boolean canRead(@NonNull Class<?> clazz, @Nullable MediaType mediaType) {
+        return Base64ImageRequest.class.isAssignableFrom(clazz)
+                && (mediaType == null || SUPPORTED_MEDIA_TYPES.stream().anyMatch(t -> t.includes(mediaType)));
+    }
+
+    @Override
+    public boolean canWrite(@NonNull Class<?> clazz, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    @NonNull
+    public List<MediaType> getSupportedMediaTypes() {
+        return SUPPORTED_MEDIA_TYPES;
+    }
+
+    @Override
+    @NonNull
+    public Base64ImageRequest read(@NonNull Class<? extends Base64ImageRequest> clazz,
+                                   @NonNull HttpInputMessage inputMessage) throws IOException {
+        String property = base64Property(clazz);
+        ObjectNode fields = objectMapper.createObjectNode();
+        SpooledImage image = null;
+        String dataUrlContentType = null;
+        boolean accepted = false;
+        InputStream body = inputMessage.getBody();
+        JsonParser parser = parser(body);
+        try {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new HttpMessageNotReadableException("JSON object expected", inputMessage);
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                if (parser.nextToken() == JsonToken.VALUE_STRING && name.equals(property)) {
+                    ByteArrayOutputStream buffered = new ByteArrayOutputStream();
+                    parser.releaseBuffered(buffered);
+                    parser.close();
+                    JsonBase64InputStream value = new JsonBase64InputStream(new SequenceInputStream(
+                            new ByteArrayInputStream(buffered.toByteArray()), body), maxImageBytes);
+                    if (image != null) {
+                        imageBlobStore.discard(image);
+                    }
+                    image = spool(value);
+                    dataUrlContentType = value.dataUrlContentType();
+                    parser = parser(new SequenceInputStream(new ByteArrayInputStream(RESUME), value.remaining()));
+                    parser.nextToken();
+                    parser.nextToken();
+                    parser.nextToken();
+                } else {
+                    fields.set(name, parser.readValueAsTree());
+                }
+            }
+            if (token != JsonToken.END_OBJECT) {
+                throw new HttpMessageNotReadableException("Unexpected end of JSON object", inputMessage);
+            }
+            Base64ImageRequest request = objectMapper.treeToValue(fields, clazz);
+            if (image != null && image.size() > 0) {
+                request.acceptSpooledImage(image, dataUrlContentType);
+                accepted = true;
+            }
+            return request;
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotReadableException("JSON parse error: " + e.getOriginalMessage(), e, inputMessage);
+        } finally {
+            parser.close();
+            if (image != null && !accepted) {
+                imageBlobStore.discard(image);
+            }
+        }
+    }
+
+    /** Decodes the value into a spooled file that is deleted at the end of the request unless it was stored. */
+    private SpooledImage spool(JsonBase64InputStream value) throws IOException {
+        SpooledImage image = imageBlobStore.spool(value);
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.registerDestructionCallback(getClass().getName() + "." + image.file(),
+                    () -> imageBlobStore.discard(image), RequestAttributes.SCOPE_REQUEST);
+        }
+        return image;
+    }
+
+    /** Parser that leaves the body open: it is closed and replaced when the Base64 value is streamed. */
+    private JsonParser parser(InputStream in) throws IOException {
+        JsonParser parser = objectMapper.createParser(in);
+        parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        return parser;
+    }
+
+    private String base64Property(Class<? extends Base64ImageRequest> clazz) {
+        return base64Properties.computeIfAbsent(clazz, c -> {
+            try {
+                return ((Base64ImageRequest) c.getDeclaredConstructor().newInstance()).base64Property();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("No default constructor on " + c.getName(), e);
+            }
+        });
+    }
+
+    /** Never called: {@link #canWrite} is false, and requests are not written back as JSON. */
+    @Override
+    public void write(@NonNull Base64ImageRequest request, @Nullable MediaType contentType,
+                      @NonNull HttpOutputMessage outputMessage) {
+        throw new UnsupportedOperationException("Base64ImageMessageConverter is read-only");
+    }
+}
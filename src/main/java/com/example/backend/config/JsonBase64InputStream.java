@@ -0,0 +1,196 @@
+package com.example.backend.config;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Decoded bytes of a Base64 JSON string value, read from the raw body positioned just after the opening quote.
+ * JSON escapes and whitespace are handled, a leading data URL prefix ({@code data:<type>;base64,}) is stripped
+ * and its type kept, and the text is decoded in fixed-size chunks, so memory use does not depend on the length
+ * of the value. Ends at the closing quote; {@link #remaining()} continues the body after it. Decoding more than
+ * {@code maxBytes} throws {@link MaxUploadSizeExceededException}, as for multipart uploads.
+ */
+final class JsonBase64InputStream extends InputStream {
+
+    static final String INVALID = "Invalid or empty Base64 image data";
+
+    /** Base64 characters decoded per step; a multiple of 4, so only the last chunk can carry padding. */
+    private static final int CHUNK = 16384;
+    private static final int MAX_DATA_URL_PREFIX = 256;
+    private static final String DATA_URL_PREFIX = "data:";
+    private static final String BASE64_MARKER = ";base64";
+
+    private final InputStream source;
+    private final long maxBytes;
+    private long total;
+    private final byte[] raw = new byte[8192];
+    private int rawPos;
+    private int rawEnd;
+
+    private final byte[] chars = new byte[CHUNK];
+    private final byte[] decoded = new byte[CHUNK / 4 * 3];
+    private int outPos;
+    private int outEnd;
+
+    private boolean started;
+    private boolean ended;
+    private boolean padded;
+    private String dataUrlContentType;
+
+    JsonBase64InputStream(InputStream source, long maxBytes) {
+        this.source = source;
+        this.maxBytes = maxBytes;
+    }
+
+    /** Content type of a data URL value, known once reading has started; null for raw Base64. */
+    String dataUrlContentType() {
+        return dataUrlContentType;
+    }
+
+    /** The body after the closing quote; valid once this stream has returned -1. */
+    InputStream remaining() {
+        return new SequenceInputStream(new ByteArrayInputStream(raw, rawPos, rawEnd - rawPos), source);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (outPos == outEnd) {
+            if (!decodeChunk()) {
+                return -1;
+            }
+        }
+        int n = Math.min(len, outEnd - outPos);
+        System.arraycopy(decoded, outPos, b, off, n);
+        outPos += n;
+        return n;
+    }
+
+    private boolean decodeChunk() throws IOException {
+        if (ended) {
+            return false;
+        }
+        int n = 0;
+        while (true) {
+            while (n < CHUNK && !ended) {
+                int c = nextChar();
+                if (c < 0) {
+                    ended = true;
+                } else if (c > ' ') {
+                    chars[n++] = (byte) c;
+                }
+            }
+            if (!started) {
+                started = true;
+                int prefix = dataUrlPrefixLength(n);
+                if (prefix > 0) {
+                    System.arraycopy(chars, prefix, chars, 0, n - prefix);
+                    n -= prefix;
+                    continue;
+                }
+            }
+            break;
+        }
+        if (n == 0) {
+            return false;
+        }
+        if (padded) {
+            // Padding ended the data in the previous chunk, yet more characters followed.
+            throw new IllegalArgumentException(INVALID);
+        }
+        padded = chars[n - 1] == '=';
+        try {
+            outEnd = n == CHUNK
+                    ? Base64.getDecoder().decode(chars, decoded)
+                    : Base64.getDecoder().decode(Arrays.copyOf(chars, n), decoded);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(INVALID, e);
+        }
+        total += outEnd;
+        if (total > maxBytes) {
+            throw new MaxUploadSizeExceededException(maxBytes);
+        }
+        outPos = 0;
+        return true;
+    }
+
+    /** Length of a {@code data:<type>;base64,} prefix at the start of {@code chars}, recording the type; else 0. */
+    private int dataUrlPrefixLength(int n) {
+        if (n < DATA_URL_PREFIX.length()
+                || !new String(chars, 0, DATA_URL_PREFIX.length(), StandardCharsets.US_ASCII).equals(DATA_URL_PREFIX)) {
+            return 0;
+        }
+        int limit = Math.min(n, MAX_DATA_URL_PREFIX);
+        for (int i = 0; i < limit; i++) {
+            if (chars[i] == ',') {
+                String header = new String(chars, 0, i, StandardCharsets.US_ASCII);
+                int semicolon = header.indexOf(';');
+                if (!header.contains(BASE64_MARKER)) {
+                    return 0;
+                }
+                if (semicolon > DATA_URL_PREFIX.length()) {
+                    dataUrlContentType = header.substring(DATA_URL_PREFIX.length(), semicolon).trim();
+                }
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /** Next character of the JSON string, unescaped; -1 at the closing quote. */
+    private int nextChar() throws IOException {
+        int c = nextByte();
+        if (c == '"') {
+            return -1;
+        }
+        if (c != '\\') {
+            return c;
+        }
+        int e = nextByte();
+        return switch (e) {
+            case '"', '\\', '/' -> e;
+            case 'b', 'f', 'n', 'r', 't' -> ' ';
+            case 'u' -> {
+                int code = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(nextByte(), 16);
+                    if (digit < 0) {
+                        throw new JsonParseException(null, "Invalid \\u escape in JSON string");
+                    }
+                    code = code * 16 + digit;
+                }
+                // Anything outside ASCII is not Base64 and is rejected by the decoder.
+                yield Math.min(code, 0x80);
+            }
+            default -> throw new JsonParseException(null, "Invalid escape \\" + (char) e + " in JSON string");
+        };
+    }
+
+    private int nextByte() throws IOException {
+        if (rawPos == rawEnd) {
+            int n = source.read(raw, 0, raw.length);
+            if (n <= 0) {
+                throw new JsonParseException(null, "Unexpected end of input inside a JSON string");
+            }
+            rawPos = 0;
+            rawEnd = n;
+        }
+        return raw[rawPos++] & 0xff;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.backend.config;
+
+import com.example.backend.controller.PublicPathFilter;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+public class PublicPathFilterConfig {
+
+    /** Runs before the logging filter and the security chain, so public redirects and images skip both. */
+    @Bean
+    public FilterRegistrationBean<PublicPathFilter> publicPathFilterRegistration(PublicPathFilter filter) {
+        FilterRegistrationBean<PublicPathFilter> reg = new FilterRegistrationBean<>(filter);
+        reg.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        reg.addUrlPatterns("/s/*", "/i/*");
+        return reg;
+    }
+}
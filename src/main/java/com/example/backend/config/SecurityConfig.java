@@ -45,10 +45,12 @@ public class SecurityConfig {
             "/api/categories/images/**",
             "/api/items",                // GET items (public)
             "/api/items/category/**",    // GET items by category (public)
+            "/api/items/search",         // GET item search (public)
             "/api/items/images/**",
             "/api/ratings/item/**",      // GET ratings by item (public)
             "/s/**",
             "/i/**",
+            "/b/**",
             "/h2-console/**",
             "/swagger-ui.html",
             "/swagger-ui/**",
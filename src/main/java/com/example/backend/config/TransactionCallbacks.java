@@ -0,0 +1,44 @@
+package com.example.backend.config;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers in-memory side effects (cache evictions, filter and index updates, file moves) until the surrounding
+ * transaction has committed, so a rollback leaves them undone and no reader sees them before the rows they
+ * describe.
+ */
+public final class TransactionCallbacks {
+
+    private TransactionCallbacks() {
+    }
+
+    /** Runs {@code action} after the current transaction commits, or right away outside a transaction. */
+    public static void afterCommit(Runnable action) {
+        if (!registerAfterCommit(action)) {
+            action.run();
+        }
+    }
+
+    /**
+     * Runs {@code action} now and, inside a transaction, again after it commits: for evictions that a reader
+     * could otherwise undo by reloading the old row before the commit.
+     */
+    public static void nowAndAfterCommit(Runnable action) {
+        action.run();
+        registerAfterCommit(action);
+    }
+
+    private static boolean registerAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+        return true;
+    }
+}
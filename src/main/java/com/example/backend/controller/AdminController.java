@@ -1,13 +1,23 @@
 package com.example.backend.controller;
 
+import com.example.backend.cache.MonitoredCache;
+import com.example.backend.cache.ShortCodeFilter;
 import com.example.backend.dto.ApiResponse;
+import com.example.backend.dto.CacheStatsResponse;
+import com.example.backend.dto.ImageGcReport;
+import com.example.backend.dto.ShortCodeFilterStatsResponse;
 import com.example.backend.dto.ShortenerResponse;
+import com.example.backend.dto.TrendingLinkResponse;
+import com.example.backend.service.ImageGarbageCollector;
 import com.example.backend.service.ShortenerService;
+import com.example.backend.service.TrendingLinksTracker;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
@@ -20,6 +30,10 @@ import java.util.Map;
 public class AdminController {
 
     private final ShortenerService shortenerService;
+    private final List<MonitoredCache> caches;
+    private final ShortCodeFilter shortCodeFilter;
+    private final TrendingLinksTracker trendingLinksTracker;
+    private final ImageGarbageCollector imageGarbageCollector;
 
     @GetMapping("/dashboard")
     public ResponseEntity<ApiResponse<Map<String, String>>> dashboard() {
@@ -34,4 +48,45 @@ public class AdminController {
         List<ShortenerResponse> list = shortenerService.findAllForAdmin();
         return ResponseEntity.ok(ApiResponse.success("OK", list));
     }
+
+    /**
+     * Most-clicked short links over a recent window (e.g. 15m, 1h), from an in-memory sketch of redirects.
+     * Counts are approximate upper bounds. Admin only.
+     */
+    @GetMapping("/qr-codes/trending")
+    public ResponseEntity<ApiResponse<List<TrendingLinkResponse>>> trendingQrCodes(
+            @RequestParam(defaultValue = "15m") String window,
+            @RequestParam(defaultValue = "50") int top) {
+        return ResponseEntity.ok(ApiResponse.success("OK", trendingLinksTracker.top(window, top)));
+    }
+
+    /**
+     * Size and hit/miss/eviction counters of the in-process caches. Admin only.
+     */
+    @GetMapping("/caches")
+    public ResponseEntity<ApiResponse<List<CacheStatsResponse>>> cacheStats() {
+        List<CacheStatsResponse> list = caches.stream()
+                .map(MonitoredCache::stats)
+                .toList();
+        return ResponseEntity.ok(ApiResponse.success("OK", list));
+    }
+
+    /**
+     * Size, estimated false-positive rate and reject counts of the short code filters
+     * used by GET /s/{code} and GET /i/{code}. Admin only.
+     */
+    @GetMapping("/short-code-filters")
+    public ResponseEntity<ApiResponse<List<ShortCodeFilterStatsResponse>>> shortCodeFilterStats() {
+        return ResponseEntity.ok(ApiResponse.success("OK", shortCodeFilter.stats()));
+    }
+
+    /**
+     * Deletes image files and blobs no row refers to, as the nightly run does; {@code dryRun} only counts them.
+     * Admin only.
+     */
+    @PostMapping("/images/gc")
+    public ResponseEntity<ApiResponse<ImageGcReport>> collectImageGarbage(
+            @RequestParam(defaultValue = "false") boolean dryRun) {
+        return ResponseEntity.ok(ApiResponse.success("OK", imageGarbageCollector.collect(dryRun)));
+    }
 }
@@ -0,0 +1,68 @@
+package com.example.backend.controller;
+
+import com.example.backend.cache.CatalogCache.Snapshot;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+
+/**
+ * Writes a cached catalog page ({@link Snapshot}) straight to the response, past the message converters: gzip
+ * when the client accepts it and the page has a compressed body, identity otherwise, with Content-Length and a
+ * strong ETag; 304 when If-None-Match holds the current ETag. Clients may store pages but revalidate them on
+ * every use.
+ */
+final class CatalogResponses {
+
+    static final String CACHE_CONTROL = "no-cache";
+
+    private CatalogResponses() {
+    }
+
+    /** @return the 304 response, or null once the page has been written */
+    static ResponseEntity<Void> write(Snapshot page, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        boolean gzip = page.gzip() != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        // Sets the ETag header either way.
+        if (new ServletWebRequest(request, response).checkNotModified(gzip ? page.gzipEtag() : page.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .header(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL)
+                    .build();
+        }
+        byte[] body = gzip ? page.gzip() : page.json();
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.getOutputStream().write(body);
+        return null;
+    }
+
+    /** True if Accept-Encoding lists gzip, other than with q=0. */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                for (int i = 1; i < parts.length; i++) {
+                    if (parts[i].trim().replace(" ", "").matches("q=0(\\.0{0,3})?")) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+}
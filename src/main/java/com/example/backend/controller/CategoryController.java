@@ -1,20 +1,24 @@
 package com.example.backend.controller;
 
+import com.example.backend.cache.CatalogCache;
 import com.example.backend.dto.ApiResponse;
 import com.example.backend.dto.CategoryResponse;
 import com.example.backend.dto.CreateCategoryRequest;
 import com.example.backend.dto.UpdateCategoryRequest;
 import com.example.backend.security.UserPrincipal;
 import com.example.backend.service.CategoryService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/categories")
@@ -22,15 +26,22 @@ import java.util.List;
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final CatalogCache catalogCache;
 
     /**
      * Public endpoint: list all categories (no authentication required).
-     * Returns categories from all users.
+     * Returns active categories from all users, one page per request; pass nextCursor back as cursor.
+     * The body, an {@code ApiResponse<CursorPage<CategoryResponse>>}, is written from {@link CatalogCache} by
+     * {@link CatalogResponses}.
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<CategoryResponse>>> list() {
-        List<CategoryResponse> categories = categoryService.findAll();
-        return ResponseEntity.ok(ApiResponse.success("OK", categories));
+    public ResponseEntity<Void> list(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        return CatalogResponses.write(catalogCache.categories(cursor, limit, sort,
+                () -> categoryService.findAll(cursor, limit, sort)), request, response);
     }
 
     @GetMapping("/{id}")
@@ -55,6 +66,25 @@ public class CategoryController {
         }
     }
 
+    /**
+     * Multipart create: the category fields as a JSON part named {@code category} and the image as an optional file part
+     * named {@code image}, streamed to disk instead of being sent as imageBase64.
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<CategoryResponse>> createMultipart(
+            @Valid @RequestPart("category") CreateCategoryRequest request,
+            @RequestPart(value = "image", required = false) MultipartFile image,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        try {
+            CategoryResponse category = categoryService.create(request, image, principal.getId());
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(ApiResponse.success("Category created", category));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Failed to save image: " + e.getMessage()));
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ApiResponse<CategoryResponse>> update(
             @PathVariable String id,
@@ -69,16 +99,27 @@ public class CategoryController {
         }
     }
 
-    @DeleteMapping("/{id}")
-    public ResponseEntity<ApiResponse<Void>> delete(
+    /** Multipart update: JSON part {@code category} plus an optional {@code image} file part that replaces the image. */
+    @PutMapping(value = "/{id}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<CategoryResponse>> updateMultipart(
             @PathVariable String id,
+            @Valid @RequestPart("category") UpdateCategoryRequest request,
+            @RequestPart(value = "image", required = false) MultipartFile image,
             @AuthenticationPrincipal UserPrincipal principal) {
         try {
-            categoryService.delete(id, principal.getId());
-            return ResponseEntity.ok(ApiResponse.success("Category deleted"));
+            CategoryResponse category = categoryService.update(id, request, image, principal.getId());
+            return ResponseEntity.ok(ApiResponse.success("Category updated", category));
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(ApiResponse.error("Failed to delete image: " + e.getMessage()));
+                    .body(ApiResponse.error("Failed to save image: " + e.getMessage()));
         }
     }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ApiResponse<Void>> delete(
+            @PathVariable String id,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        categoryService.delete(id, principal.getId());
+        return ResponseEntity.ok(ApiResponse.success("Category deleted"));
+    }
 }
@@ -1,26 +1,32 @@
 package com.example.backend.controller;
 
-import com.example.backend.entity.Category;
+import com.example.backend.cache.ImageMetadataCache.ImageMetadata;
 import com.example.backend.service.CategoryService;
+import com.example.backend.service.ImageVariantService;
+import com.example.backend.service.ImageVariantService.VariantSpec;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.PathResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
-import java.nio.file.Path;
+import java.io.IOException;
+import java.nio.file.Files;
 
 /**
  * Serves category images. Public endpoint (no auth).
  * Supports:
  * - GET /api/categories/images/{userId}/{categoryId} (imageUrl format from API)
  * - GET /api/categories/images/{categoryId} (by id only)
+ * Optional w, h and fit query parameters return a resized variant (see ImageVariantService).
  */
 @RestController
 @RequestMapping("/api/categories/images")
@@ -29,43 +35,54 @@ import java.nio.file.Path;
 public class CategoryImageController {
 
     private final CategoryService categoryService;
+    private final ImageVariantService imageVariantService;
 
  
     /** Two segments: userId/categoryId (matches imageUrl from API). */
     @GetMapping("/{userId}/{categoryId}")
-    public ResponseEntity<Resource> serveImageWithUser(@PathVariable Long userId, @PathVariable String categoryId) {
-        return serveImage(categoryId);
+    public ResponseEntity<Void> serveImageWithUser(@PathVariable Long userId, @PathVariable String categoryId,
+                                                   @RequestParam(required = false) Integer w,
+                                                   @RequestParam(required = false) Integer h,
+                                                   @RequestParam(required = false) String fit,
+                                                   HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        return serveImage(categoryId, w, h, fit, request, response);
     }
 
     /** Single segment: categoryId only. */
     @GetMapping("/{categoryId}")
-    public ResponseEntity<Resource> serveImage(@PathVariable String categoryId) {
-        Category category;
+    public ResponseEntity<Void> serveImage(@PathVariable String categoryId,
+                                           @RequestParam(required = false) Integer w,
+                                           @RequestParam(required = false) Integer h,
+                                           @RequestParam(required = false) String fit,
+                                           HttpServletRequest request, HttpServletResponse response) throws IOException {
+        VariantSpec variant = ImageVariantService.parseSpec(w, h, fit);
+        ImageMetadata image;
         try {
-            category = categoryService.findByIdPublic(categoryId);
+            image = categoryService.resolveImage(categoryId);
         } catch (IllegalArgumentException e) {
-            log.debug("Category not found for image: {}", categoryId);
+            log.debug("Category not found or has no image: {}", categoryId);
             return ResponseEntity.notFound().build();
         }
-        Path imagePath = categoryService.getCategoryImagePath(category);
-        if (imagePath == null) {
-            log.debug("Category has no imagePath: {}", categoryId);
+        if (!image.fileExists()) {
+            log.warn("Category image file not found at: {}", image.path().toAbsolutePath());
             return ResponseEntity.notFound().build();
         }
-        if (!imagePath.toFile().exists() || !imagePath.toFile().isFile()) {
-            log.warn("Category image file not found at: {}", imagePath.toAbsolutePath());
-            return ResponseEntity.notFound().build();
+        // Answer a conditional request from the variant's ETag before resizing anything.
+        if (new ServletWebRequest(request, response).checkNotModified(ImageVariantService.etag(image, variant),
+                image.lastModifiedMillis())) {
+            return ImageCaching.notModified(ImageCaching.REVALIDATE);
+        }
+        if (variant != null) {
+            image = imageVariantService.variant(image, variant);
         }
-        Resource resource = new PathResource(imagePath);
-        if (!resource.isReadable()) {
-            log.warn("Category image not readable: {}", imagePath.toAbsolutePath());
+        if (!Files.isReadable(image.path())) {
+            log.warn("Category image not readable: {}", image.path().toAbsolutePath());
             return ResponseEntity.notFound().build();
         }
-        MediaType mediaType = MediaType.parseMediaType(
-                category.getImageContentType() != null ? category.getImageContentType() : "image/png");
-        return ResponseEntity.ok()
-                .contentType(mediaType)
-                .header(HttpHeaders.CACHE_CONTROL, "private, max-age=3600")
-                .body(resource);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, ImageCaching.REVALIDATE);
+        ImageFileStreamer.write(request, response, image.path(), image.size(),
+                MediaType.parseMediaType(image.contentType()).toString(), image.etag(), image.lastModifiedMillis());
+        return null;
     }
 }
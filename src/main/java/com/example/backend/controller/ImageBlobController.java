@@ -0,0 +1,69 @@
+package com.example.backend.controller;
+
+import com.example.backend.cache.ImageMetadataCache.ImageMetadata;
+import com.example.backend.service.ImageBlobStore;
+import com.example.backend.service.ImageVariantService;
+import com.example.backend.service.ImageVariantService.VariantSpec;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Serves stored images by content hash. Public endpoint (no auth).
+ * GET /b/{hash} returns the blob behind imageContentUrl of items and categories; the URL changes whenever
+ * the image does, so responses are cacheable as immutable, unlike the per-item and per-category URLs.
+ * Optional w, h and fit query parameters return a resized variant (see ImageVariantService).
+ */
+@RestController
+@RequestMapping("/b")
+@RequiredArgsConstructor
+public class ImageBlobController {
+
+    private final ImageBlobStore imageBlobStore;
+    private final ImageVariantService imageVariantService;
+
+    @GetMapping("/{hash}")
+    public ResponseEntity<Void> serveBlob(@PathVariable String hash,
+                                          @RequestParam(required = false) Integer w,
+                                          @RequestParam(required = false) Integer h,
+                                          @RequestParam(required = false) String fit,
+                                          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        VariantSpec variant = ImageVariantService.parseSpec(w, h, fit);
+        ImageMetadata image;
+        try {
+            image = imageBlobStore.resolveImage(hash);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!image.fileExists()) {
+            return ResponseEntity.notFound().build();
+        }
+        // Answer a conditional request from the variant's ETag before resizing anything.
+        if (new ServletWebRequest(request, response).checkNotModified(ImageVariantService.etag(image, variant),
+                image.lastModifiedMillis())) {
+            return ImageCaching.notModified(ImageCaching.IMMUTABLE);
+        }
+        if (variant != null) {
+            image = imageVariantService.variant(image, variant);
+        }
+        if (!Files.isReadable(image.path())) {
+            return ResponseEntity.notFound().build();
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, ImageCaching.IMMUTABLE);
+        ImageFileStreamer.write(request, response, image.path(), image.size(),
+                MediaType.parseMediaType(image.contentType()).toString(), image.etag(), image.lastModifiedMillis());
+        return null;
+    }
+}
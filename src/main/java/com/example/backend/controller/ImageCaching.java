@@ -0,0 +1,35 @@
+package com.example.backend.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Cache-Control values shared by the image endpoints. Validators (ETag, Last-Modified) come from
+ * {@link com.example.backend.cache.ImageMetadataCache.ImageMetadata}, so conditional GETs can be answered
+ * with 304 before the image file is opened.
+ */
+final class ImageCaching {
+
+    /**
+     * /i/{code} and /b/{hash}: codes are never reused, an upload's file is never rewritten and a hash names its
+     * content, so these URLs name fixed content.
+     */
+    static final String IMMUTABLE = "private, max-age=31536000, immutable";
+
+    /** Item and category images are replaced in place under the same URL, so clients revalidate. */
+    static final String REVALIDATE = "private, max-age=3600";
+
+    private ImageCaching() {
+    }
+
+    /**
+     * 304 for a request that {@code WebRequest.checkNotModified} matched; that call has already set ETag and
+     * Last-Modified, and the response repeats the Cache-Control a 200 would carry.
+     */
+    static ResponseEntity<Void> notModified(String cacheControl) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                .build();
+    }
+}
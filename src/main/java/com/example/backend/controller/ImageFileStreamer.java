@@ -0,0 +1,165 @@
+package com.example.backend.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes image files straight to the servlet response, bypassing MVC message converters.
+ * Supports a single byte range ({@code Range} / {@code If-Range}) with 206 and 416; requests for several
+ * ranges get the whole file, which RFC 9110 allows. Bodies of at least {@link #SENDFILE_MIN_BYTES} are
+ * handed to Tomcat's sendfile when the connector offers it (plain NIO, not TLS); everything else is copied
+ * with {@link FileChannel#transferTo}.
+ * <p>
+ * Callers set Cache-Control and run the conditional (304) checks first; ETag and Last-Modified passed in
+ * are only used to evaluate If-Range.
+ */
+final class ImageFileStreamer {
+
+    /** Below this, a plain copy is cheaper than a sendfile hand-off (Tomcat DefaultServlet uses the same). */
+    static final long SENDFILE_MIN_BYTES = 48 * 1024;
+
+    private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    /** Inclusive byte range. */
+    record ByteRange(long start, long end) {
+
+        static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+        long length() {
+            return end - start + 1;
+        }
+    }
+
+    private ImageFileStreamer() {
+    }
+
+    static void write(HttpServletRequest request, HttpServletResponse response, Path path, long fileLength,
+                      String contentType, String etag, long lastModifiedMillis) throws IOException {
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        ByteRange range = null;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && ifRangeMatches(request, etag, lastModifiedMillis)) {
+            range = parseRange(rangeHeader, fileLength);
+        }
+        if (range == ByteRange.UNSATISFIABLE) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + fileLength);
+            response.setContentLength(0);
+            return;
+        }
+        long start = 0;
+        long count = fileLength;
+        if (range != null) {
+            start = range.start();
+            count = range.length();
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range.start() + "-" + range.end() + "/" + fileLength);
+        }
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        if (count >= SENDFILE_MIN_BYTES && sendfileAvailable(request, response)) {
+            // Tomcat writes the file after the request returns; end is exclusive.
+            request.setAttribute(SENDFILE_FILENAME_ATTR, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, start + count);
+            return;
+        }
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long n = file.transferTo(position, remaining, out);
+                if (n <= 0) {
+                    throw new IOException("File shorter than expected: " + path);
+                }
+                position += n;
+                remaining -= n;
+            }
+        }
+    }
+
+    /** A content-caching wrapper would never see the body, so sendfile is only used on unwrapped output. */
+    private static boolean sendfileAvailable(HttpServletRequest request, HttpServletResponse response) {
+        return Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))
+                && WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class) == null;
+    }
+
+    /** No If-Range, or one that names the current representation (strong ETag or exact Last-Modified). */
+    static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModifiedMillis) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return date >= 0 && date / 1000 == lastModifiedMillis / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Parses {@code bytes=first-last}, {@code bytes=first-} and {@code bytes=-suffix}. Returns null when the header
+     * should be ignored (malformed, other unit, several ranges) and {@link ByteRange#UNSATISFIABLE} when it
+     * starts past the end of the file.
+     */
+    static ByteRange parseRange(String header, long fileLength) {
+        String value = header.trim();
+        if (!value.regionMatches(true, 0, "bytes=", 0, 6)) {
+            return null;
+        }
+        String spec = value.substring(6).trim();
+        if (spec.indexOf(',') >= 0) {
+            return null;
+        }
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || fileLength == 0) {
+                    return ByteRange.UNSATISFIABLE;
+                }
+                return new ByteRange(Math.max(0, fileLength - suffix), fileLength - 1);
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+            if (start < 0 || end < start) {
+                return null;
+            }
+            if (start >= fileLength) {
+                return ByteRange.UNSATISFIABLE;
+            }
+            return new ByteRange(start, Math.min(end, fileLength - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
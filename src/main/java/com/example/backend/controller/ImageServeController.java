@@ -1,23 +1,33 @@
 package com.example.backend.controller;
 
-import com.example.backend.entity.ImageUpload;
+import com.example.backend.cache.ImageMetadataCache.ImageMetadata;
+import com.example.backend.cache.ShortCodeFilter;
 import com.example.backend.service.ImageUploadService;
+import com.example.backend.service.ImageVariantService;
+import com.example.backend.service.ImageVariantService.VariantSpec;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.PathResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
-import java.nio.file.Path;
+import java.io.IOException;
+import java.nio.file.Files;
 
 /**
  * Serves uploaded images by short code. Public endpoint (no auth).
  * GET /i/{code} returns the image file; use this URL in a QR code or short link.
+ * Codes that {@link ShortCodeFilter} knows do not exist get 404 without a lookup.
+ * The content behind a code never changes, so responses are cacheable as immutable and revalidations
+ * (If-None-Match / If-Modified-Since) get 304 from cached metadata without touching the file.
+ * Optional w, h and fit query parameters return a resized variant (see ImageVariantService).
  */
 @RestController
 @RequestMapping("/i")
@@ -25,19 +35,35 @@ import java.nio.file.Path;
 public class ImageServeController {
 
     private final ImageUploadService imageUploadService;
+    private final ShortCodeFilter shortCodeFilter;
+    private final ImageVariantService imageVariantService;
 
     @GetMapping("/{code}")
-    public ResponseEntity<Resource> serveImage(@PathVariable String code) {
-        ImageUpload upload = imageUploadService.resolveByShortCode(code);
-        Path path = imageUploadService.getAbsoluteFilePath(upload);
-        Resource resource = new PathResource(path);
-        if (!resource.exists() || !resource.isReadable()) {
+    public ResponseEntity<Void> serveImage(@PathVariable String code,
+                                           @RequestParam(required = false) Integer w,
+                                           @RequestParam(required = false) Integer h,
+                                           @RequestParam(required = false) String fit,
+                                           HttpServletRequest request, HttpServletResponse response) throws IOException {
+        VariantSpec variant = ImageVariantService.parseSpec(w, h, fit);
+        if (!shortCodeFilter.mightExist(ShortCodeFilter.Kind.IMAGE, code)) {
             return ResponseEntity.notFound().build();
         }
-        MediaType mediaType = MediaType.parseMediaType(upload.getContentType());
-        return ResponseEntity.ok()
-                .contentType(mediaType)
-                .header(HttpHeaders.CACHE_CONTROL, "private, max-age=3600")
-                .body(resource);
+        ImageMetadata image = imageUploadService.resolveImage(code);
+        // Answer a conditional request from the variant's ETag before resizing anything.
+        if (new ServletWebRequest(request, response).checkNotModified(ImageVariantService.etag(image, variant),
+                image.lastModifiedMillis())) {
+            return ImageCaching.notModified(ImageCaching.IMMUTABLE);
+        }
+        if (variant != null && image.fileExists()) {
+            image = imageVariantService.variant(image, variant);
+        }
+        if (!image.fileExists() || !Files.isReadable(image.path())) {
+            return ResponseEntity.notFound().build();
+        }
+        MediaType mediaType = MediaType.parseMediaType(image.contentType());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, ImageCaching.IMMUTABLE);
+        ImageFileStreamer.write(request, response, image.path(), image.size(), mediaType.toString(),
+                image.etag(), image.lastModifiedMillis());
+        return null;
     }
 }
@@ -8,15 +8,17 @@ import com.example.backend.service.ImageUploadService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.List;
 
 /**
- * API for uploading images as Base64 and listing the current user's uploads.
+ * API for uploading images (as Base64 JSON or as a multipart file) and listing the current user's uploads.
  * Each upload gets a short code; the image is served at GET /i/{shortCode}.
  */
 @RestController
@@ -40,6 +42,22 @@ public class ImageUploadController {
         }
     }
 
+    /** Multipart upload: the {@code file} part is streamed to disk instead of being decoded from Base64 in memory. */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<ImageUploadResponse>> uploadFile(
+            @RequestPart("file") MultipartFile file,
+            @RequestParam(required = false) String originalFileName,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        try {
+            ImageUploadResponse response = imageUploadService.upload(file, originalFileName, principal.getId());
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(ApiResponse.success("Image uploaded. Use imageUrl or /i/{shortCode} to view.", response));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Failed to store image: " + e.getMessage()));
+        }
+    }
+
     @GetMapping
     public ResponseEntity<ApiResponse<List<ImageUploadResponse>>> listMyUploads(
             @AuthenticationPrincipal UserPrincipal principal) {
@@ -1,18 +1,25 @@
 package com.example.backend.controller;
 
+import com.example.backend.cache.CatalogCache;
 import com.example.backend.dto.ApiResponse;
 import com.example.backend.dto.CreateItemRequest;
+import com.example.backend.dto.CursorPage;
 import com.example.backend.dto.ItemBuyerDto;
 import com.example.backend.dto.ItemResponse;
 import com.example.backend.dto.UpdateItemRequest;
+import com.example.backend.search.CatalogSearchIndex;
 import com.example.backend.security.UserPrincipal;
 import com.example.backend.service.ItemService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.List;
@@ -23,18 +30,50 @@ import java.util.List;
 public class ItemController {
 
     private final ItemService itemService;
+    private final CatalogCache catalogCache;
+    private final CatalogSearchIndex catalogSearchIndex;
 
+    /**
+     * Public: active items, one page per request; pass nextCursor back as cursor for the next page.
+     * The body, an {@code ApiResponse<CursorPage<ItemResponse>>}, is written from {@link CatalogCache} by
+     * {@link CatalogResponses}.
+     */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<ItemResponse>>> list() {
-        List<ItemResponse> items = itemService.findAll();
-        return ResponseEntity.ok(ApiResponse.success("OK", items));
+    public ResponseEntity<Void> list(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        return CatalogResponses.write(catalogCache.items(cursor, limit, sort,
+                () -> itemService.findAll(cursor, limit, sort)), request, response);
     }
 
-    /** Public: get active items by category id. */
+    /** Public: active items of a category, paginated and served like {@link #list}. */
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<ApiResponse<List<ItemResponse>>> listByCategory(@PathVariable String categoryId) {
-        List<ItemResponse> items = itemService.findByCategoryId(categoryId);
-        return ResponseEntity.ok(ApiResponse.success("OK", items));
+    public ResponseEntity<Void> listByCategory(
+            @PathVariable String categoryId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        return CatalogResponses.write(catalogCache.itemsInCategory(categoryId, cursor, limit, sort,
+                () -> itemService.findByCategoryId(categoryId, cursor, limit, sort)), request, response);
+    }
+
+    /**
+     * Public: active items matching {@code q} in their description or their category's, best match first, one
+     * page per request like {@link #list}. 503 until the search index has been built after startup.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<CursorPage<ItemResponse>>> search(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        if (!catalogSearchIndex.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error("Search is starting, try again shortly"));
+        }
+        return ResponseEntity.ok(ApiResponse.success("OK", itemService.search(q, cursor, limit)));
     }
 
     /** Logged-in user (item owner): list users who have added his items to their carts. */
@@ -67,6 +106,25 @@ public class ItemController {
         }
     }
 
+    /**
+     * Multipart create: the item fields as a JSON part named {@code item} and the image as an optional file part
+     * named {@code image}, streamed to disk instead of being sent as imageBase64.
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<ItemResponse>> createMultipart(
+            @Valid @RequestPart("item") CreateItemRequest request,
+            @RequestPart(value = "image", required = false) MultipartFile image,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        try {
+            ItemResponse item = itemService.create(request, image, principal.getId());
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(ApiResponse.success("Item created", item));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Failed to save image: " + e.getMessage()));
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ApiResponse<ItemResponse>> update(
             @PathVariable String id,
@@ -81,16 +139,27 @@ public class ItemController {
         }
     }
 
-    @DeleteMapping("/{id}")
-    public ResponseEntity<ApiResponse<Void>> delete(
+    /** Multipart update: JSON part {@code item} plus an optional {@code image} file part that replaces the image. */
+    @PutMapping(value = "/{id}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<ItemResponse>> updateMultipart(
             @PathVariable String id,
+            @Valid @RequestPart("item") UpdateItemRequest request,
+            @RequestPart(value = "image", required = false) MultipartFile image,
             @AuthenticationPrincipal UserPrincipal principal) {
         try {
-            itemService.delete(id, principal.getId());
-            return ResponseEntity.ok(ApiResponse.success("Item deleted"));
+            ItemResponse item = itemService.update(id, request, image, principal.getId());
+            return ResponseEntity.ok(ApiResponse.success("Item updated", item));
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(ApiResponse.error("Failed to delete image: " + e.getMessage()));
+                    .body(ApiResponse.error("Failed to save image: " + e.getMessage()));
         }
     }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ApiResponse<Void>> delete(
+            @PathVariable String id,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        itemService.delete(id, principal.getId());
+        return ResponseEntity.ok(ApiResponse.success("Item deleted"));
+    }
 }
@@ -1,20 +1,25 @@
 package com.example.backend.controller;
 
-import com.example.backend.entity.Item;
+import com.example.backend.cache.ImageMetadataCache.ImageMetadata;
 import com.example.backend.service.ItemService;
+import com.example.backend.service.ImageVariantService;
+import com.example.backend.service.ImageVariantService.VariantSpec;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.PathResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
-import java.nio.file.Path;
+import java.io.IOException;
+import java.nio.file.Files;
 
 @RestController
 @RequestMapping("/api/items/images")
@@ -23,40 +28,51 @@ import java.nio.file.Path;
 public class ItemImageController {
 
     private final ItemService itemService;
+    private final ImageVariantService imageVariantService;
 
     @GetMapping("/{userId}/{itemId}")
-    public ResponseEntity<Resource> serveImageWithUser(@PathVariable Long userId, @PathVariable String itemId) {
-        return serveImage(itemId);
+    public ResponseEntity<Void> serveImageWithUser(@PathVariable Long userId, @PathVariable String itemId,
+                                                   @RequestParam(required = false) Integer w,
+                                                   @RequestParam(required = false) Integer h,
+                                                   @RequestParam(required = false) String fit,
+                                                   HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        return serveImage(itemId, w, h, fit, request, response);
     }
 
     @GetMapping("/{itemId}")
-    public ResponseEntity<Resource> serveImage(@PathVariable String itemId) {
-        Item item;
+    public ResponseEntity<Void> serveImage(@PathVariable String itemId,
+                                           @RequestParam(required = false) Integer w,
+                                           @RequestParam(required = false) Integer h,
+                                           @RequestParam(required = false) String fit,
+                                           HttpServletRequest request, HttpServletResponse response) throws IOException {
+        VariantSpec variant = ImageVariantService.parseSpec(w, h, fit);
+        ImageMetadata image;
         try {
-            item = itemService.findByIdPublic(itemId);
+            image = itemService.resolveImage(itemId);
         } catch (IllegalArgumentException e) {
-            log.debug("Item not found for image: {}", itemId);
+            log.debug("Item not found or has no image: {}", itemId);
             return ResponseEntity.notFound().build();
         }
-        Path imagePath = itemService.getItemImagePath(item);
-        if (imagePath == null) {
-            log.debug("Item has no imagePath: {}", itemId);
+        if (!image.fileExists()) {
+            log.warn("Item image file not found at: {}", image.path().toAbsolutePath());
             return ResponseEntity.notFound().build();
         }
-        if (!imagePath.toFile().exists() || !imagePath.toFile().isFile()) {
-            log.warn("Item image file not found at: {}", imagePath.toAbsolutePath());
-            return ResponseEntity.notFound().build();
+        // Answer a conditional request from the variant's ETag before resizing anything.
+        if (new ServletWebRequest(request, response).checkNotModified(ImageVariantService.etag(image, variant),
+                image.lastModifiedMillis())) {
+            return ImageCaching.notModified(ImageCaching.REVALIDATE);
+        }
+        if (variant != null) {
+            image = imageVariantService.variant(image, variant);
         }
-        Resource resource = new PathResource(imagePath);
-        if (!resource.isReadable()) {
-            log.warn("Item image not readable: {}", imagePath.toAbsolutePath());
+        if (!Files.isReadable(image.path())) {
+            log.warn("Item image not readable: {}", image.path().toAbsolutePath());
             return ResponseEntity.notFound().build();
         }
-        MediaType mediaType = MediaType.parseMediaType(
-                item.getImageContentType() != null ? item.getImageContentType() : "image/png");
-        return ResponseEntity.ok()
-                .contentType(mediaType)
-                .header(HttpHeaders.CACHE_CONTROL, "private, max-age=3600")
-                .body(resource);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, ImageCaching.REVALIDATE);
+        ImageFileStreamer.write(request, response, image.path(), image.size(),
+                MediaType.parseMediaType(image.contentType()).toString(), image.etag(), image.lastModifiedMillis());
+        return null;
     }
 }
@@ -0,0 +1,145 @@
+package com.example.backend.controller;
+
+import com.example.backend.cache.ImageMetadataCache.ImageMetadata;
+import com.example.backend.cache.ShortCodeFilter;
+import com.example.backend.dto.ApiResponse;
+import com.example.backend.service.ImageUploadService;
+import com.example.backend.service.ImageVariantService;
+import com.example.backend.service.ImageVariantService.VariantSpec;
+import com.example.backend.service.ShortenerService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+
+/**
+ * Serves plain GET /s/{code} and GET /i/{code} before the rest of the filter chain: no logging wrappers,
+ * no JWT parsing or security context, no MVC dispatch. Registered first by PublicPathFilterConfig.
+ * <p>
+ * Responses match ShortenerRedirectController and ImageServeController, which still handle everything this
+ * filter passes on: other methods, nested paths and cross-origin requests (Origin header), which need the
+ * CORS handling of the security chain. Errors are written in the GlobalExceptionHandler format.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PublicPathFilter implements Filter {
+
+    private static final String REDIRECT_PREFIX = "/s/";
+    private static final String IMAGE_PREFIX = "/i/";
+    /** What Spring Security sets on responses that do not choose their own caching. */
+    private static final String NO_CACHE = "no-cache, no-store, max-age=0, must-revalidate";
+
+    private final ShortenerService shortenerService;
+    private final ImageUploadService imageUploadService;
+    private final ShortCodeFilter shortCodeFilter;
+    private final ImageVariantService imageVariantService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain) throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) req;
+        HttpServletResponse response = (HttpServletResponse) res;
+        String uri = request.getRequestURI();
+        boolean redirect = uri.startsWith(REDIRECT_PREFIX);
+        if ((!redirect && !uri.startsWith(IMAGE_PREFIX))
+                || !"GET".equals(request.getMethod())
+                || request.getHeader(HttpHeaders.ORIGIN) != null
+                || uri.length() == 3
+                || uri.indexOf('/', 3) >= 0) {
+            chain.doFilter(req, res);
+            return;
+        }
+        String code = uri.substring(3);
+        try {
+            if (redirect) {
+                redirect(code, request, response);
+            } else {
+                serveImage(code, request, response);
+            }
+        } catch (IllegalArgumentException e) {
+            writeError(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Error serving {}", uri, e);
+            writeError(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "An error occurred");
+        }
+    }
+
+    private void redirect(String code, HttpServletRequest request, HttpServletResponse response) {
+        if (!shortCodeFilter.mightExist(ShortCodeFilter.Kind.SHORTENER, code)) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String fullUrl = shortenerService.resolveAndIncrementClick(code,
+                request.getHeader(HttpHeaders.REFERER), request.getHeader(HttpHeaders.USER_AGENT));
+        response.setStatus(HttpServletResponse.SC_FOUND);
+        response.setHeader(HttpHeaders.LOCATION, URI.create(fullUrl).toASCIIString());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, NO_CACHE);
+    }
+
+    private void serveImage(String code, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!shortCodeFilter.mightExist(ShortCodeFilter.Kind.IMAGE, code)) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        VariantSpec variant = ImageVariantService.parseSpec(intParameter(request, "w"), intParameter(request, "h"),
+                request.getParameter("fit"));
+        ImageMetadata image = imageUploadService.resolveImage(code);
+        // Sets 304 (with ETag and Last-Modified) before the file is looked at or a variant is resized.
+        if (new ServletWebRequest(request, response).checkNotModified(ImageVariantService.etag(image, variant),
+                image.lastModifiedMillis())) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, ImageCaching.IMMUTABLE);
+            return;
+        }
+        if (variant != null && image.fileExists()) {
+            image = imageVariantService.variant(image, variant);
+        }
+        if (!image.fileExists() || !Files.isReadable(image.path())) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String contentType = MediaType.parseMediaType(image.contentType()).toString();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, ImageCaching.IMMUTABLE);
+        // Content types are client-supplied; do not let browsers sniff something else.
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        ImageFileStreamer.write(request, response, image.path(), image.size(), contentType,
+                image.etag(), image.lastModifiedMillis());
+    }
+
+    /** Mirrors the Integer binding of ImageServeController's w and h parameters. */
+    private static Integer intParameter(HttpServletRequest request, String name) {
+        String value = request.getParameter(name);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+    }
+
+    private void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        if (response.isCommitted()) {
+            return;
+        }
+        response.resetBuffer();
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), ApiResponse.error(message));
+    }
+}
@@ -1,21 +1,29 @@
 package com.example.backend.controller;
 
+import com.example.backend.cache.RenderedQrCache.RenderedQr;
 import com.example.backend.dto.ApiResponse;
+import com.example.backend.dto.QrBatchRequest;
 import com.example.backend.dto.ShortenerResponse;
 import com.example.backend.security.UserPrincipal;
+import com.example.backend.service.QrCodeService;
 import com.example.backend.service.ShortenerService;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 
 /**
- * API for listing the current user's short links (QR codes).
- * Each short link can be represented as a QR code on the frontend.
+ * API for the current user's short links (QR codes).
+ * QR images can be rendered server-side as PNG or SVG, one at a time or as a ZIP batch.
  */
 @RestController
 @RequestMapping("/api/qr-codes")
@@ -23,6 +31,7 @@ import java.util.List;
 public class QrCodeController {
 
     private final ShortenerService shortenerService;
+    private final QrCodeService qrCodeService;
 
     /**
      * List all QR codes (short links) generated by the current user.
@@ -33,4 +42,38 @@ public class QrCodeController {
         List<ShortenerResponse> list = shortenerService.findAllByUserId(principal.getId());
         return ResponseEntity.ok(ApiResponse.success("OK", list));
     }
+
+    /**
+     * QR code image for the link's public /s/{code} URL. format: png or svg; size in pixels (64-2048, default 256);
+     * ec: error correction level L, M (default), Q or H. Served with a strong ETag; If-None-Match gets 304.
+     */
+    @GetMapping("/{id}.{format}")
+    public ResponseEntity<byte[]> render(
+            @PathVariable Long id,
+            @PathVariable String format,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(name = "ec", required = false) String errorCorrection,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        RenderedQr qr = qrCodeService.render(id, principal.getId(), format, size, errorCorrection);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(qr.contentType()))
+                .eTag(qr.etag())
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(1)).cachePrivate())
+                .body(qr.bytes());
+    }
+
+    /**
+     * ZIP of QR images ({code}.png or {code}.svg) for many of the user's links, streamed as they are rendered.
+     */
+    @PostMapping("/batch")
+    public void renderBatch(
+            @Valid @RequestBody QrBatchRequest request,
+            HttpServletResponse response,
+            @AuthenticationPrincipal UserPrincipal principal) throws IOException {
+        QrCodeService.QrBatch batch = qrCodeService.prepareBatch(request.getIds(), principal.getId(),
+                request.getFormat(), request.getSize(), request.getErrorCorrection());
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"qr-codes.zip\"");
+        qrCodeService.writeZip(batch, response.getOutputStream());
+    }
 }
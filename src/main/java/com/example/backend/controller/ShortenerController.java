@@ -1,18 +1,30 @@
 package com.example.backend.controller;
 
 import com.example.backend.dto.ApiResponse;
+import com.example.backend.dto.BulkShortenerResult;
 import com.example.backend.dto.CreateShortenerRequest;
 import com.example.backend.dto.ShortenerResponse;
+import com.example.backend.dto.ShortenerStatsResponse;
 import com.example.backend.dto.UpdateShortenerRequest;
 import com.example.backend.security.UserPrincipal;
+import com.example.backend.service.ShortenerBulkService;
 import com.example.backend.service.ShortenerService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
 import java.util.List;
 
 @RestController
@@ -21,6 +33,8 @@ import java.util.List;
 public class ShortenerController {
 
     private final ShortenerService shortenerService;
+    private final ShortenerBulkService shortenerBulkService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
     public ResponseEntity<ApiResponse<List<ShortenerResponse>>> list(
@@ -37,6 +51,21 @@ public class ShortenerController {
         return ResponseEntity.ok(ApiResponse.success("OK", s));
     }
 
+    /**
+     * Click stats for a short link. granularity: minute, hour (default) or day; from/to are ISO-8601 instants
+     * (default: the last 24 hours).
+     */
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<ApiResponse<ShortenerStatsResponse>> stats(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String granularity,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        ShortenerStatsResponse stats = shortenerService.getStats(id, principal.getId(), from, to, granularity);
+        return ResponseEntity.ok(ApiResponse.success("OK", stats));
+    }
+
     @PostMapping
     public ResponseEntity<ApiResponse<ShortenerResponse>> create(
             @Valid @RequestBody CreateShortenerRequest request,
@@ -45,6 +74,32 @@ public class ShortenerController {
         return ResponseEntity.status(HttpStatus.CREATED).body(ApiResponse.success("Short link created", s));
     }
 
+    /**
+     * Bulk create from a JSON array of {fullUrl, shortCode?, expiresAt?} or a CSV stream (text/csv:
+     * fullUrl,shortCode,expiresAt). Responds with one NDJSON result line per input row, streamed as rows are processed.
+     */
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, "text/csv"})
+    public void bulkCreate(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            @AuthenticationPrincipal UserPrincipal principal) throws IOException {
+        boolean csv = request.getContentType() != null && request.getContentType().startsWith("text/csv");
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        OutputStream out = response.getOutputStream();
+        shortenerBulkService.bulkCreate(request.getInputStream(), csv, principal.getId(), results -> {
+            try {
+                for (BulkShortenerResult r : results) {
+                    out.write(objectMapper.writeValueAsBytes(r));
+                    out.write('\n');
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ApiResponse<ShortenerResponse>> update(
             @PathVariable Long id,
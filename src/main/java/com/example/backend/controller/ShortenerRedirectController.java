@@ -1,5 +1,6 @@
 package com.example.backend.controller;
 
+import com.example.backend.cache.ShortCodeFilter;
 import com.example.backend.service.ShortenerService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
@@ -7,6 +8,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -15,6 +17,7 @@ import java.net.URI;
 /**
  * Public redirect endpoint. No authentication required.
  * GET /s/{code} redirects to the stored full URL and increments the click count.
+ * Codes that {@link ShortCodeFilter} knows do not exist get 404 without a lookup.
  */
 @RestController
 @RequestMapping("/s")
@@ -22,10 +25,17 @@ import java.net.URI;
 public class ShortenerRedirectController {
 
     private final ShortenerService shortenerService;
+    private final ShortCodeFilter shortCodeFilter;
 
     @GetMapping("/{code}")
-    public ResponseEntity<Void> redirect(@PathVariable String code) {
-        String fullUrl = shortenerService.resolveAndIncrementClick(code);
+    public ResponseEntity<Void> redirect(
+            @PathVariable String code,
+            @RequestHeader(value = HttpHeaders.REFERER, required = false) String referer,
+            @RequestHeader(value = HttpHeaders.USER_AGENT, required = false) String userAgent) {
+        if (!shortCodeFilter.mightExist(ShortCodeFilter.Kind.SHORTENER, code)) {
+            return ResponseEntity.notFound().build();
+        }
+        String fullUrl = shortenerService.resolveAndIncrementClick(code, referer, userAgent);
         HttpHeaders headers = new HttpHeaders();
         headers.setLocation(URI.create(fullUrl));
         return new ResponseEntity<>(headers, HttpStatus.FOUND);
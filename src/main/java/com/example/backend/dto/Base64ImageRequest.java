@@ -0,0 +1,22 @@
+package com.example.backend.dto;
+
+/**
+ * JSON request carrying an image as a Base64 string property (raw or data URL). For request bodies,
+ * Base64ImageMessageConverter decodes that property into a {@link SpooledImage} while the body is read and
+ * hands it over with {@link #acceptSpooledImage}; the string property itself then stays null, so neither the
+ * Base64 text nor the decoded bytes are held in memory.
+ */
+public interface Base64ImageRequest {
+
+    /** Name of the JSON property holding the Base64 image. */
+    String base64Property();
+
+    /**
+     * Called with the decoded image; {@code dataUrlContentType} is the type of a data URL, or null. It applies
+     * only when the request does not name a content type itself, as for Base64 strings.
+     */
+    void acceptSpooledImage(SpooledImage image, String dataUrlContentType);
+
+    /** The image decoded by the converter, or null when the Base64 string is set instead (or no image was sent). */
+    SpooledImage getSpooledImage();
+}
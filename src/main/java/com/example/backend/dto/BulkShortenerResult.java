@@ -0,0 +1,18 @@
+package com.example.backend.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/** One line of the POST /api/shorteners/bulk response (NDJSON): outcome of one input row. */
+@Data
+@Builder
+public class BulkShortenerResult {
+
+    /** 1-based position of the row in the input (header line excluded for CSV). */
+    private int row;
+    private boolean success;
+    private Long id;
+    private String shortCode;
+    private String fullUrl;
+    private String error;
+}
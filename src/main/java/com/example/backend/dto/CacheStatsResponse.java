@@ -0,0 +1,20 @@
+package com.example.backend.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/** Snapshot of an in-process cache's size and hit/miss/eviction counters (admin monitoring). */
+@Data
+@Builder
+public class CacheStatsResponse {
+
+    private String name;
+    private long size;
+    /** Current total weight; equals size for caches bounded by entry count. */
+    private long weight;
+    private long maxWeight;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private double hitRatio;
+}
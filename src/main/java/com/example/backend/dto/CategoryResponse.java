@@ -12,20 +12,25 @@ public class CategoryResponse {
     private String id;
     private String description;
     private String imageUrl;
+    /** Immutable URL of the current image content (GET /b/{hash}); null without an image or for legacy images. */
+    private String imageContentUrl;
     private boolean active;
     private Long userId;
     private Instant createdAt;
     private Instant updatedAt;
 
     public static CategoryResponse fromEntity(com.example.backend.entity.Category category, String baseUrl) {
+        String base = baseUrl.trim().replaceAll("/$", "");
         String imageUrl = null;
         if (category.getImagePath() != null && !category.getImagePath().isBlank()) {
-            imageUrl = baseUrl.trim().replaceAll("/$", "") + "/api/categories/images/" + category.getImagePath();
+            imageUrl = base + "/api/categories/images/" + category.getImagePath();
         }
+        String imageContentUrl = category.getImageHash() != null ? base + "/b/" + category.getImageHash() : null;
         return CategoryResponse.builder()
                 .id(category.getId())
                 .description(category.getDescription())
                 .imageUrl(imageUrl)
+                .imageContentUrl(imageContentUrl)
                 .active(category.isActive())
                 .userId(category.getUser() != null ? category.getUser().getId() : null)
                 .createdAt(category.getCreatedAt())
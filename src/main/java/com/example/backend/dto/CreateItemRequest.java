@@ -1,5 +1,6 @@
 package com.example.backend.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -8,7 +9,7 @@ import lombok.Data;
 
 /** Request to create an item. The item's user_id is set from the JWT (authenticated user), not from this DTO. */
 @Data
-public class CreateItemRequest {
+public class CreateItemRequest implements Base64ImageRequest {
 
     @NotBlank(message = "Description is required")
     @Size(max = 500)
@@ -29,4 +30,21 @@ public class CreateItemRequest {
 
     @Valid
     private ContactDto contact;
+
+    /** Set instead of {@code imageBase64} when the JSON body was read by Base64ImageMessageConverter. */
+    @JsonIgnore
+    private SpooledImage spooledImage;
+
+    @Override
+    public String base64Property() {
+        return "imageBase64";
+    }
+
+    @Override
+    public void acceptSpooledImage(SpooledImage image, String dataUrlContentType) {
+        spooledImage = image;
+        if ((imageContentType == null || imageContentType.isBlank()) && dataUrlContentType != null) {
+            imageContentType = dataUrlContentType;
+        }
+    }
 }
@@ -0,0 +1,19 @@
+package com.example.backend.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of a cursor-paginated listing. Pass {@code nextCursor} back as {@code cursor} for the next page;
+ * it is null on the last page. Cursors are opaque and only valid with the same {@code sort}.
+ */
+@Data
+@Builder
+public class CursorPage<T> {
+
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,22 @@
+package com.example.backend.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/** Outcome of one image garbage collection run (admin monitoring); a dry run counts what it would delete. */
+@Data
+@Builder
+public class ImageGcReport {
+
+    private boolean dryRun;
+    /** Files under the image directory looked at, including those skipped as too recent. */
+    private long filesScanned;
+    /** Image files no row refers to: legacy item, category and upload files and blob files without a row. */
+    private long orphanFiles;
+    /** Spooled uploads and interrupted deletes left in the blob directory. */
+    private long tempFiles;
+    /** image_blobs rows (and their files) left without references. */
+    private long unreferencedBlobs;
+    private long bytesReclaimed;
+    private long durationMs;
+}
@@ -1,6 +1,7 @@
 package com.example.backend.dto;
 
-import jakarta.validation.constraints.NotBlank;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
 import lombok.Data;
 
 /**
@@ -9,13 +10,35 @@ import lombok.Data;
  * contentType: optional if base64 is a data URL; otherwise e.g. image/png, image/jpeg.
  */
 @Data
-public class ImageUploadRequest {
+public class ImageUploadRequest implements Base64ImageRequest {
 
-    @NotBlank(message = "Base64 image data is required")
     private String base64;
 
     /** e.g. image/png, image/jpeg. Optional when base64 is a data URL. */
     private String contentType;
 
     private String originalFileName;
+
+    /** Set instead of {@code base64} when the JSON body was read by Base64ImageMessageConverter. */
+    @JsonIgnore
+    private SpooledImage spooledImage;
+
+    @JsonIgnore
+    @AssertTrue(message = "Base64 image data is required")
+    public boolean isImagePresent() {
+        return spooledImage != null || (base64 != null && !base64.isBlank());
+    }
+
+    @Override
+    public String base64Property() {
+        return "base64";
+    }
+
+    @Override
+    public void acceptSpooledImage(SpooledImage image, String dataUrlContentType) {
+        spooledImage = image;
+        if ((contentType == null || contentType.isBlank()) && dataUrlContentType != null) {
+            contentType = dataUrlContentType;
+        }
+    }
 }
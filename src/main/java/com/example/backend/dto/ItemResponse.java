@@ -12,6 +12,8 @@ public class ItemResponse {
     private String id;
     private String description;
     private String imageUrl;
+    /** Immutable URL of the current image content (GET /b/{hash}); null without an image or for legacy images. */
+    private String imageContentUrl;
     private boolean active;
     private Long userId;
     private String categoryId;
@@ -22,14 +24,17 @@ public class ItemResponse {
     private Instant updatedAt;
 
     public static ItemResponse fromEntity(com.example.backend.entity.Item item, String baseUrl) {
+        String base = baseUrl.trim().replaceAll("/$", "");
         String imageUrl = null;
         if (item.getImagePath() != null && !item.getImagePath().isBlank()) {
-            imageUrl = baseUrl.trim().replaceAll("/$", "") + "/api/items/images/" + item.getImagePath();
+            imageUrl = base + "/api/items/images/" + item.getImagePath();
         }
+        String imageContentUrl = item.getImageHash() != null ? base + "/b/" + item.getImageHash() : null;
         return ItemResponse.builder()
                 .id(item.getId())
                 .description(item.getDescription())
                 .imageUrl(imageUrl)
+                .imageContentUrl(imageContentUrl)
                 .active(item.isActive())
                 .userId(item.getUser() != null ? item.getUser().getId() : null)
                 .categoryId(item.getCategory() != null ? item.getCategory().getId() : null)
@@ -0,0 +1,22 @@
+package com.example.backend.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class QrBatchRequest {
+
+    @NotEmpty(message = "At least one short link id is required")
+    private List<Long> ids;
+
+    /** png (default) or svg. */
+    private String format;
+
+    /** Image size in pixels (default 256). */
+    private Integer size;
+
+    /** L, M (default), Q or H. */
+    private String errorCorrection;
+}
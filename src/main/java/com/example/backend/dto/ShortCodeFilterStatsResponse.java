@@ -0,0 +1,28 @@
+package com.example.backend.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+/** Sizing and reject counters of one short code Bloom filter (GET /api/admin/short-code-filters). */
+@Data
+@Builder
+public class ShortCodeFilterStatsResponse {
+
+    private String name;
+    /** False until the first build finished; until then every code is looked up. */
+    private boolean ready;
+    private long bitSize;
+    private int hashFunctions;
+    private long expectedInsertions;
+    private long insertions;
+    /** Estimated from the fraction of bits set. */
+    private double expectedFalsePositiveRate;
+    private long checks;
+    /** Codes answered with 404 without a lookup. */
+    private long rejects;
+    /** Codes the filter let through that the lookup did not find. */
+    private long falsePositives;
+    private Instant lastRebuildAt;
+}
@@ -0,0 +1,34 @@
+package com.example.backend.dto;
+
+import com.example.backend.entity.StatsGranularity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+public class ShortenerStatsResponse {
+
+    private Long shortenerId;
+    private StatsGranularity granularity;
+    private Instant from;
+    private Instant to;
+    private long totalClicks;
+    /** Non-empty buckets only, oldest first. */
+    private List<Bucket> buckets;
+    /** Clicks per referrer host, from the daily rollups overlapping [from, to]. */
+    private Map<String, Long> referrers;
+    /** Clicks per user-agent class (desktop, mobile, tablet, bot, other), from the daily rollups. */
+    private Map<String, Long> userAgents;
+
+    @Data
+    @AllArgsConstructor
+    public static class Bucket {
+        private Instant start;
+        private long clicks;
+    }
+}
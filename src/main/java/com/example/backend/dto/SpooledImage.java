@@ -0,0 +1,10 @@
+package com.example.backend.dto;
+
+import java.nio.file.Path;
+
+/**
+ * An uploaded image already written to a temp file, with the SHA-256 (lowercase hex) and size of its bytes.
+ * Produced by ImageBlobStore.spool, from multipart parts and from Base64 fields of JSON requests.
+ */
+public record SpooledImage(Path file, String hash, long size) {
+}
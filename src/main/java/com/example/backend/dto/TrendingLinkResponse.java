@@ -0,0 +1,18 @@
+package com.example.backend.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/** One entry of GET /api/admin/qr-codes/trending. */
+@Data
+@Builder
+public class TrendingLinkResponse {
+
+    private Long shortenerId;
+    private String shortCode;
+    private String fullUrl;
+    /** Estimated redirects in the window; never lower than the true count. */
+    private long clicks;
+    /** How much {@code clicks} may overstate the true count (0 = exact). */
+    private long maxOvercount;
+}
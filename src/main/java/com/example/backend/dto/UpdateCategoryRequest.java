@@ -1,11 +1,12 @@
 package com.example.backend.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
 
 @Data
-public class UpdateCategoryRequest {
+public class UpdateCategoryRequest implements Base64ImageRequest {
 
     @NotBlank(message = "Description is required")
     @Size(max = 500, message = "Description must not exceed 500 characters")
@@ -19,4 +20,21 @@ public class UpdateCategoryRequest {
 
     /** Optional. When false, category is inactive and excluded from list endpoints. */
     private Boolean active;
+
+    /** Set instead of {@code imageBase64} when the JSON body was read by Base64ImageMessageConverter. */
+    @JsonIgnore
+    private SpooledImage spooledImage;
+
+    @Override
+    public String base64Property() {
+        return "imageBase64";
+    }
+
+    @Override
+    public void acceptSpooledImage(SpooledImage image, String dataUrlContentType) {
+        spooledImage = image;
+        if ((imageContentType == null || imageContentType.isBlank()) && dataUrlContentType != null) {
+            imageContentType = dataUrlContentType;
+        }
+    }
 }
@@ -1,12 +1,13 @@
 package com.example.backend.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
 
 @Data
-public class UpdateItemRequest {
+public class UpdateItemRequest implements Base64ImageRequest {
 
     @NotBlank(message = "Description is required")
     @Size(max = 500)
@@ -24,4 +25,21 @@ public class UpdateItemRequest {
 
     @Valid
     private ContactDto contact;
+
+    /** Set instead of {@code imageBase64} when the JSON body was read by Base64ImageMessageConverter. */
+    @JsonIgnore
+    private SpooledImage spooledImage;
+
+    @Override
+    public String base64Property() {
+        return "imageBase64";
+    }
+
+    @Override
+    public void acceptSpooledImage(SpooledImage image, String dataUrlContentType) {
+        spooledImage = image;
+        if ((imageContentType == null || imageContentType.isBlank()) && dataUrlContentType != null) {
+            imageContentType = dataUrlContentType;
+        }
+    }
 }
@@ -10,7 +10,8 @@ import lombok.Setter;
  * Extends BaseAuditEntity for createdAt/updatedAt audit fields.
  */
 @Entity
-@Table(name = "categories")
+@Table(name = "categories",
+        indexes = @Index(name = "idx_categories_active_created", columnList = "active, created_at, id"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -23,13 +24,20 @@ public class Category extends BaseAuditEntity {
     @Column(nullable = false, length = 500)
     private String description;
 
-    /** Relative path under the upload root, e.g. "categories/1/uuid" (no extension). */
+    /**
+     * "{userId}/{categoryId}", the image's name in imageUrl. Without {@code imageHash} (images stored before the
+     * blob store) it is also the file path under the categories directory.
+     */
     @Column(length = 512)
     private String imagePath;
 
     @Column(length = 500)
     private String imageContentType;
 
+    /** SHA-256 of the image content (see ImageBlob); null for images stored before the blob store. */
+    @Column(name = "image_hash", length = 64)
+    private String imageHash;
+
     /** When false, category is excluded from public and user list endpoints. */
     @Column(nullable = false)
     private boolean active = true;
@@ -0,0 +1,34 @@
+package com.example.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One stored image file, addressed by the SHA-256 of its bytes and shared by every upload, item and category
+ * that holds the same content. {@code refCount} counts those references; a blob at zero is deleted together
+ * with its file (see ImageBlobStore).
+ */
+@Entity
+@Table(name = "image_blobs")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ImageBlob extends BaseAuditEntity {
+
+    /** Lowercase hex SHA-256 of the content. */
+    @Id
+    @Column(name = "hash", updatable = false, nullable = false, length = 64)
+    private String hash;
+
+    @Column(nullable = false)
+    private long size;
+
+    /** Content type declared by the first upload of these bytes; served on the content URL. */
+    @Column(name = "content_type", nullable = false, length = 100)
+    private String contentType;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+}
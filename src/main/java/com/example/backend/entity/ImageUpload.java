@@ -25,10 +25,17 @@ public class ImageUpload {
     @Column(nullable = false, unique = true, length = 32)
     private String shortCode;
 
-    /** Relative path under the upload root, e.g. "1/abc12" (no extension). */
+    /**
+     * Relative path under the upload root: "blobs/ab/cd/{hash}" for content-addressed uploads,
+     * "1/abc12" (no extension) for uploads stored before the blob store.
+     */
     @Column(nullable = false, length = 512)
     private String filePath;
 
+    /** SHA-256 of the content (see ImageBlob); null for uploads stored before the blob store. */
+    @Column(length = 64)
+    private String contentHash;
+
     @Column(nullable = false, length = 100)
     private String contentType;
 
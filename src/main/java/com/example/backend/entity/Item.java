@@ -10,12 +10,26 @@ import lombok.Setter;
  * Can have optional address and contact. Same pattern as Category.
  */
 @Entity
-@Table(name = "items")
+@Table(name = "items", indexes = {
+        @Index(name = "idx_items_active_created", columnList = "active, created_at, id"),
+        @Index(name = "idx_items_category_active_created", columnList = "category_id, active, created_at, id")
+})
+@NamedEntityGraph(name = Item.LISTING_GRAPH, attributeNodes = {
+        @NamedAttributeNode("detail"),
+        @NamedAttributeNode("address"),
+        @NamedAttributeNode("contact")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 public class Item extends BaseAuditEntity {
 
+    /**
+     * Fetch plan of item listings: everything ItemResponse reads, joined into the listing query. User and
+     * category are only read by id, which their lazy references hold without a query.
+     */
+    public static final String LISTING_GRAPH = "Item.listing";
+
     @Id
     @Column(name = "id", updatable = false, nullable = false, length = 36)
     private String id;
@@ -29,6 +43,10 @@ public class Item extends BaseAuditEntity {
     @Column(name = "image_content_type", length = 100)
     private String imageContentType;
 
+    /** SHA-256 of the image content (see ImageBlob); null for images stored before the blob store. */
+    @Column(name = "image_hash", length = 64)
+    private String imageHash;
+
     @Column(nullable = false)
     private boolean active = true;
 
@@ -0,0 +1,25 @@
+package com.example.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Named counter from which short code blocks are leased (see ShortCodeAllocator).
+ * {@code nextValue} is the first value not yet handed out to any node.
+ */
+@Entity
+@Table(name = "short_code_sequences")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ShortCodeSequence {
+
+    @Id
+    @Column(length = 32)
+    private String name;
+
+    @Column(name = "next_value", nullable = false)
+    private long nextValue;
+}
@@ -8,7 +8,8 @@ import lombok.Setter;
 import java.time.Instant;
 
 @Entity
-@Table(name = "shorteners")
+@Table(name = "shorteners",
+        indexes = @Index(name = "idx_shorteners_active_expires_at", columnList = "active, expires_at"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -28,7 +29,8 @@ public class Shortener {
     @JoinColumn(name = "user_id")
     private User user;
 
-    @Column(nullable = false)
+    /** Only ever incremented in SQL by ShortenerClickCounter; never written back from a loaded entity. */
+    @Column(nullable = false, updatable = false)
     private int clickCount = 0;
 
     @Column(nullable = false, updatable = false)
@@ -38,4 +40,8 @@ public class Shortener {
 
     @Column(nullable = false)
     private boolean active = true;
+
+    /** Set when ShortenerExpirySweeper turned the link off, as opposed to its owner; cleared when either turns it back on. */
+    @Column(nullable = false)
+    private boolean deactivatedByExpiry = false;
 }
@@ -0,0 +1,55 @@
+package com.example.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Aggregated click count of one short link for one time bucket.
+ * TOTAL rows exist for every granularity; REFERRER and AGENT breakdowns are kept per DAY only.
+ * Rows are written by ClickAnalyticsService with batched upserts, never per click.
+ */
+@Entity
+@Table(name = "shortener_click_rollups",
+        uniqueConstraints = @UniqueConstraint(name = "uk_click_rollup_bucket",
+                columnNames = {"shortener_id", "granularity", "dimension", "bucket_start", "dimension_value"}),
+        indexes = @Index(name = "idx_click_rollup_granularity_bucket", columnList = "granularity, bucket_start"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class ShortenerClickRollup {
+
+    public enum Dimension {
+        TOTAL,
+        REFERRER,
+        AGENT
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** Plain id (no association) to keep the table compact; rows are removed with the shortener. */
+    @Column(name = "shortener_id", nullable = false)
+    private Long shortenerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private StatsGranularity granularity;
+
+    /** Bucket start in epoch seconds (UTC). */
+    @Column(name = "bucket_start", nullable = false)
+    private long bucketStart;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Dimension dimension;
+
+    /** Referrer host or user-agent class; empty for TOTAL rows. */
+    @Column(name = "dimension_value", nullable = false, length = 255)
+    private String dimensionValue = "";
+
+    @Column(nullable = false)
+    private long clicks;
+}
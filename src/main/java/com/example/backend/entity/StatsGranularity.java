@@ -0,0 +1,25 @@
+package com.example.backend.entity;
+
+/**
+ * Bucket size for click rollups: MINUTE, HOUR or DAY (UTC).
+ */
+public enum StatsGranularity {
+    MINUTE(60),
+    HOUR(3600),
+    DAY(86400);
+
+    private final long seconds;
+
+    StatsGranularity(long seconds) {
+        this.seconds = seconds;
+    }
+
+    public long getSeconds() {
+        return seconds;
+    }
+
+    /** Start of the bucket containing {@code epochSecond}, as epoch seconds. */
+    public long bucketStart(long epochSecond) {
+        return Math.floorDiv(epochSecond, seconds) * seconds;
+    }
+}
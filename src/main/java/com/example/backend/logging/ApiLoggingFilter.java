@@ -14,10 +14,14 @@ import org.springframework.web.util.ContentCachingResponseWrapper;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Logs all API request/response (method, URI, headers, body, status, duration) to file and console.
  * Only applies to /api/** and /s/** paths. Request/response body truncated for safety.
+ * Streaming endpoints (see {@link #STREAMING_PATHS}), image files, redirects and the cached catalog listings are logged
+ * without bodies so they are not buffered in memory. Plain GET /s/{code} and /i/{code} are answered by PublicPathFilter before this filter runs.
  */
 @Component
 public class ApiLoggingFilter extends OncePerRequestFilter {
@@ -25,6 +29,18 @@ public class ApiLoggingFilter extends OncePerRequestFilter {
     private static final Logger log = LoggerFactory.getLogger(ApiLoggingFilter.class);
 
     private static final int MAX_BODY_LOG_LENGTH = 2000;
+    /** Request bytes kept for logging: enough for MAX_BODY_LOG_LENGTH characters of UTF-8, not whole image uploads. */
+    private static final int MAX_BODY_CACHE_BYTES = MAX_BODY_LOG_LENGTH * 4;
+
+    /** Request/response bodies of these paths are streamed and must not be wrapped in content-caching wrappers. */
+    private static final Set<String> STREAMING_PATHS = Set.of("/api/shorteners/bulk", "/api/qr-codes/batch");
+
+    /** Binary file responses (streamed or sent with sendfile); logged without bodies as well. */
+    private static final List<String> STREAMING_PREFIXES = List.of("/s/", "/b/", "/api/items/images/", "/api/categories/images/");
+
+    /** GET listings written from CatalogCache as ready-made bytes; buffering them again would double the copy. */
+    private static final Set<String> SNAPSHOT_PATHS = Set.of("/api/items", "/api/categories");
+    private static final String SNAPSHOT_PREFIX = "/api/items/category/";
 
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
@@ -36,7 +52,18 @@ public class ApiLoggingFilter extends OncePerRequestFilter {
     protected void doFilterInternal(@NonNull HttpServletRequest request,
                                     @NonNull HttpServletResponse response,
                                     @NonNull FilterChain filterChain) throws ServletException, IOException {
-        ContentCachingRequestWrapper wrappedRequest = new ContentCachingRequestWrapper(request);
+        if (isStreaming(request.getRequestURI()) || isSnapshot(request)) {
+            long startMs = System.currentTimeMillis();
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                log.info(String.format("[%s %s] status=%d time=%dms | request=[not captured] | response=[not captured]",
+                        request.getMethod(), request.getRequestURI(), response.getStatus(),
+                        System.currentTimeMillis() - startMs));
+            }
+            return;
+        }
+        ContentCachingRequestWrapper wrappedRequest = new ContentCachingRequestWrapper(request, MAX_BODY_CACHE_BYTES);
         ContentCachingResponseWrapper wrappedResponse = new ContentCachingResponseWrapper(response);
 
         long startMs = System.currentTimeMillis();
@@ -68,7 +95,21 @@ public class ApiLoggingFilter extends OncePerRequestFilter {
         }
     }
 
+    private static boolean isStreaming(String uri) {
+        return STREAMING_PATHS.contains(uri) || STREAMING_PREFIXES.stream().anyMatch(uri::startsWith);
+    }
+
+    private static boolean isSnapshot(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return "GET".equals(request.getMethod()) && (SNAPSHOT_PATHS.contains(uri) || uri.startsWith(SNAPSHOT_PREFIX));
+    }
+
     private String getRequestBody(ContentCachingRequestWrapper request, String uri) {
+        // Multipart parts are read by the container straight to disk; the wrapper never sees them.
+        String contentType = request.getContentType();
+        if (contentType != null && contentType.startsWith("multipart/")) {
+            return "[multipart]";
+        }
         byte[] buf = request.getContentAsByteArray();
         if (buf == null || buf.length == 0) return "";
         String s = new String(buf, StandardCharsets.UTF_8);
@@ -1,28 +1,74 @@
 package com.example.backend.repository;
 
 import com.example.backend.entity.Category;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface CategoryRepository extends JpaRepository<Category, String> {
 
+    /** Image columns only, for serving the image without loading the entity. */
+    interface ImageInfo {
+        String getImagePath();
+
+        String getImageContentType();
+
+        String getImageHash();
+    }
+
+    /** Id and image columns of an image stored before the blob store, for ImageLayoutMigrator. */
+    interface LegacyImage {
+        String getId();
+
+        String getImagePath();
+
+        String getImageContentType();
+    }
+
     List<Category> findByUser_IdOrderByCreatedAtDesc(Long userId);
 
     List<Category> findByUser_IdAndActiveTrueOrderByCreatedAtDesc(Long userId);
 
     Optional<Category> findByIdAndUser_Id(String id, Long userId);
 
+    Optional<ImageInfo> findImageInfoById(String id);
+
     List<Category> findAllByOrderByCreatedAtDesc();
 
-    List<Category> findAllByActiveTrueOrderByCreatedAtDesc();
+    /** Public catalog page, newest first: active categories after (createdAt, id). Uses idx_categories_active_created. */
+    @Query("SELECT c FROM Category c WHERE c.active = true AND (c.createdAt < :createdAt "
+            + "OR (c.createdAt = :createdAt AND c.id < :id)) ORDER BY c.createdAt DESC, c.id DESC")
+    List<Category> findActiveBefore(@Param("createdAt") Instant createdAt, @Param("id") String id, Limit limit);
+
+    /** Public catalog page, oldest first: active categories after (createdAt, id). Uses idx_categories_active_created. */
+    @Query("SELECT c FROM Category c WHERE c.active = true AND (c.createdAt > :createdAt "
+            + "OR (c.createdAt = :createdAt AND c.id > :id)) ORDER BY c.createdAt ASC, c.id ASC")
+    List<Category> findActiveAfter(@Param("createdAt") Instant createdAt, @Param("id") String id, Limit limit);
 
     /** Updates only image path and content type (avoids merge/optimistic locking). */
     @Modifying
-    @Query("UPDATE Category c SET c.imagePath = :path, c.imageContentType = :contentType WHERE c.id = :id")
-    int updateImagePathAndContentType(@Param("id") String id, @Param("path") String path, @Param("contentType") String contentType);
+    @Query("UPDATE Category c SET c.imagePath = :path, c.imageContentType = :contentType, c.imageHash = :hash WHERE c.id = :id")
+    int updateImage(@Param("id") String id, @Param("path") String path, @Param("contentType") String contentType,
+                    @Param("hash") String hash);
+
+    /** Image garbage collection: which of {@code paths} still belong to an image stored before the blob store. */
+    @Query("SELECT c.imagePath FROM Category c WHERE c.imagePath IN :paths AND c.imageHash IS NULL")
+    List<String> findLegacyImagePaths(@Param("paths") Collection<String> paths);
+
+    /** Images stored before the blob store, after {@code afterId} in id order. */
+    @Query("SELECT c.id AS id, c.imagePath AS imagePath, c.imageContentType AS imageContentType FROM Category c "
+            + "WHERE c.imageHash IS NULL AND c.imagePath IS NOT NULL AND c.id > :afterId ORDER BY c.id")
+    List<LegacyImage> findLegacyImages(@Param("afterId") String afterId, Limit limit);
+
+    /** Points an image stored before the blob store at blob {@code hash}, unless it was replaced or removed meanwhile. */
+    @Modifying
+    @Query("UPDATE Category c SET c.imageHash = :hash WHERE c.id = :id AND c.imagePath = :path AND c.imageHash IS NULL")
+    int migrateImage(@Param("id") String id, @Param("path") String path, @Param("hash") String hash);
 }
@@ -0,0 +1,46 @@
+package com.example.backend.repository;
+
+import com.example.backend.entity.ImageBlob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ImageBlobRepository extends JpaRepository<ImageBlob, String> {
+
+    /**
+     * Inserts the blob with one reference, or adds a reference if it exists. Either way the row stays locked
+     * until the transaction ends, which is what keeps ImageBlobStore's delete from racing a new reference.
+     * ON DUPLICATE KEY UPDATE works on MySQL and on H2 in MySQL mode.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO image_blobs (hash, size, content_type, ref_count, created_at, updated_at) "
+            + "VALUES (:hash, :size, :contentType, 1, :now, :now) "
+            + "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1, updated_at = :now", nativeQuery = true)
+    int addReference(@Param("hash") String hash, @Param("size") long size,
+                     @Param("contentType") String contentType, @Param("now") Instant now);
+
+    @Modifying
+    @Query("UPDATE ImageBlob b SET b.refCount = b.refCount - 1, b.updatedAt = :now WHERE b.hash = :hash AND b.refCount > 0")
+    int removeReference(@Param("hash") String hash, @Param("now") Instant now);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM ImageBlob b WHERE b.hash = :hash")
+    Optional<ImageBlob> findByHashForUpdate(@Param("hash") String hash);
+
+    /** Image garbage collection: which of {@code hashes} have a row. */
+    @Query("SELECT b.hash FROM ImageBlob b WHERE b.hash IN :hashes")
+    List<String> findExistingHashes(@Param("hashes") Collection<String> hashes);
+
+    /** Blobs left without references since before {@code before}, after {@code afterHash} in hash order. */
+    @Query("SELECT b FROM ImageBlob b WHERE b.refCount = 0 AND b.updatedAt < :before AND b.hash > :afterHash ORDER BY b.hash")
+    List<ImageBlob> findUnreferenced(@Param("before") Instant before, @Param("afterHash") String afterHash, Limit limit);
+}
@@ -1,18 +1,63 @@
 package com.example.backend.repository;
 
 import com.example.backend.entity.ImageUpload;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface ImageUploadRepository extends JpaRepository<ImageUpload, Long> {
 
+    /** Columns needed to serve the file, without loading the entity. */
+    interface ServeInfo {
+        String getShortCode();
+
+        String getFilePath();
+
+        String getContentType();
+
+        Instant getCreatedAt();
+    }
+
+    /** Uploads stored before the blob store, for ImageLayoutMigrator. */
+    interface LegacyUpload {
+        Long getId();
+
+        String getShortCode();
+
+        String getFilePath();
+
+        String getContentType();
+    }
+
     Optional<ImageUpload> findByShortCode(String shortCode);
 
+    Optional<ServeInfo> findServeInfoByShortCode(String shortCode);
+
     boolean existsByShortCode(String shortCode);
 
     List<ImageUpload> findByUser_IdOrderByCreatedAtDesc(Long userId);
 
     List<ImageUpload> findAllByOrderByCreatedAtDesc();
+
+    /** Image garbage collection: which of {@code paths} (relative to the image directory) are still referenced. */
+    @Query("SELECT u.filePath FROM ImageUpload u WHERE u.filePath IN :paths")
+    List<String> findFilePaths(@Param("paths") Collection<String> paths);
+
+    @Query("SELECT u.id AS id, u.shortCode AS shortCode, u.filePath AS filePath, u.contentType AS contentType "
+            + "FROM ImageUpload u WHERE u.contentHash IS NULL AND u.id > :afterId ORDER BY u.id")
+    List<LegacyUpload> findLegacyUploads(@Param("afterId") Long afterId, Limit limit);
+
+    /** Moves an upload stored before the blob store to blob {@code hash}, unless it was changed or removed meanwhile. */
+    @Modifying
+    @Query("UPDATE ImageUpload u SET u.filePath = :blobPath, u.contentHash = :hash "
+            + "WHERE u.id = :id AND u.filePath = :path AND u.contentHash IS NULL")
+    int migrateFile(@Param("id") Long id, @Param("path") String path, @Param("blobPath") String blobPath,
+                    @Param("hash") String hash);
 }
@@ -1,29 +1,98 @@
 package com.example.backend.repository;
 
 import com.example.backend.entity.Item;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface ItemRepository extends JpaRepository<Item, String> {
 
+    /** Image columns only, for serving the image without loading the entity. */
+    interface ImageInfo {
+        String getImagePath();
+
+        String getImageContentType();
+
+        String getImageHash();
+    }
+
+    /** Id and image columns of an image stored before the blob store, for ImageLayoutMigrator. */
+    interface LegacyImage {
+        String getId();
+
+        String getImagePath();
+
+        String getImageContentType();
+    }
+
+    @EntityGraph(Item.LISTING_GRAPH)
     List<Item> findByUser_IdOrderByCreatedAtDesc(Long userId);
 
+    @EntityGraph(Item.LISTING_GRAPH)
     List<Item> findByUser_IdAndActiveTrueOrderByCreatedAtDesc(Long userId);
 
+    @EntityGraph(Item.LISTING_GRAPH)
     Optional<Item> findByIdAndUser_Id(String id, Long userId);
 
+    Optional<ImageInfo> findImageInfoById(String id);
+
+    @EntityGraph(Item.LISTING_GRAPH)
     List<Item> findAllByOrderByCreatedAtDesc();
 
-    List<Item> findAllByActiveTrueOrderByCreatedAtDesc();
+    /** The items of one search results page, in no particular order. */
+    @EntityGraph(Item.LISTING_GRAPH)
+    List<Item> findByIdIn(Collection<String> ids);
+
+    /** Public catalog page, newest first: active items after (createdAt, id). Uses idx_items_active_created. */
+    @EntityGraph(Item.LISTING_GRAPH)
+    @Query("SELECT i FROM Item i WHERE i.active = true AND (i.createdAt < :createdAt "
+            + "OR (i.createdAt = :createdAt AND i.id < :id)) ORDER BY i.createdAt DESC, i.id DESC")
+    List<Item> findActiveBefore(@Param("createdAt") Instant createdAt, @Param("id") String id, Limit limit);
+
+    /** Public catalog page, oldest first: active items after (createdAt, id). Uses idx_items_active_created. */
+    @EntityGraph(Item.LISTING_GRAPH)
+    @Query("SELECT i FROM Item i WHERE i.active = true AND (i.createdAt > :createdAt "
+            + "OR (i.createdAt = :createdAt AND i.id > :id)) ORDER BY i.createdAt ASC, i.id ASC")
+    List<Item> findActiveAfter(@Param("createdAt") Instant createdAt, @Param("id") String id, Limit limit);
+
+    /** Active items of a category, newest first, after (createdAt, id). Uses idx_items_category_active_created. */
+    @EntityGraph(Item.LISTING_GRAPH)
+    @Query("SELECT i FROM Item i WHERE i.category.id = :categoryId AND i.active = true AND (i.createdAt < :createdAt "
+            + "OR (i.createdAt = :createdAt AND i.id < :id)) ORDER BY i.createdAt DESC, i.id DESC")
+    List<Item> findActiveInCategoryBefore(@Param("categoryId") String categoryId, @Param("createdAt") Instant createdAt,
+                                          @Param("id") String id, Limit limit);
+
+    /** Active items of a category, oldest first, after (createdAt, id). Uses idx_items_category_active_created. */
+    @EntityGraph(Item.LISTING_GRAPH)
+    @Query("SELECT i FROM Item i WHERE i.category.id = :categoryId AND i.active = true AND (i.createdAt > :createdAt "
+            + "OR (i.createdAt = :createdAt AND i.id > :id)) ORDER BY i.createdAt ASC, i.id ASC")
+    List<Item> findActiveInCategoryAfter(@Param("categoryId") String categoryId, @Param("createdAt") Instant createdAt,
+                                         @Param("id") String id, Limit limit);
+
+    @Modifying
+    @Query("UPDATE Item i SET i.imagePath = :path, i.imageContentType = :contentType, i.imageHash = :hash WHERE i.id = :id")
+    int updateImage(@Param("id") String id, @Param("path") String path, @Param("contentType") String contentType,
+                    @Param("hash") String hash);
+
+    /** Image garbage collection: which of {@code paths} still belong to an image stored before the blob store. */
+    @Query("SELECT i.imagePath FROM Item i WHERE i.imagePath IN :paths AND i.imageHash IS NULL")
+    List<String> findLegacyImagePaths(@Param("paths") Collection<String> paths);
 
-    List<Item> findByCategory_IdAndActiveTrueOrderByCreatedAtDesc(String categoryId);
+    /** Images stored before the blob store, after {@code afterId} in id order. */
+    @Query("SELECT i.id AS id, i.imagePath AS imagePath, i.imageContentType AS imageContentType FROM Item i "
+            + "WHERE i.imageHash IS NULL AND i.imagePath IS NOT NULL AND i.id > :afterId ORDER BY i.id")
+    List<LegacyImage> findLegacyImages(@Param("afterId") String afterId, Limit limit);
 
+    /** Points an image stored before the blob store at blob {@code hash}, unless it was replaced or removed meanwhile. */
     @Modifying
-    @Query("UPDATE Item i SET i.imagePath = :path, i.imageContentType = :contentType WHERE i.id = :id")
-    int updateImagePathAndContentType(@Param("id") String id, @Param("path") String path, @Param("contentType") String contentType);
+    @Query("UPDATE Item i SET i.imageHash = :hash WHERE i.id = :id AND i.imagePath = :path AND i.imageHash IS NULL")
+    int migrateImage(@Param("id") String id, @Param("path") String path, @Param("hash") String hash);
 }
@@ -0,0 +1,44 @@
+package com.example.backend.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Leases blocks of values from the short_code_sequences table. The increment is a single UPDATE, so the row lock
+ * is held only until the lease commits, and concurrent leases on any number of nodes queue on it instead of
+ * retrying against a stale read.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ShortCodeSequenceRepository {
+
+    private static final String INCREMENT_SQL = "UPDATE short_code_sequences SET next_value = next_value + ? WHERE name = ?";
+
+    /** Creates the row on first use; a node that loses the race leaves it as the winner created it. */
+    private static final String CREATE_SQL = "INSERT INTO short_code_sequences (name, next_value) VALUES (?, 0) "
+            + "ON DUPLICATE KEY UPDATE next_value = next_value";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Reserves {@code size} consecutive values of sequence {@code name} and returns the first one.
+     * Runs in its own transaction: a lease must stay taken even if the caller's transaction rolls back,
+     * otherwise another node could lease the same block. The value read back is this transaction's own
+     * write, so it is correct under any isolation level.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public long leaseBlock(String name, int size) {
+        if (jdbcTemplate.update(INCREMENT_SQL, size, name) == 0) {
+            jdbcTemplate.update(CREATE_SQL, name);
+            if (jdbcTemplate.update(INCREMENT_SQL, size, name) != 1) {
+                throw new IllegalStateException("Could not lease short code block for sequence " + name);
+            }
+        }
+        Long end = jdbcTemplate.queryForObject(
+                "SELECT next_value FROM short_code_sequences WHERE name = ?", Long.class, name);
+        return end - size;
+    }
+}
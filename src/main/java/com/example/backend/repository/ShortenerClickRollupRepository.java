@@ -0,0 +1,29 @@
+package com.example.backend.repository;
+
+import com.example.backend.entity.ShortenerClickRollup;
+import com.example.backend.entity.StatsGranularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ShortenerClickRollupRepository extends JpaRepository<ShortenerClickRollup, Long> {
+
+    List<ShortenerClickRollup> findByShortenerIdAndGranularityAndDimensionAndBucketStartBetweenOrderByBucketStartAsc(
+            Long shortenerId, StatsGranularity granularity, ShortenerClickRollup.Dimension dimension,
+            long fromBucket, long toBucket);
+
+    List<ShortenerClickRollup> findByShortenerIdAndGranularityAndDimensionInAndBucketStartBetween(
+            Long shortenerId, StatsGranularity granularity, List<ShortenerClickRollup.Dimension> dimensions,
+            long fromBucket, long toBucket);
+
+    @Modifying
+    @Query("DELETE FROM ShortenerClickRollup r WHERE r.granularity = :granularity AND r.bucketStart < :before")
+    int deleteOlderThan(@Param("granularity") StatsGranularity granularity, @Param("before") long before);
+
+    @Modifying
+    @Query("DELETE FROM ShortenerClickRollup r WHERE r.shortenerId = :shortenerId")
+    int deleteByShortenerId(@Param("shortenerId") Long shortenerId);
+}
@@ -0,0 +1,102 @@
+package com.example.backend.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Plain JDBC access to the shorteners table for bulk paths where one JPA save per row is too slow.
+ * Hibernate cannot batch inserts for IDENTITY ids, so bulk creation goes through here.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ShortenerJdbcRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO shorteners "
+            + "(short_code, full_url, user_id, click_count, created_at, expires_at, active, deactivated_by_expiry) "
+            + "VALUES (?, ?, ?, 0, ?, ?, ?, false)";
+
+    private static final Calendar UTC = Calendar.getInstance(TimeZone.getTimeZone(ZoneOffset.UTC));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean mysql;
+
+    /** Values for one new short link row. */
+    public record NewShortener(String shortCode, String fullUrl, Long userId, Instant createdAt, Instant expiresAt) {}
+
+    /**
+     * Inserts all rows in one JDBC batch (one multi-row statement on MySQL with rewriteBatchedStatements).
+     * All-or-nothing: a duplicate code rolls back the whole batch.
+     * @return generated ids, in row order
+     */
+    @Transactional
+    public List<Long> insertBatch(List<NewShortener> rows) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        NewShortener row = rows.get(i);
+                        ps.setString(1, row.shortCode());
+                        ps.setString(2, row.fullUrl());
+                        ps.setLong(3, row.userId());
+                        setInstant(ps, 4, row.createdAt());
+                        setInstant(ps, 5, row.expiresAt());
+                        ps.setBoolean(6, true);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                },
+                keys);
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Map<String, Object> k : keys.getKeyList()) {
+            Object id = k.values().iterator().next();
+            ids.add(id instanceof Number n ? n.longValue() : null);
+        }
+        return ids;
+    }
+
+    /** Binds an Instant the way Hibernate stores it: UTC wall time on MySQL, UTC offset timestamp elsewhere (H2). */
+    private void setInstant(PreparedStatement ps, int index, Instant value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.TIMESTAMP);
+        } else if (isMysql()) {
+            ps.setTimestamp(index, Timestamp.from(value), (Calendar) UTC.clone());
+        } else {
+            ps.setObject(index, value.atOffset(ZoneOffset.UTC));
+        }
+    }
+
+    private boolean isMysql() {
+        Boolean result = mysql;
+        if (result == null) {
+            result = jdbcTemplate.execute((ConnectionCallback<Boolean>) con ->
+                    con.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql"));
+            mysql = result;
+        }
+        return Boolean.TRUE.equals(result);
+    }
+}
@@ -1,13 +1,26 @@
 package com.example.backend.repository;
 
 import com.example.backend.entity.Shortener;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface ShortenerRepository extends JpaRepository<Shortener, Long> {
 
+    /** Id and code only, for batch jobs that do not need the entity. */
+    interface ShortCodeRef {
+        Long getId();
+
+        String getShortCode();
+    }
+
     Optional<Shortener> findByShortCode(String shortCode);
 
     boolean existsByShortCode(String shortCode);
@@ -15,4 +28,22 @@ public interface ShortenerRepository extends JpaRepository<Shortener, Long> {
     List<Shortener> findByUser_IdOrderByCreatedAtDesc(Long userId);
 
     List<Shortener> findAllByOrderByCreatedAtDesc();
+
+    /** Which of the given codes are already taken (one IN query instead of one probe per code). */
+    @Query("SELECT s.shortCode FROM Shortener s WHERE s.shortCode IN :codes")
+    List<String> findExistingShortCodes(@Param("codes") Collection<String> codes);
+
+    /** Active links whose expiry has passed, oldest first; served by idx_shorteners_active_expires_at. */
+    @Query("SELECT s.id AS id, s.shortCode AS shortCode FROM Shortener s "
+            + "WHERE s.active = true AND s.expiresAt < :now ORDER BY s.expiresAt")
+    List<ShortCodeRef> findExpiredActive(@Param("now") Instant now, Limit limit);
+
+    /**
+     * Deactivates the given links if they are still active and expired (an owner may have extended one meanwhile),
+     * marking them so that extending the expiry later turns them back on.
+     */
+    @Modifying
+    @Query("UPDATE Shortener s SET s.active = false, s.deactivatedByExpiry = true "
+            + "WHERE s.id IN :ids AND s.active = true AND s.expiresAt < :now")
+    int deactivateExpired(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
 }
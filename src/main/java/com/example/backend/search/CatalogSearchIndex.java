@@ -0,0 +1,238 @@
+package com.example.backend.search;
+
+import com.example.backend.config.TransactionCallbacks;
+import com.example.backend.dto.CursorPage;
+import com.example.backend.entity.Category;
+import com.example.backend.entity.Item;
+import com.example.backend.search.InvertedIndex.Hit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Full-text search over active items (GET /api/items/search) from an {@link InvertedIndex} of item and
+ * category descriptions held in memory, so a query does not touch the database; only the page's items are
+ * loaded afterwards.
+ * <p>
+ * The index is built from the database when the application is ready, reading items oldest first in batches of
+ * {@code app.search.build-batch-size}, and built again when replaced or removed items exceed
+ * {@code app.search.rebuild-dead-ratio} of the live ones. ItemService and CategoryService report changes, which
+ * are applied right after their transaction commits. While a build runs they go into both the current and the
+ * next index, and the build skips the rows changed meanwhile, which it may have read before the change.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogSearchIndex {
+
+    private static final String INVALID_CURSOR = "Invalid cursor";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.catalog.page.default-limit:20}")
+    private int defaultLimit;
+
+    @Value("${app.catalog.page.max-limit:100}")
+    private int maxLimit;
+
+    @Value("${app.search.build-batch-size:5000}")
+    private int batchSize;
+
+    @Value("${app.search.rebuild-dead-ratio:0.5}")
+    private double rebuildDeadRatio;
+
+    record CategoryRow(String id, String description) {}
+
+    record ItemRow(String id, String description, String categoryId, Instant createdAt) {}
+
+    private volatile InvertedIndex current;
+
+    /** Guards {@link #building} and the ids changed since it started. */
+    private final Object changes = new Object();
+    private InvertedIndex building;
+    private final Set<String> changedItems = new HashSet<>();
+    private final Set<String> changedCategories = new HashSet<>();
+
+    /** False until the first build has finished. */
+    public boolean isReady() {
+        return current != null;
+    }
+
+    /**
+     * One page of the ids of active items matching {@code query}, best match first: {@code limit} ids (default
+     * {@code app.catalog.page.default-limit}, at most {@code app.catalog.page.max-limit}) after {@code cursor}.
+     * Cursors are only valid with the same query.
+     * @throws IllegalArgumentException for a blank query, a limit below 1 or a malformed cursor
+     * @throws IllegalStateException before the first build has finished
+     */
+    public CursorPage<String> search(String query, String cursor, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("q is required");
+        }
+        int size = limit != null ? limit : defaultLimit;
+        if (size < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        size = Math.min(size, maxLimit);
+        Hit after = cursor != null && !cursor.isBlank() ? decode(cursor) : null;
+        InvertedIndex index = current;
+        if (index == null) {
+            throw new IllegalStateException("Search index is not ready");
+        }
+
+        // One hit more than the page tells whether another page follows.
+        List<Hit> hits = index.search(query, after, size + 1);
+        boolean hasMore = hits.size() > size;
+        List<Hit> pageHits = hasMore ? hits.subList(0, size) : hits;
+        return CursorPage.<String>builder()
+                .items(pageHits.stream().map(Hit::itemId).toList())
+                .nextCursor(hasMore ? encode(pageHits.get(pageHits.size() - 1)) : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    /** The item was created or updated; an inactive item is removed from the index. */
+    public void itemChanged(Item item) {
+        String itemId = item.getId();
+        if (!item.isActive()) {
+            itemRemoved(itemId);
+            return;
+        }
+        String description = item.getDescription();
+        String categoryId = item.getCategory() != null ? item.getCategory().getId() : null;
+        long createdAt = (item.getCreatedAt() != null ? item.getCreatedAt() : Instant.now()).toEpochMilli();
+        TransactionCallbacks.afterCommit(() -> apply(changedItems, itemId, index -> index.putItem(itemId, description, categoryId, createdAt)));
+    }
+
+    public void itemRemoved(String itemId) {
+        TransactionCallbacks.afterCommit(() -> apply(changedItems, itemId, index -> index.removeItem(itemId)));
+    }
+
+    /** The category was created or updated; its items match on its new description. */
+    public void categoryChanged(Category category) {
+        String categoryId = category.getId();
+        String description = category.getDescription();
+        TransactionCallbacks.afterCommit(() -> apply(changedCategories, categoryId, index -> index.putCategory(categoryId, description)));
+    }
+
+    public void categoryRemoved(String categoryId) {
+        TransactionCallbacks.afterCommit(() -> apply(changedCategories, categoryId, index -> index.removeCategory(categoryId)));
+    }
+
+    private void apply(Set<String> changed, String id, Consumer<InvertedIndex> change) {
+        synchronized (changes) {
+            InvertedIndex index = current;
+            if (index != null) {
+                change.accept(index);
+            }
+            if (building != null) {
+                change.accept(building);
+                changed.add(id);
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild();
+    }
+
+    /** Builds the index again once replaced and removed items take more room than allowed. */
+    @Scheduled(fixedDelayString = "${app.search.rebuild-check-interval-ms:60000}",
+            initialDelayString = "${app.search.rebuild-check-interval-ms:60000}")
+    public void rebuildIfFragmented() {
+        InvertedIndex index = current;
+        if (index != null && index.deadItems() > rebuildDeadRatio * Math.max(index.liveItems(), batchSize)) {
+            rebuild();
+        }
+    }
+
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        InvertedIndex next = new InvertedIndex();
+        synchronized (changes) {
+            building = next;
+        }
+        try {
+            List<CategoryRow> categories = jdbcTemplate.query("SELECT id, description FROM categories",
+                    (rs, n) -> new CategoryRow(rs.getString(1), rs.getString(2)));
+            synchronized (changes) {
+                for (CategoryRow row : categories) {
+                    if (!changedCategories.contains(row.id())) {
+                        next.putCategory(row.id(), row.description());
+                    }
+                }
+            }
+            // Oldest first, in keyset batches on idx_items_active_created, so documents follow creation order.
+            Timestamp afterCreatedAt = Timestamp.from(Instant.EPOCH);
+            String afterId = "";
+            List<ItemRow> rows;
+            do {
+                rows = jdbcTemplate.query("SELECT id, description, category_id, created_at FROM items "
+                                + "WHERE active = TRUE AND (created_at > ? OR (created_at = ? AND id > ?)) "
+                                + "ORDER BY created_at, id LIMIT ?",
+                        (rs, n) -> new ItemRow(rs.getString(1), rs.getString(2), rs.getString(3),
+                                rs.getTimestamp(4).toInstant()),
+                        afterCreatedAt, afterCreatedAt, afterId, batchSize);
+                synchronized (changes) {
+                    for (ItemRow row : rows) {
+                        if (!changedItems.contains(row.id())) {
+                            next.putItem(row.id(), row.description(), row.categoryId(), row.createdAt().toEpochMilli());
+                        }
+                    }
+                }
+                if (!rows.isEmpty()) {
+                    ItemRow last = rows.get(rows.size() - 1);
+                    afterCreatedAt = Timestamp.from(last.createdAt());
+                    afterId = last.id();
+                }
+            } while (rows.size() == batchSize);
+            synchronized (changes) {
+                current = next;
+            }
+            log.info("Built item search index: {} items, {} categories, {} terms in {} ms", next.liveItems(),
+                    categories.size(), next.terms(), (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            // Keep serving with the previous index (or none); the next check or restart retries.
+            log.warn("Could not build item search index: {}", e.getMessage());
+        } finally {
+            synchronized (changes) {
+                building = null;
+                changedItems.clear();
+                changedCategories.clear();
+            }
+        }
+    }
+
+    private static String encode(Hit hit) {
+        String raw = Float.floatToIntBits(hit.score()) + "|" + hit.createdAt() + "|" + hit.itemId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Hit decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3 || parts[2].isEmpty()) {
+                throw new IllegalArgumentException(INVALID_CURSOR);
+            }
+            return new Hit(parts[2], Float.intBitsToFloat(Integer.parseInt(parts[0])), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(INVALID_CURSOR);
+        }
+    }
+}
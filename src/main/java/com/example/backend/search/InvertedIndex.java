@@ -0,0 +1,658 @@
+package com.example.backend.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index of item descriptions and category descriptions, for ranked full-text search over
+ * items. Every indexed item is a document with a dense number; each term maps to the ascending list of the
+ * documents whose description contains it, with the term's frequency. A category term maps to the categories
+ * whose description contains it, so an item matches through its category's description too, and renaming a
+ * category does not touch its items.
+ * <p>
+ * A query matches the items that contain every query term, in their own or their category's description.
+ * They are ranked by BM25 over the item description, plus {@link #CATEGORY_WEIGHT} of the term's weight for a
+ * category match, then newest first, then by id descending. The candidates are the documents of the rarest
+ * term; the other terms are looked up by galloping through their lists, so a query costs at most about the
+ * length of its shortest list, not the size of the index. Lists are walked from the last document back, and
+ * documents are numbered in the order items are indexed, which is oldest first when the index is built; each
+ * block of a list bounds the score and creation time of its documents, so once the best hits so far fill the
+ * page, blocks that cannot beat them are skipped, and a document is dropped as soon as the terms left to look
+ * up cannot lift it past them. A common word then costs about as much as a rare one.
+ * <p>
+ * Replacing or removing an item only marks its document dead; dead documents stay in the lists until the index
+ * is built again ({@link #deadItems()}). Safe for concurrent use: queries share a read lock, changes take the
+ * write lock.
+ */
+public class InvertedIndex {
+
+    /** Weight of a category match relative to the term's weight in the item description. */
+    static final float CATEGORY_WEIGHT = 0.5f;
+    /** Query terms beyond this many are ignored. */
+    static final int MAX_QUERY_TERMS = 16;
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    /** Rounds a computed score bound up past float rounding errors. */
+    private static final float BOUND_SLACK = 1.00001f;
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    /** A ranked result; {@code createdAt} in epoch milliseconds. */
+    public record Hit(String itemId, float score, long createdAt) {}
+
+    /** Best first: higher score, then newer, then higher id. */
+    public static final Comparator<Hit> RANKING = (a, b) -> compare(a.score(), a.createdAt(), a.itemId(), b);
+
+    /** {@link #RANKING} of a hit given by its parts against {@code other}, without creating the hit. */
+    private static int compare(float score, long createdAt, String itemId, Hit other) {
+        int c = Float.compare(other.score(), score);
+        if (c == 0) {
+            c = Long.compare(other.createdAt(), createdAt);
+        }
+        return c != 0 ? c : other.itemId().compareTo(itemId);
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Postings> terms = new HashMap<>();
+    private final IdTable itemDocs = new IdTable();
+    private String[] docIds = new String[1024];
+    private int[] docCategory = new int[1024];
+    private long[] docCreatedAt = new long[1024];
+    private short[] docLength = new short[1024];
+    private final BitSet live = new BitSet();
+    private int docCount;
+    private int liveCount;
+    private long liveLength;
+
+    private final Map<String, Integer> categoryOrdinals = new HashMap<>();
+    private final List<String[]> categoryTermsByOrdinal = new ArrayList<>();
+    private final List<Postings> categoryDocs = new ArrayList<>();
+    private final Map<String, int[]> categoryTerms = new HashMap<>();
+
+    /** Lower-case words of {@code text}, without accents; letters and digits only. */
+    static List<String> tokens(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_WORD.split(folded)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /** Indexes the item, replacing its previous description, category and creation time. */
+    public void putItem(String itemId, String description, String categoryId, long createdAt) {
+        List<String> tokens = tokens(description);
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokens) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        lock.writeLock().lock();
+        try {
+            removeItemLocked(itemId);
+            int doc = docCount++;
+            ensureDocCapacity(doc + 1);
+            docIds[doc] = itemId;
+            docCategory[doc] = categoryId != null ? categoryOrdinal(categoryId) : -1;
+            docCreatedAt[doc] = createdAt;
+            docLength[doc] = (short) Math.min(tokens.size(), Short.MAX_VALUE);
+            live.set(doc);
+            liveCount++;
+            liveLength += docLength[doc];
+            itemDocs.put(itemId, doc, docIds);
+            frequencies.forEach((term, tf) -> terms.computeIfAbsent(term, t -> new Postings())
+                    .add(doc, tf, docLength[doc], createdAt));
+            if (docCategory[doc] >= 0) {
+                categoryDocs.get(docCategory[doc]).add(doc, 1, docLength[doc], createdAt);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeItem(String itemId) {
+        lock.writeLock().lock();
+        try {
+            removeItemLocked(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeItemLocked(String itemId) {
+        int doc = itemDocs.remove(itemId, docIds);
+        if (doc >= 0) {
+            live.clear(doc);
+            liveCount--;
+            liveLength -= docLength[doc];
+        }
+    }
+
+    /** Indexes the category's description, replacing the previous one; its items match on the new terms. */
+    public void putCategory(String categoryId, String description) {
+        String[] newTerms = new LinkedHashSet<>(tokens(description)).toArray(String[]::new);
+        lock.writeLock().lock();
+        try {
+            int ordinal = categoryOrdinal(categoryId);
+            setCategoryTerms(ordinal, newTerms);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Drops the category's terms; its items, if any are left, still match on their own description. */
+    public void removeCategory(String categoryId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = categoryOrdinals.get(categoryId);
+            if (ordinal != null) {
+                setCategoryTerms(ordinal, new String[0]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int categoryOrdinal(String categoryId) {
+        return categoryOrdinals.computeIfAbsent(categoryId, id -> {
+            categoryTermsByOrdinal.add(new String[0]);
+            categoryDocs.add(new Postings());
+            return categoryDocs.size() - 1;
+        });
+    }
+
+    private void setCategoryTerms(int ordinal, String[] newTerms) {
+        for (String term : categoryTermsByOrdinal.get(ordinal)) {
+            int[] ordinals = categoryTerms.get(term);
+            int[] rest = Arrays.stream(ordinals).filter(o -> o != ordinal).toArray();
+            if (rest.length == 0) {
+                categoryTerms.remove(term);
+            } else {
+                categoryTerms.put(term, rest);
+            }
+        }
+        for (String term : newTerms) {
+            int[] ordinals = categoryTerms.getOrDefault(term, new int[0]);
+            int[] more = Arrays.copyOf(ordinals, ordinals.length + 1);
+            more[ordinals.length] = ordinal;
+            categoryTerms.put(term, more);
+        }
+        categoryTermsByOrdinal.set(ordinal, newTerms);
+    }
+
+    /**
+     * The best {@code limit} items matching every term of {@code query} that rank after {@code after} (from the
+     * start when null), best first. Empty when the query has no terms.
+     */
+    public List<Hit> search(String query, Hit after, int limit) {
+        List<String> queryTerms = new ArrayList<>(new LinkedHashSet<>(tokens(query)));
+        if (queryTerms.size() > MAX_QUERY_TERMS) {
+            queryTerms = queryTerms.subList(0, MAX_QUERY_TERMS);
+        }
+        if (queryTerms.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return searchLocked(queryTerms, after, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Hit> searchLocked(List<String> queryTerms, Hit after, int limit) {
+        int n = queryTerms.size();
+        Postings[] postings = new Postings[n];
+        boolean[][] categoryMatch = new boolean[n][];
+        boolean[] inCategories = new boolean[n];
+        float[] weights = new float[n];
+        long[] candidates = new long[n];
+        for (int t = 0; t < n; t++) {
+            postings[t] = terms.getOrDefault(queryTerms.get(t), Postings.EMPTY);
+            int[] ordinals = categoryTerms.getOrDefault(queryTerms.get(t), new int[0]);
+            categoryMatch[t] = new boolean[categoryDocs.size()];
+            inCategories[t] = ordinals.length > 0;
+            candidates[t] = postings[t].size;
+            for (int ordinal : ordinals) {
+                categoryMatch[t][ordinal] = true;
+                candidates[t] += categoryDocs.get(ordinal).size;
+            }
+            if (candidates[t] == 0) {
+                return List.of();
+            }
+            // BM25 idf over the live documents; the list length also counts dead ones, close enough between builds.
+            float df = Math.min(candidates[t], Math.max(liveCount, 1));
+            weights[t] = (float) Math.log(1 + (liveCount - df + 0.5) / (df + 0.5));
+        }
+        int driver = 0;
+        for (int t = 1; t < n; t++) {
+            if (candidates[t] < candidates[driver]) {
+                driver = t;
+            }
+        }
+
+        float avgLength = liveCount > 0 ? (float) liveLength / liveCount : 1;
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        Scorer scorer = new Scorer(postings, categoryMatch, inCategories, weights, driver, avgLength, after, best,
+                limit);
+        scorer.run(postings[driver], false);
+        for (int ordinal = 0; ordinal < categoryMatch[driver].length; ordinal++) {
+            if (categoryMatch[driver][ordinal]) {
+                scorer.run(categoryDocs.get(ordinal), true);
+            }
+        }
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(RANKING);
+        return hits;
+    }
+
+    /**
+     * Scores candidate documents into a bounded heap of the best hits after the cursor. Candidates come in runs
+     * walked from the newest document back, so the other terms' lists are only walked backwards within a run.
+     */
+    private final class Scorer {
+
+        private final Postings[] postings;
+        private final boolean[][] categoryMatch;
+        private final boolean[] inCategories;
+        private final float[] weights;
+        private final int driver;
+        private final float avgLength;
+        private final Hit after;
+        private final PriorityQueue<Hit> best;
+        private final int limit;
+        private final int[] positions;
+        /** Highest frequency of each term over the block being scored. */
+        private final int[] blockFrequencies;
+
+        Scorer(Postings[] postings, boolean[][] categoryMatch, boolean[] inCategories, float[] weights, int driver,
+               float avgLength, Hit after, PriorityQueue<Hit> best, int limit) {
+            this.postings = postings;
+            this.categoryMatch = categoryMatch;
+            this.inCategories = inCategories;
+            this.weights = weights;
+            this.driver = driver;
+            this.avgLength = avgLength;
+            this.after = after;
+            this.best = best;
+            this.limit = limit;
+            this.positions = new int[postings.length];
+            this.blockFrequencies = new int[postings.length];
+        }
+
+        /**
+         * Scores the live documents of {@code run}: the driving term's list, or the list of a category matching
+         * it ({@code categoryRun}), without the documents of the term's list, already scored. Once the heap is
+         * full, blocks that cannot hold a better hit than its worst are skipped, and {@link #score} gives up on
+         * a document as soon as the terms left cannot lift it past the worst hit.
+         */
+        void run(Postings run, boolean categoryRun) {
+            for (int t = 0; t < postings.length; t++) {
+                positions[t] = postings[t].size - 1;
+            }
+            Postings seen = categoryRun ? postings[driver] : null;
+            int seenPosition = categoryRun ? seen.size - 1 : -1;
+            for (int block = run.blocks() - 1; block >= 0; block--) {
+                int first = block << Postings.BLOCK_SHIFT;
+                int last = Math.min(run.size, first + Postings.BLOCK) - 1;
+                // Computed even before the heap is full: score() relies on the frequencies it notes.
+                float bound = bound(run, block, run.docs[first], run.docs[last], categoryRun);
+                if (best.size() == limit && !mayEnter(bound, run.blockMaxCreatedAt[block])) {
+                    continue;
+                }
+                for (int i = last; i >= first; i--) {
+                    int doc = run.docs[i];
+                    if (!live.get(doc)) {
+                        continue;
+                    }
+                    if (seen != null) {
+                        seenPosition = seen.retreat(seenPosition, doc);
+                        if (seenPosition >= 0 && seen.docs[seenPosition] == doc) {
+                            continue;
+                        }
+                    }
+                    score(doc, categoryRun ? 0 : run.frequencies[i]);
+                }
+            }
+        }
+
+        /**
+         * Highest score of a document of the run's block, which holds documents {@code firstDoc} to
+         * {@code lastDoc}: the block's bound for the driving term, the bounds of the blocks covering that range
+         * for the others, summed in the order of {@link #score} so that an exact bound equals the score.
+         */
+        private float bound(Postings run, int block, int firstDoc, int lastDoc, boolean categoryRun) {
+            float bound = 0;
+            for (int t = 0; t < postings.length; t++) {
+                if (t == driver) {
+                    if (!categoryRun) {
+                        bound += blockBound(weights[t], run, block);
+                    }
+                } else {
+                    bound += rangeBound(t, firstDoc, lastDoc);
+                }
+                if (inCategories[t]) {
+                    bound += CATEGORY_WEIGHT * weights[t];
+                }
+            }
+            return bound;
+        }
+
+        /**
+         * Highest score of a document of the block given its score from the terms before {@code from}: the
+         * driving term occurs {@code driverFrequency} times, the others at most as often as in the block and in
+         * the {@code words} of the description not taken by the terms before.
+         */
+        private float bound(float score, int from, int words, int driverFrequency, int length, int category) {
+            int left = from <= driver ? words - driverFrequency : words;
+            float bound = score;
+            for (int t = from; t < postings.length; t++) {
+                int frequency = t == driver ? driverFrequency : Math.min(blockFrequencies[t], left);
+                if (frequency > 0) {
+                    bound += termScore(weights[t], frequency, length);
+                }
+                if (category >= 0 && categoryMatch[t][category]) {
+                    bound += CATEGORY_WEIGHT * weights[t];
+                }
+            }
+            return bound;
+        }
+
+        /**
+         * Highest description score of term {@code t} from {@code firstDoc} to {@code lastDoc}, noting its
+         * highest frequency there; moves its position to there.
+         */
+        private float rangeBound(int t, int firstDoc, int lastDoc) {
+            Postings p = postings[t];
+            positions[t] = p.retreat(positions[t], lastDoc);
+            blockFrequencies[t] = 0;
+            if (positions[t] < 0 || p.docs[positions[t]] < firstDoc) {
+                return 0;
+            }
+            float bound = 0;
+            for (int block = positions[t] >> Postings.BLOCK_SHIFT; block >= 0; block--) {
+                bound = Math.max(bound, blockBound(weights[t], p, block));
+                blockFrequencies[t] = Math.max(blockFrequencies[t], p.blockMaxFrequency[block]);
+                if (p.docs[block << Postings.BLOCK_SHIFT] <= firstDoc) {
+                    break;
+                }
+            }
+            return bound;
+        }
+
+        /**
+         * Highest description score in a block of the term's list. The score computed from the block's highest
+         * frequency and shortest description is exact when one document has both; the one from the highest
+         * frequency and lowest length per occurrence is tighter when they differ, and is rounded up.
+         */
+        private float blockBound(float weight, Postings p, int block) {
+            int frequency = p.blockMaxFrequency[block];
+            float byLength = termScore(weight, frequency, p.blockMinLength[block]);
+            float byLengthPerOccurrence = termScore(weight, frequency, p.blockMinLengthPerFrequency[block] * frequency);
+            return Math.min(byLength, byLengthPerOccurrence * BOUND_SLACK);
+        }
+
+        /** Whether a document scoring at most {@code bound}, created no later than {@code createdAt}, could enter the full heap. */
+        private boolean mayEnter(float bound, long createdAt) {
+            Hit worst = best.peek();
+            return bound > worst.score() || bound == worst.score() && createdAt >= worst.createdAt();
+        }
+
+        private float termScore(float weight, int frequency, float length) {
+            return weight * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * length / avgLength));
+        }
+
+        /** Scores a document in which the driving term occurs {@code driverFrequency} times. */
+        private void score(int doc, int driverFrequency) {
+            int length = docLength[doc];
+            int category = docCategory[doc];
+            long createdAt = docCreatedAt[doc];
+            float score = 0;
+            int words = length;
+            for (int t = 0; t < postings.length; t++) {
+                if (best.size() == limit
+                        && !mayEnter(bound(score, t, words, driverFrequency, length, category), createdAt)) {
+                    return;
+                }
+                int frequency = driverFrequency;
+                if (t != driver) {
+                    Postings p = postings[t];
+                    positions[t] = p.retreat(positions[t], doc);
+                    frequency = positions[t] >= 0 && p.docs[positions[t]] == doc ? p.frequencies[positions[t]] : 0;
+                }
+                boolean inCategory = category >= 0 && categoryMatch[t][category];
+                if (frequency == 0 && !inCategory) {
+                    return;
+                }
+                if (frequency > 0) {
+                    score += termScore(weights[t], frequency, length);
+                }
+                if (inCategory) {
+                    score += CATEGORY_WEIGHT * weights[t];
+                }
+                words -= frequency;
+            }
+            String itemId = docIds[doc];
+            if (best.size() == limit && compare(score, createdAt, itemId, best.peek()) >= 0
+                    || after != null && compare(score, createdAt, itemId, after) <= 0) {
+                return;
+            }
+            best.add(new Hit(itemId, score, createdAt));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+    }
+
+    public int liveItems() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Documents of replaced or removed items, still taking space in the term lists until the next build. */
+    public int deadItems() {
+        lock.readLock().lock();
+        try {
+            return docCount - liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int terms() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureDocCapacity(int capacity) {
+        if (capacity > docIds.length) {
+            int grown = Math.max(capacity, docIds.length + (docIds.length >> 1));
+            docIds = Arrays.copyOf(docIds, grown);
+            docCategory = Arrays.copyOf(docCategory, grown);
+            docCreatedAt = Arrays.copyOf(docCreatedAt, grown);
+            docLength = Arrays.copyOf(docLength, grown);
+        }
+    }
+
+    /**
+     * Ascending document numbers with the term's frequency in each; documents are only ever appended. Each block
+     * of {@link #BLOCK} entries records its highest frequency, shortest description, lowest description length
+     * per occurrence of the term and newest creation time, which bound the score and rank of its documents.
+     */
+    private static final class Postings {
+
+        static final int BLOCK_SHIFT = 7;
+        static final int BLOCK = 1 << BLOCK_SHIFT;
+        static final Postings EMPTY = new Postings();
+
+        int[] docs = new int[4];
+        byte[] frequencies = new byte[4];
+        int size;
+        byte[] blockMaxFrequency = new byte[1];
+        short[] blockMinLength = new short[1];
+        float[] blockMinLengthPerFrequency = new float[1];
+        long[] blockMaxCreatedAt = new long[1];
+
+        void add(int doc, int frequency, short length, long createdAt) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            byte tf = (byte) Math.min(frequency, Byte.MAX_VALUE);
+            int block = size >> BLOCK_SHIFT;
+            if (block == blockMaxFrequency.length) {
+                blockMaxFrequency = Arrays.copyOf(blockMaxFrequency, block * 2);
+                blockMinLength = Arrays.copyOf(blockMinLength, block * 2);
+                blockMinLengthPerFrequency = Arrays.copyOf(blockMinLengthPerFrequency, block * 2);
+                blockMaxCreatedAt = Arrays.copyOf(blockMaxCreatedAt, block * 2);
+            }
+            if ((size & (BLOCK - 1)) == 0) {
+                blockMaxFrequency[block] = tf;
+                blockMinLength[block] = length;
+                blockMinLengthPerFrequency[block] = (float) length / tf;
+                blockMaxCreatedAt[block] = createdAt;
+            } else {
+                blockMaxFrequency[block] = (byte) Math.max(blockMaxFrequency[block], tf);
+                blockMinLength[block] = (short) Math.min(blockMinLength[block], length);
+                blockMinLengthPerFrequency[block] = Math.min(blockMinLengthPerFrequency[block], (float) length / tf);
+                blockMaxCreatedAt[block] = Math.max(blockMaxCreatedAt[block], createdAt);
+            }
+            docs[size] = doc;
+            frequencies[size] = tf;
+            size++;
+        }
+
+        int blocks() {
+            return (size + BLOCK - 1) >> BLOCK_SHIFT;
+        }
+
+        /** Last position from {@code from} back whose document is at most {@code doc}, or -1: gallop, then bisect. */
+        int retreat(int from, int doc) {
+            if (from < 0 || docs[from] <= doc) {
+                return from;
+            }
+            int step = 1;
+            int high = from;
+            int low = from - step;
+            while (low >= 0 && docs[low] > doc) {
+                high = low;
+                step <<= 1;
+                low = from - step;
+            }
+            low = Math.max(low, -1);
+            // docs[high] > doc; docs[low] <= doc or low == -1
+            while (low + 1 < high) {
+                int mid = (low + high) >>> 1;
+                if (docs[mid] > doc) {
+                    high = mid;
+                } else {
+                    low = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Item id to live document number: open addressing over an int array holding document numbers, compared
+     * through the document id array, so there is no entry object per item.
+     */
+    private static final class IdTable {
+
+        private static final int EMPTY = -1;
+        private static final int REMOVED = -2;
+
+        private int[] slots = filled(1 << 10);
+        private int used;
+
+        private static int[] filled(int size) {
+            int[] slots = new int[size];
+            Arrays.fill(slots, EMPTY);
+            return slots;
+        }
+
+        void put(String id, int doc, String[] docIds) {
+            if ((used + 1) * 2 > slots.length) {
+                rehash(docIds);
+            }
+            int mask = slots.length - 1;
+            int i = mix(id.hashCode()) & mask;
+            while (slots[i] >= 0) {
+                i = (i + 1) & mask;
+            }
+            if (slots[i] == EMPTY) {
+                used++;
+            }
+            slots[i] = doc;
+        }
+
+        /** Removes the id; returns its document, or -1. */
+        int remove(String id, String[] docIds) {
+            int mask = slots.length - 1;
+            for (int i = mix(id.hashCode()) & mask; slots[i] != EMPTY; i = (i + 1) & mask) {
+                if (slots[i] >= 0 && docIds[slots[i]].equals(id)) {
+                    int doc = slots[i];
+                    slots[i] = REMOVED;
+                    return doc;
+                }
+            }
+            return -1;
+        }
+
+        /** Drops removed slots, growing the table when more than a quarter of it holds documents. */
+        private void rehash(String[] docIds) {
+            int[] old = slots;
+            int live = 0;
+            for (int doc : old) {
+                if (doc >= 0) {
+                    live++;
+                }
+            }
+            slots = filled(live * 4 > old.length ? old.length * 2 : old.length);
+            used = 0;
+            int mask = slots.length - 1;
+            for (int doc : old) {
+                if (doc >= 0) {
+                    int i = mix(docIds[doc].hashCode()) & mask;
+                    while (slots[i] != EMPTY) {
+                        i = (i + 1) & mask;
+                    }
+                    slots[i] = doc;
+                    used++;
+                }
+            }
+        }
+
+        private static int mix(int h) {
+            h *= 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
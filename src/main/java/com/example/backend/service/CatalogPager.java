@@ -0,0 +1,119 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.CursorPage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Keyset pagination of public catalog listings (items, categories) on {@code (created_at, id)}. A page is read
+ * with one range query on the matching composite index, seeking past the last row of the previous page, so its
+ * cost does not grow with the position in the listing or the size of the catalog. The cursor handed out is that
+ * last row's created_at and id, Base64url-encoded together with the sort order.
+ */
+@Component
+public class CatalogPager {
+
+    /** Seek positions before the first row: later (newest first) or earlier (oldest first) than any row. */
+    private static final Instant BEFORE_NEWEST = Instant.parse("9000-01-01T00:00:00Z");
+    private static final Instant BEFORE_OLDEST = Instant.EPOCH;
+    private static final String INVALID_CURSOR = "Invalid cursor";
+
+    public enum Sort { NEWEST, OLDEST }
+
+    /** One range query of a listing: rows after ({@code createdAt}, {@code id}) in the given order. */
+    @FunctionalInterface
+    public interface PageQuery<E> {
+        List<E> find(Sort sort, Instant createdAt, String id, Limit limit);
+    }
+
+    @Value("${app.catalog.page.default-limit:20}")
+    private int defaultLimit;
+
+    @Value("${app.catalog.page.max-limit:100}")
+    private int maxLimit;
+
+    /**
+     * Reads one page: {@code limit} rows (default {@code app.catalog.page.default-limit}, at most
+     * {@code app.catalog.page.max-limit}) after {@code cursor}, or from the start without one.
+     * @param sort "newest" (default) or "oldest"
+     * @throws IllegalArgumentException for an unknown sort, a limit below 1 or a malformed cursor
+     */
+    public <E, R> CursorPage<R> page(String cursor, Integer limit, String sort, PageQuery<E> query,
+                                     Function<E, Instant> createdAt, Function<E, String> id, Function<E, R> mapper) {
+        Sort order = parseSort(sort);
+        int size = limit != null ? limit : defaultLimit;
+        if (size < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        size = Math.min(size, maxLimit);
+
+        Instant afterCreatedAt = order == Sort.NEWEST ? BEFORE_NEWEST : BEFORE_OLDEST;
+        String afterId = "";
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decode(cursor);
+            if (!parts[0].equals(order.name())) {
+                throw new IllegalArgumentException("Cursor does not match sort " + order.name().toLowerCase(Locale.ROOT));
+            }
+            try {
+                afterCreatedAt = Instant.ofEpochSecond(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+            } catch (NumberFormatException | DateTimeException e) {
+                throw new IllegalArgumentException(INVALID_CURSOR);
+            }
+            afterId = parts[3];
+        }
+
+        // One row more than the page tells whether another page follows, without a count query.
+        List<E> rows = query.find(order, afterCreatedAt, afterId, Limit.of(size + 1));
+        boolean hasMore = rows.size() > size;
+        List<E> pageRows = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            E last = pageRows.get(pageRows.size() - 1);
+            nextCursor = encode(order, createdAt.apply(last), id.apply(last));
+        }
+        return CursorPage.<R>builder()
+                .items(pageRows.stream().map(mapper).toList())
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    private static Sort parseSort(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return Sort.NEWEST;
+        }
+        try {
+            return Sort.valueOf(sort.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("sort must be newest or oldest");
+        }
+    }
+
+    static String encode(Sort sort, Instant createdAt, String id) {
+        String raw = sort.name() + "|" + createdAt.getEpochSecond() + "|" + createdAt.getNano() + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decode(String cursor) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(INVALID_CURSOR);
+        }
+        String[] parts = raw.split("\\|", 4);
+        if (parts.length != 4 || parts[3].isEmpty()) {
+            throw new IllegalArgumentException(INVALID_CURSOR);
+        }
+        return parts;
+    }
+}
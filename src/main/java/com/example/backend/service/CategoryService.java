@@ -1,20 +1,29 @@
 package com.example.backend.service;
 
+import com.example.backend.cache.CatalogCache;
+import com.example.backend.cache.ImageMetadataCache;
+import com.example.backend.cache.ImageMetadataCache.ImageMetadata;
 import com.example.backend.dto.CategoryResponse;
 import com.example.backend.dto.CreateCategoryRequest;
+import com.example.backend.dto.CursorPage;
+import com.example.backend.dto.SpooledImage;
 import com.example.backend.dto.UpdateCategoryRequest;
 import com.example.backend.entity.Category;
 import com.example.backend.entity.User;
 import com.example.backend.repository.CategoryRepository;
 import com.example.backend.repository.UserRepository;
+import com.example.backend.search.CatalogSearchIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.Base64;
 import java.util.List;
@@ -31,6 +40,12 @@ public class CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final UserRepository userRepository;
+    private final ImageMetadataCache imageMetadataCache;
+    private final ImageBlobStore imageBlobStore;
+    private final TransactionTemplate transactionTemplate;
+    private final CatalogPager catalogPager;
+    private final CatalogCache catalogCache;
+    private final CatalogSearchIndex catalogSearchIndex;
 
     @Value("${app.upload.image-dir:uploads/images}")
     private String imageDir;
@@ -38,12 +53,18 @@ public class CategoryService {
     @Value("${app.api.base-url:http://localhost:8081}")
     private String baseUrl;
 
-    /** Public: list all active categories (no user filter). */
+    /**
+     * Public: one page of active categories of all users, see {@link CatalogPager}. CategoryController serves it
+     * through {@link CatalogCache}, which calls this on a miss.
+     */
     @Transactional(readOnly = true)
-    public List<CategoryResponse> findAll() {
-        return categoryRepository.findAllByActiveTrueOrderByCreatedAtDesc().stream()
-                .map(c -> CategoryResponse.fromEntity(c, baseUrl.trim().replaceAll("/$", "")))
-                .toList();
+    public CursorPage<CategoryResponse> findAll(String cursor, Integer limit, String sort) {
+        return catalogPager.page(cursor, limit, sort,
+                (order, createdAt, id, max) -> order == CatalogPager.Sort.NEWEST
+                        ? categoryRepository.findActiveBefore(createdAt, id, max)
+                        : categoryRepository.findActiveAfter(createdAt, id, max),
+                Category::getCreatedAt, Category::getId,
+                c -> CategoryResponse.fromEntity(c, baseUrl.trim().replaceAll("/$", "")));
     }
 
     /** List categories for the current user (active only). */
@@ -61,16 +82,31 @@ public class CategoryService {
         return CategoryResponse.fromEntity(category, baseUrl.trim().replaceAll("/$", ""));
     }
 
-    @Transactional
     public CategoryResponse create(CreateCategoryRequest request, Long userId) throws IOException {
+        return create(request, null, userId);
+    }
+
+    /**
+     * Creates the category with {@code image} (a multipart file part) as its image; null falls back to imageBase64.
+     * The image is staged on disk before the transaction that saves the category, so the connection is not held
+     * for the file write (see {@link ImageBlobStore}).
+     */
+    public CategoryResponse create(CreateCategoryRequest request, MultipartFile image, Long userId) throws IOException {
+        StagedImage staged = stageCategoryImage(image, request.getSpooledImage(), request.getImageBase64(),
+                request.getImageContentType());
+        try {
+            return transactionTemplate.execute(status -> createInTransaction(request, staged, userId));
+        } finally {
+            discard(staged);
+        }
+    }
+
+    private CategoryResponse createInTransaction(CreateCategoryRequest request, StagedImage image, Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
         String categoryId = UUID.randomUUID().toString();
-        ImageSaveResult imageResult = null;
-        if (request.getImageBase64() != null && !request.getImageBase64().isBlank()) {
-            imageResult = saveCategoryImage(user.getId(), categoryId, request.getImageBase64(), request.getImageContentType());
-        }
+        ImageSaveResult imageResult = image != null ? saveCategoryImage(user.getId(), categoryId, image) : null;
 
         Category category = new Category();
         category.setId(categoryId);
@@ -80,14 +116,34 @@ public class CategoryService {
         if (imageResult != null) {
             category.setImagePath(imageResult.relativePath());
             category.setImageContentType(imageResult.contentType());
+            category.setImageHash(imageResult.hash());
         }
         category = categoryRepository.save(category);
+        catalogCache.categoriesChanged();
+        catalogSearchIndex.categoryChanged(category);
 
         return CategoryResponse.fromEntity(category, baseUrl.trim().replaceAll("/$", ""));
     }
 
-    @Transactional
     public CategoryResponse update(String id, UpdateCategoryRequest request, Long userId) throws IOException {
+        return update(id, request, null, userId);
+    }
+
+    /**
+     * Updates the category; a non-empty {@code image} part replaces the image, as imageBase64 does otherwise.
+     * As in {@link #create(CreateCategoryRequest, MultipartFile, Long)}, the image is staged before the transaction.
+     */
+    public CategoryResponse update(String id, UpdateCategoryRequest request, MultipartFile image, Long userId) throws IOException {
+        StagedImage staged = stageCategoryImage(image, request.getSpooledImage(), request.getImageBase64(),
+                request.getImageContentType());
+        try {
+            return transactionTemplate.execute(status -> updateInTransaction(id, request, staged, userId));
+        } finally {
+            discard(staged);
+        }
+    }
+
+    private CategoryResponse updateInTransaction(String id, UpdateCategoryRequest request, StagedImage image, Long userId) {
         Category category = categoryRepository.findByIdAndUser_Id(id, userId)
                 .orElseThrow(() -> new IllegalArgumentException("Category not found"));
 
@@ -96,27 +152,34 @@ public class CategoryService {
             category.setActive(request.getActive());
         }
 
-        if (request.getImageBase64() != null && !request.getImageBase64().isBlank()) {
+        if (image != null) {
             if (category.getImagePath() != null) {
                 deleteCategoryImage(category);
             }
-            ImageSaveResult result = saveCategoryImage(category.getUser().getId(), category.getId(), request.getImageBase64(), request.getImageContentType());
-            categoryRepository.updateImagePathAndContentType(category.getId(), result.relativePath(), result.contentType());
+            ImageSaveResult result = saveCategoryImage(category.getUser().getId(), category.getId(), image);
+            categoryRepository.updateImage(category.getId(), result.relativePath(), result.contentType(), result.hash());
+            imageMetadataCache.evict(ImageMetadataCache.Kind.CATEGORY, category.getId());
             category.setImagePath(result.relativePath());
             category.setImageContentType(result.contentType());
+            category.setImageHash(result.hash());
         }
+        catalogCache.categoriesChanged();
+        catalogSearchIndex.categoryChanged(category);
 
         return CategoryResponse.fromEntity(category, baseUrl.trim().replaceAll("/$", ""));
     }
 
     @Transactional
-    public void delete(String id, Long userId) throws IOException {
+    public void delete(String id, Long userId) {
         Category category = categoryRepository.findByIdAndUser_Id(id, userId)
                 .orElseThrow(() -> new IllegalArgumentException("Category not found"));
         if (category.getImagePath() != null) {
             deleteCategoryImage(category);
         }
+        imageMetadataCache.evict(ImageMetadataCache.Kind.CATEGORY, category.getId());
         categoryRepository.delete(category);
+        catalogCache.categoriesChanged();
+        catalogSearchIndex.categoryRemoved(category.getId());
     }
 
     /** Admin: list all categories from all users. */
@@ -127,29 +190,66 @@ public class CategoryService {
                 .toList();
     }
 
-    /** For serving: get category by id (public). */
-    @Transactional(readOnly = true)
-    public Category findByIdPublic(String id) {
-        return categoryRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Category not found"));
+    /**
+     * For serving (public): file location, content type, size and validators of the category's image, from
+     * {@link ImageMetadataCache}. Only a miss reads the row (three columns) and the file attributes.
+     */
+    public ImageMetadata resolveImage(String id) {
+        ImageMetadata image = imageMetadataCache.get(ImageMetadataCache.Kind.CATEGORY, id, key ->
+                categoryRepository.findImageInfoById(key)
+                        .filter(i -> i.getImagePath() != null && !i.getImagePath().isBlank())
+                        .map(i -> {
+                            String contentType = i.getImageContentType() != null ? i.getImageContentType() : DEFAULT_CONTENT_TYPE;
+                            return i.getImageHash() != null
+                                    ? ImageMetadata.forBlob(imageBlobStore.path(i.getImageHash()), contentType, i.getImageHash())
+                                    : ImageMetadata.forFile(imageFile(i.getImagePath()), contentType);
+                        })
+                        .orElse(null));
+        if (image == null) {
+            throw new IllegalArgumentException("Category not found");
+        }
+        return image;
     }
 
     public Path getCategoryImagePath(Category category) {
+        if (category.getImageHash() != null) {
+            return imageBlobStore.path(category.getImageHash());
+        }
         if (category.getImagePath() == null || category.getImagePath().isBlank()) {
             return null;
         }
+        return imageFile(category.getImagePath());
+    }
+
+    private Path imageFile(String relativePath) {
         Path base = Path.of(imageDir);
         if (!base.isAbsolute()) {
             base = Path.of(System.getProperty("user.dir")).resolve(base);
         }
-        return base.resolve("categories").resolve(category.getImagePath());
+        return base.resolve("categories").resolve(relativePath);
     }
 
     /**
-     * Writes image to disk under categories/{userId}/{categoryId}. Does not touch the database.
-     * @return relative path (e.g. "userId/categoryId") and content type for the caller to persist.
+     * Writes the request's image to a staged file, outside any transaction: the multipart part if present, else
+     * the image Base64ImageMessageConverter spooled from the JSON body, else imageBase64. Null without an image.
      */
-    private ImageSaveResult saveCategoryImage(Long userId, String categoryId, String base64Data, String requestContentType) throws IOException {
+    private StagedImage stageCategoryImage(MultipartFile image, SpooledImage spooled, String base64Data,
+                                           String requestContentType) throws IOException {
+        if (image != null && !image.isEmpty()) {
+            String contentType = image.getContentType() != null && !image.getContentType().isBlank()
+                    ? image.getContentType().trim() : DEFAULT_CONTENT_TYPE;
+            try (InputStream in = image.getInputStream()) {
+                return new StagedImage(imageBlobStore.spool(in), contentType);
+            }
+        }
+        if (spooled != null) {
+            String contentType = requestContentType != null && !requestContentType.isBlank()
+                    ? requestContentType.trim() : DEFAULT_CONTENT_TYPE;
+            return new StagedImage(spooled, contentType);
+        }
+        if (base64Data == null || base64Data.isBlank()) {
+            return null;
+        }
         String contentType = resolveContentType(base64Data, requestContentType);
         if (base64Data.startsWith(DATA_URL_PREFIX)) {
             int idx = base64Data.indexOf(BASE64_PREFIX);
@@ -161,24 +261,39 @@ public class CategoryService {
         if (bytes == null || bytes.length == 0) {
             throw new IllegalArgumentException("Invalid or empty Base64 image data");
         }
-        Path base = Path.of(imageDir);
-        if (!base.isAbsolute()) {
-            base = Path.of(System.getProperty("user.dir")).resolve(base);
+        return new StagedImage(imageBlobStore.spool(new ByteArrayInputStream(bytes)), contentType);
+    }
+
+    /**
+     * Adds the blob reference for a staged image; its file is moved into place after the commit. Does not touch
+     * the categories table.
+     * @return relative path (e.g. "userId/categoryId"), content type and blob hash for the caller to persist.
+     */
+    private ImageSaveResult saveCategoryImage(Long userId, String categoryId, StagedImage image) {
+        String hash = imageBlobStore.store(image.file(), image.contentType());
+        return new ImageSaveResult(userId + "/" + categoryId, image.contentType(), hash);
+    }
+
+    /** Removes a staged file that was not moved into place, e.g. after a rollback. */
+    private void discard(StagedImage image) {
+        if (image != null) {
+            imageBlobStore.discard(image.file());
         }
-        Path categoryDir = base.resolve("categories").resolve(String.valueOf(userId));
-        Files.createDirectories(categoryDir);
-        String relativePath = userId + "/" + categoryId;
-        Path filePath = categoryDir.resolve(categoryId);
-        Files.write(filePath, bytes);
-        return new ImageSaveResult(relativePath, contentType);
     }
 
-    private record ImageSaveResult(String relativePath, String contentType) {}
+    private record StagedImage(SpooledImage file, String contentType) {}
 
-    private void deleteCategoryImage(Category category) throws IOException {
+    private record ImageSaveResult(String relativePath, String contentType, String hash) {}
+
+    /** Drops the blob reference, or deletes the file of an image stored before the blob store after the commit. */
+    private void deleteCategoryImage(Category category) {
+        if (category.getImageHash() != null) {
+            imageBlobStore.release(category.getImageHash());
+            return;
+        }
         Path imagePath = getCategoryImagePath(category);
-        if (imagePath != null && Files.exists(imagePath)) {
-            Files.delete(imagePath);
+        if (imagePath != null) {
+            imageBlobStore.deleteAfterCommit(imagePath);
         }
     }
 
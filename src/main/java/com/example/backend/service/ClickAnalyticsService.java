@@ -0,0 +1,291 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.ShortenerStatsResponse;
+import com.example.backend.entity.ShortenerClickRollup;
+import com.example.backend.entity.ShortenerClickRollup.Dimension;
+import com.example.backend.entity.StatsGranularity;
+import com.example.backend.repository.ShortenerClickRollupRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Click analytics for short links. The redirect path only offers a small event to a bounded queue
+ * (dropping it when full); a scheduled task drains the queue, aggregates events into minute/hour/day
+ * buckets and upserts them into shortener_click_rollups in one batch and one transaction. A failed batch is
+ * retried whole with the next one, up to {@code app.shortener.analytics.max-unsaved-rows} rows.
+ * Stats are read from the rollups only.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ClickAnalyticsService {
+
+    static final String DIRECT = "(direct)";
+    static final String UNKNOWN = "(unknown)";
+
+    private static final String UPSERT_SQL = "INSERT INTO shortener_click_rollups "
+            + "(shortener_id, granularity, bucket_start, dimension, dimension_value, clicks) VALUES (?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE clicks = clicks + VALUES(clicks)";
+
+    private static final int MAX_DIMENSION_VALUE_LENGTH = 255;
+    private static final int MAX_BUCKETS_PER_QUERY = 10_000;
+    private static final int MAX_DRAIN_PER_RUN = 100_000;
+    /** How long clicks of a deleted short link are still dropped: longer than any click takes to be flushed. */
+    private static final Duration DELETED_RETENTION = Duration.ofMinutes(10);
+
+    private final ShortenerClickRollupRepository rollupRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.shortener.analytics.queue-capacity:50000}")
+    private int queueCapacity;
+
+    @Value("${app.shortener.analytics.minute-retention-hours:48}")
+    private long minuteRetentionHours;
+
+    @Value("${app.shortener.analytics.max-unsaved-rows:100000}")
+    private int maxUnsavedRows;
+
+    private BlockingQueue<ClickEvent> queue;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder droppedRows = new LongAdder();
+
+    /** Aggregated counts that failed to persist; retried with the next batch. Guarded by this. */
+    private final Map<RollupKey, Long> unsaved = new HashMap<>();
+
+    /** Recently deleted short link ids and when they were deleted; their late clicks are dropped. Guarded by this. */
+    private final Map<Long, Instant> deleted = new HashMap<>();
+
+    /** Raw click as captured on the redirect path; parsing is left to the aggregator. */
+    record ClickEvent(Long shortenerId, long epochSecond, String referer, String userAgent) {}
+
+    record RollupKey(Long shortenerId, StatsGranularity granularity, long bucketStart,
+                     Dimension dimension, String value) {}
+
+    @PostConstruct
+    void init() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /** Non-blocking; the event is dropped (and counted) if the queue is full. */
+    public void record(Long shortenerId, String referer, String userAgent) {
+        ClickEvent event = new ClickEvent(shortenerId, Instant.now().getEpochSecond(), referer, userAgent);
+        if (!queue.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    /** Number of click events dropped because the queue was full. */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /** Number of aggregated rollup rows dropped because too many were waiting for a retry. */
+    public long getDroppedRowCount() {
+        return droppedRows.sum();
+    }
+
+    @Scheduled(fixedDelayString = "${app.shortener.analytics.flush-interval-ms:10000}")
+    public synchronized void aggregate() {
+        List<ClickEvent> events = new ArrayList<>();
+        queue.drainTo(events, MAX_DRAIN_PER_RUN);
+        if (events.isEmpty() && unsaved.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        deleted.values().removeIf(at -> at.isBefore(now.minus(DELETED_RETENTION)));
+        Map<RollupKey, Long> counts = new HashMap<>(unsaved);
+        unsaved.clear();
+        for (ClickEvent e : events) {
+            if (deleted.containsKey(e.shortenerId())) {
+                continue;
+            }
+            for (StatsGranularity g : StatsGranularity.values()) {
+                counts.merge(new RollupKey(e.shortenerId(), g, g.bucketStart(e.epochSecond()), Dimension.TOTAL, ""),
+                        1L, Long::sum);
+            }
+            long day = StatsGranularity.DAY.bucketStart(e.epochSecond());
+            counts.merge(new RollupKey(e.shortenerId(), StatsGranularity.DAY, day, Dimension.REFERRER,
+                    referrerHost(e.referer())), 1L, Long::sum);
+            counts.merge(new RollupKey(e.shortenerId(), StatsGranularity.DAY, day, Dimension.AGENT,
+                    userAgentClass(e.userAgent())), 1L, Long::sum);
+        }
+        List<Object[]> batch = new ArrayList<>(counts.size());
+        for (Map.Entry<RollupKey, Long> c : counts.entrySet()) {
+            RollupKey k = c.getKey();
+            batch.add(new Object[]{k.shortenerId(), k.granularity().name(), k.bucketStart(),
+                    k.dimension().name(), k.value(), c.getValue()});
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(UPSERT_SQL, batch));
+            log.debug("Aggregated {} click events into {} rollup rows", events.size(), batch.size());
+        } catch (RuntimeException ex) {
+            // The transaction rolled back, so none of the rows were applied: retry them all, within the bound.
+            for (Map.Entry<RollupKey, Long> c : counts.entrySet()) {
+                if (unsaved.size() < maxUnsavedRows) {
+                    unsaved.put(c.getKey(), c.getValue());
+                } else {
+                    droppedRows.increment();
+                }
+            }
+            log.warn("Failed to persist {} click rollup rows ({} kept for retry): {}", batch.size(), unsaved.size(),
+                    ex.getMessage());
+        }
+    }
+
+    /** Minute buckets are only useful for recent traffic; hour and day buckets are kept. */
+    @Scheduled(cron = "${app.shortener.analytics.prune-cron:0 15 * * * *}")
+    @Transactional
+    public void pruneMinuteRollups() {
+        long before = Instant.now().minus(Duration.ofHours(minuteRetentionHours)).getEpochSecond();
+        int removed = rollupRepository.deleteOlderThan(StatsGranularity.MINUTE, before);
+        if (removed > 0) {
+            log.info("Pruned {} minute click rollups", removed);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        aggregate();
+    }
+
+    /**
+     * Deletes the link's rollups, and drops its clicks still waiting to be written, queued or raced in by a
+     * redirect until the deletion is visible, so that no later flush recreates rows for it.
+     */
+    @Transactional
+    public synchronized void deleteForShortener(Long shortenerId) {
+        deleted.put(shortenerId, Instant.now());
+        unsaved.keySet().removeIf(k -> k.shortenerId().equals(shortenerId));
+        rollupRepository.deleteByShortenerId(shortenerId);
+    }
+
+    /**
+     * Reads click stats for one short link from the rollups. Defaults: last 24 hours, hourly buckets.
+     * Caller is responsible for the ownership check.
+     */
+    @Transactional(readOnly = true)
+    public ShortenerStatsResponse getStats(Long shortenerId, Instant from, Instant to, String granularity) {
+        StatsGranularity g = parseGranularity(granularity);
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(Duration.ofDays(1));
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        long fromBucket = g.bucketStart(start.getEpochSecond());
+        long toBucket = g.bucketStart(end.getEpochSecond());
+        if ((toBucket - fromBucket) / g.getSeconds() >= MAX_BUCKETS_PER_QUERY) {
+            throw new IllegalArgumentException("Range too large for granularity " + g);
+        }
+
+        List<ShortenerStatsResponse.Bucket> buckets = new ArrayList<>();
+        long total = 0;
+        for (ShortenerClickRollup r : rollupRepository
+                .findByShortenerIdAndGranularityAndDimensionAndBucketStartBetweenOrderByBucketStartAsc(
+                        shortenerId, g, Dimension.TOTAL, fromBucket, toBucket)) {
+            buckets.add(new ShortenerStatsResponse.Bucket(Instant.ofEpochSecond(r.getBucketStart()), r.getClicks()));
+            total += r.getClicks();
+        }
+
+        Map<String, Long> referrers = new HashMap<>();
+        Map<String, Long> agents = new HashMap<>();
+        for (ShortenerClickRollup r : rollupRepository.findByShortenerIdAndGranularityAndDimensionInAndBucketStartBetween(
+                shortenerId, StatsGranularity.DAY, List.of(Dimension.REFERRER, Dimension.AGENT),
+                StatsGranularity.DAY.bucketStart(start.getEpochSecond()),
+                StatsGranularity.DAY.bucketStart(end.getEpochSecond()))) {
+            Map<String, Long> target = r.getDimension() == Dimension.REFERRER ? referrers : agents;
+            target.merge(r.getDimensionValue(), r.getClicks(), Long::sum);
+        }
+
+        return ShortenerStatsResponse.builder()
+                .shortenerId(shortenerId)
+                .granularity(g)
+                .from(start)
+                .to(end)
+                .totalClicks(total)
+                .buckets(buckets)
+                .referrers(sortByCountDesc(referrers))
+                .userAgents(sortByCountDesc(agents))
+                .build();
+    }
+
+    static StatsGranularity parseGranularity(String granularity) {
+        if (granularity == null || granularity.isBlank()) {
+            return StatsGranularity.HOUR;
+        }
+        try {
+            return StatsGranularity.valueOf(granularity.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid granularity: " + granularity + " (use minute, hour or day)");
+        }
+    }
+
+    /** Host of the Referer header without a leading "www.", or (direct) when absent. */
+    static String referrerHost(String referer) {
+        if (referer == null || referer.isBlank()) {
+            return DIRECT;
+        }
+        try {
+            String host = URI.create(referer.trim()).getHost();
+            if (host == null || host.isBlank()) {
+                return UNKNOWN;
+            }
+            host = host.toLowerCase(Locale.ROOT);
+            if (host.startsWith("www.")) {
+                host = host.substring(4);
+            }
+            return host.length() > MAX_DIMENSION_VALUE_LENGTH ? host.substring(0, MAX_DIMENSION_VALUE_LENGTH) : host;
+        } catch (IllegalArgumentException e) {
+            return UNKNOWN;
+        }
+    }
+
+    /** Coarse user-agent class: bot, tablet, mobile, desktop or other. */
+    static String userAgentClass(String userAgent) {
+        if (userAgent == null || userAgent.isBlank()) {
+            return "other";
+        }
+        String ua = userAgent.toLowerCase(Locale.ROOT);
+        if (ua.contains("bot") || ua.contains("crawl") || ua.contains("spider") || ua.contains("curl")
+                || ua.contains("wget") || ua.contains("python-requests") || ua.contains("headless")) {
+            return "bot";
+        }
+        if (ua.contains("ipad") || ua.contains("tablet") || (ua.contains("android") && !ua.contains("mobile"))) {
+            return "tablet";
+        }
+        if (ua.contains("mobi") || ua.contains("iphone") || ua.contains("android")) {
+            return "mobile";
+        }
+        if (ua.contains("windows") || ua.contains("macintosh") || ua.contains("x11") || ua.contains("cros")) {
+            return "desktop";
+        }
+        return "other";
+    }
+
+    private static Map<String, Long> sortByCountDesc(Map<String, Long> counts) {
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(e -> sorted.put(e.getKey(), e.getValue()));
+        return sorted;
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.backend.service;
+
+import com.example.backend.cache.ImageMetadataCache;
+import com.example.backend.cache.ImageMetadataCache.ImageMetadata;
+import com.example.backend.config.TransactionCallbacks;
+import com.example.backend.dto.SpooledImage;
+import com.example.backend.entity.ImageBlob;
+import com.example.backend.repository.ImageBlobRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed image storage shared by image uploads, items and categories. Each distinct content is
+ * written once, to {@code blobs/ab/cd/<sha256>} under the image directory, and counted in image_blobs by
+ * the rows that use it; identical images uploaded many times cost one file.
+ * <p>
+ * Writes are two-phase: {@link #spool} stages the content in a temp file before any transaction, {@link #store}
+ * adds a reference in the caller's transaction and moves the file into place after it commits. {@link #release}
+ * removes a reference, and once a commit leaves a blob without references its file and row are deleted under a
+ * row lock. Because adding a reference locks the same row, a new reference either waits for that delete (and
+ * then places its file) or makes it a no-op.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImageBlobStore {
+
+    static final String BLOB_DIR = "blobs";
+    static final String TEMP_SUFFIX = ".tmp";
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private final ImageBlobRepository imageBlobRepository;
+    private final ImageMetadataCache imageMetadataCache;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.upload.image-dir:uploads/images}")
+    private String imageDir;
+
+    private TransactionTemplate separateTransaction;
+
+    @PostConstruct
+    void init() {
+        separateTransaction = new TransactionTemplate(transactionManager);
+        separateTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Copies {@code in} to a temp file under the blob directory through a fixed buffer, hashing it on the way.
+     * Call it before the transaction that references the image, so the disk write holds no connection; the file
+     * is moved into place by {@link #store}, and callers remove it with {@link #discard} in any case (a no-op
+     * once it has been moved). The caller closes {@code in}.
+     */
+    public SpooledImage spool(InputStream in) throws IOException {
+        // Spooled inside the blob directory, so moving the file into place is a rename on the same file system.
+        Path dir = imageRoot().resolve(BLOB_DIR);
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, "upload.", TEMP_SUFFIX);
+        try {
+            MessageDigest digest = sha256();
+            long size = Files.copy(new DigestInputStream(in, digest), temp, StandardCopyOption.REPLACE_EXISTING);
+            return new SpooledImage(temp, HexFormat.of().formatHex(digest.digest()), size);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Adds a reference to the spooled content in the caller's transaction. The file is moved into place, or
+     * dropped if this content is already stored, once that transaction commits: the connection is only held for
+     * the row update, and a rolled-back reference leaves no file behind.
+     * @return the content hash, to be stored on the referencing row
+     */
+    @Transactional
+    public String store(SpooledImage spooled, String contentType) {
+        if (spooled.size() == 0) {
+            throw new IllegalArgumentException("Image file is empty");
+        }
+        String hash = spooled.hash();
+        imageBlobRepository.addReference(hash, spooled.size(), contentType, Instant.now());
+        TransactionCallbacks.afterCommit(() -> place(spooled));
+        return hash;
+    }
+
+    /** Moves a spooled file to its blob path unless that content is already there. */
+    private void place(SpooledImage spooled) {
+        Path target = path(spooled.hash());
+        try {
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                Files.move(spooled.file(), target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } else {
+                Files.deleteIfExists(spooled.file());
+            }
+        } catch (IOException e) {
+            // The reference is committed; the image stays missing until the same content is stored again.
+            log.error("Could not move spooled upload {} to {}: {}", spooled.file(), target, e.getMessage());
+        }
+    }
+
+    /** Deletes a spooled file that was not stored; a no-op once it has been moved into place. */
+    public void discard(SpooledImage spooled) {
+        try {
+            Files.deleteIfExists(spooled.file());
+        } catch (IOException e) {
+            log.warn("Could not delete spooled upload {}: {}", spooled.file(), e.getMessage());
+        }
+    }
+
+    /** Drops one reference; a blob left without references is deleted after the transaction commits. */
+    @Transactional
+    public void release(String hash) {
+        if (imageBlobRepository.removeReference(hash, Instant.now()) == 0) {
+            log.warn("Released image blob {} that had no references", hash);
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> deleteIfUnreferenced(hash));
+    }
+
+    /**
+     * Deletes the file of an image stored before the blob store once the caller's transaction commits, so a
+     * rollback keeps it and no file I/O happens while the connection is held.
+     */
+    public void deleteAfterCommit(Path file) {
+        TransactionCallbacks.afterCommit(() -> {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Could not delete image file {}: {}", file, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Deletes file and row if the blob still has no references, holding the row lock meanwhile.
+     * @return whether the blob was deleted
+     */
+    boolean deleteIfUnreferenced(String hash) {
+        try {
+            return Boolean.TRUE.equals(separateTransaction.execute(status -> imageBlobRepository.findByHashForUpdate(hash)
+                    .filter(blob -> blob.getRefCount() == 0)
+                    .map(blob -> {
+                        delete(blob);
+                        return true;
+                    })
+                    .orElse(false)));
+        } catch (RuntimeException e) {
+            log.warn("Could not delete unreferenced image blob {}: {}", hash, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * For ImageGarbageCollector: deletes a blob file that has no image_blobs row. A {@link #store} of the same
+     * content may commit meanwhile and, seeing the file, drop its own copy; so the file is first moved aside and
+     * put back if a row has appeared by then.
+     * @return bytes reclaimed, 0 if the file was kept
+     */
+    long deleteOrphanFile(String hash) throws IOException {
+        Path file = path(hash);
+        Path aside = file.resolveSibling(hash + ".gc" + TEMP_SUFFIX);
+        long size = Files.size(file);
+        Files.move(file, aside, StandardCopyOption.ATOMIC_MOVE);
+        if (imageBlobRepository.existsById(hash)) {
+            if (!Files.exists(file)) {
+                Files.move(aside, file, StandardCopyOption.ATOMIC_MOVE);
+            } else {
+                Files.delete(aside);
+            }
+            return 0;
+        }
+        Files.delete(aside);
+        imageMetadataCache.evict(ImageMetadataCache.Kind.BLOB, hash);
+        return size;
+    }
+
+    private void delete(ImageBlob blob) {
+        try {
+            Files.deleteIfExists(path(blob.getHash()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        imageBlobRepository.delete(blob);
+        imageMetadataCache.evict(ImageMetadataCache.Kind.BLOB, blob.getHash());
+    }
+
+    /**
+     * For serving GET /b/{hash}: file metadata of a stored blob from {@link ImageMetadataCache}.
+     * The content behind a hash never changes, so entries need no eviction until the blob is deleted.
+     */
+    public ImageMetadata resolveImage(String hash) {
+        ImageMetadata image = isHash(hash)
+                ? imageMetadataCache.get(ImageMetadataCache.Kind.BLOB, hash, h -> imageBlobRepository.findById(h)
+                        .map(b -> ImageMetadata.forBlob(path(h), b.getContentType(), h))
+                        .orElse(null))
+                : null;
+        if (image == null) {
+            throw new IllegalArgumentException("Image not found");
+        }
+        return image;
+    }
+
+    static boolean isHash(String name) {
+        return HASH.matcher(name).matches();
+    }
+
+    /** Absolute file of a blob: {@code <image-dir>/blobs/ab/cd/<hash>}. */
+    public Path path(String hash) {
+        return imageRoot().resolve(relativePath(hash));
+    }
+
+    private Path imageRoot() {
+        Path base = Path.of(imageDir);
+        if (!base.isAbsolute()) {
+            base = Path.of(System.getProperty("user.dir")).resolve(base);
+        }
+        return base;
+    }
+
+    /** Path of a blob relative to the image directory, as stored in image_uploads.file_path. */
+    public static String relativePath(String hash) {
+        return BLOB_DIR + "/" + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.ImageGcReport;
+import com.example.backend.entity.ImageBlob;
+import com.example.backend.repository.CategoryRepository;
+import com.example.backend.repository.ImageBlobRepository;
+import com.example.backend.repository.ImageUploadRepository;
+import com.example.backend.repository.ItemRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Deletes image files that no row refers to any more: blobs left without references, blob files without a row,
+ * spooled uploads that were never stored, and item, category and upload files from before the blob store.
+ * Runs nightly ({@code app.upload.gc.cron}) and on demand from the admin API.
+ * <p>
+ * The image directory is walked by a fork/join pool, one task per directory (user directories, blob fan-out
+ * directories). Each task checks its files against the database in batches of {@code app.upload.gc.batch-size}
+ * with IN queries, so neither all rows nor all paths are ever held in memory. Files and rows changed within
+ * {@code app.upload.gc.grace-period-seconds} are left alone, so uploads in flight are never touched.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ImageGarbageCollector {
+
+    /** Sub-directory tasks a walker forks before joining the oldest one. */
+    private static final int MAX_PENDING_TASKS = 64;
+
+    private final ItemRepository itemRepository;
+    private final CategoryRepository categoryRepository;
+    private final ImageUploadRepository imageUploadRepository;
+    private final ImageBlobRepository imageBlobRepository;
+    private final ImageBlobStore imageBlobStore;
+
+    @Value("${app.upload.image-dir:uploads/images}")
+    private String imageDir;
+
+    @Value("${app.upload.gc.grace-period-seconds:3600}")
+    private long gracePeriodSeconds;
+
+    @Value("${app.upload.gc.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.upload.gc.parallelism:4}")
+    private int parallelism;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Scheduled(cron = "${app.upload.gc.cron:0 30 3 * * *}")
+    public void scheduledCollect() {
+        if (running.get()) {
+            log.info("Skipping scheduled image garbage collection: a run is in progress");
+            return;
+        }
+        collect(false);
+    }
+
+    /**
+     * Runs one collection; with {@code dryRun} nothing is deleted and the report counts what would be.
+     * @throws IllegalArgumentException if a collection is already running
+     */
+    public ImageGcReport collect(boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalArgumentException("Image garbage collection is already running");
+        }
+        long start = System.nanoTime();
+        Run run = new Run(dryRun, Instant.now().minusSeconds(gracePeriodSeconds));
+        try {
+            collectUnreferencedBlobs(run);
+            Path root = imageRoot();
+            if (Files.isDirectory(root)) {
+                ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+                try {
+                    pool.invoke(new DirectoryTask(run, root, Area.ROOT));
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        } finally {
+            running.set(false);
+        }
+        ImageGcReport report = ImageGcReport.builder()
+                .dryRun(dryRun)
+                .filesScanned(run.filesScanned.sum())
+                .orphanFiles(run.orphanFiles.sum())
+                .tempFiles(run.tempFiles.sum())
+                .unreferencedBlobs(run.unreferencedBlobs.sum())
+                .bytesReclaimed(run.bytesReclaimed.sum())
+                .durationMs((System.nanoTime() - start) / 1_000_000)
+                .build();
+        log.info("Image garbage collection{}: scanned {} files, {} orphan files, {} temp files, {} unreferenced blobs, "
+                        + "{} bytes reclaimed in {} ms", dryRun ? " (dry run)" : "", report.getFilesScanned(),
+                report.getOrphanFiles(), report.getTempFiles(), report.getUnreferencedBlobs(),
+                report.getBytesReclaimed(), report.getDurationMs());
+        return report;
+    }
+
+    /**
+     * Rows whose last reference was dropped before the grace period and that were not deleted after the commit
+     * (e.g. the server stopped first). Paged by hash, so rows deleted meanwhile do not shift the pages.
+     */
+    private void collectUnreferencedBlobs(Run run) {
+        String afterHash = "";
+        List<ImageBlob> page;
+        do {
+            page = imageBlobRepository.findUnreferenced(run.cutoff, afterHash, Limit.of(batchSize));
+            for (ImageBlob blob : page) {
+                if (run.dryRun || imageBlobStore.deleteIfUnreferenced(blob.getHash())) {
+                    run.unreferencedBlobs.increment();
+                    run.bytesReclaimed.add(blob.getSize());
+                }
+            }
+            if (!page.isEmpty()) {
+                afterHash = page.get(page.size() - 1).getHash();
+            }
+        } while (page.size() == batchSize);
+    }
+
+    private Path imageRoot() {
+        Path base = Path.of(imageDir);
+        if (!base.isAbsolute()) {
+            base = Path.of(System.getProperty("user.dir")).resolve(base);
+        }
+        return base;
+    }
+
+    /** What a directory of the image tree holds, and so how its files are checked. */
+    private enum Area {
+        /** The image directory: {@code items/}, {@code categories/}, {@code blobs/} and upload user directories. */
+        ROOT,
+        /** {@code items/} or {@code categories/}: one directory per user. */
+        ITEMS,
+        CATEGORIES,
+        /** {@code items/{userId}/}, {@code categories/{userId}/}, {@code {userId}/}: files from before the blob store. */
+        ITEM_FILES,
+        CATEGORY_FILES,
+        UPLOAD_FILES,
+        /** {@code blobs/} and its fan-out directories. */
+        BLOBS;
+
+        Area child(String name) {
+            return switch (this) {
+                case ROOT -> switch (name) {
+                    case "items" -> ITEMS;
+                    case "categories" -> CATEGORIES;
+                    case ImageBlobStore.BLOB_DIR -> BLOBS;
+                    default -> name.chars().allMatch(Character::isDigit) ? UPLOAD_FILES : null;
+                };
+                case ITEMS -> ITEM_FILES;
+                case CATEGORIES -> CATEGORY_FILES;
+                case BLOBS -> BLOBS;
+                default -> null;
+            };
+        }
+
+        boolean legacy() {
+            return this == ITEM_FILES || this == CATEGORY_FILES || this == UPLOAD_FILES;
+        }
+    }
+
+    private record Candidate(Path file, long size) {
+    }
+
+    /** Counters and settings of one run, shared by all directory tasks. */
+    private static final class Run {
+
+        final boolean dryRun;
+        final Instant cutoff;
+        final LongAdder filesScanned = new LongAdder();
+        final LongAdder orphanFiles = new LongAdder();
+        final LongAdder tempFiles = new LongAdder();
+        final LongAdder unreferencedBlobs = new LongAdder();
+        final LongAdder bytesReclaimed = new LongAdder();
+
+        Run(boolean dryRun, Instant cutoff) {
+            this.dryRun = dryRun;
+            this.cutoff = cutoff;
+        }
+    }
+
+    /** Checks the files of one directory and forks a task per sub-directory. */
+    private final class DirectoryTask extends RecursiveAction {
+
+        private final Run run;
+        private final Path dir;
+        private final Area area;
+
+        DirectoryTask(Run run, Path dir, Area area) {
+            this.run = run;
+            this.dir = dir;
+            this.area = area;
+        }
+
+        @Override
+        protected void compute() {
+            Deque<DirectoryTask> pending = new ArrayDeque<>();
+            List<Candidate> batch = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class,
+                            LinkOption.NOFOLLOW_LINKS);
+                    if (attributes.isDirectory()) {
+                        Area child = area.child(entry.getFileName().toString());
+                        if (child != null) {
+                            DirectoryTask task = new DirectoryTask(run, entry, child);
+                            task.fork();
+                            pending.add(task);
+                            if (pending.size() >= MAX_PENDING_TASKS) {
+                                pending.poll().join();
+                            }
+                        }
+                    } else if (attributes.isRegularFile() && area != Area.ROOT) {
+                        run.filesScanned.increment();
+                        if (attributes.lastModifiedTime().toInstant().isBefore(run.cutoff)) {
+                            batch.add(new Candidate(entry, attributes.size()));
+                            if (batch.size() >= batchSize) {
+                                check(batch);
+                                batch.clear();
+                            }
+                        }
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    check(batch);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Image garbage collection could not check {}: {}", dir, e.getMessage());
+            }
+            while (!pending.isEmpty()) {
+                pending.poll().join();
+            }
+            if (area.legacy() && !run.dryRun) {
+                deleteIfEmpty(dir);
+            }
+        }
+
+        private void check(List<Candidate> batch) {
+            switch (area) {
+                case ITEM_FILES -> deleteUnreferenced(batch, itemRepository::findLegacyImagePaths);
+                case CATEGORY_FILES -> deleteUnreferenced(batch, categoryRepository::findLegacyImagePaths);
+                case UPLOAD_FILES -> deleteUnreferenced(batch, imageUploadRepository::findFilePaths);
+                case BLOBS -> checkBlobs(batch);
+                default -> {
+                }
+            }
+        }
+
+        /** Legacy files are keyed as stored on their rows: {@code {userId}/{name}}. */
+        private void deleteUnreferenced(List<Candidate> batch, Function<Collection<String>, List<String>> referenced) {
+            String prefix = dir.getFileName() + "/";
+            Set<String> keys = new HashSet<>();
+            for (Candidate candidate : batch) {
+                keys.add(prefix + candidate.file().getFileName());
+            }
+            Set<String> kept = new HashSet<>(referenced.apply(keys));
+            for (Candidate candidate : batch) {
+                if (!kept.contains(prefix + candidate.file().getFileName()) && delete(candidate)) {
+                    run.orphanFiles.increment();
+                }
+            }
+        }
+
+        private void checkBlobs(List<Candidate> batch) {
+            List<Candidate> blobs = new ArrayList<>();
+            for (Candidate candidate : batch) {
+                String name = candidate.file().getFileName().toString();
+                if (name.endsWith(ImageBlobStore.TEMP_SUFFIX)) {
+                    if (delete(candidate)) {
+                        run.tempFiles.increment();
+                    }
+                } else if (ImageBlobStore.isHash(name)) {
+                    blobs.add(candidate);
+                }
+            }
+            if (blobs.isEmpty()) {
+                return;
+            }
+            Set<String> existing = new HashSet<>(imageBlobRepository.findExistingHashes(
+                    blobs.stream().map(c -> c.file().getFileName().toString()).toList()));
+            for (Candidate candidate : blobs) {
+                String hash = candidate.file().getFileName().toString();
+                if (existing.contains(hash)) {
+                    continue;
+                }
+                if (run.dryRun) {
+                    run.orphanFiles.increment();
+                    run.bytesReclaimed.add(candidate.size());
+                    continue;
+                }
+                try {
+                    long reclaimed = imageBlobStore.deleteOrphanFile(hash);
+                    if (reclaimed > 0) {
+                        run.orphanFiles.increment();
+                        run.bytesReclaimed.add(reclaimed);
+                    }
+                } catch (IOException e) {
+                    log.warn("Could not delete orphan image blob {}: {}", hash, e.getMessage());
+                }
+            }
+        }
+
+        private boolean delete(Candidate candidate) {
+            if (run.dryRun) {
+                run.bytesReclaimed.add(candidate.size());
+                return true;
+            }
+            try {
+                if (Files.deleteIfExists(candidate.file())) {
+                    run.bytesReclaimed.add(candidate.size());
+                    return true;
+                }
+            } catch (IOException e) {
+                log.warn("Could not delete orphan image file {}: {}", candidate.file(), e.getMessage());
+            }
+            return false;
+        }
+
+        private static void deleteIfEmpty(Path dir) {
+            try {
+                Files.deleteIfExists(dir);
+            } catch (DirectoryNotEmptyException e) {
+                // Still holds referenced or recent files.
+            } catch (IOException e) {
+                log.warn("Could not delete empty image directory {}: {}", dir, e.getMessage());
+            }
+        }
+    }
+}
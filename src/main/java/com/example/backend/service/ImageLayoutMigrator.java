@@ -0,0 +1,196 @@
+package com.example.backend.service;
+
+import com.example.backend.cache.CatalogCache;
+import com.example.backend.cache.ImageMetadataCache;
+import com.example.backend.dto.SpooledImage;
+import com.example.backend.repository.CategoryRepository;
+import com.example.backend.repository.ImageUploadRepository;
+import com.example.backend.repository.ImageUploadRepository.LegacyUpload;
+import com.example.backend.repository.ItemRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Moves images stored before the blob store (one directory per user: {@code items/{userId}/{itemId}},
+ * {@code categories/{userId}/{categoryId}}, {@code {userId}/{shortCode}}) into the hashed fan-out layout of
+ * {@link ImageBlobStore} while the service keeps running. Every reader already resolves both layouts from the
+ * row (image hash set or not), so a row can switch at any time.
+ * <p>
+ * Runs every {@code app.upload.migration.interval-ms} and moves at most {@code app.upload.migration.batch-size}
+ * images of each kind per run, walking rows in id order. Per image, the file is spooled into the blob directory
+ * outside any transaction; a short transaction then points the row at the blob only if it still has the same
+ * legacy image (a concurrent replace or delete wins), and the old file is deleted once that commits. Rows whose
+ * file is missing are skipped. Once a run finds nothing left, the migrator stops until the next start.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ImageLayoutMigrator {
+
+    private static final String DEFAULT_CONTENT_TYPE = "image/png";
+
+    private final ItemRepository itemRepository;
+    private final CategoryRepository categoryRepository;
+    private final ImageUploadRepository imageUploadRepository;
+    private final ImageBlobStore imageBlobStore;
+    private final ImageMetadataCache imageMetadataCache;
+    private final CatalogCache catalogCache;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.upload.image-dir:uploads/images}")
+    private String imageDir;
+
+    @Value("${app.upload.migration.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.upload.migration.batch-size:100}")
+    private int batchSize;
+
+    private String afterItemId = "";
+    private String afterCategoryId = "";
+    private long afterUploadId;
+    private boolean finished;
+
+    /** @return number of images moved in this run */
+    @Scheduled(fixedDelayString = "${app.upload.migration.interval-ms:10000}",
+            initialDelayString = "${app.upload.migration.interval-ms:10000}")
+    public synchronized int migrateBatch() {
+        if (!enabled || finished) {
+            return 0;
+        }
+        Pass items = migrateItems();
+        Pass categories = migrateCategories();
+        Pass uploads = migrateUploads();
+        int moved = items.moved() + categories.moved() + uploads.moved();
+        // Listed items and categories carry their image URLs.
+        if (items.moved() > 0) {
+            catalogCache.itemsChanged(null);
+        }
+        if (categories.moved() > 0) {
+            catalogCache.categoriesChanged();
+        }
+        if (moved > 0) {
+            log.info("Moved {} images to the blob store layout", moved);
+        }
+        if (!items.more() && !categories.more() && !uploads.more()) {
+            finished = true;
+            log.info("Image layout migration finished");
+        }
+        return moved;
+    }
+
+    /** Images moved by one batch of a kind, and whether rows of that kind may be left. */
+    private record Pass(int moved, boolean more) {
+    }
+
+    private Pass migrateItems() {
+        int moved = 0;
+        List<ItemRepository.LegacyImage> page = itemRepository.findLegacyImages(afterItemId, Limit.of(batchSize));
+        for (ItemRepository.LegacyImage item : page) {
+            afterItemId = item.getId();
+            if (migrate(imageRoot().resolve("items").resolve(item.getImagePath()), item.getImageContentType(),
+                    hash -> itemRepository.migrateImage(item.getId(), item.getImagePath(), hash),
+                    ImageMetadataCache.Kind.ITEM, item.getId())) {
+                moved++;
+            }
+        }
+        return new Pass(moved, page.size() == batchSize);
+    }
+
+    private Pass migrateCategories() {
+        int moved = 0;
+        List<CategoryRepository.LegacyImage> page = categoryRepository.findLegacyImages(afterCategoryId,
+                Limit.of(batchSize));
+        for (CategoryRepository.LegacyImage category : page) {
+            afterCategoryId = category.getId();
+            if (migrate(imageRoot().resolve("categories").resolve(category.getImagePath()),
+                    category.getImageContentType(),
+                    hash -> categoryRepository.migrateImage(category.getId(), category.getImagePath(), hash),
+                    ImageMetadataCache.Kind.CATEGORY, category.getId())) {
+                moved++;
+            }
+        }
+        return new Pass(moved, page.size() == batchSize);
+    }
+
+    private Pass migrateUploads() {
+        int moved = 0;
+        List<LegacyUpload> page = imageUploadRepository.findLegacyUploads(afterUploadId, Limit.of(batchSize));
+        for (LegacyUpload upload : page) {
+            afterUploadId = upload.getId();
+            if (migrate(imageRoot().resolve(upload.getFilePath()), upload.getContentType(),
+                    hash -> imageUploadRepository.migrateFile(upload.getId(), upload.getFilePath(),
+                            ImageBlobStore.relativePath(hash), hash),
+                    ImageMetadataCache.Kind.UPLOAD, upload.getShortCode().toLowerCase())) {
+                moved++;
+            }
+        }
+        return new Pass(moved, page.size() == batchSize);
+    }
+
+    /**
+     * Copies {@code file} into the blob store and points its row at the blob with {@code updateRow}, which
+     * returns 0 if the row no longer holds that file.
+     * @return whether the image was moved
+     */
+    private boolean migrate(Path file, String contentType, ToIntFunction<String> updateRow,
+                            ImageMetadataCache.Kind kind, String cacheKey) {
+        if (!Files.isRegularFile(file)) {
+            log.debug("Skipping image layout migration of missing file {}", file);
+            return false;
+        }
+        SpooledImage spooled;
+        try (InputStream in = Files.newInputStream(file)) {
+            spooled = imageBlobStore.spool(in);
+        } catch (IOException e) {
+            log.warn("Could not read {} for the image layout migration: {}", file, e.getMessage());
+            return false;
+        }
+        try {
+            Boolean updated = transactionTemplate.execute(status -> {
+                if (updateRow.applyAsInt(spooled.hash()) == 0) {
+                    return false;
+                }
+                imageBlobStore.store(spooled, contentType != null ? contentType : DEFAULT_CONTENT_TYPE);
+                return true;
+            });
+            if (!Boolean.TRUE.equals(updated)) {
+                return false;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not move {} to the blob store: {}", file, e.getMessage());
+            return false;
+        } finally {
+            imageBlobStore.discard(spooled);
+        }
+        // Evicted before the old file goes, so requests resolve the blob from the row from now on.
+        imageMetadataCache.evict(kind, cacheKey);
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Left for ImageGarbageCollector: no row refers to the file any more.
+            log.warn("Could not delete migrated image file {}: {}", file, e.getMessage());
+        }
+        return true;
+    }
+
+    private Path imageRoot() {
+        Path base = Path.of(imageDir);
+        if (!base.isAbsolute()) {
+            base = Path.of(System.getProperty("user.dir")).resolve(base);
+        }
+        return base;
+    }
+}
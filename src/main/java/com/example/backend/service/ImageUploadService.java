@@ -1,7 +1,11 @@
 package com.example.backend.service;
 
+import com.example.backend.cache.ImageMetadataCache;
+import com.example.backend.cache.ImageMetadataCache.ImageMetadata;
+import com.example.backend.cache.ShortCodeFilter;
 import com.example.backend.dto.ImageUploadRequest;
 import com.example.backend.dto.ImageUploadResponse;
+import com.example.backend.dto.SpooledImage;
 import com.example.backend.entity.ImageUpload;
 import com.example.backend.entity.User;
 import com.example.backend.repository.ImageUploadRepository;
@@ -11,26 +15,32 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.Base64;
 import java.util.List;
-import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ImageUploadService {
 
-    private static final int SHORT_CODE_LENGTH = 8;
     private static final String DEFAULT_CONTENT_TYPE = "image/png";
     private static final String DATA_URL_PREFIX = "data:";
     private static final String BASE64_PREFIX = "base64,";
 
     private final ImageUploadRepository imageUploadRepository;
     private final UserRepository userRepository;
+    private final ShortCodeAllocator shortCodeAllocator;
+    private final ShortCodeFilter shortCodeFilter;
+    private final ImageMetadataCache imageMetadataCache;
+    private final ImageBlobStore imageBlobStore;
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${app.upload.image-dir:uploads/images}")
     private String imageDir;
@@ -38,47 +48,88 @@ public class ImageUploadService {
     @Value("${app.api.base-url:http://localhost:8081}")
     private String baseUrl;
 
-    @Transactional
+    /**
+     * Stores a Base64 image. It is staged on disk before the transaction that saves the upload row, so the
+     * connection is not held for the file write (see {@link ImageBlobStore}).
+     */
     public ImageUploadResponse upload(ImageUploadRequest request, Long userId) throws IOException {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-
-        String base64Data = request.getBase64().trim();
-        String contentType = resolveContentType(base64Data, request.getContentType());
+        SpooledImage image;
+        String contentType;
+        if (request.getSpooledImage() != null) {
+            // Decoded by Base64ImageMessageConverter while the request body was read.
+            image = request.getSpooledImage();
+            contentType = request.getContentType() != null && !request.getContentType().isBlank()
+                    ? request.getContentType().trim() : DEFAULT_CONTENT_TYPE;
+        } else {
+            String base64Data = request.getBase64().trim();
+            contentType = resolveContentType(base64Data, request.getContentType());
+
+            if (base64Data.startsWith(DATA_URL_PREFIX)) {
+                int idx = base64Data.indexOf(BASE64_PREFIX);
+                if (idx >= 0) {
+                    base64Data = base64Data.substring(idx + BASE64_PREFIX.length());
+                }
+            }
 
-        if (base64Data.startsWith(DATA_URL_PREFIX)) {
-            int idx = base64Data.indexOf(BASE64_PREFIX);
-            if (idx >= 0) {
-                base64Data = base64Data.substring(idx + BASE64_PREFIX.length());
+            byte[] bytes;
+            try {
+                bytes = Base64.getDecoder().decode(base64Data);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid or empty Base64 image data", e);
+            }
+            if (bytes == null || bytes.length == 0) {
+                throw new IllegalArgumentException("Invalid or empty Base64 image data");
             }
+            image = imageBlobStore.spool(new ByteArrayInputStream(bytes));
         }
+        return save(userId, image, contentType, request.getOriginalFileName());
+    }
 
-        byte[] bytes;
-        try {
-            bytes = Base64.getDecoder().decode(base64Data);
-        } catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException("Invalid or empty Base64 image data", e);
+    /**
+     * Multipart variant of {@link #upload(ImageUploadRequest, Long)}: the file part is streamed into the blob store,
+     * so memory use does not grow with the image size.
+     */
+    public ImageUploadResponse upload(MultipartFile file, String originalFileName, Long userId) throws IOException {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("Image file is required");
         }
-        if (bytes == null || bytes.length == 0) {
-            throw new IllegalArgumentException("Invalid or empty Base64 image data");
+        String contentType = file.getContentType() != null && !file.getContentType().isBlank()
+                ? file.getContentType().trim() : DEFAULT_CONTENT_TYPE;
+        SpooledImage image;
+        try (InputStream in = file.getInputStream()) {
+            image = imageBlobStore.spool(in);
         }
+        String fileName = originalFileName != null && !originalFileName.isBlank()
+                ? originalFileName : file.getOriginalFilename();
+        return save(userId, image, contentType, fileName);
+    }
 
-        String shortCode = generateUniqueShortCode();
-        Path userDir = Path.of(imageDir).resolve(String.valueOf(userId));
-        Files.createDirectories(userDir);
-        String relativePath = userId + "/" + shortCode;
-        Path filePath = userDir.resolve(shortCode);
-        Files.write(filePath, bytes);
-
-        ImageUpload entity = new ImageUpload();
-        entity.setShortCode(shortCode);
-        entity.setFilePath(relativePath);
-        entity.setContentType(contentType);
-        entity.setOriginalFileName(request.getOriginalFileName());
-        entity.setUser(user);
-        entity = imageUploadRepository.save(entity);
-
-        return ImageUploadResponse.fromEntity(entity, baseUrl.trim().replaceAll("/$", ""));
+    /**
+     * Saves the upload row and blob reference in a short transaction; the staged file is placed after it commits.
+     * A generated code that clashes with an existing one is retried in a new transaction (see {@link ShortCodeAllocator}).
+     */
+    private ImageUploadResponse save(Long userId, SpooledImage image, String contentType, String originalFileName) {
+        try {
+            return shortCodeAllocator.insertWithNewCode(ShortCodeFilter.Kind.IMAGE, imageUploadRepository::existsByShortCode,
+                    shortCode -> transactionTemplate.execute(status -> {
+                        User user = userRepository.findById(userId)
+                                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+                        String hash = imageBlobStore.store(image, contentType);
+                        ImageUpload entity = new ImageUpload();
+                        entity.setShortCode(shortCode);
+                        entity.setFilePath(ImageBlobStore.relativePath(hash));
+                        entity.setContentHash(hash);
+                        entity.setContentType(contentType);
+                        entity.setOriginalFileName(originalFileName);
+                        entity.setUser(user);
+                        entity = imageUploadRepository.save(entity);
+                        shortCodeFilter.add(ShortCodeFilter.Kind.IMAGE, shortCode);
+
+                        return ImageUploadResponse.fromEntity(entity, baseUrl.trim().replaceAll("/$", ""));
+                    }));
+        } finally {
+            imageBlobStore.discard(image);
+        }
     }
 
     @Transactional(readOnly = true)
@@ -105,11 +156,22 @@ public class ImageUploadService {
                 .toList();
     }
 
-    /** For serving: resolve short code to file path and content type. */
-    @Transactional(readOnly = true)
-    public ImageUpload resolveByShortCode(String shortCode) {
-        return imageUploadRepository.findByShortCode(shortCode.toLowerCase())
-                .orElseThrow(() -> new IllegalArgumentException("Image not found"));
+    /**
+     * For serving: file location, content type, size and validators of a short code, from {@link ImageMetadataCache}.
+     * Only a miss reads four columns of the image_uploads row and the file attributes. Uploads are never changed
+     * after they are written, so nothing here evicts entries.
+     */
+    public ImageMetadata resolveImage(String shortCode) {
+        ImageMetadata image = imageMetadataCache.get(ImageMetadataCache.Kind.UPLOAD, shortCode.toLowerCase(), code ->
+                imageUploadRepository.findServeInfoByShortCode(code)
+                        .map(i -> ImageMetadata.forUpload(Path.of(imageDir).resolve(i.getFilePath()).toAbsolutePath(),
+                                i.getContentType(), i.getShortCode(), i.getCreatedAt()))
+                        .orElse(null));
+        if (image == null) {
+            shortCodeFilter.recordFalsePositive(ShortCodeFilter.Kind.IMAGE);
+            throw new IllegalArgumentException("Image not found");
+        }
+        return image;
     }
 
     public Path getAbsoluteFilePath(ImageUpload upload) {
@@ -128,14 +190,4 @@ public class ImageUploadService {
         }
         return DEFAULT_CONTENT_TYPE;
     }
-
-    private String generateUniqueShortCode() {
-        for (int i = 0; i < 10; i++) {
-            String code = UUID.randomUUID().toString().replace("-", "").substring(0, SHORT_CODE_LENGTH);
-            if (!imageUploadRepository.existsByShortCode(code)) {
-                return code;
-            }
-        }
-        throw new IllegalStateException("Could not generate unique short code");
-    }
 }
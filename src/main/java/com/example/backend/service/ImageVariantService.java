@@ -0,0 +1,234 @@
+package com.example.backend.service;
+
+import com.example.backend.cache.ImageMetadataCache.ImageMetadata;
+import com.example.backend.cache.ImageVariantCache;
+import com.example.backend.cache.ImageVariantCache.Variant;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Resized variants of stored images for the {@code w}, {@code h} and {@code fit} parameters of the image
+ * endpoints. Variants are produced with ImageIO and Java2D, written once to {@link ImageVariantCache}
+ * and streamed from disk like originals. JPEG sources stay JPEG; PNG, GIF and BMP sources become PNG.
+ * Images are never scaled up.
+ */
+@Service
+@RequiredArgsConstructor
+public class ImageVariantService {
+
+    static final int MAX_DIMENSION = 2048;
+    /** Sources with more pixels are not decoded (a small compressed file can expand to gigabytes). */
+    static final long MAX_SOURCE_PIXELS = 40_000_000L;
+    private static final float JPEG_QUALITY = 0.85f;
+    private static final Set<String> PNG_SOURCES = Set.of("image/png", "image/gif", "image/bmp");
+
+    /**
+     * How the image is fitted when both width and height are given: {@code CONTAIN} scales it to fit inside the
+     * box, {@code COVER} fills the box and crops the overflow, {@code FILL} stretches it to the box.
+     */
+    public enum Fit { CONTAIN, COVER, FILL }
+
+    /** Requested box; 0 means that side follows the aspect ratio. */
+    public record VariantSpec(int width, int height, Fit fit) {}
+
+    private final ImageVariantCache imageVariantCache;
+
+    /** Validates the query parameters; null when no resize was asked for. */
+    public static VariantSpec parseSpec(Integer w, Integer h, String fit) {
+        if (w == null && h == null) {
+            if (fit != null && !fit.isBlank()) {
+                throw new IllegalArgumentException("fit requires w or h");
+            }
+            return null;
+        }
+        int width = parseDimension("w", w);
+        int height = parseDimension("h", h);
+        Fit f = Fit.CONTAIN;
+        if (fit != null && !fit.isBlank()) {
+            try {
+                f = Fit.valueOf(fit.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("fit must be contain, cover or fill");
+            }
+        }
+        return new VariantSpec(width, height, f);
+    }
+
+    private static int parseDimension(String name, Integer value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value < 1 || value > MAX_DIMENSION) {
+            throw new IllegalArgumentException(name + " must be between 1 and " + MAX_DIMENSION);
+        }
+        return value;
+    }
+
+    /**
+     * The variant of {@code source} for {@code spec}, resized on first request. Sources of other types
+     * (e.g. WebP, SVG) are returned unchanged. The ETag is {@link #etag}.
+     */
+    public ImageMetadata variant(ImageMetadata source, VariantSpec spec) throws IOException {
+        String format = outputFormat(source.contentType());
+        if (format == null) {
+            return source;
+        }
+        String name = sha256Hex(source.path() + "\n" + source.etag() + "\n" + suffix(spec)) + "." + format;
+        Variant variant = imageVariantCache.get(name, target -> resize(source.path(), spec, format, target));
+        return new ImageMetadata(variant.path(), "image/" + format, variant.size(), etag(source, spec),
+                source.lastModifiedMillis());
+    }
+
+    /**
+     * ETag of the variant {@link #variant} would return, without resizing anything, so a conditional request can be
+     * answered before the variant is produced. It extends the source's, so a replaced source also changes the ETag
+     * and the file name of every variant. {@code spec} may be null (no resize).
+     */
+    public static String etag(ImageMetadata source, VariantSpec spec) {
+        if (spec == null || outputFormat(source.contentType()) == null) {
+            return source.etag();
+        }
+        return source.etag().substring(0, source.etag().length() - 1) + "-" + suffix(spec) + "\"";
+    }
+
+    private static String suffix(VariantSpec spec) {
+        return spec.width() + "x" + spec.height() + "-" + spec.fit().name().toLowerCase(Locale.ROOT);
+    }
+
+    private static String outputFormat(String contentType) {
+        String type = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT);
+        if (type.equals("image/jpeg") || type.equals("image/jpg")) {
+            return "jpeg";
+        }
+        return PNG_SOURCES.contains(type) ? "png" : null;
+    }
+
+    static void resize(Path source, VariantSpec spec, String format, Path target) throws IOException {
+        BufferedImage image = read(source);
+        int srcW = image.getWidth();
+        int srcH = image.getHeight();
+        double sx = spec.width() > 0 ? (double) spec.width() / srcW : 0;
+        double sy = spec.height() > 0 ? (double) spec.height() / srcH : 0;
+
+        int scaledW;
+        int scaledH;
+        int outW;
+        int outH;
+        if (sx == 0 || sy == 0 || spec.fit() == Fit.CONTAIN) {
+            double scale = Math.min(1, sx == 0 ? sy : sy == 0 ? sx : Math.min(sx, sy));
+            scaledW = outW = Math.max(1, (int) Math.round(srcW * scale));
+            scaledH = outH = Math.max(1, (int) Math.round(srcH * scale));
+        } else if (spec.fit() == Fit.COVER) {
+            double scale = Math.min(1, Math.max(sx, sy));
+            scaledW = Math.max(1, (int) Math.round(srcW * scale));
+            scaledH = Math.max(1, (int) Math.round(srcH * scale));
+            outW = Math.min(spec.width(), scaledW);
+            outH = Math.min(spec.height(), scaledH);
+        } else {
+            scaledW = outW = Math.min(spec.width(), srcW);
+            scaledH = outH = Math.min(spec.height(), srcH);
+        }
+
+        boolean jpeg = format.equals("jpeg");
+        BufferedImage scaled = scale(image, scaledW, scaledH, jpeg);
+        BufferedImage out = scaled;
+        if (outW != scaledW || outH != scaledH) {
+            out = scaled.getSubimage((scaledW - outW) / 2, (scaledH - outH) / 2, outW, outH);
+        }
+        write(out, format, target);
+    }
+
+    /** Reads the header first, so oversized sources are rejected before any pixels are decoded. */
+    private static BufferedImage read(Path source) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                throw new IllegalArgumentException("Image cannot be resized");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > MAX_SOURCE_PIXELS) {
+                    throw new IllegalArgumentException("Image is too large to resize");
+                }
+                return reader.read(0);
+            } catch (IIOException e) {
+                // Decodable header but unsupported content, e.g. CMYK JPEG or a truncated file.
+                throw new IllegalArgumentException("Image cannot be resized");
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Halves the image with bilinear filtering until one more step reaches the target, then scales to the exact
+     * size. A single bilinear step across a large ratio would skip most source pixels and alias.
+     */
+    private static BufferedImage scale(BufferedImage image, int width, int height, boolean opaque) {
+        int type = opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        BufferedImage current = image;
+        int w = image.getWidth();
+        int h = image.getHeight();
+        do {
+            w = w / 2 >= width ? w / 2 : width;
+            h = h / 2 >= height ? h / 2 : height;
+            BufferedImage next = new BufferedImage(w, h, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (w != width || h != height);
+        return current;
+    }
+
+    private static void write(BufferedImage image, String format, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (format.equals("jpeg")) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,21 +1,32 @@
 package com.example.backend.service;
 
+import com.example.backend.cache.CatalogCache;
+import com.example.backend.cache.ImageMetadataCache;
+import com.example.backend.cache.ImageMetadataCache.ImageMetadata;
 import com.example.backend.dto.*;
 import com.example.backend.entity.*;
 import com.example.backend.repository.*;
+import com.example.backend.search.CatalogSearchIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -33,6 +44,12 @@ public class ItemService {
     private final ContactRepository contactRepository;
     private final ItemDetailRepository itemDetailRepository;
     private final CartItemRepository cartItemRepository;
+    private final ImageMetadataCache imageMetadataCache;
+    private final ImageBlobStore imageBlobStore;
+    private final TransactionTemplate transactionTemplate;
+    private final CatalogPager catalogPager;
+    private final CatalogCache catalogCache;
+    private final CatalogSearchIndex catalogSearchIndex;
 
     @Value("${app.upload.image-dir:uploads/images}")
     private String imageDir;
@@ -44,11 +61,17 @@ public class ItemService {
         return baseUrl.trim().replaceAll("/$", "");
     }
 
+    /**
+     * Public: one page of active items, see {@link CatalogPager}. ItemController serves it through
+     * {@link CatalogCache}, which calls this on a miss.
+     */
     @Transactional(readOnly = true)
-    public List<ItemResponse> findAll() {
-        return itemRepository.findAllByActiveTrueOrderByCreatedAtDesc().stream()
-                .map(i -> ItemResponse.fromEntity(i, baseUrlNorm()))
-                .toList();
+    public CursorPage<ItemResponse> findAll(String cursor, Integer limit, String sort) {
+        return catalogPager.page(cursor, limit, sort,
+                (order, createdAt, id, max) -> order == CatalogPager.Sort.NEWEST
+                        ? itemRepository.findActiveBefore(createdAt, id, max)
+                        : itemRepository.findActiveAfter(createdAt, id, max),
+                Item::getCreatedAt, Item::getId, i -> ItemResponse.fromEntity(i, baseUrlNorm()));
     }
 
     @Transactional(readOnly = true)
@@ -58,12 +81,36 @@ public class ItemService {
                 .toList();
     }
 
-    /** Public: list active items by category. */
+    /** Public: one page of active items of a category, see {@link CatalogPager}; served like {@link #findAll}. */
     @Transactional(readOnly = true)
-    public List<ItemResponse> findByCategoryId(String categoryId) {
-        return itemRepository.findByCategory_IdAndActiveTrueOrderByCreatedAtDesc(categoryId).stream()
-                .map(i -> ItemResponse.fromEntity(i, baseUrlNorm()))
-                .toList();
+    public CursorPage<ItemResponse> findByCategoryId(String categoryId, String cursor, Integer limit, String sort) {
+        return catalogPager.page(cursor, limit, sort,
+                (order, createdAt, id, max) -> order == CatalogPager.Sort.NEWEST
+                        ? itemRepository.findActiveInCategoryBefore(categoryId, createdAt, id, max)
+                        : itemRepository.findActiveInCategoryAfter(categoryId, createdAt, id, max),
+                Item::getCreatedAt, Item::getId, i -> ItemResponse.fromEntity(i, baseUrlNorm()));
+    }
+
+    /**
+     * Public: one page of active items matching {@code query} in their description or their category's, best
+     * match first, see {@link CatalogSearchIndex}. The page's items are then read with one query.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ItemResponse> search(String query, String cursor, Integer limit) {
+        CursorPage<String> ids = catalogSearchIndex.search(query, cursor, limit);
+        Map<String, Item> items = itemRepository.findByIdIn(ids.getItems()).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        // An item changed after the search but before this read is dropped rather than shown out of place.
+        return CursorPage.<ItemResponse>builder()
+                .items(ids.getItems().stream()
+                        .map(items::get)
+                        .filter(Objects::nonNull)
+                        .filter(Item::isActive)
+                        .map(i -> ItemResponse.fromEntity(i, baseUrlNorm()))
+                        .toList())
+                .nextCursor(ids.getNextCursor())
+                .hasMore(ids.isHasMore())
+                .build();
     }
 
     /** Carts that contain the given user's items; each result includes cart owner (buyer) and cart dates. */
@@ -81,8 +128,26 @@ public class ItemService {
         return ItemResponse.fromEntity(item, baseUrlNorm());
     }
 
-    @Transactional
     public ItemResponse create(CreateItemRequest request, Long userId) throws IOException {
+        return create(request, null, userId);
+    }
+
+    /**
+     * Creates the item with {@code image} (a multipart file part) as its image; null falls back to imageBase64.
+     * The image is staged on disk before the transaction that saves the item, so the connection is not held
+     * for the file write (see {@link ImageBlobStore}).
+     */
+    public ItemResponse create(CreateItemRequest request, MultipartFile image, Long userId) throws IOException {
+        StagedImage staged = stageItemImage(image, request.getSpooledImage(), request.getImageBase64(),
+                request.getImageContentType());
+        try {
+            return transactionTemplate.execute(status -> createInTransaction(request, staged, userId));
+        } finally {
+            discard(staged);
+        }
+    }
+
+    private ItemResponse createInTransaction(CreateItemRequest request, StagedImage image, Long userId) {
         // user_id is always taken from the JWT (authenticated user), never from the request
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
@@ -90,10 +155,7 @@ public class ItemService {
                 .orElseThrow(() -> new IllegalArgumentException("Category not found"));
 
         String itemId = UUID.randomUUID().toString();
-        ImageSaveResult imageResult = null;
-        if (request.getImageBase64() != null && !request.getImageBase64().isBlank()) {
-            imageResult = saveItemImage(user.getId(), itemId, request.getImageBase64(), request.getImageContentType());
-        }
+        ImageSaveResult imageResult = image != null ? saveItemImage(user.getId(), itemId, image) : null;
 
         Address address = null;
         if (request.getAddress() != null) {
@@ -124,6 +186,7 @@ public class ItemService {
         if (imageResult != null) {
             item.setImagePath(imageResult.relativePath());
             item.setImageContentType(imageResult.contentType());
+            item.setImageHash(imageResult.hash());
         }
         item = itemRepository.save(item);
 
@@ -135,12 +198,31 @@ public class ItemService {
             item.setDetail(detail);
             itemRepository.save(item);
         }
+        catalogCache.itemsChanged(category.getId());
+        catalogSearchIndex.itemChanged(item);
 
         return ItemResponse.fromEntity(item, baseUrlNorm());
     }
 
-    @Transactional
     public ItemResponse update(String id, UpdateItemRequest request, Long userId) throws IOException {
+        return update(id, request, null, userId);
+    }
+
+    /**
+     * Updates the item; a non-empty {@code image} part replaces the image, as imageBase64 does otherwise.
+     * As in {@link #create(CreateItemRequest, MultipartFile, Long)}, the image is staged before the transaction.
+     */
+    public ItemResponse update(String id, UpdateItemRequest request, MultipartFile image, Long userId) throws IOException {
+        StagedImage staged = stageItemImage(image, request.getSpooledImage(), request.getImageBase64(),
+                request.getImageContentType());
+        try {
+            return transactionTemplate.execute(status -> updateInTransaction(id, request, staged, userId));
+        } finally {
+            discard(staged);
+        }
+    }
+
+    private ItemResponse updateInTransaction(String id, UpdateItemRequest request, StagedImage image, Long userId) {
         Item item = itemRepository.findByIdAndUser_Id(id, userId)
                 .orElseThrow(() -> new IllegalArgumentException("Item not found"));
 
@@ -149,14 +231,16 @@ public class ItemService {
             item.setActive(request.getActive());
         }
 
-        if (request.getImageBase64() != null && !request.getImageBase64().isBlank()) {
+        if (image != null) {
             if (item.getImagePath() != null) {
                 deleteItemImage(item);
             }
-            ImageSaveResult result = saveItemImage(item.getUser().getId(), item.getId(), request.getImageBase64(), request.getImageContentType());
-            itemRepository.updateImagePathAndContentType(item.getId(), result.relativePath(), result.contentType());
+            ImageSaveResult result = saveItemImage(item.getUser().getId(), item.getId(), image);
+            itemRepository.updateImage(item.getId(), result.relativePath(), result.contentType(), result.hash());
+            imageMetadataCache.evict(ImageMetadataCache.Kind.ITEM, item.getId());
             item.setImagePath(result.relativePath());
             item.setImageContentType(result.contentType());
+            item.setImageHash(result.hash());
         }
 
         if (request.getAddress() != null) {
@@ -204,18 +288,23 @@ public class ItemService {
             detail.setPrice(request.getDetail().getPrice() != null ? request.getDetail().getPrice() : BigDecimal.ZERO);
             itemDetailRepository.save(detail);
         }
+        catalogCache.itemsChanged(item.getCategory() != null ? item.getCategory().getId() : null);
+        catalogSearchIndex.itemChanged(item);
 
         return ItemResponse.fromEntity(item, baseUrlNorm());
     }
 
     @Transactional
-    public void delete(String id, Long userId) throws IOException {
+    public void delete(String id, Long userId) {
         Item item = itemRepository.findByIdAndUser_Id(id, userId)
                 .orElseThrow(() -> new IllegalArgumentException("Item not found"));
         if (item.getImagePath() != null) {
             deleteItemImage(item);
         }
+        imageMetadataCache.evict(ImageMetadataCache.Kind.ITEM, item.getId());
         itemRepository.delete(item);
+        catalogCache.itemsChanged(item.getCategory() != null ? item.getCategory().getId() : null);
+        catalogSearchIndex.itemRemoved(item.getId());
     }
 
     @Transactional(readOnly = true)
@@ -225,24 +314,66 @@ public class ItemService {
                 .toList();
     }
 
-    @Transactional(readOnly = true)
-    public Item findByIdPublic(String id) {
-        return itemRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Item not found"));
+    /**
+     * For serving (public): file location, content type, size and validators of the item's image, from
+     * {@link ImageMetadataCache}. Only a miss reads the row (three columns) and the file attributes.
+     */
+    public ImageMetadata resolveImage(String id) {
+        ImageMetadata image = imageMetadataCache.get(ImageMetadataCache.Kind.ITEM, id, key ->
+                itemRepository.findImageInfoById(key)
+                        .filter(i -> i.getImagePath() != null && !i.getImagePath().isBlank())
+                        .map(i -> {
+                            String contentType = i.getImageContentType() != null ? i.getImageContentType() : DEFAULT_CONTENT_TYPE;
+                            return i.getImageHash() != null
+                                    ? ImageMetadata.forBlob(imageBlobStore.path(i.getImageHash()), contentType, i.getImageHash())
+                                    : ImageMetadata.forFile(imageFile(i.getImagePath()), contentType);
+                        })
+                        .orElse(null));
+        if (image == null) {
+            throw new IllegalArgumentException("Item not found");
+        }
+        return image;
     }
 
     public Path getItemImagePath(Item item) {
+        if (item.getImageHash() != null) {
+            return imageBlobStore.path(item.getImageHash());
+        }
         if (item.getImagePath() == null || item.getImagePath().isBlank()) {
             return null;
         }
+        return imageFile(item.getImagePath());
+    }
+
+    private Path imageFile(String relativePath) {
         Path base = Path.of(imageDir);
         if (!base.isAbsolute()) {
             base = Path.of(System.getProperty("user.dir")).resolve(base);
         }
-        return base.resolve("items").resolve(item.getImagePath());
+        return base.resolve("items").resolve(relativePath);
     }
 
-    private ImageSaveResult saveItemImage(Long userId, String itemId, String base64Data, String requestContentType) throws IOException {
+    /**
+     * Writes the request's image to a staged file, outside any transaction: the multipart part if present, else
+     * the image Base64ImageMessageConverter spooled from the JSON body, else imageBase64. Null without an image.
+     */
+    private StagedImage stageItemImage(MultipartFile image, SpooledImage spooled, String base64Data,
+                                       String requestContentType) throws IOException {
+        if (image != null && !image.isEmpty()) {
+            String contentType = image.getContentType() != null && !image.getContentType().isBlank()
+                    ? image.getContentType().trim() : DEFAULT_CONTENT_TYPE;
+            try (InputStream in = image.getInputStream()) {
+                return new StagedImage(imageBlobStore.spool(in), contentType);
+            }
+        }
+        if (spooled != null) {
+            String contentType = requestContentType != null && !requestContentType.isBlank()
+                    ? requestContentType.trim() : DEFAULT_CONTENT_TYPE;
+            return new StagedImage(spooled, contentType);
+        }
+        if (base64Data == null || base64Data.isBlank()) {
+            return null;
+        }
         String contentType = resolveContentType(base64Data, requestContentType);
         if (base64Data.startsWith(DATA_URL_PREFIX)) {
             int idx = base64Data.indexOf(BASE64_PREFIX);
@@ -254,24 +385,35 @@ public class ItemService {
         if (bytes == null || bytes.length == 0) {
             throw new IllegalArgumentException("Invalid or empty Base64 image data");
         }
-        Path base = Path.of(imageDir);
-        if (!base.isAbsolute()) {
-            base = Path.of(System.getProperty("user.dir")).resolve(base);
+        return new StagedImage(imageBlobStore.spool(new ByteArrayInputStream(bytes)), contentType);
+    }
+
+    /** Adds the blob reference for a staged image; its file is moved into place after the commit. */
+    private ImageSaveResult saveItemImage(Long userId, String itemId, StagedImage image) {
+        String hash = imageBlobStore.store(image.file(), image.contentType());
+        return new ImageSaveResult(userId + "/" + itemId, image.contentType(), hash);
+    }
+
+    /** Removes a staged file that was not moved into place, e.g. after a rollback. */
+    private void discard(StagedImage image) {
+        if (image != null) {
+            imageBlobStore.discard(image.file());
         }
-        Path itemDir = base.resolve("items").resolve(String.valueOf(userId));
-        Files.createDirectories(itemDir);
-        String relativePath = userId + "/" + itemId;
-        Path filePath = itemDir.resolve(itemId);
-        Files.write(filePath, bytes);
-        return new ImageSaveResult(relativePath, contentType);
     }
 
-    private record ImageSaveResult(String relativePath, String contentType) {}
+    private record StagedImage(SpooledImage file, String contentType) {}
 
-    private void deleteItemImage(Item item) throws IOException {
+    private record ImageSaveResult(String relativePath, String contentType, String hash) {}
+
+    /** Drops the blob reference, or deletes the file of an image stored before the blob store after the commit. */
+    private void deleteItemImage(Item item) {
+        if (item.getImageHash() != null) {
+            imageBlobStore.release(item.getImageHash());
+            return;
+        }
         Path imagePath = getItemImagePath(item);
-        if (imagePath != null && Files.exists(imagePath)) {
-            Files.delete(imagePath);
+        if (imagePath != null) {
+            imageBlobStore.deleteAfterCommit(imagePath);
         }
     }
 
@@ -0,0 +1,327 @@
+package com.example.backend.service;
+
+import com.example.backend.cache.RenderedQrCache;
+import com.example.backend.cache.RenderedQrCache.Key;
+import com.example.backend.cache.RenderedQrCache.RenderedQr;
+import com.example.backend.entity.Shortener;
+import com.example.backend.repository.ShortenerRepository;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Renders QR codes for the public /s/{code} URL of a short link as PNG or SVG.
+ * Rendered images go through {@link RenderedQrCache}, so each (code, size, error correction, format) is
+ * encoded once. Batches are rendered on a small fixed pool and written to a ZIP stream in request order,
+ * with only a few images in flight at a time.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class QrCodeService {
+
+    static final int DEFAULT_SIZE = 256;
+    static final int MIN_SIZE = 64;
+    static final int MAX_SIZE = 2048;
+    /** Light border required around the symbol by the QR spec, in modules. */
+    private static final int QUIET_ZONE = 4;
+
+    public enum Format {
+        PNG("png", "image/png"),
+        SVG("svg", "image/svg+xml");
+
+        private final String extension;
+        private final String contentType;
+
+        Format(String extension, String contentType) {
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+    }
+
+    /** Validated batch: the short codes to render, in request order, and the rendering options. */
+    public record QrBatch(List<String> shortCodes, Format format, int size, ErrorCorrectionLevel errorCorrection) {}
+
+    private final ShortenerRepository shortenerRepository;
+    private final RenderedQrCache renderedQrCache;
+
+    @Value("${app.api.base-url:http://localhost:8081}")
+    private String baseUrl;
+
+    @Value("${app.qr.batch.max-links:500}")
+    private int batchMaxLinks;
+
+    /** 0 means one thread per available processor. */
+    @Value("${app.qr.render-threads:0}")
+    private int renderThreads;
+
+    private ExecutorService renderPool;
+
+    @PostConstruct
+    void init() {
+        int threads = renderThreads > 0 ? renderThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger n = new AtomicInteger();
+        renderPool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "qr-render-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        renderPool.shutdownNow();
+    }
+
+    /** Renders the QR code of one of the user's short links. Unset options fall back to PNG, 256 px, level M. */
+    @Transactional(readOnly = true)
+    public RenderedQr render(Long id, Long userId, String format, Integer size, String errorCorrection) {
+        Format f = parseFormat(format);
+        int px = parseSize(size);
+        ErrorCorrectionLevel ec = parseErrorCorrection(errorCorrection);
+        Shortener s = shortenerRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Short link not found"));
+        if (s.getUser() == null || !s.getUser().getId().equals(userId)) {
+            throw new IllegalArgumentException("Short link not found");
+        }
+        return render(s.getShortCode(), f, px, ec);
+    }
+
+    /**
+     * Checks options and ownership of every link before anything is written, so a bad request fails as a whole.
+     * Duplicate ids are rendered once.
+     */
+    @Transactional(readOnly = true)
+    public QrBatch prepareBatch(List<Long> ids, Long userId, String format, Integer size, String errorCorrection) {
+        Format f = parseFormat(format);
+        int px = parseSize(size);
+        ErrorCorrectionLevel ec = parseErrorCorrection(errorCorrection);
+        Set<Long> unique = new LinkedHashSet<>(ids);
+        unique.remove(null);
+        if (unique.isEmpty()) {
+            throw new IllegalArgumentException("At least one short link id is required");
+        }
+        if (unique.size() > batchMaxLinks) {
+            throw new IllegalArgumentException("Too many short links (max " + batchMaxLinks + ")");
+        }
+        Map<Long, Shortener> byId = new HashMap<>();
+        for (Shortener s : shortenerRepository.findAllById(unique)) {
+            byId.put(s.getId(), s);
+        }
+        List<String> codes = new ArrayList<>(unique.size());
+        for (Long id : unique) {
+            Shortener s = byId.get(id);
+            if (s == null || s.getUser() == null || !s.getUser().getId().equals(userId)) {
+                throw new IllegalArgumentException("Short link not found: " + id);
+            }
+            codes.add(s.getShortCode());
+        }
+        return new QrBatch(codes, f, px, ec);
+    }
+
+    /** Writes one {code}.{png|svg} entry per link to {@code out}, rendering ahead on the render pool. */
+    public void writeZip(QrBatch batch, OutputStream out) throws IOException {
+        int window = 2 * Math.max(1, renderThreads > 0 ? renderThreads : Runtime.getRuntime().availableProcessors());
+        Deque<PendingRender> pending = new ArrayDeque<>();
+        Iterator<String> codes = batch.shortCodes().iterator();
+        ZipOutputStream zip = new ZipOutputStream(out);
+        try {
+            while (codes.hasNext() || !pending.isEmpty()) {
+                while (codes.hasNext() && pending.size() < window) {
+                    String code = codes.next();
+                    pending.add(new PendingRender(code, renderPool.submit(
+                            () -> render(code, batch.format(), batch.size(), batch.errorCorrection()))));
+                }
+                PendingRender next = pending.poll();
+                byte[] bytes = await(next.future());
+                zip.putNextEntry(new ZipEntry(next.shortCode() + "." + batch.format().getExtension()));
+                zip.write(bytes);
+                zip.closeEntry();
+            }
+            zip.finish();
+        } finally {
+            pending.forEach(p -> p.future().cancel(true));
+        }
+    }
+
+    private record PendingRender(String shortCode, Future<RenderedQr> future) {}
+
+    RenderedQr render(String shortCode, Format format, int size, ErrorCorrectionLevel errorCorrection) {
+        return renderedQrCache.get(new Key(shortCode, size, errorCorrection.name(), format.name()), k -> {
+            ByteMatrix matrix = encode(publicUrl(shortCode), errorCorrection);
+            byte[] bytes = format == Format.PNG ? toPng(matrix, size) : toSvg(matrix, size);
+            return new RenderedQr(bytes, format.getContentType(), etag(bytes));
+        });
+    }
+
+    String publicUrl(String shortCode) {
+        return baseUrl.trim().replaceAll("/$", "") + "/s/" + shortCode;
+    }
+
+    private static ByteMatrix encode(String content, ErrorCorrectionLevel errorCorrection) {
+        try {
+            return Encoder.encode(content, errorCorrection, Map.of(EncodeHintType.CHARACTER_SET, "UTF-8")).getMatrix();
+        } catch (WriterException e) {
+            throw new IllegalStateException("Could not encode QR code", e);
+        }
+    }
+
+    /**
+     * Scales modules to whole pixels and centres the symbol, so the image is exactly {@code size} pixels
+     * unless the symbol plus quiet zone needs more than one pixel per module at that size.
+     */
+    static byte[] toPng(ByteMatrix matrix, int size) {
+        int modules = matrix.getWidth();
+        int scale = Math.max(1, size / (modules + 2 * QUIET_ZONE));
+        int side = Math.max(size, (modules + 2 * QUIET_ZONE) * scale);
+        int offset = (side - modules * scale) / 2;
+
+        BufferedImage image = new BufferedImage(side, side, BufferedImage.TYPE_BYTE_BINARY);
+        WritableRaster raster = image.getRaster();
+        int[] white = new int[side];
+        Arrays.fill(white, 1);
+        for (int y = 0; y < side; y++) {
+            raster.setSamples(0, y, side, 1, 0, white);
+        }
+        int[] dark = new int[scale * scale];
+        for (int my = 0; my < modules; my++) {
+            for (int mx = 0; mx < modules; mx++) {
+                if (matrix.get(mx, my) == 1) {
+                    raster.setSamples(offset + mx * scale, offset + my * scale, scale, scale, 0, dark);
+                }
+            }
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        try {
+            ImageIO.write(image, "png", bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /** One path of horizontal runs in module units; the viewBox includes the quiet zone. */
+    static byte[] toSvg(ByteMatrix matrix, int size) {
+        int modules = matrix.getWidth();
+        int total = modules + 2 * QUIET_ZONE;
+        StringBuilder svg = new StringBuilder(8192);
+        svg.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(size)
+                .append("\" height=\"").append(size)
+                .append("\" viewBox=\"0 0 ").append(total).append(' ').append(total)
+                .append("\" shape-rendering=\"crispEdges\">")
+                .append("<rect width=\"100%\" height=\"100%\" fill=\"#fff\"/><path fill=\"#000\" d=\"");
+        for (int y = 0; y < modules; y++) {
+            int x = 0;
+            while (x < modules) {
+                if (matrix.get(x, y) != 1) {
+                    x++;
+                    continue;
+                }
+                int start = x;
+                while (x < modules && matrix.get(x, y) == 1) {
+                    x++;
+                }
+                svg.append('M').append(start + QUIET_ZONE).append(' ').append(y + QUIET_ZONE)
+                        .append('h').append(x - start).append("v1h-").append(x - start).append('z');
+            }
+        }
+        svg.append("\"/></svg>\n");
+        return svg.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Strong ETag: first 128 bits of the SHA-256 of the image bytes. */
+    static String etag(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static Format parseFormat(String format) {
+        if (format == null || format.isBlank()) {
+            return Format.PNG;
+        }
+        for (Format f : Format.values()) {
+            if (f.extension.equalsIgnoreCase(format.trim())) {
+                return f;
+            }
+        }
+        throw new IllegalArgumentException("Invalid format: " + format + " (use png or svg)");
+    }
+
+    static int parseSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_SIZE;
+        }
+        if (size < MIN_SIZE || size > MAX_SIZE) {
+            throw new IllegalArgumentException("size must be between " + MIN_SIZE + " and " + MAX_SIZE);
+        }
+        return size;
+    }
+
+    static ErrorCorrectionLevel parseErrorCorrection(String errorCorrection) {
+        if (errorCorrection == null || errorCorrection.isBlank()) {
+            return ErrorCorrectionLevel.M;
+        }
+        try {
+            return ErrorCorrectionLevel.valueOf(errorCorrection.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid error correction level: " + errorCorrection + " (use L, M, Q or H)");
+        }
+    }
+
+    private static byte[] await(Future<RenderedQr> future) throws IOException {
+        try {
+            return future.get().bytes();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while rendering QR codes");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException("Could not render QR code", cause);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.backend.service;
+
+import com.example.backend.cache.ShortCodeFilter;
+import com.example.backend.repository.ShortCodeSequenceRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Generates short codes for short links and image uploads without probing the database.
+ * <p>
+ * Each node leases a block of counter values from short_code_sequences and hands them out from memory;
+ * only an exhausted block costs a round-trip. Counter values are passed through a keyed Feistel permutation
+ * of a 40-bit domain, so codes are unique by construction but not sequential or guessable without the key,
+ * and then written as 8 base36 characters (codes are looked up lower-cased, so base62 would not round-trip).
+ * <p>
+ * Generated codes never repeat each other, but they share the alphabet of custom codes and legacy 8-hex codes, so
+ * {@link #insertWithNewCode} screens each one against existing codes and retries an insert that still clashes.
+ * Changing {@code app.shortcode.secret} after codes have been issued can make new codes collide with old ones.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ShortCodeAllocator {
+
+    static final int CODE_LENGTH = 8;
+    static final String SEQUENCE_NAME = "short_code";
+    /** Codes tried per insert before giving up; a clash needs a custom code that happens to match, so one is rare. */
+    static final int MAX_CODE_ATTEMPTS = 3;
+
+    private static final int HALF_BITS = 20;
+    private static final long HALF_MASK = (1L << HALF_BITS) - 1;
+    /** 2^40 values; the largest one is still 8 base36 characters. */
+    static final long DOMAIN_SIZE = 1L << (2 * HALF_BITS);
+    private static final int ROUNDS = 4;
+
+    private final ShortCodeSequenceRepository sequenceRepository;
+    private final ShortCodeFilter shortCodeFilter;
+
+    @Value("${app.shortcode.secret:change-me-short-code-secret}")
+    private String secret;
+
+    @Value("${app.shortcode.block-size:1000}")
+    private int blockSize;
+
+    private long[] roundKeys;
+
+    /** Next unused value of the current block and its exclusive end; guarded by this. */
+    private long next;
+    private long blockEnd;
+
+    @PostConstruct
+    void init() {
+        roundKeys = deriveRoundKeys(secret);
+    }
+
+    /** Returns a code that no other call on any node has returned or will return. */
+    public synchronized String nextCode() {
+        if (next >= blockEnd) {
+            long start = sequenceRepository.leaseBlock(SEQUENCE_NAME, blockSize);
+            if (start >= DOMAIN_SIZE) {
+                throw new IllegalStateException("Short code space exhausted");
+            }
+            next = start;
+            blockEnd = Math.min(start + blockSize, DOMAIN_SIZE);
+            log.debug("Leased short code block [{}, {})", next, blockEnd);
+        }
+        return encode(permute(next++));
+    }
+
+    /**
+     * Inserts a row under a newly generated code. A code the filter and {@code exists} report as taken is skipped;
+     * if the insert still fails on an integrity violation and {@code exists} now reports the code (a concurrent
+     * custom code), it is retried with another one. {@code insert} must run in its own transaction, so a failed
+     * attempt rolls back without poisoning the next one, and the caller must not be in a transaction.
+     */
+    public <T> T insertWithNewCode(ShortCodeFilter.Kind kind, Predicate<String> exists, Function<String, T> insert) {
+        for (int attempt = 1; ; attempt++) {
+            String code = nextCode(kind, exists);
+            try {
+                return insert.apply(code);
+            } catch (DataIntegrityViolationException e) {
+                if (attempt >= MAX_CODE_ATTEMPTS || !exists.test(code)) {
+                    throw e;
+                }
+                log.warn("Generated short code {} clashed with an existing {} code; retrying", code, kind);
+            }
+        }
+    }
+
+    /**
+     * Like {@link #nextCode()}, but skips a code the filter and {@code exists} report as taken. For callers that
+     * insert in bulk and handle a clash themselves; others should use {@link #insertWithNewCode}.
+     */
+    public String nextCode(ShortCodeFilter.Kind kind, Predicate<String> exists) {
+        for (int attempt = 1; ; attempt++) {
+            String code = nextCode();
+            if (!shortCodeFilter.mightExist(kind, code)) {
+                return code;
+            }
+            if (!exists.test(code)) {
+                shortCodeFilter.recordFalsePositive(kind);
+                return code;
+            }
+            if (attempt >= MAX_CODE_ATTEMPTS) {
+                throw new IllegalStateException("No free short code after " + MAX_CODE_ATTEMPTS + " attempts");
+            }
+            log.warn("Generated short code {} matches an existing {} code; skipping it", code, kind);
+        }
+    }
+
+    /** Bijective on [0, DOMAIN_SIZE). */
+    long permute(long value) {
+        long left = value >>> HALF_BITS;
+        long right = value & HALF_MASK;
+        for (long key : roundKeys) {
+            long mixed = left ^ (mix(right ^ key) & HALF_MASK);
+            left = right;
+            right = mixed;
+        }
+        return (left << HALF_BITS) | right;
+    }
+
+    static String encode(long value) {
+        String code = Long.toString(value, 36);
+        return "0".repeat(CODE_LENGTH - code.length()) + code;
+    }
+
+    /** SplitMix64 finalizer. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long[] deriveRoundKeys(String secret) {
+        try {
+            ByteBuffer digest = ByteBuffer.wrap(MessageDigest.getInstance("SHA-256")
+                    .digest(secret.getBytes(StandardCharsets.UTF_8)));
+            long[] keys = new long[ROUNDS];
+            for (int i = 0; i < ROUNDS; i++) {
+                keys[i] = digest.getLong();
+            }
+            return keys;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
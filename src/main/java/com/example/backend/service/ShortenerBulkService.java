@@ -0,0 +1,307 @@
+package com.example.backend.service;
+
+import com.example.backend.cache.ShortCodeFilter;
+import com.example.backend.dto.BulkShortenerResult;
+import com.example.backend.dto.CreateShortenerRequest;
+import com.example.backend.repository.ShortenerJdbcRepository;
+import com.example.backend.repository.ShortenerJdbcRepository.NewShortener;
+import com.example.backend.repository.ShortenerRepository;
+import com.example.backend.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk creation of short links from a JSON array or CSV stream (POST /api/shorteners/bulk).
+ * Rows are read incrementally and processed in chunks: one IN query checks all requested codes of a chunk,
+ * missing codes come from {@link ShortCodeAllocator} without further queries, and the chunk is inserted
+ * as one JDBC batch.
+ * Results are handed to the caller chunk by chunk so they can be streamed back.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ShortenerBulkService {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private final ShortenerRepository shortenerRepository;
+    private final ShortenerJdbcRepository shortenerJdbcRepository;
+    private final UserRepository userRepository;
+    private final ShortCodeAllocator shortCodeAllocator;
+    private final ShortCodeFilter shortCodeFilter;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Value("${app.shortener.bulk.max-rows:100000}")
+    private int maxRows;
+
+    /** A parsed input row and its 1-based position. */
+    private record Row(int index, CreateShortenerRequest request) {}
+
+    /**
+     * Reads rows from {@code in} and creates them for {@code userId}. The user is checked before anything is
+     * emitted, so an unknown user fails the request as a whole; after that every row gets its own result.
+     */
+    public void bulkCreate(InputStream in, boolean csv, Long userId, Consumer<List<BulkShortenerResult>> sink)
+            throws IOException {
+        if (!userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found");
+        }
+        Set<String> seenCodes = new HashSet<>();
+        List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+        Consumer<Row> collector = row -> {
+            chunk.add(row);
+            if (chunk.size() == CHUNK_SIZE) {
+                sink.accept(processChunk(chunk, userId, seenCodes));
+                chunk.clear();
+            }
+        };
+        int read;
+        try {
+            read = csv ? readCsv(in, collector) : readJson(in, collector);
+        } catch (MalformedInputException e) {
+            if (!chunk.isEmpty()) {
+                sink.accept(processChunk(chunk, userId, seenCodes));
+            }
+            sink.accept(List.of(BulkShortenerResult.builder()
+                    .row(e.row)
+                    .success(false)
+                    .error(e.getMessage())
+                    .build()));
+            return;
+        }
+        if (!chunk.isEmpty()) {
+            sink.accept(processChunk(chunk, userId, seenCodes));
+        }
+        log.info("Bulk shortener import for user {}: {} rows", userId, read);
+    }
+
+    private List<BulkShortenerResult> processChunk(List<Row> rows, Long userId, Set<String> seenCodes) {
+        BulkShortenerResult[] results = new BulkShortenerResult[rows.size()];
+        List<Integer> pending = new ArrayList<>();
+        String[] codes = new String[rows.size()];
+
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            String error = validate(row.request());
+            if (error != null) {
+                results[i] = failure(row, error);
+                continue;
+            }
+            String code = row.request().getShortCode();
+            if (code != null && !code.isBlank()) {
+                code = code.trim().toLowerCase();
+                if (!seenCodes.add(code)) {
+                    results[i] = failure(row, "Duplicate short code in request: " + code);
+                    continue;
+                }
+                codes[i] = code;
+            }
+            pending.add(i);
+        }
+
+        Set<String> requested = pending.stream()
+                .map(i -> codes[i])
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<String> taken = requested.isEmpty() ? Set.of() : new HashSet<>(shortenerRepository.findExistingShortCodes(requested));
+
+        List<Integer> toInsert = new ArrayList<>();
+        for (int i : pending) {
+            if (codes[i] != null && taken.contains(codes[i])) {
+                results[i] = failure(rows.get(i), "Short code already in use: " + codes[i]);
+                continue;
+            }
+            toInsert.add(i);
+        }
+
+        Instant now = Instant.now();
+        List<NewShortener> batch = new ArrayList<>(toInsert.size());
+        for (int i : toInsert) {
+            if (codes[i] == null) {
+                codes[i] = shortCodeAllocator.nextCode(ShortCodeFilter.Kind.SHORTENER, shortenerRepository::existsByShortCode);
+            }
+            CreateShortenerRequest r = rows.get(i).request();
+            batch.add(new NewShortener(codes[i], ShortenerService.normalizeFullUrl(r.getFullUrl()), userId, now, r.getExpiresAt()));
+        }
+
+        if (!batch.isEmpty()) {
+            try {
+                List<Long> ids = shortenerJdbcRepository.insertBatch(batch);
+                for (int j = 0; j < toInsert.size(); j++) {
+                    results[toInsert.get(j)] = success(rows.get(toInsert.get(j)), j < ids.size() ? ids.get(j) : null, batch.get(j));
+                    shortCodeFilter.add(ShortCodeFilter.Kind.SHORTENER, batch.get(j).shortCode());
+                }
+            } catch (DuplicateKeyException e) {
+                // A concurrent request took one of the codes after our check; fall back to row-by-row for this chunk.
+                for (int j = 0; j < toInsert.size(); j++) {
+                    Row row = rows.get(toInsert.get(j));
+                    try {
+                        List<Long> ids = shortenerJdbcRepository.insertBatch(List.of(batch.get(j)));
+                        results[toInsert.get(j)] = success(row, ids.isEmpty() ? null : ids.get(0), batch.get(j));
+                        shortCodeFilter.add(ShortCodeFilter.Kind.SHORTENER, batch.get(j).shortCode());
+                    } catch (DuplicateKeyException dup) {
+                        results[toInsert.get(j)] = failure(row, "Short code already in use: " + batch.get(j).shortCode());
+                    }
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private String validate(CreateShortenerRequest request) {
+        Set<ConstraintViolation<CreateShortenerRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private int readJson(InputStream in, Consumer<Row> collector) throws IOException {
+        int index = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new MalformedInputException(1, "Expected a JSON array of short links");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                index++;
+                if (token != JsonToken.START_OBJECT) {
+                    throw new MalformedInputException(index, "Expected a JSON object at row " + index);
+                }
+                checkRowLimit(index);
+                collector.accept(new Row(index, objectMapper.readValue(parser, CreateShortenerRequest.class)));
+            }
+        } catch (JsonProcessingException e) {
+            throw new MalformedInputException(index, "Malformed JSON at row " + index + ": " + e.getOriginalMessage());
+        }
+        return index;
+    }
+
+    /** CSV columns: fullUrl[,shortCode[,expiresAt (ISO-8601)]]. An optional header line starting with "fullUrl" is skipped. */
+    private int readCsv(InputStream in, Consumer<Row> collector) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        int index = 0;
+        boolean first = true;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (first) {
+                first = false;
+                if (line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+                if (line.trim().toLowerCase().startsWith("fullurl")) {
+                    continue;
+                }
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+            index++;
+            checkRowLimit(index);
+            List<String> cols = splitCsvLine(line);
+            CreateShortenerRequest request = new CreateShortenerRequest();
+            request.setFullUrl(cols.get(0));
+            if (cols.size() > 1 && !cols.get(1).isBlank()) {
+                request.setShortCode(cols.get(1));
+            }
+            if (cols.size() > 2 && !cols.get(2).isBlank()) {
+                try {
+                    request.setExpiresAt(Instant.parse(cols.get(2).trim()));
+                } catch (DateTimeParseException e) {
+                    throw new MalformedInputException(index, "Invalid expiresAt at row " + index + ": " + cols.get(2));
+                }
+            }
+            collector.accept(new Row(index, request));
+        }
+        return index;
+    }
+
+    /** Splits one CSV line; supports double-quoted fields with "" escapes. */
+    static List<String> splitCsvLine(String line) {
+        List<String> cols = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cols.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        cols.add(current.toString());
+        return cols;
+    }
+
+    private void checkRowLimit(int index) {
+        if (index > maxRows) {
+            throw new MalformedInputException(index, "Too many rows (max " + maxRows + ")");
+        }
+    }
+
+    private static BulkShortenerResult success(Row row, Long id, NewShortener inserted) {
+        return BulkShortenerResult.builder()
+                .row(row.index())
+                .success(true)
+                .id(id)
+                .shortCode(inserted.shortCode())
+                .fullUrl(inserted.fullUrl())
+                .build();
+    }
+
+    private static BulkShortenerResult failure(Row row, String error) {
+        return BulkShortenerResult.builder()
+                .row(row.index())
+                .success(false)
+                .shortCode(row.request().getShortCode())
+                .fullUrl(row.request().getFullUrl())
+                .error(error)
+                .build();
+    }
+
+    /** Input could not be read past {@code row}; rows before it have already been processed. */
+    private static class MalformedInputException extends RuntimeException {
+        private final int row;
+
+        MalformedInputException(int row, String message) {
+            super(message);
+            this.row = row;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind click counter for short links. Redirects only bump an in-memory count per shortener id;
+ * pending counts are flushed periodically (and on shutdown) as one JDBC batch of
+ * {@code click_count = click_count + ?} updates, so no redirect waits on a row lock. The batch runs in one
+ * transaction, so a failed flush leaves nothing applied and its counts are retried whole.
+ * <p>
+ * Counts read from the database may lag by up to {@code app.shortener.clicks.flush-interval-ms}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ShortenerClickCounter {
+
+    private static final String FLUSH_SQL = "UPDATE shorteners SET click_count = click_count + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /** Clicks not yet flushed per shortener id; an entry is removed once a flush has taken all of its clicks. */
+    private final Map<Long, Long> pending = new ConcurrentHashMap<>();
+
+    public void record(Long shortenerId) {
+        pending.merge(shortenerId, 1L, Long::sum);
+    }
+
+    /** Clicks recorded but not yet written to the database. */
+    long pendingCount(Long shortenerId) {
+        return pending.getOrDefault(shortenerId, 0L);
+    }
+
+    @Scheduled(fixedDelayString = "${app.shortener.clicks.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        Map<Long, Long> taken = new HashMap<>(pending);
+        if (taken.isEmpty()) {
+            return;
+        }
+        // Subtract what we took instead of resetting, so clicks recorded meanwhile are never lost.
+        taken.forEach((id, delta) -> pending.computeIfPresent(id, (k, count) -> count - delta == 0 ? null : count - delta));
+        List<Object[]> batch = new ArrayList<>(taken.size());
+        taken.forEach((id, delta) -> batch.add(new Object[]{delta, id}));
+        try {
+            transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(FLUSH_SQL, batch));
+            log.debug("Flushed click counts for {} short links", batch.size());
+        } catch (RuntimeException e) {
+            // The transaction rolled back: put the counts back; they are retried on the next flush.
+            taken.forEach((id, delta) -> pending.merge(id, delta, Long::sum));
+            log.warn("Failed to flush click counts for {} short links: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.backend.service;
+
+import com.example.backend.cache.ShortenerResolutionCache;
+import com.example.backend.repository.ShortenerRepository;
+import com.example.backend.repository.ShortenerRepository.ShortCodeRef;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Deactivates short links whose {@code expiresAt} has passed, so expired links stop being resolved
+ * without waiting for a redirect to notice. Works in chunks of {@code app.shortener.expiry.batch-size}
+ * rows, each in its own short transaction, using the (active, expires_at) index; swept codes are
+ * evicted from {@link ShortenerResolutionCache}. Rows are kept so owners still see the link and its stats.
+ * Swept links are marked {@code deactivatedByExpiry}, so extending the expiry reactivates them but not links
+ * their owner turned off (see ShortenerService.update).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ShortenerExpirySweeper {
+
+    private final ShortenerRepository shortenerRepository;
+    private final ShortenerResolutionCache resolutionCache;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.shortener.expiry.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.shortener.expiry.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    /** @return number of links deactivated in this run */
+    @Scheduled(fixedDelayString = "${app.shortener.expiry.sweep-interval-ms:60000}")
+    public int sweep() {
+        Instant now = Instant.now();
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<ShortCodeRef> expired = shortenerRepository.findExpiredActive(now, Limit.of(batchSize));
+            if (expired.isEmpty()) {
+                break;
+            }
+            List<Long> ids = expired.stream().map(ShortCodeRef::getId).toList();
+            Integer updated = transactionTemplate.execute(status -> shortenerRepository.deactivateExpired(ids, now));
+            total += updated != null ? updated : 0;
+            for (ShortCodeRef ref : expired) {
+                resolutionCache.invalidate(ref.getShortCode());
+            }
+            if (expired.size() < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Deactivated {} expired short links", total);
+        }
+        return total;
+    }
+}
@@ -1,28 +1,39 @@
 package com.example.backend.service;
 
+import com.example.backend.cache.ShortCodeFilter;
+import com.example.backend.cache.ShortenerResolutionCache;
+import com.example.backend.cache.ShortenerResolutionCache.ResolvedShortener;
+import com.example.backend.config.TransactionCallbacks;
 import com.example.backend.dto.CreateShortenerRequest;
 import com.example.backend.dto.ShortenerResponse;
+import com.example.backend.dto.ShortenerStatsResponse;
 import com.example.backend.dto.UpdateShortenerRequest;
 import com.example.backend.entity.Shortener;
 import com.example.backend.entity.User;
 import com.example.backend.repository.ShortenerRepository;
 import com.example.backend.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
 import java.util.List;
-import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class ShortenerService {
 
-    private static final int SHORT_CODE_LENGTH = 8;
-
     private final ShortenerRepository shortenerRepository;
     private final UserRepository userRepository;
+    private final ShortenerResolutionCache resolutionCache;
+    private final ShortenerClickCounter clickCounter;
+    private final ClickAnalyticsService clickAnalyticsService;
+    private final ShortCodeAllocator shortCodeAllocator;
+    private final ShortCodeFilter shortCodeFilter;
+    private final TrendingLinksTracker trendingLinksTracker;
+    private final TransactionTemplate transactionTemplate;
 
     @Transactional(readOnly = true)
     public List<ShortenerResponse> findAllByUserId(Long userId) {
@@ -49,32 +60,43 @@ public class ShortenerService {
         return ShortenerResponse.fromEntity(s);
     }
 
-    @Transactional
+    /**
+     * Each insert runs in its own short transaction: a failed insert leaves the session unusable, so a generated code
+     * that clashes with an existing one is retried in a fresh transaction (see {@link ShortCodeAllocator}).
+     */
     public ShortenerResponse create(CreateShortenerRequest request, Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-
-        String shortCode = request.getShortCode() != null && !request.getShortCode().isBlank()
-                ? request.getShortCode().trim().toLowerCase()
-                : generateUniqueShortCode();
-
-        if (shortenerRepository.existsByShortCode(shortCode)) {
-            throw new IllegalArgumentException("Short code already in use: " + shortCode);
-        }
-
-        String fullUrl = request.getFullUrl().trim();
-        if (!fullUrl.startsWith("http://") && !fullUrl.startsWith("https://")) {
-            fullUrl = "https://" + fullUrl;
+        if (request.getShortCode() != null && !request.getShortCode().isBlank()) {
+            String shortCode = request.getShortCode().trim().toLowerCase();
+            if (shortenerRepository.existsByShortCode(shortCode)) {
+                throw new IllegalArgumentException("Short code already in use: " + shortCode);
+            }
+            try {
+                return insert(shortCode, request, userId);
+            } catch (DataIntegrityViolationException e) {
+                if (shortenerRepository.existsByShortCode(shortCode)) {
+                    throw new IllegalArgumentException("Short code already in use: " + shortCode);
+                }
+                throw e;
+            }
         }
+        return shortCodeAllocator.insertWithNewCode(ShortCodeFilter.Kind.SHORTENER, shortenerRepository::existsByShortCode,
+                shortCode -> insert(shortCode, request, userId));
+    }
 
-        Shortener s = new Shortener();
-        s.setShortCode(shortCode);
-        s.setFullUrl(fullUrl);
-        s.setUser(user);
-        s.setExpiresAt(request.getExpiresAt());
-        s.setActive(true);
-        s = shortenerRepository.save(s);
-        return ShortenerResponse.fromEntity(s);
+    private ShortenerResponse insert(String shortCode, CreateShortenerRequest request, Long userId) {
+        return transactionTemplate.execute(status -> {
+            User user = userRepository.findById(userId)
+                    .orElseThrow(() -> new IllegalArgumentException("User not found"));
+            Shortener s = new Shortener();
+            s.setShortCode(shortCode);
+            s.setFullUrl(normalizeFullUrl(request.getFullUrl()));
+            s.setUser(user);
+            s.setExpiresAt(request.getExpiresAt());
+            s.setActive(true);
+            s = shortenerRepository.save(s);
+            shortCodeFilter.add(ShortCodeFilter.Kind.SHORTENER, shortCode);
+            return ShortenerResponse.fromEntity(s);
+        });
     }
 
     @Transactional
@@ -86,19 +108,22 @@ public class ShortenerService {
         }
 
         if (request.getFullUrl() != null && !request.getFullUrl().isBlank()) {
-            String fullUrl = request.getFullUrl().trim();
-            if (!fullUrl.startsWith("http://") && !fullUrl.startsWith("https://")) {
-                fullUrl = "https://" + fullUrl;
-            }
-            s.setFullUrl(fullUrl);
+            s.setFullUrl(normalizeFullUrl(request.getFullUrl()));
         }
         if (request.getExpiresAt() != null) {
             s.setExpiresAt(request.getExpiresAt());
+            // Extending a link the sweeper turned off brings it back; one its owner turned off stays off.
+            if (s.isDeactivatedByExpiry() && request.getExpiresAt().isAfter(Instant.now())) {
+                s.setActive(true);
+                s.setDeactivatedByExpiry(false);
+            }
         }
         if (request.getActive() != null) {
             s.setActive(request.getActive());
+            s.setDeactivatedByExpiry(false);
         }
         s = shortenerRepository.save(s);
+        evictResolution(s.getShortCode());
         return ShortenerResponse.fromEntity(s);
     }
 
@@ -109,36 +134,66 @@ public class ShortenerService {
         if (s.getUser() == null || !s.getUser().getId().equals(userId)) {
             throw new IllegalArgumentException("Short link not found");
         }
+        clickAnalyticsService.deleteForShortener(s.getId());
         shortenerRepository.delete(s);
+        evictResolution(s.getShortCode());
     }
 
     /**
      * Resolve short code to full URL and increment click count. Public (no auth).
+     * The code is resolved through {@link ShortenerResolutionCache}; only a miss reads the shorteners table.
+     * The click is recorded in {@link ShortenerClickCounter} and written to the database in the background;
+     * referer and user agent go to {@link ClickAnalyticsService} for the per-link stats, and the click feeds
+     * {@link TrendingLinksTracker}.
      */
-    @Transactional
-    public String resolveAndIncrementClick(String shortCode) {
-        Shortener s = shortenerRepository.findByShortCode(shortCode.toLowerCase())
-                .orElseThrow(() -> new IllegalArgumentException("Short link not found"));
+    public String resolveAndIncrementClick(String shortCode, String referer, String userAgent) {
+        String code = shortCode.toLowerCase();
+        ResolvedShortener s = resolutionCache.get(code, c ->
+                shortenerRepository.findByShortCode(c).map(ResolvedShortener::fromEntity).orElse(null));
+        if (s == null) {
+            shortCodeFilter.recordFalsePositive(ShortCodeFilter.Kind.SHORTENER);
+            throw new IllegalArgumentException("Short link not found");
+        }
 
-        if (!s.isActive()) {
+        // Expiry first: links deactivated by ShortenerExpirySweeper should still report "expired".
+        if (s.isExpired(Instant.now())) {
+            throw new IllegalArgumentException("Short link has expired");
+        }
+        if (!s.active()) {
             throw new IllegalArgumentException("Short link is disabled");
         }
-        if (s.getExpiresAt() != null && Instant.now().isAfter(s.getExpiresAt())) {
-            throw new IllegalArgumentException("Short link has expired");
+
+        clickCounter.record(s.id());
+        clickAnalyticsService.record(s.id(), referer, userAgent);
+        trendingLinksTracker.record(s.id(), code, s.fullUrl());
+        return s.fullUrl();
+    }
+
+    /** Click stats for one of the user's short links, served from the rollup tables. */
+    @Transactional(readOnly = true)
+    public ShortenerStatsResponse getStats(Long id, Long userId, Instant from, Instant to, String granularity) {
+        Shortener s = shortenerRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Short link not found"));
+        if (s.getUser() == null || !s.getUser().getId().equals(userId)) {
+            throw new IllegalArgumentException("Short link not found");
         }
+        return clickAnalyticsService.getStats(s.getId(), from, to, granularity);
+    }
 
-        s.setClickCount(s.getClickCount() + 1);
-        shortenerRepository.save(s);
-        return s.getFullUrl();
+    /**
+     * Drops the cached resolution now and again after commit, so a redirect that reloaded the row
+     * before the transaction committed cannot keep serving the old values.
+     */
+    private void evictResolution(String shortCode) {
+        TransactionCallbacks.nowAndAfterCommit(() -> resolutionCache.invalidate(shortCode));
     }
 
-    private String generateUniqueShortCode() {
-        for (int i = 0; i < 10; i++) {
-            String code = UUID.randomUUID().toString().replace("-", "").substring(0, SHORT_CODE_LENGTH);
-            if (!shortenerRepository.existsByShortCode(code)) {
-                return code;
-            }
+    /** Trims the URL and defaults the scheme to https. */
+    static String normalizeFullUrl(String fullUrl) {
+        String url = fullUrl.trim();
+        if (!url.startsWith("http://") && !url.startsWith("https://")) {
+            url = "https://" + url;
         }
-        throw new IllegalStateException("Could not generate unique short code");
+        return url;
     }
 }
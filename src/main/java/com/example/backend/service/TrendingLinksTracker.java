@@ -0,0 +1,231 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.TrendingLinkResponse;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Approximate most-clicked short links over a sliding window, fed from the redirect path.
+ * <p>
+ * Time is split into one-minute slots kept in a ring of {@code app.shortener.trending.max-window-minutes} slots;
+ * each slot holds a Space-Saving summary of at most {@code app.shortener.trending.capacity} links. Memory is
+ * therefore fixed regardless of how many links exist. A query merges the slots inside the window. Any link with
+ * more than (window clicks / capacity) clicks in a slot is guaranteed to be tracked. A link missing from a full
+ * slot may still have had up to that slot's minimum count there, so the merge adds that minimum to both its clicks
+ * and its {@code maxOvercount}: counts may be overstated by at most {@code maxOvercount}, never understated.
+ */
+@Component
+public class TrendingLinksTracker {
+
+    @Value("${app.shortener.trending.capacity:1000}")
+    private int capacity;
+
+    @Value("${app.shortener.trending.max-window-minutes:60}")
+    private int maxWindowMinutes;
+
+    private Slot[] slots;
+
+    @PostConstruct
+    void init() {
+        slots = new Slot[maxWindowMinutes];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new Slot(capacity);
+        }
+    }
+
+    public void record(Long shortenerId, String shortCode, String fullUrl) {
+        record(shortenerId, shortCode, fullUrl, System.currentTimeMillis() / 60_000);
+    }
+
+    void record(Long shortenerId, String shortCode, String fullUrl, long epochMinute) {
+        Slot slot = slots[(int) (epochMinute % slots.length)];
+        synchronized (slot) {
+            if (slot.minute != epochMinute) {
+                slot.clear(epochMinute);
+            }
+            slot.offer(shortenerId, shortCode, fullUrl);
+        }
+    }
+
+    /**
+     * Top links by clicks over the last {@code window} (e.g. "15m", "1h").
+     * @throws IllegalArgumentException if the window or limit is out of range
+     */
+    public List<TrendingLinkResponse> top(String window, int limit) {
+        return top(parseWindowMinutes(window), limit, System.currentTimeMillis() / 60_000);
+    }
+
+    List<TrendingLinkResponse> top(int windowMinutes, int limit, long nowMinute) {
+        if (limit < 1 || limit > capacity) {
+            throw new IllegalArgumentException("top must be between 1 and " + capacity);
+        }
+        Map<Long, TrendingLinkResponse> merged = new HashMap<>();
+        // Sum of the minimum counts of all full slots, and per link of the full slots it was found in.
+        long fullSlotMins = 0;
+        Map<Long, Long> trackedFullSlotMins = new HashMap<>();
+        for (long minute = nowMinute - windowMinutes + 1; minute <= nowMinute; minute++) {
+            Slot slot = slots[Math.floorMod(minute, slots.length)];
+            synchronized (slot) {
+                if (slot.minute != minute) {
+                    continue;
+                }
+                boolean full = slot.size == slot.ids.length;
+                long min = full ? slot.counts[0] : 0;
+                fullSlotMins += min;
+                for (int i = 0; i < slot.size; i++) {
+                    TrendingLinkResponse e = merged.computeIfAbsent(slot.ids[i], id -> TrendingLinkResponse.builder()
+                            .shortenerId(id).build());
+                    e.setShortCode(slot.codes[i]);
+                    e.setFullUrl(slot.urls[i]);
+                    e.setClicks(e.getClicks() + slot.counts[i]);
+                    e.setMaxOvercount(e.getMaxOvercount() + slot.errors[i]);
+                    if (full) {
+                        trackedFullSlotMins.merge(slot.ids[i], min, Long::sum);
+                    }
+                }
+            }
+        }
+        for (TrendingLinkResponse e : merged.values()) {
+            long untracked = fullSlotMins - trackedFullSlotMins.getOrDefault(e.getShortenerId(), 0L);
+            e.setClicks(e.getClicks() + untracked);
+            e.setMaxOvercount(e.getMaxOvercount() + untracked);
+        }
+        return merged.values().stream()
+                .sorted(Comparator.comparingLong(TrendingLinkResponse::getClicks).reversed()
+                        .thenComparing(TrendingLinkResponse::getShortenerId))
+                .limit(limit)
+                .toList();
+    }
+
+    /** Accepts minutes ("15m", "15") or hours ("1h"), up to the configured maximum. */
+    int parseWindowMinutes(String window) {
+        String w = window == null ? "" : window.trim().toLowerCase(Locale.ROOT);
+        int minutes;
+        try {
+            if (w.endsWith("h")) {
+                minutes = Math.multiplyExact(Integer.parseInt(w.substring(0, w.length() - 1)), 60);
+            } else {
+                minutes = Integer.parseInt(w.endsWith("m") ? w.substring(0, w.length() - 1) : w);
+            }
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("Invalid window: " + window + " (use e.g. 15m or 1h)");
+        }
+        if (minutes < 1 || minutes > maxWindowMinutes) {
+            throw new IllegalArgumentException("window must be between 1m and " + maxWindowMinutes + "m");
+        }
+        return minutes;
+    }
+
+    /**
+     * Space-Saving summary for one minute: an indexed binary min-heap on count. A new link that finds the
+     * summary full replaces the current minimum and inherits its count as error.
+     */
+    private static final class Slot {
+        final long[] ids;
+        final String[] codes;
+        final String[] urls;
+        final long[] counts;
+        final long[] errors;
+        final Map<Long, Integer> positions;
+        int size;
+        long minute = Long.MIN_VALUE;
+
+        Slot(int capacity) {
+            ids = new long[capacity];
+            codes = new String[capacity];
+            urls = new String[capacity];
+            counts = new long[capacity];
+            errors = new long[capacity];
+            positions = new HashMap<>(capacity * 2);
+        }
+
+        void clear(long newMinute) {
+            positions.clear();
+            Arrays.fill(codes, 0, size, null);
+            Arrays.fill(urls, 0, size, null);
+            size = 0;
+            minute = newMinute;
+        }
+
+        void offer(long id, String code, String url) {
+            Integer pos = positions.get(id);
+            if (pos != null) {
+                counts[pos]++;
+                siftDown(pos);
+                return;
+            }
+            if (size < ids.length) {
+                int i = size++;
+                set(i, id, code, url, 1, 0);
+                siftUp(i);
+                return;
+            }
+            positions.remove(ids[0]);
+            set(0, id, code, url, counts[0] + 1, counts[0]);
+            siftDown(0);
+        }
+
+        private void set(int i, long id, String code, String url, long count, long error) {
+            ids[i] = id;
+            codes[i] = code;
+            urls[i] = url;
+            counts[i] = count;
+            errors[i] = error;
+            positions.put(id, i);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (counts[parent] <= counts[i]) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= size) {
+                    return;
+                }
+                int smallest = left + 1 < size && counts[left + 1] < counts[left] ? left + 1 : left;
+                if (counts[i] <= counts[smallest]) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long id = ids[a];
+            String code = codes[a];
+            String url = urls[a];
+            long count = counts[a];
+            long error = errors[a];
+            ids[a] = ids[b];
+            codes[a] = codes[b];
+            urls[a] = urls[b];
+            counts[a] = counts[b];
+            errors[a] = errors[b];
+            ids[b] = id;
+            codes[b] = code;
+            urls[b] = url;
+            counts[b] = count;
+            errors[b] = error;
+            positions.put(ids[a], a);
+            positions.put(ids[b], b);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.cache.ImageMetadataCache;
+import com.example.backend.config.Base64ImageMessageConverter;
+import com.example.backend.dto.ImageUploadRequest;
+import com.example.backend.repository.ImageBlobRepository;
+import com.example.backend.service.ImageBlobStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.mockito.Mockito;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Random;
+
+/**
+ * Heap allocated per JSON image upload ({@code {"base64": ...}}) while the body is read: Jackson data binding
+ * followed by {@code Base64.getDecoder().decode} (the previous path) against {@link Base64ImageMessageConverter}.
+ * The body is streamed from memory in both cases, so only what the reader itself allocates is counted.
+ * Not a unit test; run it with the test classpath:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *      com.example.backend.benchmark.Base64UploadMemoryBenchmark [imageMegabytes=12] [runs=5]
+ * </pre>
+ * Prints the bytes allocated by the reading thread per upload; results are recorded in docs/BENCHMARKS.md.
+ */
+public class Base64UploadMemoryBenchmark {
+
+    private static final byte[] PREFIX = "{\"contentType\":\"image/jpeg\",\"base64\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SUFFIX = "\"}".getBytes(StandardCharsets.US_ASCII);
+
+    public static void main(String[] args) throws Exception {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 12;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        byte[] image = new byte[megabytes * 1024 * 1024];
+        new Random(1).nextBytes(image);
+        byte[] base64 = Base64.getEncoder().encode(image);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        Path dir = Files.createTempDirectory("base64-benchmark");
+        ImageBlobStore store = new ImageBlobStore(Mockito.mock(ImageBlobRepository.class),
+                Mockito.mock(ImageMetadataCache.class), Mockito.mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(store, "imageDir", dir.toString());
+        Base64ImageMessageConverter converter = new Base64ImageMessageConverter(objectMapper, store,
+                DataSize.ofMegabytes(megabytes + 1));
+
+        System.out.printf("image=%d MB, JSON body=%.1f MB, runs=%d%n", megabytes,
+                (PREFIX.length + base64.length + SUFFIX.length) / 1048576.0, runs);
+        for (int i = 0; i <= runs; i++) {
+            // The first round warms up both readers and is not printed.
+            long before = allocated();
+            ImageUploadRequest request = objectMapper.readValue(body(base64), ImageUploadRequest.class);
+            byte[] decoded = Base64.getDecoder().decode(request.getBase64());
+            long dataBinding = allocated() - before;
+
+            before = allocated();
+            ImageUploadRequest streamed = (ImageUploadRequest) converter.read(ImageUploadRequest.class,
+                    new MockHttpInputMessage(body(base64)));
+            long streaming = allocated() - before;
+            store.discard(streamed.getSpooledImage());
+
+            if (i > 0 && decoded.length == streamed.getSpooledImage().size()) {
+                System.out.printf("run %d: data binding + decode %.1f MB, streaming converter %.2f MB%n",
+                        i, dataBinding / 1048576.0, streaming / 1048576.0);
+            }
+        }
+        Files.delete(dir.resolve("blobs"));
+        Files.delete(dir);
+    }
+
+    private static InputStream body(byte[] base64) {
+        return new SequenceInputStream(new ByteArrayInputStream(PREFIX),
+                new SequenceInputStream(new ByteArrayInputStream(base64), new ByteArrayInputStream(SUFFIX)));
+    }
+
+    private static long allocated() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+}
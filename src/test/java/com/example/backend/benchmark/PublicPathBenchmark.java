@@ -0,0 +1,118 @@
+package com.example.backend.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Closed-loop throughput benchmark for the public GET paths (/s/{code}, /i/{code}) of a running server.
+ * Not a unit test; run it against a started application:
+ * <pre>
+ * mvn -q test-compile
+ * java -cp target/test-classes com.example.backend.benchmark.PublicPathBenchmark \
+ *      http://localhost:8081/s/abc12345 [threads=16] [seconds=20] [warmupSeconds=5]
+ * </pre>
+ * Each thread sends requests back to back without following redirects and discards the body.
+ * Prints requests/s, latency percentiles and the status codes seen. Results are recorded in docs/BENCHMARKS.md.
+ */
+public class PublicPathBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: PublicPathBenchmark <url> [threads] [seconds] [warmupSeconds]");
+            System.exit(1);
+        }
+        URI uri = URI.create(args[0]);
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int warmupSeconds = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+
+        run(client, request, threads, warmupSeconds);
+        Result result = run(client, request, threads, seconds);
+
+        long[] latencies = result.latenciesNanos();
+        Arrays.sort(latencies);
+        System.out.printf("%s threads=%d duration=%ds%n", uri, threads, seconds);
+        System.out.printf("requests=%d throughput=%.0f req/s%n", latencies.length, latencies.length / (double) seconds);
+        System.out.printf("latency p50=%.2fms p90=%.2fms p99=%.2fms max=%.2fms%n",
+                percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+                latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6);
+        StringBuilder codes = new StringBuilder("status codes:");
+        for (int code = 0; code < result.statusCounts().length; code++) {
+            if (result.statusCounts()[code] > 0) {
+                codes.append(' ').append(code).append('=').append(result.statusCounts()[code]);
+            }
+        }
+        System.out.println(codes);
+    }
+
+    private record Result(long[] latenciesNanos, int[] statusCounts) {}
+
+    private static Result run(HttpClient client, HttpRequest request, int threads, int seconds) throws Exception {
+        AtomicBoolean stop = new AtomicBoolean();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Result>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                long[] latencies = new long[1 << 16];
+                int[] statuses = new int[600];
+                int n = 0;
+                while (!stop.get()) {
+                    long start = System.nanoTime();
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    long elapsed = System.nanoTime() - start;
+                    if (n == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, n * 2);
+                    }
+                    latencies[n++] = elapsed;
+                    statuses[response.statusCode()]++;
+                }
+                return new Result(Arrays.copyOf(latencies, n), statuses);
+            }));
+        }
+        Thread.sleep(seconds * 1000L);
+        stop.set(true);
+        List<long[]> all = new ArrayList<>();
+        int[] statuses = new int[600];
+        int total = 0;
+        for (Future<Result> f : futures) {
+            Result r = f.get();
+            all.add(r.latenciesNanos());
+            total += r.latenciesNanos().length;
+            for (int i = 0; i < statuses.length; i++) {
+                statuses[i] += r.statusCounts()[i];
+            }
+        }
+        pool.shutdown();
+        long[] merged = new long[total];
+        int pos = 0;
+        for (long[] a : all) {
+            System.arraycopy(a, 0, merged, pos, a.length);
+            pos += a.length;
+        }
+        return new Result(merged, statuses);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(p * (sorted.length - 1)))] / 1e6;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.search.InvertedIndex;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Query latency of the item search index ({@link InvertedIndex}) at catalog scale: synthetic items whose
+ * descriptions draw 3 to 8 words from a Zipf-distributed vocabulary (a few very common words, a long tail of
+ * rare ones), spread over categories with one or two words each. Queries of one to three words are drawn from
+ * the same distribution, so most contain a common word.
+ * Not a unit test; run it with the test classpath and enough heap:
+ * <pre>
+ * mvn -q test-compile
+ * java -Xmx2g -cp target/test-classes:target/classes \
+ *      com.example.backend.benchmark.SearchIndexBenchmark [items=1000000] [queries=20000] [limit=20]
+ * </pre>
+ * Prints build time, heap after build and single-threaded latency percentiles per query length; results are
+ * recorded in docs/BENCHMARKS.md.
+ */
+public class SearchIndexBenchmark {
+
+    private static final int VOCABULARY = 50_000;
+    private static final int CATEGORIES = 500;
+
+    public static void main(String[] args) {
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int limit = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        Random random = new Random(7);
+        String[] words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            words[i] = Integer.toString(i * 7919 + 1000, 36);
+        }
+        double[] zipf = zipfCumulative(VOCABULARY);
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+        long started = System.nanoTime();
+        InvertedIndex index = new InvertedIndex();
+        for (int c = 0; c < CATEGORIES; c++) {
+            index.putCategory("c" + c, words[draw(random, zipf)] + (c % 2 == 0 ? " " + words[draw(random, zipf)] : ""));
+        }
+        long createdAt = 1_700_000_000_000L;
+        for (int i = 0; i < items; i++) {
+            index.putItem(UUID.randomUUID().toString(), description(random, words, zipf, 3 + random.nextInt(6)),
+                    "c" + random.nextInt(CATEGORIES), createdAt + i);
+        }
+        long buildMillis = (System.nanoTime() - started) / 1_000_000;
+        System.gc();
+        long heapAfter = memory.getHeapMemoryUsage().getUsed();
+        System.out.printf("items=%d terms=%d build=%d ms heap=%d MB%n", items, index.terms(), buildMillis,
+                (heapAfter - heapBefore) >> 20);
+
+        for (int terms = 1; terms <= 3; terms++) {
+            String[] sample = new String[queries];
+            for (int q = 0; q < queries; q++) {
+                sample[q] = description(random, words, zipf, terms);
+            }
+            for (String query : sample) {
+                index.search(query, null, limit);
+            }
+            long[] latencies = new long[queries];
+            long hits = 0;
+            for (int q = 0; q < queries; q++) {
+                long start = System.nanoTime();
+                hits += index.search(sample[q], null, limit).size();
+                latencies[q] = System.nanoTime() - start;
+            }
+            Arrays.sort(latencies);
+            System.out.printf("terms=%d queries=%d avgHits=%.1f p50=%.3fms p90=%.3fms p99=%.3fms max=%.3fms%n",
+                    terms, queries, hits / (double) queries, percentile(latencies, 0.50),
+                    percentile(latencies, 0.90), percentile(latencies, 0.99), latencies[queries - 1] / 1e6);
+        }
+    }
+
+    private static String description(Random random, String[] words, double[] zipf, int length) {
+        StringBuilder description = new StringBuilder();
+        for (int w = 0; w < length; w++) {
+            description.append(w > 0 ? " " : "").append(words[draw(random, zipf)]);
+        }
+        return description.toString();
+    }
+
+    /** Cumulative Zipf probabilities (exponent 1) of ranks 1..n. */
+    private static double[] zipfCumulative(int n) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static int draw(Random random, double[] cumulative) {
+        int i = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(i >= 0 ? i : -i - 1, cumulative.length - 1);
+    }
+
+    private static double percentile(long[] sortedNanos, double p) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        return sortedNanos[Math.min(sortedNanos.length - 1, (int) (p * sortedNanos.length))] / 1e6;
+    }
+}
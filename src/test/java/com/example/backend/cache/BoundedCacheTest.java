@@ -0,0 +1,124 @@
+package com.example.backend.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedCacheTest {
+
+    private final BoundedCache<String, String> cache = new BoundedCache<>("test", 10, 0, v -> (long) v.length());
+
+    @Test
+    @DisplayName("evicts least recently used entries once the total weight exceeds the bound")
+    void evictsByWeight() {
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        cache.get("a");
+
+        cache.put("c", "cccc");
+
+        assertThat(cache.get("a")).isEqualTo("aaaa");
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("c")).isEqualTo("cccc");
+        assertThat(cache.stats().getWeight()).isEqualTo(8);
+        assertThat(cache.stats().getEvictions()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("replacing an entry adjusts the total weight")
+    void replaceAdjustsWeight() {
+        cache.put("a", "aaaaaaaa");
+        cache.put("a", "a");
+        cache.put("b", "bbbbbbbbb");
+
+        assertThat(cache.get("a")).isEqualTo("a");
+        assertThat(cache.stats().getWeight()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("does not store a value heavier than the whole cache, and drops the old one")
+    void rejectsOversizeValue() {
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+
+        cache.put("a", "x".repeat(11));
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isEqualTo("bbbb");
+        assertThat(cache.stats().getWeight()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("expires entries after the cache TTL, or a shorter per-entry TTL")
+    void expires() throws InterruptedException {
+        BoundedCache<String, String> shortLived = new BoundedCache<>("ttl", 10, 20);
+        shortLived.put("a", "a");
+        cache.put("b", "b", 20);
+        cache.put("c", "c");
+
+        Thread.sleep(50);
+
+        assertThat(shortLived.get("a")).isNull();
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("c")).isEqualTo("c");
+        assertThat(shortLived.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("loads a missing value once and caches it; null and uncacheable values are not stored")
+    void loads() {
+        assertThat(cache.get("a", k -> "loaded")).isEqualTo("loaded");
+        assertThat(cache.get("a", k -> "again")).isEqualTo("loaded");
+        assertThat(cache.get("b", k -> null)).isNull();
+        assertThat(cache.get("c", k -> "skip", v -> false)).isEqualTo("skip");
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.stats().getHits()).isEqualTo(1);
+        assertThat(cache.stats().getMisses()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("a load that races an invalidation returns its value but does not cache it")
+    void loadRacingInvalidation() {
+        String loaded = cache.get("a", k -> {
+            cache.invalidate("a");
+            return "stale";
+        });
+        String reloaded = cache.reload("b", k -> {
+            cache.invalidateAll();
+            return "stale";
+        });
+
+        assertThat(loaded).isEqualTo("stale");
+        assertThat(reloaded).isEqualTo("stale");
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("a", k -> "fresh")).isEqualTo("fresh");
+        assertThat(cache.get("a")).isEqualTo("fresh");
+    }
+
+    @Test
+    @DisplayName("invalidateIf removes matching entries and returns them")
+    void invalidateIf() {
+        cache.put("item:1", "one");
+        cache.put("item:2", "two");
+        cache.put("category:1", "c");
+
+        Map<String, String> removed = cache.invalidateIf(k -> k.startsWith("item:"));
+
+        assertThat(removed).containsOnlyKeys("item:1", "item:2");
+        assertThat(cache.get("category:1")).isEqualTo("c");
+        assertThat(cache.stats().getWeight()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("rejects a non-positive bound")
+    void rejectsZeroBound() {
+        assertThatThrownBy(() -> new BoundedCache<String, String>("bad", 0, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
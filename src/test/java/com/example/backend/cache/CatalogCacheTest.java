@@ -0,0 +1,178 @@
+package com.example.backend.cache;
+
+import com.example.backend.cache.CatalogCache.Snapshot;
+import com.example.backend.dto.CursorPage;
+import com.example.backend.dto.ItemResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogCacheTest {
+
+    private static final String NEXT_PAGE = "next";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final ExecutorService refreshPool = Executors.newSingleThreadExecutor();
+    private CatalogCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CatalogCache(objectMapper);
+        ReflectionTestUtils.setField(cache, "maxBytes", 4096L);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 300L);
+        ReflectionTestUtils.setField(cache, "gzipMinBytes", 500);
+        cache.init();
+        cache.shutdown();
+        ReflectionTestUtils.setField(cache, "refreshPool", refreshPool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        refreshPool.shutdownNow();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private CursorPage<ItemResponse> items(int rows) {
+        loads.incrementAndGet();
+        return CursorPage.<ItemResponse>builder()
+                .items(Collections.nCopies(rows, ItemResponse.builder().id("item").description("Lamp").build()))
+                .build();
+    }
+
+    /** Pages after the first, which are not refreshed in the background. */
+    private void loadNextPages() {
+        cache.items(NEXT_PAGE, 2, null, () -> items(2));
+        cache.itemsInCategory("c1", NEXT_PAGE, 2, null, () -> items(2));
+        cache.itemsInCategory("c2", NEXT_PAGE, 2, null, () -> items(2));
+        cache.categories(NEXT_PAGE, 2, null, () -> items(0));
+    }
+
+    @Test
+    @DisplayName("serves repeated requests for the same page from memory, keyed by all parameters")
+    void cachesPages() {
+        Snapshot first = cache.items(null, 2, null, () -> items(2));
+        Snapshot second = cache.items(null, 2, null, () -> items(2));
+        cache.items(null, 3, null, () -> items(3));
+        cache.items(null, 2, "oldest", () -> items(2));
+        cache.itemsInCategory("c1", null, 2, null, () -> items(2));
+
+        assertThat(second).isSameAs(first);
+        assertThat(loads).hasValue(4);
+        assertThat(cache.stats().getHits()).isEqualTo(1);
+        assertThat(cache.stats().getHitRatio()).isEqualTo(0.2);
+    }
+
+    @Test
+    @DisplayName("serializes the response envelope once, gzipped from the threshold on, with a strong ETag")
+    void snapshots() throws Exception {
+        Snapshot small = cache.items(null, 1, null, () -> items(1));
+        Snapshot large = cache.items(null, 5, null, () -> items(5));
+
+        JsonNode body = objectMapper.readTree(small.json());
+        assertThat(body.get("success").asBoolean()).isTrue();
+        assertThat(body.get("message").asText()).isEqualTo("OK");
+        assertThat(body.at("/data/items/0/description").asText()).isEqualTo("Lamp");
+        assertThat(small.gzip()).isNull();
+        assertThat(small.etag()).matches("\"[0-9a-f]{32}\"");
+
+        assertThat(large.json().length).isGreaterThanOrEqualTo(500);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(large.gzip()))) {
+            assertThat(in.readAllBytes()).isEqualTo(large.json());
+        }
+        assertThat(large.etag()).isNotEqualTo(small.etag());
+        assertThat(large.gzipEtag()).isEqualTo(large.etag().replaceAll("\"$", "-gzip\""));
+        assertThat(cache.stats().getWeight())
+                .isEqualTo(small.json().length + large.json().length + large.gzip().length);
+    }
+
+    @Test
+    @DisplayName("an item change drops all-item pages and its category's pages only")
+    void itemsChanged() {
+        loadNextPages();
+
+        cache.itemsChanged("c1");
+        loadNextPages();
+
+        assertThat(loads).hasValue(4 + 2);
+    }
+
+    @Test
+    @DisplayName("an item change of unknown category drops every item page; a category change only category pages")
+    void otherChanges() {
+        loadNextPages();
+
+        cache.itemsChanged(null);
+        loadNextPages();
+        cache.categoriesChanged();
+        loadNextPages();
+
+        assertThat(loads).hasValue(4 + 3 + 1);
+    }
+
+    @Test
+    @DisplayName("inside a transaction, invalidates after commit")
+    void afterCommit() {
+        loadNextPages();
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.categoriesChanged();
+        loadNextPages();
+        assertThat(loads).hasValue(4);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        loadNextPages();
+        assertThat(loads).hasValue(5);
+    }
+
+    @Test
+    @DisplayName("renders dropped first pages again in the background")
+    void refreshesFirstPages() throws Exception {
+        AtomicInteger rows = new AtomicInteger(1);
+        Snapshot before = cache.items(null, 5, null, () -> items(rows.get()));
+        cache.items(NEXT_PAGE, 5, null, () -> items(1));
+        rows.set(2);
+
+        cache.itemsChanged("c1");
+        refreshPool.shutdown();
+        assertThat(refreshPool.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(loads).hasValue(3);
+        Snapshot after = cache.items(null, 5, null, () -> items(rows.get()));
+        assertThat(after.etag()).isNotEqualTo(before.etag());
+        assertThat(objectMapper.readTree(after.json()).at("/data/items").size()).isEqualTo(2);
+        assertThat(loads).hasValue(3);
+        assertThat(cache.stats().getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("evicts least recently used pages beyond the byte bound")
+    void weighsByBytes() {
+        cache.items("a", 12, null, () -> items(12));
+        cache.items("b", 12, null, () -> items(12));
+        cache.items("b", 12, null, () -> items(12));
+
+        assertThat(cache.stats().getWeight()).isBetween(2049L, 4096L);
+        assertThat(cache.stats().getSize()).isEqualTo(1);
+        assertThat(cache.stats().getEvictions()).isEqualTo(1);
+        assertThat(loads).hasValue(2);
+    }
+}
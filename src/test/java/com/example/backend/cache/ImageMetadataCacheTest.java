@@ -0,0 +1,78 @@
+package com.example.backend.cache;
+
+import com.example.backend.cache.ImageMetadataCache.ImageMetadata;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageMetadataCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private ImageMetadataCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = new ImageMetadataCache();
+        ReflectionTestUtils.setField(cache, "maxEntries", 100L);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 600L);
+        cache.init();
+    }
+
+    private ImageMetadata load(Path file) {
+        loads.incrementAndGet();
+        return ImageMetadata.forFile(file, "image/png");
+    }
+
+    @Test
+    @DisplayName("loads once and serves repeated lookups from memory")
+    void cachesHits() throws Exception {
+        Path file = Files.write(dir.resolve("a"), new byte[]{1, 2, 3});
+
+        ImageMetadata first = cache.get(ImageMetadataCache.Kind.ITEM, "a", id -> load(file));
+        ImageMetadata second = cache.get(ImageMetadataCache.Kind.ITEM, "a", id -> load(file));
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.size()).isEqualTo(3);
+        assertThat(loads).hasValue(1);
+        assertThat(cache.stats().getHits()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("does not cache unknown ids or rows whose file is missing")
+    void skipsMisses() {
+        Path missing = dir.resolve("missing");
+
+        assertThat(cache.get(ImageMetadataCache.Kind.CATEGORY, "x", id -> null)).isNull();
+        assertThat(cache.get(ImageMetadataCache.Kind.CATEGORY, "y", id -> load(missing)).fileExists()).isFalse();
+        cache.get(ImageMetadataCache.Kind.CATEGORY, "y", id -> load(missing));
+
+        assertThat(loads).hasValue(2);
+        assertThat(cache.stats().getSize()).isZero();
+    }
+
+    @Test
+    @DisplayName("reloads after evict and keeps kinds apart")
+    void evict() throws Exception {
+        Path file = Files.write(dir.resolve("b"), new byte[]{1});
+        cache.get(ImageMetadataCache.Kind.ITEM, "b", id -> load(file));
+        cache.get(ImageMetadataCache.Kind.CATEGORY, "b", id -> load(file));
+
+        cache.evict(ImageMetadataCache.Kind.ITEM, "b");
+        Files.write(file, new byte[]{1, 2});
+
+        assertThat(cache.get(ImageMetadataCache.Kind.ITEM, "b", id -> load(file)).size()).isEqualTo(2);
+        assertThat(cache.get(ImageMetadataCache.Kind.CATEGORY, "b", id -> load(file)).size()).isEqualTo(1);
+        assertThat(loads).hasValue(3);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.backend.cache;
+
+import com.example.backend.cache.ImageVariantCache.Variant;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageVariantCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private ImageVariantCache cache(long maxBytes) throws Exception {
+        ImageVariantCache cache = new ImageVariantCache();
+        ReflectionTestUtils.setField(cache, "dir", dir.toString());
+        ReflectionTestUtils.setField(cache, "maxBytes", maxBytes);
+        cache.init();
+        return cache;
+    }
+
+    private static ImageVariantCache.VariantWriter bytes(int n, AtomicInteger writes) {
+        return target -> {
+            writes.incrementAndGet();
+            Files.write(target, new byte[n]);
+        };
+    }
+
+    @Test
+    @DisplayName("writes a variant once and serves it from disk afterwards")
+    void writesOnce() throws Exception {
+        ImageVariantCache cache = cache(1000);
+        AtomicInteger writes = new AtomicInteger();
+
+        Variant first = cache.get("a.png", bytes(10, writes));
+        Variant second = cache.get("a.png", bytes(10, writes));
+
+        assertThat(second).isEqualTo(first);
+        assertThat(first.path()).isEqualTo(dir.resolve("a.png"));
+        assertThat(Files.size(first.path())).isEqualTo(10);
+        assertThat(writes).hasValue(1);
+        assertThat(cache.stats().getHits()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("lets concurrent requests for the same variant share one write")
+    void deduplicatesConcurrentWrites() throws Exception {
+        ImageVariantCache cache = cache(1000);
+        AtomicInteger writes = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ImageVariantCache.VariantWriter slow = target -> {
+            writes.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Files.write(target, new byte[5]);
+        };
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Variant>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> cache.get("b.png", slow)));
+            }
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<Variant> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS).size()).isEqualTo(5);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(writes).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("deletes least recently used files once the byte cap is exceeded")
+    void evictsLeastRecentlyUsed() throws Exception {
+        ImageVariantCache cache = cache(25);
+        AtomicInteger writes = new AtomicInteger();
+        cache.get("a", bytes(10, writes));
+        cache.get("b", bytes(10, writes));
+        cache.get("a", bytes(10, writes));
+
+        cache.get("c", bytes(10, writes));
+
+        assertThat(dir.resolve("a")).exists();
+        assertThat(dir.resolve("b")).doesNotExist();
+        assertThat(dir.resolve("c")).exists();
+        assertThat(cache.stats().getWeight()).isEqualTo(20);
+        assertThat(cache.stats().getEvictions()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("rebuilds the index from disk at startup, trimming oldest files and leftovers")
+    void rebuildsFromDisk() throws Exception {
+        Files.write(dir.resolve("old"), new byte[10]);
+        Files.setLastModifiedTime(dir.resolve("old"), FileTime.fromMillis(1_000_000));
+        Files.write(dir.resolve("new"), new byte[10]);
+        Files.write(dir.resolve("new.123.tmp"), new byte[3]);
+
+        ImageVariantCache cache = cache(15);
+
+        assertThat(dir.resolve("old")).doesNotExist();
+        assertThat(dir.resolve("new.123.tmp")).doesNotExist();
+        AtomicInteger writes = new AtomicInteger();
+        assertThat(cache.get("new", bytes(10, writes)).size()).isEqualTo(10);
+        assertThat(writes).hasValue(0);
+    }
+}
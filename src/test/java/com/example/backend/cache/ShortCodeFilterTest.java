@@ -0,0 +1,114 @@
+package com.example.backend.cache;
+
+import com.example.backend.dto.ShortCodeFilterStatsResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ShortCodeFilterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private ShortCodeFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(filter, "falsePositiveRate", 0.01);
+        ReflectionTestUtils.setField(filter, "minCapacity", 1000L);
+    }
+
+    /** Makes the rebuild scan of {@code table} return {@code codes}. */
+    private void givenCodes(String table, List<String> codes) throws SQLException {
+        when(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class)).thenReturn((long) codes.size());
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            for (String code : codes) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getString(1)).thenReturn(code);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(eq("SELECT short_code FROM " + table), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    @DisplayName("lets everything through until the first build")
+    void notBuilt_allowsAll() {
+        assertThat(filter.mightExist(ShortCodeFilter.Kind.SHORTENER, "anything")).isTrue();
+        assertThat(filter.stats()).allMatch(s -> !s.isReady() && s.getChecks() == 0);
+    }
+
+    @Test
+    @DisplayName("after a build, known codes pass (case-insensitive) and unknown ones are rejected and counted")
+    void built_rejectsUnknownCodes() throws SQLException {
+        givenCodes("shorteners", List.of("abc12345", "promo"));
+        givenCodes("image_uploads", List.of("img00001"));
+
+        filter.rebuild();
+
+        assertThat(filter.mightExist(ShortCodeFilter.Kind.SHORTENER, "abc12345")).isTrue();
+        assertThat(filter.mightExist(ShortCodeFilter.Kind.SHORTENER, "PROMO")).isTrue();
+        assertThat(filter.mightExist(ShortCodeFilter.Kind.IMAGE, "img00001")).isTrue();
+        int rejected = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (!filter.mightExist(ShortCodeFilter.Kind.SHORTENER, "scan" + i)) {
+                rejected++;
+            }
+        }
+        assertThat(rejected).isGreaterThan(950);
+
+        ShortCodeFilterStatsResponse stats = filter.stats().get(0);
+        assertThat(stats.getName()).isEqualTo("shortener");
+        assertThat(stats.isReady()).isTrue();
+        assertThat(stats.getInsertions()).isEqualTo(2);
+        assertThat(stats.getChecks()).isEqualTo(1002);
+        assertThat(stats.getRejects()).isEqualTo(rejected);
+        assertThat(stats.getExpectedFalsePositiveRate()).isLessThan(0.01);
+    }
+
+    @Test
+    @DisplayName("codes added after the build are accepted")
+    void add_afterBuild() throws SQLException {
+        givenCodes("shorteners", List.of());
+        givenCodes("image_uploads", List.of());
+        filter.rebuild();
+        assertThat(filter.mightExist(ShortCodeFilter.Kind.IMAGE, "newcode1")).isFalse();
+
+        filter.add(ShortCodeFilter.Kind.IMAGE, "NewCode1");
+
+        assertThat(filter.mightExist(ShortCodeFilter.Kind.IMAGE, "newcode1")).isTrue();
+        assertThat(filter.mightExist(ShortCodeFilter.Kind.SHORTENER, "newcode1")).isFalse();
+    }
+
+    @Test
+    @DisplayName("a failed rebuild keeps serving without rejecting")
+    void rebuildFailure_keepsAllowing() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenThrow(new IllegalStateException("db down"));
+
+        filter.rebuild();
+
+        assertThat(filter.mightExist(ShortCodeFilter.Kind.SHORTENER, "anything")).isTrue();
+    }
+}
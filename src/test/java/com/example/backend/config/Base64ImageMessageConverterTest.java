@@ -0,0 +1,158 @@
+package com.example.backend.config;
+
+import com.example.backend.cache.ImageMetadataCache;
+import com.example.backend.dto.Base64ImageRequest;
+import com.example.backend.dto.CreateItemRequest;
+import com.example.backend.dto.ImageUploadRequest;
+import com.example.backend.dto.SpooledImage;
+import com.example.backend.repository.ImageBlobRepository;
+import com.example.backend.service.ImageBlobStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class Base64ImageMessageConverterTest {
+
+    @TempDir
+    Path dir;
+
+    private Base64ImageMessageConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        ImageBlobStore store = new ImageBlobStore(mock(ImageBlobRepository.class), mock(ImageMetadataCache.class),
+                mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(store, "imageDir", dir.toString());
+        converter = new Base64ImageMessageConverter(new ObjectMapper(), store, DataSize.ofKilobytes(200));
+    }
+
+    private <T> T read(Class<T> type, String json) throws Exception {
+        MockHttpInputMessage message = new MockHttpInputMessage(json.getBytes(StandardCharsets.UTF_8));
+        return type.cast(converter.read(type.asSubclass(Base64ImageRequest.class), message));
+    }
+
+    private static byte[] content(int size) {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+
+    private long tempFiles() throws Exception {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    @Test
+    @DisplayName("decodes raw Base64 spanning several chunks into a spooled file and binds the other properties")
+    void rawBase64() throws Exception {
+        byte[] bytes = content(100_000);
+
+        ImageUploadRequest request = read(ImageUploadRequest.class, "{\"contentType\":\"image/png\",\"base64\":\""
+                + Base64.getEncoder().encodeToString(bytes) + "\",\"originalFileName\":\"a.png\"}");
+
+        SpooledImage image = request.getSpooledImage();
+        assertThat(Files.readAllBytes(image.file())).isEqualTo(bytes);
+        assertThat(image.size()).isEqualTo(bytes.length);
+        assertThat(request.getBase64()).isNull();
+        assertThat(request.getContentType()).isEqualTo("image/png");
+        assertThat(request.getOriginalFileName()).isEqualTo("a.png");
+        assertThat(request.isImagePresent()).isTrue();
+    }
+
+    @Test
+    @DisplayName("strips a data URL prefix, keeps its type and unescapes the JSON string")
+    void dataUrl() throws Exception {
+        byte[] bytes = content(3000);
+        String base64 = Base64.getMimeEncoder().encodeToString(bytes).replace("/", "\\/").replace("\r\n", "\\n");
+
+        CreateItemRequest request = read(CreateItemRequest.class, "{\"description\":\"Lamp\",\"imageBase64\":"
+                + "\"data:image/webp;base64," + base64 + "\",\"categoryId\":\"c1\",\"active\":true}");
+
+        assertThat(Files.readAllBytes(request.getSpooledImage().file())).isEqualTo(bytes);
+        assertThat(request.getImageContentType()).isEqualTo("image/webp");
+        assertThat(request.getDescription()).isEqualTo("Lamp");
+        assertThat(request.getCategoryId()).isEqualTo("c1");
+        assertThat(request.getActive()).isTrue();
+    }
+
+    @Test
+    @DisplayName("keeps an explicit content type over the data URL type")
+    void explicitContentType() throws Exception {
+        ImageUploadRequest request = read(ImageUploadRequest.class,
+                "{\"base64\":\"data:image/gif;base64,aGVsbG8=\",\"contentType\":\"image/png\"}");
+
+        assertThat(request.getContentType()).isEqualTo("image/png");
+        assertThat(Files.readString(request.getSpooledImage().file())).isEqualTo("hello");
+    }
+
+    @Test
+    @DisplayName("treats an empty value as no image and leaves no spooled file")
+    void empty() throws Exception {
+        CreateItemRequest request = read(CreateItemRequest.class, "{\"description\":\"Lamp\",\"imageBase64\":\"\"}");
+
+        assertThat(request.getSpooledImage()).isNull();
+        assertThat(request.getDescription()).isEqualTo("Lamp");
+        assertThat(tempFiles()).isZero();
+    }
+
+    @Test
+    @DisplayName("rejects invalid Base64 with IllegalArgumentException and deletes the spooled file")
+    void invalidBase64() throws Exception {
+        assertThatThrownBy(() -> read(ImageUploadRequest.class, "{\"base64\":\"not*base64\"}"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid or empty Base64 image data");
+        assertThat(tempFiles()).isZero();
+    }
+
+    @Test
+    @DisplayName("reports malformed JSON after the image as unreadable and deletes the spooled file")
+    void malformedJson() throws Exception {
+        assertThatThrownBy(() -> read(ImageUploadRequest.class, "{\"base64\":\"aGVsbG8=\",\"contentType\":}"))
+                .isInstanceOf(HttpMessageNotReadableException.class);
+        assertThat(tempFiles()).isZero();
+    }
+
+    @Test
+    @DisplayName("stops at the maximum upload size and deletes the spooled file")
+    void tooLarge() throws Exception {
+        String base64 = Base64.getEncoder().encodeToString(content(300_000));
+
+        assertThatThrownBy(() -> read(ImageUploadRequest.class, "{\"base64\":\"" + base64 + "\"}"))
+                .isInstanceOf(MaxUploadSizeExceededException.class);
+        assertThat(tempFiles()).isZero();
+    }
+
+    @Test
+    @DisplayName("reads Base64 image requests from JSON only and never writes")
+    void readOnly() {
+        assertThat(converter.canRead(ImageUploadRequest.class, MediaType.APPLICATION_JSON)).isTrue();
+        assertThat(converter.canRead(CreateItemRequest.class, MediaType.valueOf("application/merge-patch+json"))).isTrue();
+        assertThat(converter.canRead(ImageUploadRequest.class, MediaType.TEXT_PLAIN)).isFalse();
+        assertThat(converter.canRead(String.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(converter.canWrite(ImageUploadRequest.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThatThrownBy(() -> converter.write(new ImageUploadRequest(), MediaType.APPLICATION_JSON, null))
+                .isInstanceOf(UnsupportedOperationException.class)
+                .hasMessageContaining("read-only");
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.backend.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionCallbacksTest {
+
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("runs the action right away outside a transaction")
+    void noTransaction_runsNow() {
+        TransactionCallbacks.afterCommit(runs::incrementAndGet);
+
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("defers the action to commit, and drops it on rollback")
+    void transaction_runsAfterCommitOnly() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionCallbacks.afterCommit(runs::incrementAndGet);
+        assertThat(runs).hasValue(0);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(runs).hasValue(1);
+
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionCallbacks.afterCommit(runs::incrementAndGet);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("runs a now-and-after-commit action once outside a transaction, twice inside one")
+    void nowAndAfterCommit() {
+        TransactionCallbacks.nowAndAfterCommit(runs::incrementAndGet);
+        assertThat(runs).hasValue(1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionCallbacks.nowAndAfterCommit(runs::incrementAndGet);
+        assertThat(runs).hasValue(2);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(runs).hasValue(3);
+    }
+}
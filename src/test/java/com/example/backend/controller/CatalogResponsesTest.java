@@ -0,0 +1,79 @@
+package com.example.backend.controller;
+
+import com.example.backend.cache.CatalogCache.Snapshot;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogResponsesTest {
+
+    private static final byte[] JSON = "{\"success\":true}".getBytes();
+    private static final byte[] GZIP = {31, -117, 8};
+    private static final Snapshot PAGE = new Snapshot(JSON, GZIP, "\"abc\"");
+
+    private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/items");
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    private ResponseEntity<Void> respond(Snapshot page) throws Exception {
+        return CatalogResponses.write(page, request, response);
+    }
+
+    @Test
+    @DisplayName("sends the JSON body with length, ETag and revalidation headers")
+    void identity() throws Exception {
+        assertThat(respond(PAGE)).isNull();
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsByteArray()).isEqualTo(JSON);
+        assertThat(response.getContentType()).isEqualTo("application/json");
+        assertThat(response.getContentLength()).isEqualTo(JSON.length);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("no-cache");
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"abc\"");
+    }
+
+    @Test
+    @DisplayName("sends the gzip body, with its own ETag, to clients accepting gzip")
+    void gzip() throws Exception {
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8");
+
+        respond(PAGE);
+
+        assertThat(response.getContentAsByteArray()).isEqualTo(GZIP);
+        assertThat(response.getContentLength()).isEqualTo(GZIP.length);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(response.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"abc-gzip\"");
+    }
+
+    @Test
+    @DisplayName("sends JSON when the page has no gzip body or the client refuses gzip")
+    void noGzip() throws Exception {
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        respond(new Snapshot(JSON, null, "\"abc\""));
+        assertThat(response.getContentAsByteArray()).isEqualTo(JSON);
+
+        assertThat(CatalogResponses.acceptsGzip("gzip;q=0, deflate")).isFalse();
+        assertThat(CatalogResponses.acceptsGzip("deflate")).isFalse();
+        assertThat(CatalogResponses.acceptsGzip(null)).isFalse();
+        assertThat(CatalogResponses.acceptsGzip("GZIP")).isTrue();
+    }
+
+    @Test
+    @DisplayName("answers a matching If-None-Match with 304 and no body")
+    void notModified() throws Exception {
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"abc\"");
+
+        ResponseEntity<Void> result = respond(PAGE);
+
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(result.getHeaders().getCacheControl()).isEqualTo("no-cache");
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+}
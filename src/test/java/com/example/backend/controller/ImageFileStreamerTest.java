@@ -0,0 +1,154 @@
+package com.example.backend.controller;
+
+import com.example.backend.controller.ImageFileStreamer.ByteRange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageFileStreamerTest {
+
+    private static final String ETAG = "\"abc-1\"";
+    private static final long LAST_MODIFIED = 1_768_471_200_000L;
+
+    @TempDir
+    Path dir;
+
+    private Path file;
+    private byte[] content;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        content = new byte[100_000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        file = dir.resolve("img");
+        Files.write(file, content);
+        response = new MockHttpServletResponse();
+    }
+
+    private void write(MockHttpServletRequest request) throws Exception {
+        ImageFileStreamer.write(request, response, file, content.length, "image/png", ETAG, LAST_MODIFIED);
+    }
+
+    @Nested
+    @DisplayName("parseRange")
+    class ParseRange {
+
+        @Test
+        @DisplayName("parses closed, open-ended and suffix ranges, clamped to the file")
+        void satisfiable() {
+            assertThat(ImageFileStreamer.parseRange("bytes=0-99", 1000)).isEqualTo(new ByteRange(0, 99));
+            assertThat(ImageFileStreamer.parseRange("bytes=900-", 1000)).isEqualTo(new ByteRange(900, 999));
+            assertThat(ImageFileStreamer.parseRange("bytes=-100", 1000)).isEqualTo(new ByteRange(900, 999));
+            assertThat(ImageFileStreamer.parseRange("bytes=-5000", 1000)).isEqualTo(new ByteRange(0, 999));
+            assertThat(ImageFileStreamer.parseRange("bytes=990-5000", 1000)).isEqualTo(new ByteRange(990, 999));
+        }
+
+        @Test
+        @DisplayName("ignores malformed headers, other units and multiple ranges")
+        void ignored() {
+            assertThat(ImageFileStreamer.parseRange("items=0-1", 1000)).isNull();
+            assertThat(ImageFileStreamer.parseRange("bytes=abc", 1000)).isNull();
+            assertThat(ImageFileStreamer.parseRange("bytes=5-1", 1000)).isNull();
+            assertThat(ImageFileStreamer.parseRange("bytes=0-1,5-6", 1000)).isNull();
+        }
+
+        @Test
+        @DisplayName("reports ranges starting past the end as unsatisfiable")
+        void unsatisfiable() {
+            assertThat(ImageFileStreamer.parseRange("bytes=1000-", 1000)).isSameAs(ByteRange.UNSATISFIABLE);
+            assertThat(ImageFileStreamer.parseRange("bytes=-0", 1000)).isSameAs(ByteRange.UNSATISFIABLE);
+        }
+    }
+
+    @Test
+    @DisplayName("writes the whole file with Accept-Ranges when no Range is sent")
+    void fullBody() throws Exception {
+        write(new MockHttpServletRequest("GET", "/i/x"));
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader("Accept-Ranges")).isEqualTo("bytes");
+        assertThat(response.getContentLengthLong()).isEqualTo(content.length);
+        assertThat(response.getContentAsByteArray()).isEqualTo(content);
+    }
+
+    @Test
+    @DisplayName("answers a single range with 206 and only those bytes")
+    void partialContent() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/i/x");
+        request.addHeader("Range", "bytes=1000-1999");
+
+        write(request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader("Content-Range")).isEqualTo("bytes 1000-1999/100000");
+        assertThat(response.getContentLengthLong()).isEqualTo(1000);
+        assertThat(response.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(content, 1000, 2000));
+    }
+
+    @Test
+    @DisplayName("answers an unsatisfiable range with 416 and the file length")
+    void rangeNotSatisfiable() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/i/x");
+        request.addHeader("Range", "bytes=200000-");
+
+        write(request);
+
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader("Content-Range")).isEqualTo("bytes */100000");
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("honors the range only while If-Range still names the current representation")
+    void ifRange() throws Exception {
+        MockHttpServletRequest matching = new MockHttpServletRequest("GET", "/i/x");
+        matching.addHeader("Range", "bytes=0-9");
+        matching.addHeader("If-Range", ETAG);
+        write(matching);
+        assertThat(response.getStatus()).isEqualTo(206);
+
+        response = new MockHttpServletResponse();
+        MockHttpServletRequest stale = new MockHttpServletRequest("GET", "/i/x");
+        stale.addHeader("Range", "bytes=0-9");
+        stale.addHeader("If-Range", "\"old\"");
+        write(stale);
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsByteArray()).hasSize(content.length);
+
+        response = new MockHttpServletResponse();
+        MockHttpServletRequest byDate = new MockHttpServletRequest("GET", "/i/x");
+        byDate.addHeader("Range", "bytes=0-9");
+        byDate.addHeader("If-Range", LAST_MODIFIED);
+        write(byDate);
+        assertThat(response.getStatus()).isEqualTo(206);
+    }
+
+    @Test
+    @DisplayName("hands large bodies to the container's sendfile instead of writing them")
+    void sendfile() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/i/x");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        request.addHeader("Range", "bytes=50000-");
+
+        write(request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.filename")).isEqualTo(file.toAbsolutePath().toString());
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.start")).isEqualTo(50_000L);
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.end")).isEqualTo(100_000L);
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.backend.controller;
+
+import com.example.backend.cache.ImageMetadataCache.ImageMetadata;
+import com.example.backend.cache.ShortCodeFilter;
+import com.example.backend.service.ImageUploadService;
+import com.example.backend.service.ImageVariantService;
+import com.example.backend.service.ImageVariantService.VariantSpec;
+import com.example.backend.service.ShortenerService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PublicPathFilterTest {
+
+    @Mock
+    private ShortenerService shortenerService;
+    @Mock
+    private ImageUploadService imageUploadService;
+    @Mock
+    private ShortCodeFilter shortCodeFilter;
+    @Mock
+    private ImageVariantService imageVariantService;
+    @Mock
+    private FilterChain chain;
+
+    private static final Instant CREATED_AT = Instant.parse("2026-01-15T10:00:00.123Z");
+
+    private PublicPathFilter filter;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        filter = new PublicPathFilter(shortenerService, imageUploadService, shortCodeFilter, imageVariantService,
+                new ObjectMapper());
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    @DisplayName("redirects known short codes without calling the rest of the chain")
+    void redirect_found() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/s/abc12345");
+        request.addHeader("Referer", "https://t.co/x");
+        when(shortCodeFilter.mightExist(ShortCodeFilter.Kind.SHORTENER, "abc12345")).thenReturn(true);
+        when(shortenerService.resolveAndIncrementClick("abc12345", "https://t.co/x", null)).thenReturn("https://example.com/page");
+
+        filter.doFilter(request, response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(302);
+        assertThat(response.getHeader("Location")).isEqualTo("https://example.com/page");
+        assertThat(response.getHeader("Cache-Control")).contains("no-store");
+        verifyNoInteractions(chain);
+    }
+
+    @Test
+    @DisplayName("answers codes ruled out by the filter with 404 and no lookup")
+    void redirect_unknown404() throws Exception {
+        when(shortCodeFilter.mightExist(ShortCodeFilter.Kind.SHORTENER, "nope")).thenReturn(false);
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/s/nope"), response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(404);
+        verify(shortenerService, never()).resolveAndIncrementClick(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("writes service errors as 400 ApiResponse JSON")
+    void redirect_expired400() throws Exception {
+        when(shortCodeFilter.mightExist(ShortCodeFilter.Kind.SHORTENER, "old")).thenReturn(true);
+        when(shortenerService.resolveAndIncrementClick("old", null, null))
+                .thenThrow(new IllegalArgumentException("Short link has expired"));
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/s/old"), response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(400);
+        assertThat(response.getContentType()).isEqualTo("application/json");
+        assertThat(response.getContentAsString())
+                .isEqualTo("{\"success\":false,\"message\":\"Short link has expired\",\"data\":null}");
+    }
+
+    @Test
+    @DisplayName("streams the image file with its content type")
+    void image_served(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("img");
+        Files.write(file, new byte[]{1, 2, 3});
+        when(shortCodeFilter.mightExist(ShortCodeFilter.Kind.IMAGE, "img1")).thenReturn(true);
+        when(imageUploadService.resolveImage("img1")).thenReturn(image("img1", file));
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/i/img1"), response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentType()).isEqualTo("image/png");
+        assertThat(response.getContentAsByteArray()).containsExactly(1, 2, 3);
+        assertThat(response.getHeader("X-Content-Type-Options")).isEqualTo("nosniff");
+        assertThat(response.getHeader("ETag")).isEqualTo("\"img1-" + Long.toHexString(CREATED_AT.toEpochMilli()) + "\"");
+        assertThat(response.getDateHeader("Last-Modified")).isEqualTo(CREATED_AT.getEpochSecond() * 1000);
+        assertThat(response.getHeader("Cache-Control")).isEqualTo("private, max-age=31536000, immutable");
+    }
+
+    @Test
+    @DisplayName("answers a matching If-None-Match with 304 without opening the file")
+    void image_notModified() throws Exception {
+        when(shortCodeFilter.mightExist(ShortCodeFilter.Kind.IMAGE, "img1")).thenReturn(true);
+        when(imageUploadService.resolveImage("img1")).thenReturn(image("img1", Path.of("/nonexistent/img1")));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/i/img1");
+        request.addHeader("If-None-Match", "\"img1-" + Long.toHexString(CREATED_AT.toEpochMilli()) + "\"");
+
+        filter.doFilter(request, response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+        assertThat(response.getHeader("Cache-Control")).isEqualTo("private, max-age=31536000, immutable");
+    }
+
+    @Test
+    @DisplayName("answers If-Modified-Since at or after the upload time with 304")
+    void image_notModifiedSince() throws Exception {
+        when(shortCodeFilter.mightExist(ShortCodeFilter.Kind.IMAGE, "img1")).thenReturn(true);
+        when(imageUploadService.resolveImage("img1")).thenReturn(image("img1", Path.of("/nonexistent/img1")));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/i/img1");
+        request.addHeader("If-Modified-Since", CREATED_AT.plusSeconds(60).toEpochMilli());
+
+        filter.doFilter(request, response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+    }
+
+    @Test
+    @DisplayName("serves the resized variant when w/h are given and rejects invalid sizes")
+    void image_variant(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("img");
+        Files.write(file, new byte[]{1, 2, 3});
+        Path resized = dir.resolve("variant");
+        Files.write(resized, new byte[]{9});
+        ImageMetadata original = image("img1", file);
+        when(shortCodeFilter.mightExist(ShortCodeFilter.Kind.IMAGE, "img1")).thenReturn(true);
+        when(imageUploadService.resolveImage("img1")).thenReturn(original);
+        VariantSpec spec = new VariantSpec(100, 0, ImageVariantService.Fit.CONTAIN);
+        String etag = ImageVariantService.etag(original, spec);
+        when(imageVariantService.variant(original, spec))
+                .thenReturn(new ImageMetadata(resized, "image/png", 1, etag, CREATED_AT.toEpochMilli()));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/i/img1");
+        request.setParameter("w", "100");
+
+        filter.doFilter(request, response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsByteArray()).containsExactly(9);
+        assertThat(response.getHeader("ETag")).isEqualTo(etag).endsWith("-100x0-contain\"");
+
+        response = new MockHttpServletResponse();
+        MockHttpServletRequest invalid = new MockHttpServletRequest("GET", "/i/img1");
+        invalid.setParameter("w", "big");
+        filter.doFilter(invalid, response, chain);
+        assertThat(response.getStatus()).isEqualTo(400);
+    }
+
+    @Test
+    @DisplayName("answers If-None-Match for a variant with 304 without resizing")
+    void image_variantNotModified() throws Exception {
+        ImageMetadata original = image("img1", Path.of("/nonexistent/img1"));
+        when(shortCodeFilter.mightExist(ShortCodeFilter.Kind.IMAGE, "img1")).thenReturn(true);
+        when(imageUploadService.resolveImage("img1")).thenReturn(original);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/i/img1");
+        request.setParameter("w", "100");
+        request.addHeader("If-None-Match",
+                ImageVariantService.etag(original, new VariantSpec(100, 0, ImageVariantService.Fit.CONTAIN)));
+
+        filter.doFilter(request, response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        verifyNoInteractions(imageVariantService);
+    }
+
+    /** Metadata as resolveImage builds it; for a missing path, the 304 tests prove the file is never opened. */
+    private static ImageMetadata image(String code, Path path) {
+        return ImageMetadata.forUpload(path, "image/png", code, CREATED_AT);
+    }
+
+    @Test
+    @DisplayName("passes other methods, nested paths and cross-origin requests to the regular chain")
+    void passThrough() throws Exception {
+        MockHttpServletRequest head = new MockHttpServletRequest("HEAD", "/s/abc12345");
+        MockHttpServletRequest nested = new MockHttpServletRequest("GET", "/s/abc/def");
+        MockHttpServletRequest cors = new MockHttpServletRequest("GET", "/i/img1");
+        cors.addHeader("Origin", "http://localhost:4200");
+
+        filter.doFilter(head, response, chain);
+        filter.doFilter(nested, response, chain);
+        filter.doFilter(cors, response, chain);
+
+        verify(chain).doFilter(head, response);
+        verify(chain).doFilter(nested, response);
+        verify(chain).doFilter(cors, response);
+        verifyNoInteractions(shortenerService, imageUploadService, shortCodeFilter);
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.backend.repository;
+
+import com.example.backend.dto.ItemResponse;
+import com.example.backend.entity.Address;
+import com.example.backend.entity.Category;
+import com.example.backend.entity.Contact;
+import com.example.backend.entity.Item;
+import com.example.backend.entity.ItemDetail;
+import com.example.backend.entity.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the SQL statements of each item listing, including mapping every row to {@link ItemResponse}: one
+ * statement however many items are listed, each with detail, address and contact.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ActiveProfiles("h2")
+class ItemListingQueryCountTest {
+
+    private static final int ITEMS = 6;
+    private static final Instant AFTER_ALL = Instant.parse("9000-01-01T00:00:00Z");
+
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private ItemRepository itemRepository;
+
+    private Statistics statistics;
+    private User user;
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setFirstName("Ann");
+        user.setLastName("Lee");
+        user.setEmail("ann@example.com");
+        user.setPassword("x");
+        entityManager.persist(user);
+        category = new Category();
+        category.setId(UUID.randomUUID().toString());
+        category.setDescription("Flowers");
+        category.setUser(user);
+        entityManager.persist(category);
+        for (int i = 0; i < ITEMS; i++) {
+            persistItem(i);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private void persistItem(int i) {
+        Address address = new Address();
+        address.setAddressName("Hall " + i);
+        address.setLongitude(1.0 + i);
+        address.setLatitude(2.0 + i);
+        entityManager.persist(address);
+        Contact contact = new Contact();
+        contact.setFirstName("Jo " + i);
+        contact.setLastName("Doe");
+        entityManager.persist(contact);
+
+        Item item = new Item();
+        item.setId(UUID.randomUUID().toString());
+        item.setDescription("Item " + i);
+        item.setUser(user);
+        item.setCategory(category);
+        item.setAddress(address);
+        item.setContact(contact);
+        item.setCreatedAt(Instant.parse("2025-01-01T00:00:00Z").plusSeconds(i));
+        entityManager.persist(item);
+        ItemDetail detail = new ItemDetail();
+        detail.setItem(item);
+        detail.setQuantity(i + 1);
+        detail.setPrice(BigDecimal.TEN);
+        entityManager.persist(detail);
+    }
+
+    /** Runs the listing and maps it like ItemService; returns the number of statements both took. */
+    private long statements(Supplier<List<Item>> listing) {
+        statistics.clear();
+        List<ItemResponse> responses = listing.get().stream()
+                .map(i -> ItemResponse.fromEntity(i, "http://localhost"))
+                .toList();
+        assertThat(responses).hasSize(ITEMS);
+        assertThat(responses).allSatisfy(r -> {
+            assertThat(r.getDetail().getQuantity()).isPositive();
+            assertThat(r.getAddress().getAddressName()).startsWith("Hall");
+            assertThat(r.getContact().getLastName()).isEqualTo("Doe");
+            assertThat(r.getUserId()).isEqualTo(user.getId());
+            assertThat(r.getCategoryId()).isEqualTo(category.getId());
+        });
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    @DisplayName("public listing, both sort orders")
+    void publicListing() {
+        assertThat(statements(() -> itemRepository.findActiveBefore(AFTER_ALL, "", Limit.of(50)))).isEqualTo(1);
+        assertThat(statements(() -> itemRepository.findActiveAfter(Instant.EPOCH, "", Limit.of(50)))).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("listing by category")
+    void categoryListing() {
+        assertThat(statements(() -> itemRepository.findActiveInCategoryBefore(category.getId(), AFTER_ALL, "",
+                Limit.of(50)))).isEqualTo(1);
+        assertThat(statements(() -> itemRepository.findActiveInCategoryAfter(category.getId(), Instant.EPOCH, "",
+                Limit.of(50)))).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("per-user and admin listings")
+    void userAndAdminListings() {
+        assertThat(statements(() -> itemRepository.findByUser_IdAndActiveTrueOrderByCreatedAtDesc(user.getId())))
+                .isEqualTo(1);
+        assertThat(statements(() -> itemRepository.findAllByOrderByCreatedAtDesc())).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("search results page")
+    void searchPage() {
+        List<String> ids = itemRepository.findAll().stream().map(Item::getId).toList();
+        entityManager.clear();
+        assertThat(statements(() -> itemRepository.findByIdIn(ids))).isEqualTo(1);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.backend.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Leases against the database (H2 in MySQL mode, as in the h2 profile), each in its own transaction like in
+ * production, so concurrent first leases and concurrent increments are both exercised.
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@Import(ShortCodeSequenceRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ShortCodeSequenceRepositoryTest {
+
+    @Autowired
+    private ShortCodeSequenceRepository sequenceRepository;
+
+    @Test
+    @DisplayName("creates the sequence on first lease and hands out consecutive blocks")
+    void leasesConsecutiveBlocks() {
+        assertThat(sequenceRepository.leaseBlock("sequential", 100)).isZero();
+        assertThat(sequenceRepository.leaseBlock("sequential", 100)).isEqualTo(100);
+        assertThat(sequenceRepository.leaseBlock("sequential", 50)).isEqualTo(200);
+        assertThat(sequenceRepository.leaseBlock("other", 10)).isZero();
+    }
+
+    @Test
+    @DisplayName("concurrent leases, including the first one, never return overlapping blocks")
+    void concurrentLeasesAreDisjoint() throws Exception {
+        int threads = 8;
+        int leasesPerThread = 25;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        Set<Long> starts = ConcurrentHashMap.newKeySet();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < leasesPerThread; i++) {
+                        starts.add(sequenceRepository.leaseBlock("contended", 10));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(starts).hasSize(threads * leasesPerThread);
+        assertThat(starts).allMatch(s -> s % 10 == 0 && s < threads * leasesPerThread * 10L);
+    }
+}
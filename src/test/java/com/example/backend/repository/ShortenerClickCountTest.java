@@ -0,0 +1,55 @@
+package com.example.backend.repository;
+
+import com.example.backend.entity.Shortener;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Saving a shortener loaded before a click flush must not write its stale click count back over the flushed
+ * {@code click_count = click_count + ?} increment.
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@ActiveProfiles("h2")
+class ShortenerClickCountTest {
+
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private ShortenerRepository shortenerRepository;
+
+    private int clickCount(Long id) {
+        return ((Number) entityManager.createNativeQuery("SELECT click_count FROM shorteners WHERE id = ?")
+                .setParameter(1, id).getSingleResult()).intValue();
+    }
+
+    @Test
+    @DisplayName("updating a loaded shortener keeps clicks flushed after it was loaded")
+    void updateKeepsFlushedClicks() {
+        Shortener shortener = new Shortener();
+        shortener.setShortCode("abc123");
+        shortener.setFullUrl("https://example.com/old");
+        entityManager.persist(shortener);
+        entityManager.flush();
+        entityManager.clear();
+
+        Shortener loaded = shortenerRepository.findById(shortener.getId()).orElseThrow();
+        entityManager.createNativeQuery("UPDATE shorteners SET click_count = click_count + 5 WHERE id = ?")
+                .setParameter(1, loaded.getId()).executeUpdate();
+        loaded.setFullUrl("https://example.com/new");
+        loaded.setActive(false);
+        shortenerRepository.save(loaded);
+        entityManager.flush();
+        entityManager.clear();
+
+        Shortener reread = shortenerRepository.findById(shortener.getId()).orElseThrow();
+        assertThat(clickCount(reread.getId())).isEqualTo(5);
+        assertThat(reread.getFullUrl()).isEqualTo("https://example.com/new");
+        assertThat(reread.isActive()).isFalse();
+    }
+}
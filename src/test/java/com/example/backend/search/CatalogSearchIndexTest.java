@@ -0,0 +1,217 @@
+package com.example.backend.search;
+
+import com.example.backend.dto.CursorPage;
+import com.example.backend.entity.Category;
+import com.example.backend.entity.Item;
+import com.example.backend.search.CatalogSearchIndex.CategoryRow;
+import com.example.backend.search.CatalogSearchIndex.ItemRow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogSearchIndexTest {
+
+    private static final Instant CREATED = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private CatalogSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(searchIndex, "defaultLimit", 2);
+        ReflectionTestUtils.setField(searchIndex, "maxLimit", 3);
+        ReflectionTestUtils.setField(searchIndex, "batchSize", 2);
+        ReflectionTestUtils.setField(searchIndex, "rebuildDeadRatio", 0.5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * Makes the build read {@code categories} and then {@code items} (listed oldest first), a batch at a time;
+     * {@code duringScan} runs after each batch is read and before it is indexed, with the id the batch follows.
+     */
+    private void givenRows(List<CategoryRow> categories, List<ItemRow> items, Consumer<String> duringScan) {
+        when(jdbcTemplate.query(eq("SELECT id, description FROM categories"), any(RowMapper.class)))
+                .thenReturn(categories);
+        when(jdbcTemplate.query(startsWith("SELECT id, description, category_id, created_at FROM items"),
+                any(RowMapper.class), any(Timestamp.class), any(Timestamp.class), anyString(), any()))
+                .thenAnswer(inv -> {
+                    Instant afterCreatedAt = inv.<Timestamp>getArgument(2).toInstant();
+                    String afterId = inv.getArgument(4);
+                    int limit = inv.getArgument(5);
+                    List<ItemRow> batch = items.stream()
+                            .filter(r -> r.createdAt().isAfter(afterCreatedAt)
+                                    || r.createdAt().equals(afterCreatedAt) && r.id().compareTo(afterId) > 0)
+                            .limit(limit)
+                            .toList();
+                    duringScan.accept(afterId);
+                    return batch;
+                });
+    }
+
+    private static ItemRow row(String id, String description) {
+        return new ItemRow(id, description, "c1", CREATED);
+    }
+
+    private static Item item(String id, String description, boolean active) {
+        Category category = new Category();
+        category.setId("c1");
+        Item item = new Item();
+        item.setId(id);
+        item.setDescription(description);
+        item.setCategory(category);
+        item.setActive(active);
+        item.setCreatedAt(CREATED);
+        return item;
+    }
+
+    private List<String> search(String query) {
+        return searchIndex.search(query, null, 3).getItems();
+    }
+
+    @Test
+    @DisplayName("is not ready, and refuses to search, until the first build")
+    void notBuilt() {
+        assertThat(searchIndex.isReady()).isFalse();
+        assertThatThrownBy(() -> searchIndex.search("lamp", null, null)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("builds from categories and items read in batches")
+    void build() {
+        givenRows(List.of(new CategoryRow("c1", "Lighting")),
+                List.of(row("a", "Desk lamp"), row("b", "Floor lamp"), row("c", "Bulb")), afterId -> {});
+
+        searchIndex.rebuild();
+
+        assertThat(searchIndex.isReady()).isTrue();
+        assertThat(search("lamp")).containsExactlyInAnyOrder("a", "b");
+        assertThat(search("lighting")).containsExactlyInAnyOrder("a", "b", "c");
+    }
+
+    @Test
+    @DisplayName("pages results with cursors; validates query, limit and cursor")
+    void pages() {
+        givenRows(List.of(), List.of(row("a", "Lamp"), row("b", "Lamp"), row("c", "Lamp")), afterId -> {});
+        searchIndex.rebuild();
+
+        CursorPage<String> first = searchIndex.search("lamp", null, null);
+        CursorPage<String> second = searchIndex.search("lamp", first.getNextCursor(), 5);
+
+        assertThat(first.getItems()).containsExactly("c", "b");
+        assertThat(first.isHasMore()).isTrue();
+        assertThat(second.getItems()).containsExactly("a");
+        assertThat(second.isHasMore()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+        assertThatThrownBy(() -> searchIndex.search(" ", null, null))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("q is required");
+        assertThatThrownBy(() -> searchIndex.search("lamp", null, 0))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("limit must be at least 1");
+        assertThatThrownBy(() -> searchIndex.search("lamp", "not a cursor", null))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("Invalid cursor");
+    }
+
+    @Test
+    @DisplayName("applies item and category changes after commit; an inactive item is removed")
+    void changesAfterCommit() {
+        givenRows(List.of(new CategoryRow("c1", "Lighting")), List.of(row("a", "Desk lamp")), afterId -> {});
+        searchIndex.rebuild();
+        TransactionSynchronizationManager.initSynchronization();
+
+        searchIndex.itemChanged(item("b", "Floor lamp", true));
+        searchIndex.itemChanged(item("a", "Desk lamp", false));
+        Category category = new Category();
+        category.setId("c1");
+        category.setDescription("Lights");
+        searchIndex.categoryChanged(category);
+        assertThat(search("lamp")).containsExactly("a");
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(search("lamp")).containsExactly("b");
+        assertThat(search("lights")).containsExactly("b");
+        assertThat(search("lighting")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("a build keeps changes committed while it runs over the rows it read before them")
+    void changesDuringBuild() {
+        givenRows(List.of(), List.of(row("a", "Desk lamp"), row("b", "Floor lamp"), row("c", "Table lamp")),
+                afterId -> {
+                    if (afterId.isEmpty()) {
+                        searchIndex.itemChanged(item("b", "Floor light", true));
+                        searchIndex.itemRemoved("c");
+                        searchIndex.itemChanged(item("d", "Wall lamp", true));
+                    }
+                });
+
+        searchIndex.rebuild();
+
+        assertThat(search("lamp")).containsExactlyInAnyOrder("a", "d");
+        assertThat(search("light")).containsExactly("b");
+    }
+
+    @Test
+    @DisplayName("builds again once removed items exceed the configured share")
+    void rebuildIfFragmented() {
+        List<ItemRow> rows = new ArrayList<>(List.of(row("a", "Lamp"), row("b", "Lamp"), row("c", "Lamp")));
+        givenRows(List.of(), rows, afterId -> {});
+        searchIndex.rebuild();
+        searchIndex.itemRemoved("a");
+        searchIndex.rebuildIfFragmented();
+        assertThat(search("lamp")).containsExactlyInAnyOrder("b", "c");
+
+        searchIndex.itemRemoved("b");
+        rows.removeIf(r -> !r.id().equals("c"));
+        searchIndex.rebuildIfFragmented();
+
+        InvertedIndex rebuilt = (InvertedIndex) ReflectionTestUtils.getField(searchIndex, "current");
+        assertThat(rebuilt.deadItems()).isZero();
+        assertThat(search("lamp")).containsExactly("c");
+    }
+
+    @Test
+    @DisplayName("a failed build keeps the previous index")
+    void buildFailure() {
+        givenRows(List.of(), List.of(row("a", "Lamp")), afterId -> {});
+        searchIndex.rebuild();
+        when(jdbcTemplate.query(eq("SELECT id, description FROM categories"), any(RowMapper.class)))
+                .thenThrow(new IllegalStateException("db down"));
+
+        searchIndex.rebuild();
+
+        assertThat(search("lamp")).containsExactly("a");
+    }
+}
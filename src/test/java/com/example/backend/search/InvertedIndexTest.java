@@ -0,0 +1,207 @@
+package com.example.backend.search;
+
+import com.example.backend.search.InvertedIndex.Hit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvertedIndexTest {
+
+    private final InvertedIndex index = new InvertedIndex();
+
+    private List<String> ids(String query) {
+        return index.search(query, null, 100).stream().map(Hit::itemId).toList();
+    }
+
+    @Test
+    @DisplayName("splits text into lower-case words without accents or punctuation")
+    void tokens() {
+        assertThat(InvertedIndex.tokens("Crème Brûlée, 2 pcs!")).containsExactly("creme", "brulee", "2", "pcs");
+        assertThat(InvertedIndex.tokens("  -- ")).isEmpty();
+        assertThat(InvertedIndex.tokens(null)).isEmpty();
+    }
+
+    @Nested
+    @DisplayName("matching")
+    class Matching {
+
+        @Test
+        @DisplayName("finds items containing every term, in their own or their category's description")
+        void allTerms() {
+            index.putCategory("c1", "Flowers");
+            index.putItem("i1", "Red roses", "c1", 1);
+            index.putItem("i2", "Red ribbon", "c2", 2);
+
+            assertThat(ids("red flowers")).containsExactly("i1");
+            assertThat(ids("RED")).containsExactlyInAnyOrder("i1", "i2");
+            assertThat(ids("red tulips")).isEmpty();
+            assertThat(ids("!!")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("lists an item matching in both description and category once")
+        void descriptionAndCategory() {
+            index.putCategory("cakes", "Cakes");
+            index.putCategory("other", "Other");
+            index.putItem("a", "Chocolate cakes", "cakes", 1);
+            index.putItem("b", "Chocolate", "cakes", 2);
+            index.putItem("c", "Cakes stand", "other", 3);
+
+            assertThat(ids("cakes")).containsExactlyInAnyOrder("a", "b", "c").first().isEqualTo("a");
+        }
+
+        @Test
+        @DisplayName("a replaced item matches its new description only; a removed item not at all")
+        void replaceAndRemove() {
+            index.putItem("i1", "Wedding cake", "c1", 1);
+            index.putItem("i2", "Birthday cake", "c1", 2);
+
+            index.putItem("i1", "Wedding dress", "c1", 1);
+            index.removeItem("i2");
+            index.removeItem("unknown");
+
+            assertThat(ids("cake")).isEmpty();
+            assertThat(ids("wedding")).containsExactly("i1");
+            assertThat(index.liveItems()).isEqualTo(1);
+            assertThat(index.deadItems()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("items match their category's new description after a rename, and not after its removal")
+        void categoryChanges() {
+            index.putCategory("c1", "Flowers");
+            index.putItem("i1", "Roses", "c1", 1);
+
+            index.putCategory("c1", "Bouquets");
+            assertThat(ids("flowers")).isEmpty();
+            assertThat(ids("bouquets roses")).containsExactly("i1");
+
+            index.removeCategory("c1");
+            assertThat(ids("bouquets")).isEmpty();
+            assertThat(ids("roses")).containsExactly("i1");
+        }
+    }
+
+    @Nested
+    @DisplayName("ranking")
+    class Ranking {
+
+        @Test
+        @DisplayName("ranks description matches over category matches, shorter descriptions first, then newest")
+        void order() {
+            index.putCategory("c1", "Lamp shop");
+            index.putItem("category-only", "Bulb", "c1", 5);
+            index.putItem("long", "Lamp with a very long description of the lamp shade", "c2", 4);
+            index.putItem("short-old", "Desk lamp", "c2", 1);
+            index.putItem("short-new", "Floor lamp", "c2", 2);
+
+            assertThat(ids("lamp")).containsExactly("short-new", "short-old", "long", "category-only");
+        }
+
+        @Test
+        @DisplayName("a rare term weighs more than a common one")
+        void rareTerms() {
+            index.putCategory("furniture", "Furniture");
+            index.putCategory("oak", "Oak");
+            index.putCategory("walnut", "Walnut");
+            for (int i = 0; i < 20; i++) {
+                index.putItem("plain" + i, "Oak table", "furniture", i);
+            }
+            index.putItem("walnut-box", "Walnut box", "oak", 0);
+            index.putItem("oak-box", "Oak box", "walnut", 0);
+
+            assertThat(ids("walnut oak")).containsExactly("walnut-box", "oak-box");
+        }
+
+        @Test
+        @DisplayName("pages after a hit continue the ranking without gaps or repeats")
+        void pages() {
+            for (int i = 0; i < 7; i++) {
+                index.putItem("i" + i, i % 2 == 0 ? "Blue chair" : "Blue chair with arms", "c1", i);
+            }
+            List<String> all = ids("blue chair");
+
+            List<String> paged = new ArrayList<>();
+            Hit after = null;
+            List<Hit> page;
+            do {
+                page = index.search("blue chair", after, 3);
+                page.forEach(h -> paged.add(h.itemId()));
+                after = page.isEmpty() ? null : page.get(page.size() - 1);
+            } while (page.size() == 3);
+
+            assertThat(all).hasSize(7);
+            assertThat(paged).isEqualTo(all);
+        }
+    }
+
+    /** All hits of {@code query}, fetched {@code limit} at a time. */
+    private List<Hit> pages(String query, int limit) {
+        List<Hit> hits = new ArrayList<>();
+        List<Hit> page;
+        do {
+            page = index.search(query, hits.isEmpty() ? null : hits.get(hits.size() - 1), limit);
+            hits.addAll(page);
+        } while (page.size() == limit);
+        return hits;
+    }
+
+    @Test
+    @DisplayName("agrees with a scan over all items, in full and page by page, through replacements, removals and renames")
+    void matchesScan() {
+        Random random = new Random(42);
+        String[] words = {"red", "blue", "green", "lamp", "chair", "table", "oak", "glass", "round", "tall"};
+        Map<String, String> descriptions = new HashMap<>();
+        Map<String, String> categoryOf = new HashMap<>();
+        Map<String, String> categories = new HashMap<>();
+        for (int c = 0; c < 8; c++) {
+            categories.put("c" + c, words[random.nextInt(words.length)]);
+            index.putCategory("c" + c, categories.get("c" + c));
+        }
+        for (int step = 0; step < 3000; step++) {
+            String id = "i" + random.nextInt(1000);
+            int action = random.nextInt(20);
+            if (action == 0) {
+                descriptions.remove(id);
+                index.removeItem(id);
+            } else if (action == 1) {
+                String category = "c" + random.nextInt(8);
+                categories.put(category, words[random.nextInt(words.length)]);
+                index.putCategory(category, categories.get(category));
+            } else {
+                String description = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+                String category = "c" + random.nextInt(8);
+                descriptions.put(id, description);
+                categoryOf.put(id, category);
+                index.putItem(id, description, category, random.nextInt(500));
+            }
+        }
+
+        for (String first : words) {
+            for (String second : words) {
+                Set<String> expected = new HashSet<>();
+                descriptions.forEach((id, description) -> {
+                    String text = description + " " + categories.get(categoryOf.get(id));
+                    if (List.of(text.split(" ")).containsAll(List.of(first, second))) {
+                        expected.add(id);
+                    }
+                });
+                List<Hit> hits = index.search(first + " " + second, null, 1000);
+                assertThat(hits).extracting(Hit::itemId).doesNotHaveDuplicates()
+                        .containsExactlyInAnyOrderElementsOf(expected);
+                assertThat(hits).isSortedAccordingTo(InvertedIndex.RANKING);
+                assertThat(pages(first + " " + second, 3)).isEqualTo(hits);
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.CursorPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CatalogPagerTest {
+
+    private record Row(Instant createdAt, String id) {
+    }
+
+    private static final Comparator<Row> OLDEST = Comparator.comparing(Row::createdAt).thenComparing(Row::id);
+
+    private final CatalogPager pager = new CatalogPager();
+    private final List<Row> rows = new ArrayList<>();
+    private int queries;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(pager, "defaultLimit", 3);
+        ReflectionTestUtils.setField(pager, "maxLimit", 5);
+        Instant base = Instant.parse("2025-01-01T00:00:00Z");
+        for (int i = 0; i < 10; i++) {
+            // Pairs of rows share a created_at, so the id has to break ties.
+            rows.add(new Row(base.plusSeconds(i / 2).plusNanos(123_456_000), "id-" + i));
+        }
+    }
+
+    /** The repository range queries, over {@link #rows}. */
+    private List<Row> find(CatalogPager.Sort sort, Instant createdAt, String id, Limit limit) {
+        queries++;
+        Row after = new Row(createdAt, id);
+        Comparator<Row> order = sort == CatalogPager.Sort.NEWEST ? OLDEST.reversed() : OLDEST;
+        return rows.stream()
+                .filter(r -> order.compare(r, after) > 0)
+                .sorted(order)
+                .limit(limit.max())
+                .toList();
+    }
+
+    private CursorPage<String> page(String cursor, Integer limit, String sort) {
+        return pager.page(cursor, limit, sort, this::find, Row::createdAt, Row::id, Row::id);
+    }
+
+    private List<String> walk(Integer limit, String sort) {
+        List<String> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<String> page = page(cursor, limit, sort);
+            ids.addAll(page.getItems());
+            assertThat(page.isHasMore()).isEqualTo(page.getNextCursor() != null);
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    private static List<String> ids(List<Row> rows, Comparator<Row> order) {
+        return rows.stream().sorted(order).map(Row::id).toList();
+    }
+
+    @Test
+    @DisplayName("walks the listing newest first, one query per page, without gaps or repeats on equal created_at")
+    void newestFirst() {
+        assertThat(walk(4, null)).isEqualTo(ids(rows, OLDEST.reversed()));
+        assertThat(queries).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("walks the listing oldest first")
+    void oldestFirst() {
+        assertThat(walk(3, "oldest")).isEqualTo(ids(rows, OLDEST));
+    }
+
+    @Test
+    @DisplayName("uses the default limit and caps larger limits at the maximum")
+    void limits() {
+        assertThat(page(null, null, "newest").getItems()).hasSize(3);
+        assertThat(page(null, 1000, "newest").getItems()).hasSize(5);
+        assertThat(page(null, 10, "newest").isHasMore()).isTrue();
+    }
+
+    @Test
+    @DisplayName("returns an empty last page for an empty listing")
+    void empty() {
+        rows.clear();
+
+        CursorPage<String> page = page(null, null, null);
+
+        assertThat(page.getItems()).isEmpty();
+        assertThat(page.isHasMore()).isFalse();
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("rejects malformed cursors, a cursor of the other sort, unknown sorts and limits below 1")
+    void invalidInput() {
+        String newestCursor = page(null, 2, "newest").getNextCursor();
+
+        assertThatThrownBy(() -> page("not a cursor!", null, null))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("Invalid cursor");
+        assertThatThrownBy(() -> page(CatalogPager.encode(CatalogPager.Sort.NEWEST, Instant.EPOCH, ""), null, null))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("Invalid cursor");
+        assertThatThrownBy(() -> page(newestCursor, null, "oldest"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("Cursor does not match sort oldest");
+        assertThatThrownBy(() -> page(null, null, "price"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("sort must be newest or oldest");
+        assertThatThrownBy(() -> page(null, 0, null))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("limit must be at least 1");
+    }
+
+    @Test
+    @DisplayName("maps rows to the response type")
+    void maps() {
+        Function<Row, String> upper = r -> r.id().toUpperCase();
+
+        CursorPage<String> page = pager.page(null, 2, "oldest", this::find, Row::createdAt, Row::id, upper);
+
+        assertThat(page.getItems()).containsExactly("ID-0", "ID-1");
+    }
+}
@@ -1,30 +1,46 @@
 package com.example.backend.service;
 
+import com.example.backend.cache.CatalogCache;
+import com.example.backend.cache.ImageMetadataCache;
+import com.example.backend.cache.ImageMetadataCache.ImageMetadata;
 import com.example.backend.dto.CategoryResponse;
 import com.example.backend.dto.CreateCategoryRequest;
+import com.example.backend.dto.SpooledImage;
 import com.example.backend.dto.UpdateCategoryRequest;
 import com.example.backend.entity.Category;
 import com.example.backend.entity.User;
 import com.example.backend.repository.CategoryRepository;
 import com.example.backend.repository.UserRepository;
+import com.example.backend.search.CatalogSearchIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -35,17 +51,30 @@ class CategoryServiceTest {
     private CategoryRepository categoryRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private ImageMetadataCache imageMetadataCache;
+    @Mock
+    private ImageBlobStore imageBlobStore;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private CatalogCache catalogCache;
+    @Mock
+    private CatalogSearchIndex catalogSearchIndex;
 
     @InjectMocks
     private CategoryService categoryService;
 
     private static final Long USER_ID = 1L;
+    private static final String HASH = "ab" + "1".repeat(62);
     private User user;
     private Category category;
     private String categoryId;
 
     @BeforeEach
     void setUp() {
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null));
         categoryId = UUID.randomUUID().toString();
         user = new User();
         user.setId(USER_ID);
@@ -59,6 +88,12 @@ class CategoryServiceTest {
         category.setCreatedAt(Instant.now());
 
         ReflectionTestUtils.setField(categoryService, "baseUrl", "http://localhost:8081");
+
+        // Cache always misses: delegate to the loader.
+        lenient().when(imageMetadataCache.get(eq(ImageMetadataCache.Kind.CATEGORY), anyString(), any())).thenAnswer(inv -> {
+            Function<String, ImageMetadata> loader = inv.getArgument(2);
+            return loader.apply(inv.getArgument(1));
+        });
     }
 
     @Nested
@@ -140,6 +175,27 @@ class CategoryServiceTest {
             assertThat(result.getDescription()).isEqualTo("New Category");
             assertThat(result.getUserId()).isEqualTo(USER_ID);
             verify(categoryRepository).save(any(Category.class));
+            verify(catalogCache).categoriesChanged();
+            verify(catalogSearchIndex).categoryChanged(any(Category.class));
+        }
+
+        @Test
+        @DisplayName("streams a multipart image part into the blob store")
+        void multipartImage() throws Exception {
+            CreateCategoryRequest request = new CreateCategoryRequest();
+            request.setDescription("With image");
+            MockMultipartFile image = new MockMultipartFile("image", "c.png", "image/png", new byte[]{1, 2, 3});
+            when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
+            SpooledImage spooled = new SpooledImage(Path.of("upload.1.tmp"), HASH, 3);
+            when(imageBlobStore.spool(any(InputStream.class))).thenReturn(spooled);
+            when(imageBlobStore.store(spooled, "image/png")).thenReturn(HASH);
+            when(categoryRepository.save(any(Category.class))).thenAnswer(inv -> inv.getArgument(0));
+
+            CategoryResponse result = categoryService.create(request, image, USER_ID);
+
+            assertThat(result.getImageUrl()).isEqualTo("http://localhost:8081/api/categories/images/" + USER_ID + "/" + result.getId());
+            assertThat(result.getImageContentUrl()).isEqualTo("http://localhost:8081/b/" + HASH);
+            verify(imageBlobStore).discard(spooled);
         }
     }
 
@@ -173,6 +229,8 @@ class CategoryServiceTest {
 
             assertThat(result).isNotNull();
             assertThat(category.getDescription()).isEqualTo("Updated Description");
+            verify(catalogCache).categoriesChanged();
+            verify(catalogSearchIndex).categoryChanged(category);
         }
     }
 
@@ -201,7 +259,93 @@ class CategoryServiceTest {
             categoryService.delete(categoryId, USER_ID);
 
             verify(categoryRepository).delete(category);
+            verify(imageMetadataCache).evict(ImageMetadataCache.Kind.CATEGORY, categoryId);
+            verify(catalogCache).categoriesChanged();
+            verify(catalogSearchIndex).categoryRemoved(categoryId);
+        }
+
+        @Test
+        @DisplayName("releases the image blob instead of deleting a file")
+        void releasesBlob() throws Exception {
+            category.setImagePath(USER_ID + "/" + categoryId);
+            category.setImageHash(HASH);
+            when(categoryRepository.findByIdAndUser_Id(categoryId, USER_ID))
+                    .thenReturn(Optional.of(category));
+
+            categoryService.delete(categoryId, USER_ID);
+
+            verify(imageBlobStore).release(HASH);
+            verify(categoryRepository).delete(category);
+        }
+    }
+
+    @Nested
+    @DisplayName("resolveImage")
+    class ResolveImage {
+
+        @Test
+        @DisplayName("throws when the category has no image")
+        void noImage_throws() {
+            when(categoryRepository.findImageInfoById(categoryId)).thenReturn(Optional.of(imageInfo(null, null, null)));
+
+            assertThatThrownBy(() -> categoryService.resolveImage(categoryId))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Category not found");
+        }
+
+        @Test
+        @DisplayName("returns path, size and validators of the image file")
+        void success(@TempDir Path dir) throws Exception {
+            ReflectionTestUtils.setField(categoryService, "imageDir", dir.toString());
+            Path file = dir.resolve("categories").resolve(USER_ID.toString()).resolve(categoryId);
+            Files.createDirectories(file.getParent());
+            Files.write(file, new byte[]{1, 2, 3, 4});
+            when(categoryRepository.findImageInfoById(categoryId))
+                    .thenReturn(Optional.of(imageInfo(USER_ID + "/" + categoryId, "image/jpeg", null)));
+
+            ImageMetadata image = categoryService.resolveImage(categoryId);
+
+            assertThat(image.path()).isEqualTo(file);
+            assertThat(image.contentType()).isEqualTo("image/jpeg");
+            assertThat(image.size()).isEqualTo(4);
+            assertThat(image.etag()).startsWith("\"").endsWith("-4\"");
+            assertThat(image.lastModifiedMillis()).isEqualTo(Files.getLastModifiedTime(file).toMillis());
         }
+
+        @Test
+        @DisplayName("serves the blob for images stored by hash")
+        void blob(@TempDir Path dir) throws Exception {
+            Path file = dir.resolve(HASH);
+            Files.write(file, new byte[]{1, 2, 3});
+            when(imageBlobStore.path(HASH)).thenReturn(file);
+            when(categoryRepository.findImageInfoById(categoryId))
+                    .thenReturn(Optional.of(imageInfo(USER_ID + "/" + categoryId, "image/png", HASH)));
+
+            ImageMetadata image = categoryService.resolveImage(categoryId);
+
+            assertThat(image.path()).isEqualTo(file);
+            assertThat(image.size()).isEqualTo(3);
+            assertThat(image.etag()).isEqualTo("\"" + HASH.substring(0, 32) + "\"");
+        }
+    }
+
+    private static CategoryRepository.ImageInfo imageInfo(String imagePath, String contentType, String imageHash) {
+        return new CategoryRepository.ImageInfo() {
+            @Override
+            public String getImagePath() {
+                return imagePath;
+            }
+
+            @Override
+            public String getImageContentType() {
+                return contentType;
+            }
+
+            @Override
+            public String getImageHash() {
+                return imageHash;
+            }
+        };
     }
 
     @Nested
@@ -0,0 +1,206 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.ShortenerStatsResponse;
+import com.example.backend.entity.ShortenerClickRollup;
+import com.example.backend.entity.StatsGranularity;
+import com.example.backend.repository.ShortenerClickRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ClickAnalyticsServiceTest {
+
+    @Mock
+    private ShortenerClickRollupRepository rollupRepository;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private ClickAnalyticsService clickAnalyticsService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(clickAnalyticsService, "queueCapacity", 2);
+        ReflectionTestUtils.setField(clickAnalyticsService, "maxUnsavedRows", 100);
+        clickAnalyticsService.init();
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null));
+    }
+
+    @Nested
+    @DisplayName("record / aggregate")
+    class RecordAndAggregate {
+
+        @Test
+        @DisplayName("aggregates queued clicks into one batch of rollup upserts")
+        @SuppressWarnings("unchecked")
+        void aggregate_batchesRollups() {
+            clickAnalyticsService.record(1L, "https://www.Example.com/page", "Mozilla/5.0 (iPhone; CPU iPhone OS 17_0) Mobile");
+            clickAnalyticsService.record(1L, null, "Googlebot/2.1");
+
+            clickAnalyticsService.aggregate();
+
+            ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+            verify(jdbcTemplate).batchUpdate(anyString(), captor.capture());
+            List<Object[]> rows = captor.getValue();
+            assertThat(rows).anySatisfy(r -> {
+                assertThat(r[3]).isEqualTo("REFERRER");
+                assertThat(r[4]).isEqualTo("example.com");
+            });
+            assertThat(rows).anySatisfy(r -> {
+                assertThat(r[3]).isEqualTo("AGENT");
+                assertThat(r[4]).isEqualTo("bot");
+            });
+            long dailyTotal = rows.stream()
+                    .filter(r -> "TOTAL".equals(r[3]) && "DAY".equals(r[1]))
+                    .mapToLong(r -> (Long) r[5])
+                    .sum();
+            assertThat(dailyTotal).isEqualTo(2L);
+        }
+
+        @Test
+        @DisplayName("drops clicks when the queue is full")
+        void record_queueFull_drops() {
+            clickAnalyticsService.record(1L, null, null);
+            clickAnalyticsService.record(1L, null, null);
+            clickAnalyticsService.record(1L, null, null);
+
+            assertThat(clickAnalyticsService.getDroppedCount()).isEqualTo(1L);
+        }
+
+        @Test
+        @DisplayName("a failed batch, rolled back as a whole, is retried once with the next one")
+        @SuppressWarnings("unchecked")
+        void aggregate_failure_retriesRows() {
+            clickAnalyticsService.record(1L, null, null);
+            when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                    .thenThrow(new DataAccessResourceFailureException("db down"))
+                    .thenReturn(new int[0]);
+
+            clickAnalyticsService.aggregate();
+            clickAnalyticsService.aggregate();
+            clickAnalyticsService.aggregate();
+
+            ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+            verify(jdbcTemplate, times(2)).batchUpdate(anyString(), captor.capture());
+            assertThat(captor.getAllValues().get(1)).hasSize(5)
+                    .allSatisfy(r -> assertThat(r[5]).isEqualTo(1L));
+        }
+
+        @Test
+        @DisplayName("rows beyond the retry bound are dropped and counted")
+        void aggregate_failure_boundsRetries() {
+            ReflectionTestUtils.setField(clickAnalyticsService, "maxUnsavedRows", 3);
+            clickAnalyticsService.record(1L, null, null);
+            when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                    .thenThrow(new DataAccessResourceFailureException("db down"));
+
+            clickAnalyticsService.aggregate();
+
+            assertThat(clickAnalyticsService.getDroppedRowCount()).isEqualTo(2L);
+            assertThat((Map<?, ?>) ReflectionTestUtils.getField(clickAnalyticsService, "unsaved")).hasSize(3);
+        }
+
+        @Test
+        @DisplayName("clicks of a deleted link, queued or unsaved, are not written afterwards")
+        void deletedLink_clicksDropped() {
+            clickAnalyticsService.record(1L, null, null);
+            when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                    .thenThrow(new DataAccessResourceFailureException("db down"));
+            clickAnalyticsService.aggregate();
+            clickAnalyticsService.record(1L, null, null);
+
+            clickAnalyticsService.deleteForShortener(1L);
+            clickAnalyticsService.record(1L, null, null);
+            clickAnalyticsService.aggregate();
+
+            verify(rollupRepository).deleteByShortenerId(1L);
+            verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+            verify(transactionTemplate, times(1)).execute(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("getStats")
+    class GetStats {
+
+        @Test
+        @DisplayName("rejects unknown granularity")
+        void invalidGranularity_throws() {
+            assertThatThrownBy(() -> clickAnalyticsService.getStats(1L, null, null, "week"))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageStartingWith("Invalid granularity");
+        }
+
+        @Test
+        @DisplayName("sums bucket rows and groups daily breakdowns")
+        void success() {
+            Instant to = Instant.parse("2026-01-02T00:00:00Z");
+            Instant from = Instant.parse("2026-01-01T00:00:00Z");
+            when(rollupRepository.findByShortenerIdAndGranularityAndDimensionAndBucketStartBetweenOrderByBucketStartAsc(
+                    eq(1L), eq(StatsGranularity.HOUR), eq(ShortenerClickRollup.Dimension.TOTAL), anyLong(), anyLong()))
+                    .thenReturn(List.of(rollup(ShortenerClickRollup.Dimension.TOTAL, "", 3), rollup(ShortenerClickRollup.Dimension.TOTAL, "", 4)));
+            when(rollupRepository.findByShortenerIdAndGranularityAndDimensionInAndBucketStartBetween(
+                    eq(1L), eq(StatsGranularity.DAY), any(), anyLong(), anyLong()))
+                    .thenReturn(List.of(rollup(ShortenerClickRollup.Dimension.REFERRER, "t.co", 5),
+                            rollup(ShortenerClickRollup.Dimension.AGENT, "mobile", 7)));
+
+            ShortenerStatsResponse stats = clickAnalyticsService.getStats(1L, from, to, "hour");
+
+            assertThat(stats.getTotalClicks()).isEqualTo(7L);
+            assertThat(stats.getBuckets()).hasSize(2);
+            assertThat(stats.getReferrers()).containsEntry("t.co", 5L);
+            assertThat(stats.getUserAgents()).containsEntry("mobile", 7L);
+        }
+
+        private ShortenerClickRollup rollup(ShortenerClickRollup.Dimension dimension, String value, long clicks) {
+            ShortenerClickRollup r = new ShortenerClickRollup();
+            r.setShortenerId(1L);
+            r.setDimension(dimension);
+            r.setDimensionValue(value);
+            r.setClicks(clicks);
+            return r;
+        }
+    }
+
+    @Test
+    @DisplayName("classifies referrers and user agents")
+    void classification() {
+        assertThat(ClickAnalyticsService.referrerHost(null)).isEqualTo("(direct)");
+        assertThat(ClickAnalyticsService.referrerHost("not a url")).isEqualTo("(unknown)");
+        assertThat(ClickAnalyticsService.referrerHost("https://news.ycombinator.com/item?id=1")).isEqualTo("news.ycombinator.com");
+        assertThat(ClickAnalyticsService.userAgentClass("Mozilla/5.0 (Windows NT 10.0; Win64; x64)")).isEqualTo("desktop");
+        assertThat(ClickAnalyticsService.userAgentClass("Mozilla/5.0 (iPad; CPU OS 17_0 like Mac OS X)")).isEqualTo("tablet");
+        assertThat(ClickAnalyticsService.userAgentClass(null)).isEqualTo("other");
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.backend.service;
+
+import com.example.backend.cache.ImageMetadataCache;
+import com.example.backend.dto.SpooledImage;
+import com.example.backend.entity.ImageBlob;
+import com.example.backend.repository.ImageBlobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ImageBlobStoreTest {
+
+    private static final byte[] CONTENT = "image bytes".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private ImageBlobRepository imageBlobRepository;
+    @Mock
+    private ImageMetadataCache imageMetadataCache;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private ImageBlobStore store;
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(store, "imageDir", dir.toString());
+        store.init();
+    }
+
+    private static ImageBlob blob(String hash, int refCount) {
+        ImageBlob blob = new ImageBlob();
+        blob.setHash(hash);
+        blob.setContentType("image/png");
+        blob.setRefCount(refCount);
+        return blob;
+    }
+
+    private String store(byte[] content) throws Exception {
+        return store.store(store.spool(new ByteArrayInputStream(content)), "image/png");
+    }
+
+    @Nested
+    @DisplayName("store")
+    class Store {
+
+        @Test
+        @DisplayName("writes identical content once and adds a reference per call")
+        void deduplicates() throws Exception {
+            String first = store(CONTENT);
+            Path file = store.path(first);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(1_000_000));
+
+            String second = store(CONTENT.clone());
+
+            assertThat(second).isEqualTo(first)
+                    .isEqualTo(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(CONTENT)));
+            assertThat(file).isEqualTo(dir.resolve("blobs").resolve(first.substring(0, 2))
+                    .resolve(first.substring(2, 4)).resolve(first));
+            assertThat(Files.readAllBytes(file)).isEqualTo(CONTENT);
+            assertThat(Files.getLastModifiedTime(file).toMillis()).isEqualTo(1_000_000);
+            verify(imageBlobRepository, times(2)).addReference(eq(first), eq((long) CONTENT.length), eq("image/png"), any());
+        }
+
+        @Test
+        @DisplayName("leaves no temp files once stored or discarded")
+        void noTempFiles() throws Exception {
+            String hash = store(CONTENT);
+            SpooledImage unused = store.spool(new ByteArrayInputStream("other".getBytes(StandardCharsets.UTF_8)));
+
+            store.discard(unused);
+
+            try (Stream<Path> files = Files.walk(dir)) {
+                assertThat(files.filter(Files::isRegularFile)).containsExactly(store.path(hash));
+            }
+        }
+
+        @Test
+        @DisplayName("moves the spooled file into place only after the transaction commits")
+        void placesAfterCommit() throws Exception {
+            SpooledImage spooled = store.spool(new ByteArrayInputStream(CONTENT));
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                String hash = store.store(spooled, "image/png");
+
+                assertThat(store.path(hash)).doesNotExist();
+                assertThat(spooled.file()).exists();
+                TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+                assertThat(Files.readAllBytes(store.path(hash))).isEqualTo(CONTENT);
+                assertThat(spooled.file()).doesNotExist();
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+
+        @Test
+        @DisplayName("rejects empty content")
+        void empty() throws Exception {
+            SpooledImage spooled = store.spool(new ByteArrayInputStream(new byte[0]));
+
+            assertThatThrownBy(() -> store.store(spooled, "image/png"))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Image file is empty");
+            verify(imageBlobRepository, never()).addReference(any(), anyLong(), any(), any());
+        }
+    }
+
+    @Nested
+    @DisplayName("release")
+    class Release {
+
+        @Test
+        @DisplayName("deletes file and row when the last reference goes")
+        void deletesUnreferenced() throws Exception {
+            String hash = store(CONTENT);
+            ImageBlob blob = blob(hash, 0);
+            when(imageBlobRepository.removeReference(eq(hash), any())).thenReturn(1);
+            when(imageBlobRepository.findByHashForUpdate(hash)).thenReturn(Optional.of(blob));
+
+            store.release(hash);
+
+            assertThat(store.path(hash)).doesNotExist();
+            verify(imageBlobRepository).delete(blob);
+            verify(imageMetadataCache).evict(ImageMetadataCache.Kind.BLOB, hash);
+        }
+
+        @Test
+        @DisplayName("keeps a blob that is still referenced")
+        void keepsReferenced() throws Exception {
+            String hash = store(CONTENT);
+            when(imageBlobRepository.removeReference(eq(hash), any())).thenReturn(1);
+            when(imageBlobRepository.findByHashForUpdate(hash)).thenReturn(Optional.of(blob(hash, 1)));
+
+            store.release(hash);
+
+            assertThat(store.path(hash)).exists();
+            verify(imageBlobRepository, never()).delete(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("deleteOrphanFile")
+    class DeleteOrphanFile {
+
+        @Test
+        @DisplayName("deletes a blob file without a row and reports its size")
+        void deletesOrphan() throws Exception {
+            String hash = store(CONTENT);
+            when(imageBlobRepository.existsById(hash)).thenReturn(false);
+
+            assertThat(store.deleteOrphanFile(hash)).isEqualTo(CONTENT.length);
+
+            assertThat(store.path(hash)).doesNotExist();
+            assertThat(store.path(hash).getParent()).isEmptyDirectory();
+            verify(imageMetadataCache).evict(ImageMetadataCache.Kind.BLOB, hash);
+        }
+
+        @Test
+        @DisplayName("puts the file back when a row was added meanwhile")
+        void keepsFileOfNewRow() throws Exception {
+            String hash = store(CONTENT);
+            when(imageBlobRepository.existsById(hash)).thenReturn(true);
+
+            assertThat(store.deleteOrphanFile(hash)).isZero();
+
+            assertThat(store.path(hash)).hasBinaryContent(CONTENT);
+            assertThat(store.path(hash).getParent()).isDirectoryContaining(p -> p.equals(store.path(hash)))
+                    .isDirectoryNotContaining("glob:**.tmp");
+        }
+    }
+
+    @Test
+    @DisplayName("resolveImage rejects malformed hashes without a lookup")
+    void resolveImage_malformed() {
+        assertThatThrownBy(() -> store.resolveImage("../../etc/passwd"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Image not found");
+        verifyNoInteractions(imageMetadataCache);
+    }
+}
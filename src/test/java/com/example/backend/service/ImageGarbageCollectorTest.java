@@ -0,0 +1,173 @@
+package com.example.backend.service;
+
+import com.example.backend.cache.ImageMetadataCache;
+import com.example.backend.dto.ImageGcReport;
+import com.example.backend.entity.ImageBlob;
+import com.example.backend.repository.CategoryRepository;
+import com.example.backend.repository.ImageBlobRepository;
+import com.example.backend.repository.ImageUploadRepository;
+import com.example.backend.repository.ItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ImageGarbageCollectorTest {
+
+    private static final String KEPT_HASH = "a".repeat(64);
+    private static final String ORPHAN_HASH = "b".repeat(64);
+    private static final String UNREFERENCED_HASH = "c".repeat(64);
+
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private CategoryRepository categoryRepository;
+    @Mock
+    private ImageUploadRepository imageUploadRepository;
+    @Mock
+    private ImageBlobRepository imageBlobRepository;
+
+    @TempDir
+    Path dir;
+
+    private ImageBlobStore store;
+    private ImageGarbageCollector collector;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = new ImageBlobStore(imageBlobRepository, mock(ImageMetadataCache.class),
+                mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(store, "imageDir", dir.toString());
+        store.init();
+        collector = new ImageGarbageCollector(itemRepository, categoryRepository, imageUploadRepository,
+                imageBlobRepository, store);
+        ReflectionTestUtils.setField(collector, "imageDir", dir.toString());
+        ReflectionTestUtils.setField(collector, "gracePeriodSeconds", 3600L);
+        ReflectionTestUtils.setField(collector, "batchSize", 2);
+        ReflectionTestUtils.setField(collector, "parallelism", 2);
+
+        file("items/1/kept", 10, true);
+        file("items/1/orphan", 20, true);
+        file("items/1/recent", 30, false);
+        file("categories/2/orphan", 40, true);
+        file("3/abc12def", 50, true);
+        file("3/orphan", 60, true);
+        file(ImageBlobStore.relativePath(KEPT_HASH), 70, true);
+        file(ImageBlobStore.relativePath(ORPHAN_HASH), 80, true);
+        file(ImageBlobStore.relativePath(UNREFERENCED_HASH), 90, true);
+        file("blobs/upload.1.tmp", 100, true);
+        file("blobs/upload.2.tmp", 110, false);
+
+        ImageBlob unreferenced = new ImageBlob();
+        unreferenced.setHash(UNREFERENCED_HASH);
+        unreferenced.setSize(90);
+        lenient().when(imageBlobRepository.findUnreferenced(any(), eq(""), any())).thenReturn(List.of(unreferenced));
+        lenient().when(imageBlobRepository.findByHashForUpdate(UNREFERENCED_HASH)).thenReturn(Optional.of(unreferenced));
+        lenient().when(itemRepository.findLegacyImagePaths(anyCollection())).thenAnswer(referenced("1/kept"));
+        lenient().when(categoryRepository.findLegacyImagePaths(anyCollection())).thenAnswer(referenced());
+        lenient().when(imageUploadRepository.findFilePaths(anyCollection())).thenAnswer(referenced("3/abc12def"));
+        lenient().when(imageBlobRepository.findExistingHashes(anyCollection())).thenAnswer(referenced(KEPT_HASH, UNREFERENCED_HASH));
+    }
+
+    private void file(String path, int size, boolean old) throws Exception {
+        Path file = dir.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[size]);
+        if (old) {
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(2, ChronoUnit.HOURS)));
+        }
+    }
+
+    /** Answers a lookup with those of the queried keys that are in {@code existing}. */
+    private static Answer<List<String>> referenced(String... existing) {
+        Set<String> keys = Set.of(existing);
+        return inv -> inv.<Collection<String>>getArgument(0).stream().filter(keys::contains).toList();
+    }
+
+    @Test
+    @DisplayName("deletes unreferenced blobs and old files no row refers to, keeping referenced and recent ones")
+    void collect() {
+        ImageGcReport report = collector.collect(false);
+
+        assertThat(dir.resolve("items/1/kept")).exists();
+        assertThat(dir.resolve("items/1/orphan")).doesNotExist();
+        assertThat(dir.resolve("items/1/recent")).exists();
+        assertThat(dir.resolve("categories/2")).doesNotExist();
+        assertThat(dir.resolve("3/abc12def")).exists();
+        assertThat(dir.resolve("3/orphan")).doesNotExist();
+        assertThat(store.path(KEPT_HASH)).exists();
+        assertThat(store.path(ORPHAN_HASH)).doesNotExist();
+        assertThat(store.path(UNREFERENCED_HASH)).doesNotExist();
+        assertThat(dir.resolve("blobs/upload.1.tmp")).doesNotExist();
+        assertThat(dir.resolve("blobs/upload.2.tmp")).exists();
+        verify(imageBlobRepository).existsById(ORPHAN_HASH);
+
+        assertThat(report.isDryRun()).isFalse();
+        assertThat(report.getFilesScanned()).isEqualTo(10);
+        assertThat(report.getOrphanFiles()).isEqualTo(4);
+        assertThat(report.getTempFiles()).isEqualTo(1);
+        assertThat(report.getUnreferencedBlobs()).isEqualTo(1);
+        assertThat(report.getBytesReclaimed()).isEqualTo(20 + 40 + 60 + 80 + 90 + 100);
+    }
+
+    @Test
+    @DisplayName("dry run reports the same without deleting anything")
+    void dryRun() {
+        ImageGcReport report = collector.collect(true);
+
+        assertThat(dir.resolve("items/1/orphan")).exists();
+        assertThat(dir.resolve("categories/2/orphan")).exists();
+        assertThat(dir.resolve("3/orphan")).exists();
+        assertThat(store.path(ORPHAN_HASH)).exists();
+        assertThat(store.path(UNREFERENCED_HASH)).exists();
+        assertThat(dir.resolve("blobs/upload.1.tmp")).exists();
+        verify(imageBlobRepository, never()).findByHashForUpdate(any());
+        verify(imageBlobRepository, never()).existsById(any());
+
+        assertThat(report.isDryRun()).isTrue();
+        assertThat(report.getFilesScanned()).isEqualTo(11);
+        assertThat(report.getOrphanFiles()).isEqualTo(4);
+        assertThat(report.getTempFiles()).isEqualTo(1);
+        assertThat(report.getUnreferencedBlobs()).isEqualTo(1);
+        assertThat(report.getBytesReclaimed()).isEqualTo(20 + 40 + 60 + 80 + 90 + 100);
+    }
+
+    @Test
+    @DisplayName("rejects a run while another one is in progress")
+    void alreadyRunning() {
+        ((AtomicBoolean) ReflectionTestUtils.getField(collector, "running")).set(true);
+
+        assertThatThrownBy(() -> collector.collect(false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Image garbage collection is already running");
+        assertThat(dir.resolve("items/1/orphan")).exists();
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.backend.service;
+
+import com.example.backend.cache.CatalogCache;
+import com.example.backend.cache.ImageMetadataCache;
+import com.example.backend.repository.CategoryRepository;
+import com.example.backend.repository.ImageBlobRepository;
+import com.example.backend.repository.ImageUploadRepository;
+import com.example.backend.repository.ImageUploadRepository.LegacyUpload;
+import com.example.backend.repository.ItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ImageLayoutMigratorTest {
+
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private CategoryRepository categoryRepository;
+    @Mock
+    private ImageUploadRepository imageUploadRepository;
+    @Mock
+    private ImageBlobRepository imageBlobRepository;
+    @Mock
+    private ImageMetadataCache imageMetadataCache;
+    @Mock
+    private CatalogCache catalogCache;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @TempDir
+    Path dir;
+
+    private ImageBlobStore store;
+    private ImageLayoutMigrator migrator;
+
+    @BeforeEach
+    void setUp() {
+        store = new ImageBlobStore(imageBlobRepository, imageMetadataCache, mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(store, "imageDir", dir.toString());
+        store.init();
+        migrator = new ImageLayoutMigrator(itemRepository, categoryRepository, imageUploadRepository, store,
+                imageMetadataCache, catalogCache, transactionTemplate);
+        ReflectionTestUtils.setField(migrator, "imageDir", dir.toString());
+        ReflectionTestUtils.setField(migrator, "enabled", true);
+        ReflectionTestUtils.setField(migrator, "batchSize", 2);
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null));
+        lenient().when(itemRepository.findLegacyImages(anyString(), any())).thenReturn(List.of());
+        lenient().when(categoryRepository.findLegacyImages(anyString(), any())).thenReturn(List.of());
+        lenient().when(imageUploadRepository.findLegacyUploads(anyLong(), any())).thenReturn(List.of());
+    }
+
+    private Path file(String path, String content) throws Exception {
+        Path file = dir.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+        return file;
+    }
+
+    private static String sha256(String content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                .digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static ItemRepository.LegacyImage item(String id, String path) {
+        return new ItemRepository.LegacyImage() {
+            public String getId() {
+                return id;
+            }
+
+            public String getImagePath() {
+                return path;
+            }
+
+            public String getImageContentType() {
+                return "image/jpeg";
+            }
+        };
+    }
+
+    private static CategoryRepository.LegacyImage category(String id, String path) {
+        return new CategoryRepository.LegacyImage() {
+            public String getId() {
+                return id;
+            }
+
+            public String getImagePath() {
+                return path;
+            }
+
+            public String getImageContentType() {
+                return null;
+            }
+        };
+    }
+
+    private static LegacyUpload upload(long id, String shortCode, String path) {
+        return new LegacyUpload() {
+            public Long getId() {
+                return id;
+            }
+
+            public String getShortCode() {
+                return shortCode;
+            }
+
+            public String getFilePath() {
+                return path;
+            }
+
+            public String getContentType() {
+                return "image/gif";
+            }
+        };
+    }
+
+    private long tempFiles() throws Exception {
+        try (Stream<Path> files = Files.list(dir.resolve(ImageBlobStore.BLOB_DIR))) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    @Test
+    @DisplayName("moves item, category and upload files into the blob store, repoints the rows and deletes the old files")
+    void migratesAllKinds() throws Exception {
+        Path itemFile = file("items/1/item-1", "item");
+        Path categoryFile = file("categories/1/cat-1", "category");
+        Path uploadFile = file("1/abc12def", "upload");
+        when(itemRepository.findLegacyImages(eq(""), eq(Limit.of(2)))).thenReturn(List.of(item("item-1", "1/item-1")));
+        when(categoryRepository.findLegacyImages(eq(""), any())).thenReturn(List.of(category("cat-1", "1/cat-1")));
+        when(imageUploadRepository.findLegacyUploads(eq(0L), any())).thenReturn(List.of(upload(7, "abc12def", "1/abc12def")));
+        when(itemRepository.migrateImage("item-1", "1/item-1", sha256("item"))).thenReturn(1);
+        when(categoryRepository.migrateImage("cat-1", "1/cat-1", sha256("category"))).thenReturn(1);
+        String uploadHash = sha256("upload");
+        when(imageUploadRepository.migrateFile(7L, "1/abc12def", ImageBlobStore.relativePath(uploadHash), uploadHash))
+                .thenReturn(1);
+
+        assertThat(migrator.migrateBatch()).isEqualTo(3);
+
+        assertThat(store.path(sha256("item"))).hasContent("item");
+        assertThat(store.path(sha256("category"))).hasContent("category");
+        assertThat(store.path(uploadHash)).hasContent("upload");
+        assertThat(itemFile).doesNotExist();
+        assertThat(categoryFile).doesNotExist();
+        assertThat(uploadFile).doesNotExist();
+        assertThat(tempFiles()).isZero();
+        verify(imageBlobRepository).addReference(eq(sha256("item")), eq(4L), eq("image/jpeg"), any());
+        verify(imageBlobRepository).addReference(eq(sha256("category")), eq(8L), eq("image/png"), any());
+        verify(imageMetadataCache).evict(ImageMetadataCache.Kind.ITEM, "item-1");
+        verify(imageMetadataCache).evict(ImageMetadataCache.Kind.CATEGORY, "cat-1");
+        verify(imageMetadataCache).evict(ImageMetadataCache.Kind.UPLOAD, "abc12def");
+        verify(catalogCache).itemsChanged(null);
+        verify(catalogCache).categoriesChanged();
+    }
+
+    @Test
+    @DisplayName("keeps the old file and drops the copy when the row was changed meanwhile")
+    void rowChanged() throws Exception {
+        Path itemFile = file("items/1/item-1", "item");
+        when(itemRepository.findLegacyImages(eq(""), any())).thenReturn(List.of(item("item-1", "1/item-1")));
+        when(itemRepository.migrateImage(anyString(), anyString(), anyString())).thenReturn(0);
+
+        assertThat(migrator.migrateBatch()).isZero();
+
+        assertThat(itemFile).hasContent("item");
+        assertThat(store.path(sha256("item"))).doesNotExist();
+        assertThat(tempFiles()).isZero();
+        verify(imageBlobRepository, never()).addReference(any(), anyLong(), any(), any());
+        verify(imageMetadataCache, never()).evict(any(), any());
+        verify(catalogCache, never()).itemsChanged(any());
+    }
+
+    @Test
+    @DisplayName("skips rows whose file is missing and continues after the last row of the batch")
+    void skipsMissingAndPages() throws Exception {
+        file("items/1/item-2", "second");
+        when(itemRepository.findLegacyImages(eq(""), any()))
+                .thenReturn(List.of(item("item-1", "1/item-1"), item("item-2", "1/item-2")));
+        when(itemRepository.migrateImage("item-2", "1/item-2", sha256("second"))).thenReturn(1);
+
+        assertThat(migrator.migrateBatch()).isEqualTo(1);
+        migrator.migrateBatch();
+
+        verify(itemRepository, never()).migrateImage(eq("item-1"), anyString(), anyString());
+        verify(itemRepository).findLegacyImages(eq("item-2"), any());
+    }
+
+    @Test
+    @DisplayName("stops querying once a run finds nothing left")
+    void finishes() {
+        migrator.migrateBatch();
+        migrator.migrateBatch();
+
+        verify(itemRepository, times(1)).findLegacyImages(anyString(), any());
+        verify(imageUploadRepository, times(1)).findLegacyUploads(anyLong(), any());
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.backend.service;
+
+import com.example.backend.cache.ImageMetadataCache;
+import com.example.backend.cache.ShortCodeFilter;
+import com.example.backend.dto.ImageUploadResponse;
+import com.example.backend.entity.ImageUpload;
+import com.example.backend.entity.User;
+import com.example.backend.repository.ImageBlobRepository;
+import com.example.backend.repository.ImageUploadRepository;
+import com.example.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Uploads through {@link ImageUploadService} and a real {@link ImageBlobStore} with a transaction manager that
+ * records how long each transaction (and so its pooled connection) is open. The image arrives through a stream
+ * that is slow in proportion to its size, like a large upload on a slow disk or client.
+ */
+class ImageUploadConnectionHoldTest {
+
+    /** Time the image stream spends per 64 KB read: a 4 MB image takes at least 320 ms to arrive. */
+    private static final long MILLIS_PER_CHUNK = 5;
+    private static final int CHUNK = 64 * 1024;
+
+    @TempDir
+    Path dir;
+
+    private final RecordingTransactionManager transactionManager = new RecordingTransactionManager();
+    private ImageUploadService service;
+    private ImageBlobStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new ImageBlobStore(mock(ImageBlobRepository.class), mock(ImageMetadataCache.class), transactionManager);
+        ReflectionTestUtils.setField(store, "imageDir", dir.toString());
+        store.init();
+
+        User user = new User();
+        user.setId(1L);
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        ImageUploadRepository imageUploadRepository = mock(ImageUploadRepository.class);
+        when(imageUploadRepository.save(any(ImageUpload.class))).thenAnswer(inv -> inv.getArgument(0));
+        ShortCodeAllocator shortCodeAllocator = mock(ShortCodeAllocator.class);
+        when(shortCodeAllocator.insertWithNewCode(any(), any(), any()))
+                .thenAnswer(inv -> inv.<Function<String, ?>>getArgument(2).apply("k3x9q2ab"));
+
+        service = new ImageUploadService(imageUploadRepository, userRepository, shortCodeAllocator,
+                mock(ShortCodeFilter.class), mock(ImageMetadataCache.class), store,
+                new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(service, "baseUrl", "http://localhost:8081");
+    }
+
+    private long upload(int size) throws Exception {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        MockMultipartFile file = new MockMultipartFile("file", "photo.jpg", "image/jpeg", content) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                return new SlowInputStream(super.getInputStream());
+            }
+        };
+        transactionManager.heldNanos = 0;
+
+        ImageUploadResponse response = service.upload(file, null, 1L);
+
+        assertThat(response.getContentType()).isEqualTo("image/jpeg");
+        String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        assertThat(Files.readAllBytes(store.path(hash))).isEqualTo(content);
+        return transactionManager.heldNanos;
+    }
+
+    @Test
+    @DisplayName("holds the transaction for the row updates only, however large and slow the image")
+    void holdTimeIndependentOfImageSize() throws Exception {
+        upload(CHUNK);
+        long small = upload(CHUNK);
+        long start = System.nanoTime();
+        long large = upload(64 * CHUNK);
+        long total = System.nanoTime() - start;
+
+        assertThat(transactionManager.bytesReadInTransaction).isZero();
+        assertThat(total).isGreaterThan(TimeUnit.MILLISECONDS.toNanos(64 * MILLIS_PER_CHUNK));
+        // Staging the 4 MB image takes over 320 ms; the transaction around it stays far below that.
+        assertThat(large).isLessThan(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(large).isLessThan(small + TimeUnit.MILLISECONDS.toNanos(50));
+        // Spooled files were moved into place after the commits; no temp file is left next to them.
+        try (Stream<Path> files = Files.list(dir.resolve(ImageBlobStore.BLOB_DIR))) {
+            assertThat(files.filter(Files::isRegularFile)).isEmpty();
+        }
+    }
+
+    /** Delays every read as a slow client would and counts bytes read while a transaction is open. */
+    private final class SlowInputStream extends FilterInputStream {
+
+        SlowInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, Math.min(len, CHUNK));
+            if (n > 0) {
+                if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                    transactionManager.bytesReadInTransaction += n;
+                }
+                try {
+                    Thread.sleep(Duration.ofNanos(TimeUnit.MILLISECONDS.toNanos(MILLIS_PER_CHUNK) * n / CHUNK));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return n;
+        }
+    }
+
+    /** Stands in for JpaTransactionManager, which holds a connection from begin to commit or rollback. */
+    private static final class RecordingTransactionManager extends AbstractPlatformTransactionManager {
+
+        long heldNanos;
+        long bytesReadInTransaction;
+        private long begunAt;
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            begunAt = System.nanoTime();
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            heldNanos += System.nanoTime() - begunAt;
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            heldNanos += System.nanoTime() - begunAt;
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.example.backend.service;
 
+import com.example.backend.cache.ImageMetadataCache;
+import com.example.backend.cache.ImageMetadataCache.ImageMetadata;
+import com.example.backend.cache.ShortCodeFilter;
 import com.example.backend.dto.ImageUploadRequest;
 import com.example.backend.dto.ImageUploadResponse;
+import com.example.backend.dto.SpooledImage;
 import com.example.backend.entity.ImageUpload;
 import com.example.backend.entity.User;
 import com.example.backend.repository.ImageUploadRepository;
@@ -12,19 +16,31 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -33,11 +49,23 @@ class ImageUploadServiceTest {
 
     /** Minimal 1x1 PNG in Base64. */
     private static final String VALID_PNG_BASE64 = "iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAYAAAAfFcSJAAAADUlEQVR42mP8z8BQDwAEhQGAhKmMIQAAAABJRU5ErkJggg==";
+    private static final String HASH = "abcd" + "0".repeat(60);
+    private static final SpooledImage SPOOLED = new SpooledImage(Path.of("upload.1.tmp"), HASH, 3);
 
     @Mock
     private ImageUploadRepository imageUploadRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private ShortCodeAllocator shortCodeAllocator;
+    @Mock
+    private ShortCodeFilter shortCodeFilter;
+    @Mock
+    private ImageMetadataCache imageMetadataCache;
+    @Mock
+    private ImageBlobStore imageBlobStore;
+    @Mock
+    private TransactionTemplate transactionTemplate;
 
     @InjectMocks
     private ImageUploadService imageUploadService;
@@ -48,6 +76,10 @@ class ImageUploadServiceTest {
 
     @BeforeEach
     void setUp() {
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null));
+        lenient().when(shortCodeAllocator.insertWithNewCode(eq(ShortCodeFilter.Kind.IMAGE), any(), any()))
+                .thenAnswer(inv -> inv.<Function<String, ?>>getArgument(2).apply("k3x9q2ab"));
         ReflectionTestUtils.setField(imageUploadService, "baseUrl", "http://localhost:8081");
 
         user = new User();
@@ -86,7 +118,6 @@ class ImageUploadServiceTest {
             ImageUploadRequest request = new ImageUploadRequest();
             request.setBase64("not-valid-base64!!!");
             request.setContentType("image/png");
-            when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
 
             assertThatThrownBy(() -> imageUploadService.upload(request, USER_ID))
                     .isInstanceOf(IllegalArgumentException.class)
@@ -94,16 +125,16 @@ class ImageUploadServiceTest {
         }
 
         @Test
-        @DisplayName("saves file and entity when given valid base64")
-        void success(@TempDir Path tempDir) throws IOException {
-            ReflectionTestUtils.setField(imageUploadService, "imageDir", tempDir.toString());
+        @DisplayName("stores the bytes as a blob and saves the entity when given valid base64")
+        void success() throws IOException {
             ImageUploadRequest request = new ImageUploadRequest();
             request.setBase64(VALID_PNG_BASE64);
             request.setContentType("image/png");
             request.setOriginalFileName("logo.png");
 
             when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
-            when(imageUploadRepository.existsByShortCode(any())).thenReturn(false);
+            when(imageBlobStore.spool(any(InputStream.class))).thenReturn(SPOOLED);
+            when(imageBlobStore.store(SPOOLED, "image/png")).thenReturn(HASH);
             when(imageUploadRepository.save(any(ImageUpload.class))).thenAnswer(inv -> {
                 ImageUpload e = inv.getArgument(0);
                 e.setId(1L);
@@ -119,19 +150,22 @@ class ImageUploadServiceTest {
             assertThat(response.getUserId()).isEqualTo(USER_ID);
             assertThat(response.getImageUrl()).startsWith("http://localhost:8081/i/");
             assertThat(response.getShortCode()).hasSize(8);
-            verify(imageUploadRepository).save(any(ImageUpload.class));
-            assertThat(tempDir.resolve(String.valueOf(USER_ID))).exists();
+            ArgumentCaptor<ImageUpload> saved = ArgumentCaptor.forClass(ImageUpload.class);
+            verify(imageUploadRepository).save(saved.capture());
+            assertThat(saved.getValue().getContentHash()).isEqualTo(HASH);
+            assertThat(saved.getValue().getFilePath()).isEqualTo("blobs/ab/cd/" + HASH);
+            verify(imageBlobStore).discard(SPOOLED);
         }
 
         @Test
         @DisplayName("extracts contentType from data URL when not provided")
-        void dataUrlContentType(@TempDir Path tempDir) throws IOException {
-            ReflectionTestUtils.setField(imageUploadService, "imageDir", tempDir.toString());
+        void dataUrlContentType() throws IOException {
             ImageUploadRequest request = new ImageUploadRequest();
             request.setBase64("data:image/jpeg;base64," + VALID_PNG_BASE64);
 
             when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
-            when(imageUploadRepository.existsByShortCode(any())).thenReturn(false);
+            when(imageBlobStore.spool(any(InputStream.class))).thenReturn(SPOOLED);
+            when(imageBlobStore.store(SPOOLED, "image/jpeg")).thenReturn(HASH);
             when(imageUploadRepository.save(any(ImageUpload.class))).thenAnswer(inv -> {
                 ImageUpload e = inv.getArgument(0);
                 e.setId(1L);
@@ -142,6 +176,50 @@ class ImageUploadServiceTest {
 
             assertThat(response.getContentType()).isEqualTo("image/jpeg");
         }
+
+        @Test
+        @DisplayName("streams a multipart file into the blob store")
+        void multipart() throws IOException {
+            MockMultipartFile file = new MockMultipartFile("file", "photo.jpg", "image/jpeg", new byte[]{1, 2, 3});
+            when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
+            when(imageBlobStore.spool(any(InputStream.class))).thenReturn(SPOOLED);
+            when(imageBlobStore.store(SPOOLED, "image/jpeg")).thenReturn(HASH);
+            when(imageUploadRepository.save(any(ImageUpload.class))).thenAnswer(inv -> inv.getArgument(0));
+
+            ImageUploadResponse response = imageUploadService.upload(file, null, USER_ID);
+
+            assertThat(response.getContentType()).isEqualTo("image/jpeg");
+            assertThat(response.getOriginalFileName()).isEqualTo("photo.jpg");
+            verify(imageBlobStore).discard(SPOOLED);
+        }
+
+        @Test
+        @DisplayName("stores an image spooled while the JSON body was read")
+        void spooled() throws IOException {
+            SpooledImage spooled = new SpooledImage(Path.of("upload.1.tmp"), HASH, 3);
+            ImageUploadRequest request = new ImageUploadRequest();
+            request.setOriginalFileName("photo.webp");
+            request.acceptSpooledImage(spooled, "image/webp");
+            when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
+            when(imageBlobStore.store(spooled, "image/webp")).thenReturn(HASH);
+            when(imageUploadRepository.save(any(ImageUpload.class))).thenAnswer(inv -> inv.getArgument(0));
+
+            ImageUploadResponse response = imageUploadService.upload(request, USER_ID);
+
+            assertThat(response.getContentType()).isEqualTo("image/webp");
+            assertThat(response.getOriginalFileName()).isEqualTo("photo.webp");
+            verify(imageBlobStore, never()).spool(any());
+        }
+
+        @Test
+        @DisplayName("rejects an empty multipart file")
+        void emptyMultipart() {
+            MockMultipartFile file = new MockMultipartFile("file", new byte[0]);
+
+            assertThatThrownBy(() -> imageUploadService.upload(file, null, USER_ID))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Image file is required");
+        }
     }
 
     @Nested
@@ -220,29 +298,65 @@ class ImageUploadServiceTest {
     }
 
     @Nested
-    @DisplayName("resolveByShortCode")
-    class ResolveByShortCode {
+    @DisplayName("resolveImage")
+    class ResolveImage {
+
+        @BeforeEach
+        void cacheMisses() {
+            when(imageMetadataCache.get(eq(ImageMetadataCache.Kind.UPLOAD), anyString(), any())).thenAnswer(inv -> {
+                Function<String, ImageMetadata> loader = inv.getArgument(2);
+                return loader.apply(inv.getArgument(1));
+            });
+        }
 
         @Test
-        @DisplayName("throws when short code not found")
+        @DisplayName("throws and records a filter false positive when short code not found")
         void notFound_throws() {
-            when(imageUploadRepository.findByShortCode("missing")).thenReturn(Optional.empty());
+            when(imageUploadRepository.findServeInfoByShortCode("missing")).thenReturn(Optional.empty());
 
-            assertThatThrownBy(() -> imageUploadService.resolveByShortCode("missing"))
+            assertThatThrownBy(() -> imageUploadService.resolveImage("missing"))
                     .isInstanceOf(IllegalArgumentException.class)
                     .hasMessage("Image not found");
+            verify(shortCodeFilter).recordFalsePositive(ShortCodeFilter.Kind.IMAGE);
         }
 
         @Test
-        @DisplayName("returns entity and normalizes code to lowercase")
-        void success() {
-            when(imageUploadRepository.findByShortCode("abc12def")).thenReturn(Optional.of(imageUpload));
-
-            ImageUpload result = imageUploadService.resolveByShortCode("ABC12DEF");
-
-            assertThat(result).isNotNull();
-            assertThat(result.getShortCode()).isEqualTo("abc12def");
-            verify(imageUploadRepository).findByShortCode("abc12def");
+        @DisplayName("returns file metadata, normalizes code to lowercase and derives validators from the row")
+        void success(@TempDir Path dir) throws Exception {
+            ReflectionTestUtils.setField(imageUploadService, "imageDir", dir.toString());
+            Files.createDirectories(dir.resolve("1"));
+            Files.write(dir.resolve("1/abc12def"), new byte[]{1, 2, 3});
+            Instant createdAt = Instant.parse("2026-01-15T10:00:00Z");
+            ImageUploadRepository.ServeInfo info = new ImageUploadRepository.ServeInfo() {
+                @Override
+                public String getShortCode() {
+                    return "abc12def";
+                }
+
+                @Override
+                public String getFilePath() {
+                    return "1/abc12def";
+                }
+
+                @Override
+                public String getContentType() {
+                    return "image/png";
+                }
+
+                @Override
+                public Instant getCreatedAt() {
+                    return createdAt;
+                }
+            };
+            when(imageUploadRepository.findServeInfoByShortCode("abc12def")).thenReturn(Optional.of(info));
+
+            ImageMetadata result = imageUploadService.resolveImage("ABC12DEF");
+
+            assertThat(result.path()).isEqualTo(dir.resolve("1/abc12def").toAbsolutePath());
+            assertThat(result.size()).isEqualTo(3);
+            assertThat(result.contentType()).isEqualTo("image/png");
+            assertThat(result.etag()).isEqualTo("\"abc12def-" + Long.toHexString(createdAt.toEpochMilli()) + "\"");
+            assertThat(result.lastModifiedMillis()).isEqualTo(createdAt.toEpochMilli());
         }
     }
 
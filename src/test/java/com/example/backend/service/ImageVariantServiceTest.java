@@ -0,0 +1,130 @@
+package com.example.backend.service;
+
+import com.example.backend.cache.ImageMetadataCache.ImageMetadata;
+import com.example.backend.cache.ImageVariantCache;
+import com.example.backend.service.ImageVariantService.Fit;
+import com.example.backend.service.ImageVariantService.VariantSpec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ImageVariantServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private ImageVariantService service;
+    private ImageMetadata source;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ImageVariantCache cache = new ImageVariantCache();
+        ReflectionTestUtils.setField(cache, "dir", dir.resolve("variants").toString());
+        ReflectionTestUtils.setField(cache, "maxBytes", 10_000_000L);
+        service = new ImageVariantService(cache);
+        ReflectionTestUtils.invokeMethod(cache, "init");
+
+        Path file = dir.resolve("source.png");
+        ImageIO.write(new BufferedImage(800, 400, BufferedImage.TYPE_INT_ARGB), "png", file.toFile());
+        source = ImageMetadata.forFile(file, "image/png");
+    }
+
+    private BufferedImage variant(Integer w, Integer h, String fit) throws Exception {
+        ImageMetadata v = service.variant(source, ImageVariantService.parseSpec(w, h, fit));
+        return ImageIO.read(v.path().toFile());
+    }
+
+    @Nested
+    @DisplayName("parseSpec")
+    class ParseSpec {
+
+        @Test
+        @DisplayName("returns null without w and h, and defaults fit to contain")
+        void defaults() {
+            assertThat(ImageVariantService.parseSpec(null, null, null)).isNull();
+            assertThat(ImageVariantService.parseSpec(200, null, null)).isEqualTo(new VariantSpec(200, 0, Fit.CONTAIN));
+            assertThat(ImageVariantService.parseSpec(200, 100, "Cover")).isEqualTo(new VariantSpec(200, 100, Fit.COVER));
+        }
+
+        @Test
+        @DisplayName("rejects out-of-range sizes, unknown fits and fit without a size")
+        void invalid() {
+            assertThatThrownBy(() -> ImageVariantService.parseSpec(0, null, null))
+                    .isInstanceOf(IllegalArgumentException.class).hasMessage("w must be between 1 and 2048");
+            assertThatThrownBy(() -> ImageVariantService.parseSpec(null, 5000, null))
+                    .isInstanceOf(IllegalArgumentException.class).hasMessage("h must be between 1 and 2048");
+            assertThatThrownBy(() -> ImageVariantService.parseSpec(100, null, "zoom"))
+                    .isInstanceOf(IllegalArgumentException.class).hasMessage("fit must be contain, cover or fill");
+            assertThatThrownBy(() -> ImageVariantService.parseSpec(null, null, "cover"))
+                    .isInstanceOf(IllegalArgumentException.class).hasMessage("fit requires w or h");
+        }
+    }
+
+    @Test
+    @DisplayName("keeps the aspect ratio for a single side and for contain")
+    void contain() throws Exception {
+        BufferedImage byWidth = variant(200, null, null);
+        assertThat(byWidth.getWidth()).isEqualTo(200);
+        assertThat(byWidth.getHeight()).isEqualTo(100);
+
+        BufferedImage boxed = variant(100, 100, "contain");
+        assertThat(boxed.getWidth()).isEqualTo(100);
+        assertThat(boxed.getHeight()).isEqualTo(50);
+    }
+
+    @Test
+    @DisplayName("crops to the box for cover and stretches for fill")
+    void coverAndFill() throws Exception {
+        BufferedImage cover = variant(100, 100, "cover");
+        assertThat(cover.getWidth()).isEqualTo(100);
+        assertThat(cover.getHeight()).isEqualTo(100);
+
+        BufferedImage fill = variant(300, 300, "fill");
+        assertThat(fill.getWidth()).isEqualTo(300);
+        assertThat(fill.getHeight()).isEqualTo(300);
+    }
+
+    @Test
+    @DisplayName("never scales up")
+    void noUpscale() throws Exception {
+        BufferedImage image = variant(2000, null, null);
+        assertThat(image.getWidth()).isEqualTo(800);
+        assertThat(image.getHeight()).isEqualTo(400);
+    }
+
+    @Test
+    @DisplayName("derives the ETag from the source and reuses the file for repeated requests")
+    void etagAndReuse() throws Exception {
+        VariantSpec spec = new VariantSpec(120, 0, Fit.CONTAIN);
+
+        ImageMetadata first = service.variant(source, spec);
+        ImageMetadata second = service.variant(source, spec);
+
+        assertThat(first.contentType()).isEqualTo("image/png");
+        assertThat(first.etag()).isEqualTo(source.etag().substring(0, source.etag().length() - 1) + "-120x0-contain\"")
+                .isEqualTo(ImageVariantService.etag(source, spec));
+        assertThat(second.path()).isEqualTo(first.path());
+        assertThat(first.size()).isEqualTo(Files.size(first.path()));
+        assertThat(first.lastModifiedMillis()).isEqualTo(source.lastModifiedMillis());
+    }
+
+    @Test
+    @DisplayName("returns sources ImageIO cannot resize unchanged")
+    void unsupportedType() throws Exception {
+        ImageMetadata webp = new ImageMetadata(source.path(), "image/webp", source.size(), source.etag(), 0);
+
+        assertThat(service.variant(webp, new VariantSpec(100, 0, Fit.CONTAIN))).isSameAs(webp);
+        assertThat(ImageVariantService.etag(webp, new VariantSpec(100, 0, Fit.CONTAIN))).isEqualTo(webp.etag());
+    }
+}
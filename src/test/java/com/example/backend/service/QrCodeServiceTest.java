@@ -0,0 +1,189 @@
+package com.example.backend.service;
+
+import com.example.backend.cache.RenderedQrCache;
+import com.example.backend.cache.RenderedQrCache.RenderedQr;
+import com.example.backend.entity.Shortener;
+import com.example.backend.entity.User;
+import com.example.backend.repository.ShortenerRepository;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.RGBLuminanceSource;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class QrCodeServiceTest {
+
+    @Mock
+    private ShortenerRepository shortenerRepository;
+
+    private RenderedQrCache cache;
+    private QrCodeService service;
+
+    private static final Long USER_ID = 1L;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        cache = new RenderedQrCache();
+        ReflectionTestUtils.setField(cache, "maxBytes", 1_000_000L);
+        ReflectionTestUtils.invokeMethod(cache, "init");
+
+        service = new QrCodeService(shortenerRepository, cache);
+        ReflectionTestUtils.setField(service, "baseUrl", "https://sho.rt/");
+        ReflectionTestUtils.setField(service, "batchMaxLinks", 3);
+        ReflectionTestUtils.setField(service, "renderThreads", 2);
+        service.init();
+
+        user = new User();
+        user.setId(USER_ID);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private Shortener shortener(Long id, String code, User owner) {
+        Shortener s = new Shortener();
+        s.setId(id);
+        s.setShortCode(code);
+        s.setFullUrl("https://example.com/" + code);
+        s.setUser(owner);
+        return s;
+    }
+
+    private static String decode(byte[] png) throws Exception {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        int[] pixels = image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+        RGBLuminanceSource source = new RGBLuminanceSource(image.getWidth(), image.getHeight(), pixels);
+        return new QRCodeReader().decode(new BinaryBitmap(new HybridBinarizer(source))).getText();
+    }
+
+    @Nested
+    @DisplayName("render")
+    class Render {
+
+        @Test
+        @DisplayName("renders a PNG of the requested size that decodes to the public short link URL")
+        void pngDecodesToPublicUrl() throws Exception {
+            when(shortenerRepository.findById(10L)).thenReturn(Optional.of(shortener(10L, "abc12345", user)));
+
+            RenderedQr qr = service.render(10L, USER_ID, "png", 300, "h");
+
+            assertThat(qr.contentType()).isEqualTo("image/png");
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(qr.bytes()));
+            assertThat(image.getWidth()).isEqualTo(300);
+            assertThat(image.getHeight()).isEqualTo(300);
+            assertThat(decode(qr.bytes())).isEqualTo("https://sho.rt/s/abc12345");
+        }
+
+        @Test
+        @DisplayName("renders an SVG with the requested size")
+        void svg() {
+            when(shortenerRepository.findById(10L)).thenReturn(Optional.of(shortener(10L, "abc12345", user)));
+
+            RenderedQr qr = service.render(10L, USER_ID, "svg", 128, null);
+
+            String svg = new String(qr.bytes(), StandardCharsets.UTF_8);
+            assertThat(qr.contentType()).isEqualTo("image/svg+xml");
+            assertThat(svg).contains("width=\"128\"", "height=\"128\"", "<path");
+        }
+
+        @Test
+        @DisplayName("serves repeated requests from the cache with a stable strong ETag")
+        void cachedWithStableEtag() {
+            when(shortenerRepository.findById(10L)).thenReturn(Optional.of(shortener(10L, "abc12345", user)));
+
+            RenderedQr first = service.render(10L, USER_ID, "png", null, null);
+            RenderedQr second = service.render(10L, USER_ID, "png", null, null);
+            RenderedQr otherSize = service.render(10L, USER_ID, "png", 512, null);
+
+            assertThat(second).isSameAs(first);
+            assertThat(first.etag()).matches("\"[0-9a-f]{32}\"");
+            assertThat(otherSize.etag()).isNotEqualTo(first.etag());
+            assertThat(cache.stats().getHits()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("rejects links of other users and invalid options")
+        void rejects() {
+            User other = new User();
+            other.setId(2L);
+            when(shortenerRepository.findById(10L)).thenReturn(Optional.of(shortener(10L, "abc12345", other)));
+
+            assertThatThrownBy(() -> service.render(10L, USER_ID, "png", null, null))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Short link not found");
+            assertThatThrownBy(() -> service.render(10L, USER_ID, "gif", null, null))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> service.render(10L, USER_ID, "png", 10_000, null))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> service.render(10L, USER_ID, "png", null, "X"))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("batch")
+    class Batch {
+
+        @Test
+        @DisplayName("writes one entry per distinct link in request order")
+        void zipInRequestOrder() throws Exception {
+            when(shortenerRepository.findAllById(any())).thenReturn(List.of(
+                    shortener(2L, "bbbbbbbb", user), shortener(1L, "aaaaaaaa", user)));
+
+            QrCodeService.QrBatch batch = service.prepareBatch(List.of(1L, 2L, 1L), USER_ID, "svg", null, null);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            service.writeZip(batch, out);
+
+            List<String> names = new ArrayList<>();
+            try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+                ZipEntry e;
+                while ((e = zip.getNextEntry()) != null) {
+                    names.add(e.getName());
+                    assertThat(new String(zip.readAllBytes(), StandardCharsets.UTF_8)).startsWith("<?xml");
+                }
+            }
+            assertThat(names).containsExactly("aaaaaaaa.svg", "bbbbbbbb.svg");
+        }
+
+        @Test
+        @DisplayName("fails as a whole when a link is missing or the batch is too large")
+        void rejects() {
+            when(shortenerRepository.findAllById(any())).thenReturn(List.of(shortener(1L, "aaaaaaaa", user)));
+
+            assertThatThrownBy(() -> service.prepareBatch(List.of(1L, 2L), USER_ID, null, null, null))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Short link not found: 2");
+            assertThatThrownBy(() -> service.prepareBatch(List.of(1L, 2L, 3L, 4L), USER_ID, null, null, null))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Too many short links (max 3)");
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.backend.service;
+
+import com.example.backend.cache.ShortCodeFilter;
+import com.example.backend.repository.ShortCodeSequenceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ShortCodeAllocatorTest {
+
+    @Mock
+    private ShortCodeSequenceRepository sequenceRepository;
+    @Mock
+    private ShortCodeFilter shortCodeFilter;
+
+    @InjectMocks
+    private ShortCodeAllocator allocator;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(allocator, "secret", "test-secret");
+        ReflectionTestUtils.setField(allocator, "blockSize", 100);
+        allocator.init();
+    }
+
+    @Test
+    @DisplayName("hands out unique 8-char base36 codes and leases one block per blockSize codes")
+    void nextCode_uniqueWithinAndAcrossBlocks() {
+        when(sequenceRepository.leaseBlock(eq(ShortCodeAllocator.SEQUENCE_NAME), anyInt())).thenReturn(0L, 100L, 200L);
+
+        Set<String> codes = new HashSet<>();
+        for (int i = 0; i < 250; i++) {
+            String code = allocator.nextCode();
+            assertThat(code).hasSize(ShortCodeAllocator.CODE_LENGTH).matches("[0-9a-z]+");
+            codes.add(code);
+        }
+
+        assertThat(codes).hasSize(250);
+        verify(sequenceRepository, times(3)).leaseBlock(ShortCodeAllocator.SEQUENCE_NAME, 100);
+    }
+
+    @Test
+    @DisplayName("consecutive counter values do not give consecutive codes, and the key changes the mapping")
+    void permute_scramblesAndDependsOnKey() {
+        long a = allocator.permute(1);
+        long b = allocator.permute(2);
+        assertThat(Math.abs(a - b)).isGreaterThan(1);
+        assertThat(a).isLessThan(ShortCodeAllocator.DOMAIN_SIZE);
+
+        ReflectionTestUtils.setField(allocator, "secret", "other-secret");
+        allocator.init();
+        assertThat(allocator.permute(1)).isNotEqualTo(a);
+    }
+
+    @Test
+    @DisplayName("permutation is a bijection: distinct inputs never map to the same value")
+    void permute_isInjective() {
+        Set<Long> outputs = new HashSet<>();
+        long step = ShortCodeAllocator.DOMAIN_SIZE / 50_000;
+        for (long i = 0; i < 50_000; i++) {
+            assertThat(outputs.add(allocator.permute(i * step + 1))).isTrue();
+            assertThat(outputs.add(allocator.permute(i * step + 2))).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("fails once the code space is exhausted")
+    void nextCode_exhausted_throws() {
+        when(sequenceRepository.leaseBlock(ShortCodeAllocator.SEQUENCE_NAME, 100)).thenReturn(ShortCodeAllocator.DOMAIN_SIZE);
+
+        assertThatThrownBy(() -> allocator.nextCode())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Short code space exhausted");
+    }
+
+    @Test
+    @DisplayName("skips a generated code that matches an existing code")
+    void insertWithNewCode_skipsExistingCode() {
+        when(sequenceRepository.leaseBlock(ShortCodeAllocator.SEQUENCE_NAME, 100)).thenReturn(0L);
+        String first = ShortCodeAllocator.encode(allocator.permute(0));
+        String second = ShortCodeAllocator.encode(allocator.permute(1));
+        when(shortCodeFilter.mightExist(eq(ShortCodeFilter.Kind.SHORTENER), anyString())).thenReturn(true);
+        Set<String> existing = Set.of(first);
+
+        String inserted = allocator.insertWithNewCode(ShortCodeFilter.Kind.SHORTENER, existing::contains, code -> code);
+
+        assertThat(inserted).isEqualTo(second);
+        verify(shortCodeFilter).recordFalsePositive(ShortCodeFilter.Kind.SHORTENER);
+    }
+
+    @Test
+    @DisplayName("retries an insert that fails because a concurrent request took the code")
+    void insertWithNewCode_retriesClash() {
+        when(sequenceRepository.leaseBlock(ShortCodeAllocator.SEQUENCE_NAME, 100)).thenReturn(0L);
+        String first = ShortCodeAllocator.encode(allocator.permute(0));
+        Set<String> existing = new HashSet<>();
+        List<String> tried = new ArrayList<>();
+
+        String inserted = allocator.insertWithNewCode(ShortCodeFilter.Kind.IMAGE, existing::contains, code -> {
+            tried.add(code);
+            if (code.equals(first)) {
+                existing.add(code);
+                throw new DataIntegrityViolationException("Duplicate entry '" + code + "'");
+            }
+            return code;
+        });
+
+        assertThat(tried).hasSize(2).first().isEqualTo(first);
+        assertThat(inserted).isEqualTo(tried.get(1));
+    }
+
+    @Test
+    @DisplayName("rethrows an integrity violation that is not a short code clash, and gives up after bounded retries")
+    void insertWithNewCode_rethrows() {
+        when(sequenceRepository.leaseBlock(ShortCodeAllocator.SEQUENCE_NAME, 100)).thenReturn(0L);
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> allocator.insertWithNewCode(ShortCodeFilter.Kind.IMAGE, code -> false, code -> {
+            attempts.incrementAndGet();
+            throw new DataIntegrityViolationException("FK violation");
+        })).isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(attempts).hasValue(1);
+
+        attempts.set(0);
+        assertThatThrownBy(() -> allocator.insertWithNewCode(ShortCodeFilter.Kind.IMAGE, code -> attempts.get() > 0, code -> {
+            attempts.incrementAndGet();
+            throw new DataIntegrityViolationException("Duplicate entry");
+        })).isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(attempts).hasValue(ShortCodeAllocator.MAX_CODE_ATTEMPTS);
+    }
+}
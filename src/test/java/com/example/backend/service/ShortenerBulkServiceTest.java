@@ -0,0 +1,138 @@
+package com.example.backend.service;
+
+import com.example.backend.cache.ShortCodeFilter;
+import com.example.backend.dto.BulkShortenerResult;
+import com.example.backend.repository.ShortenerJdbcRepository;
+import com.example.backend.repository.ShortenerJdbcRepository.NewShortener;
+import com.example.backend.repository.ShortenerRepository;
+import com.example.backend.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ShortenerBulkServiceTest {
+
+    @Mock
+    private ShortenerRepository shortenerRepository;
+    @Mock
+    private ShortenerJdbcRepository shortenerJdbcRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private ShortCodeAllocator shortCodeAllocator;
+    @Mock
+    private ShortCodeFilter shortCodeFilter;
+
+    private ShortenerBulkService bulkService;
+
+    private static final Long USER_ID = 1L;
+
+    @BeforeEach
+    void setUp() {
+        bulkService = new ShortenerBulkService(shortenerRepository, shortenerJdbcRepository, userRepository, shortCodeAllocator, shortCodeFilter,
+                new ObjectMapper().findAndRegisterModules(),
+                Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(bulkService, "maxRows", 100);
+    }
+
+    private List<BulkShortenerResult> run(String body, boolean csv) throws IOException {
+        List<BulkShortenerResult> results = new ArrayList<>();
+        bulkService.bulkCreate(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), csv, USER_ID, results::addAll);
+        return results;
+    }
+
+    @Test
+    @DisplayName("throws before emitting anything when user not found")
+    void userNotFound_throws() {
+        when(userRepository.existsById(USER_ID)).thenReturn(false);
+
+        assertThatThrownBy(() -> run("[]", false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("User not found");
+    }
+
+    @Test
+    @DisplayName("JSON: checks codes in one query, reports collisions per row and inserts the rest in one batch")
+    @SuppressWarnings("unchecked")
+    void json_mixedRows() throws IOException {
+        when(userRepository.existsById(USER_ID)).thenReturn(true);
+        when(shortenerRepository.findExistingShortCodes(any())).thenAnswer(inv ->
+                ((java.util.Collection<String>) inv.getArgument(0)).contains("taken") ? List.of("taken") : List.of());
+        when(shortenerJdbcRepository.insertBatch(anyList())).thenReturn(List.of(100L, 101L));
+        when(shortCodeAllocator.nextCode(eq(ShortCodeFilter.Kind.SHORTENER), any())).thenReturn("k3x9q2ab");
+
+        List<BulkShortenerResult> results = run("""
+                [
+                  {"fullUrl": "example.com/a", "shortCode": "Mine1"},
+                  {"fullUrl": "https://example.com/b", "shortCode": "taken"},
+                  {"fullUrl": "https://example.com/c"},
+                  {"fullUrl": "https://example.com/d", "shortCode": "mine1"},
+                  {"shortCode": "nourl"}
+                ]""", false);
+
+        assertThat(results).extracting(BulkShortenerResult::getRow).containsExactly(1, 2, 3, 4, 5);
+        assertThat(results).extracting(BulkShortenerResult::isSuccess).containsExactly(true, false, true, false, false);
+        assertThat(results.get(0).getShortCode()).isEqualTo("mine1");
+        assertThat(results.get(0).getFullUrl()).isEqualTo("https://example.com/a");
+        assertThat(results.get(0).getId()).isEqualTo(100L);
+        assertThat(results.get(1).getError()).isEqualTo("Short code already in use: taken");
+        assertThat(results.get(2).getShortCode()).isEqualTo("k3x9q2ab");
+        assertThat(results.get(3).getError()).startsWith("Duplicate short code");
+        assertThat(results.get(4).getError()).contains("fullUrl");
+
+        ArgumentCaptor<List<NewShortener>> captor = ArgumentCaptor.forClass(List.class);
+        verify(shortenerJdbcRepository).insertBatch(captor.capture());
+        assertThat(captor.getValue()).hasSize(2);
+        verify(shortenerRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("CSV: skips header, handles quoted URLs and reports malformed input as a final row")
+    void csv_rowsAndMalformed() throws IOException {
+        when(userRepository.existsById(USER_ID)).thenReturn(true);
+        when(shortenerRepository.findExistingShortCodes(any())).thenReturn(List.of());
+        when(shortenerJdbcRepository.insertBatch(anyList())).thenReturn(List.of(1L));
+
+        List<BulkShortenerResult> results = run("""
+                fullUrl,shortCode,expiresAt
+                "https://example.com/?a=1,b=2",promo,2030-01-01T00:00:00Z
+                https://example.com/x,bad,not-a-date
+                """, true);
+
+        assertThat(results).hasSize(2);
+        assertThat(results.get(0).isSuccess()).isTrue();
+        assertThat(results.get(0).getFullUrl()).isEqualTo("https://example.com/?a=1,b=2");
+        assertThat(results.get(1).isSuccess()).isFalse();
+        assertThat(results.get(1).getRow()).isEqualTo(2);
+        assertThat(results.get(1).getError()).startsWith("Invalid expiresAt");
+    }
+
+    @Test
+    @DisplayName("splitCsvLine supports quoted fields with escaped quotes")
+    void splitCsvLine() {
+        assertThat(ShortenerBulkService.splitCsvLine("a,\"b,\"\"c\"\"\",")).containsExactly("a", "b,\"c\"", "");
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ShortenerClickCounterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private ShortenerClickCounter clickCounter;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null));
+    }
+
+    private Map<?, ?> pending() {
+        return (Map<?, ?>) ReflectionTestUtils.getField(clickCounter, "pending");
+    }
+
+    @Test
+    @DisplayName("flush writes one batched increment per clicked link and clears pending counts")
+    @SuppressWarnings("unchecked")
+    void flush_batchesIncrements() {
+        clickCounter.record(1L);
+        clickCounter.record(1L);
+        clickCounter.record(1L);
+        clickCounter.record(2L);
+
+        clickCounter.flush();
+
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq("UPDATE shorteners SET click_count = click_count + ? WHERE id = ?"), captor.capture());
+        assertThat(captor.getValue()).containsExactlyInAnyOrder(new Object[]{3L, 1L}, new Object[]{1L, 2L});
+        assertThat(clickCounter.pendingCount(1L)).isZero();
+        assertThat(clickCounter.pendingCount(2L)).isZero();
+        assertThat(pending()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("clicks recorded while a flush runs stay pending for the next one")
+    void flush_keepsClicksRecordedDuringFlush() {
+        clickCounter.record(1L);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(inv -> {
+            clickCounter.record(1L);
+            clickCounter.record(2L);
+            return new int[]{1};
+        });
+
+        clickCounter.flush();
+
+        assertThat(clickCounter.pendingCount(1L)).isEqualTo(1L);
+        assertThat(clickCounter.pendingCount(2L)).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("flush does nothing when there are no pending clicks")
+    void flush_nothingPending() {
+        clickCounter.flush();
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    @DisplayName("failed flush, rolled back as a whole, keeps the counts for the next attempt")
+    void flush_failure_keepsCounts() {
+        clickCounter.record(1L);
+        clickCounter.record(1L);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("db down"));
+
+        clickCounter.flush();
+
+        verify(transactionTemplate).execute(any());
+        assertThat(clickCounter.pendingCount(1L)).isEqualTo(2L);
+    }
+}
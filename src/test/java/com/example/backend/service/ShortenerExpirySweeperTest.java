@@ -0,0 +1,101 @@
+package com.example.backend.service;
+
+import com.example.backend.cache.ShortenerResolutionCache;
+import com.example.backend.repository.ShortenerRepository;
+import com.example.backend.repository.ShortenerRepository.ShortCodeRef;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ShortenerExpirySweeperTest {
+
+    @Mock
+    private ShortenerRepository shortenerRepository;
+    @Mock
+    private ShortenerResolutionCache resolutionCache;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private ShortenerExpirySweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(sweeper, "batchSize", 2);
+        ReflectionTestUtils.setField(sweeper, "maxBatchesPerRun", 10);
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null));
+    }
+
+    private static ShortCodeRef ref(long id, String code) {
+        return new ShortCodeRef() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getShortCode() {
+                return code;
+            }
+        };
+    }
+
+    @Test
+    @DisplayName("deactivates expired links chunk by chunk and evicts their codes")
+    void sweep_chunksAndEvicts() {
+        when(shortenerRepository.findExpiredActive(any(), eq(Limit.of(2))))
+                .thenReturn(List.of(ref(1, "aaa"), ref(2, "bbb")), List.of(ref(3, "ccc")));
+        when(shortenerRepository.deactivateExpired(eq(List.of(1L, 2L)), any())).thenReturn(2);
+        when(shortenerRepository.deactivateExpired(eq(List.of(3L)), any())).thenReturn(1);
+
+        int swept = sweeper.sweep();
+
+        assertThat(swept).isEqualTo(3);
+        verify(shortenerRepository, times(2)).findExpiredActive(any(), any());
+        verify(resolutionCache).invalidate("aaa");
+        verify(resolutionCache).invalidate("bbb");
+        verify(resolutionCache).invalidate("ccc");
+    }
+
+    @Test
+    @DisplayName("does nothing when no link has expired")
+    void sweep_nothingExpired() {
+        when(shortenerRepository.findExpiredActive(any(), any())).thenReturn(List.of());
+
+        assertThat(sweeper.sweep()).isZero();
+        verify(shortenerRepository, never()).deactivateExpired(anyList(), any());
+    }
+
+    @Test
+    @DisplayName("stops after max batches per run")
+    void sweep_boundedPerRun() {
+        ReflectionTestUtils.setField(sweeper, "maxBatchesPerRun", 3);
+        when(shortenerRepository.findExpiredActive(any(), any())).thenReturn(List.of(ref(1, "aaa"), ref(2, "bbb")));
+        when(shortenerRepository.deactivateExpired(anyList(), any())).thenReturn(2);
+
+        assertThat(sweeper.sweep()).isEqualTo(6);
+        verify(shortenerRepository, times(3)).findExpiredActive(any(), any());
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.backend.service;
 
+import com.example.backend.cache.ShortCodeFilter;
+import com.example.backend.cache.ShortenerResolutionCache;
+import com.example.backend.cache.ShortenerResolutionCache.ResolvedShortener;
 import com.example.backend.dto.CreateShortenerRequest;
 import com.example.backend.dto.ShortenerResponse;
 import com.example.backend.dto.UpdateShortenerRequest;
@@ -16,14 +19,23 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -34,6 +46,20 @@ class ShortenerServiceTest {
     private ShortenerRepository shortenerRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private ShortenerResolutionCache resolutionCache;
+    @Mock
+    private ShortenerClickCounter clickCounter;
+    @Mock
+    private ClickAnalyticsService clickAnalyticsService;
+    @Mock
+    private ShortCodeAllocator shortCodeAllocator;
+    @Mock
+    private ShortCodeFilter shortCodeFilter;
+    @Mock
+    private TrendingLinksTracker trendingLinksTracker;
+    @Mock
+    private TransactionTemplate transactionTemplate;
 
     @InjectMocks
     private ShortenerService shortenerService;
@@ -56,6 +82,16 @@ class ShortenerServiceTest {
         shortener.setClickCount(0);
         shortener.setActive(true);
         shortener.setExpiresAt(null);
+
+        // Cache always misses unless a test says otherwise: delegate to the loader.
+        lenient().when(resolutionCache.get(anyString(), any())).thenAnswer(inv -> {
+            Function<String, ResolvedShortener> loader = inv.getArgument(1);
+            return loader.apply(inv.getArgument(0));
+        });
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null));
+        lenient().when(shortCodeAllocator.insertWithNewCode(eq(ShortCodeFilter.Kind.SHORTENER), any(), any()))
+                .thenAnswer(inv -> inv.<Function<String, ?>>getArgument(2).apply("k3x9q2ab"));
     }
 
     @Nested
@@ -136,7 +172,6 @@ class ShortenerServiceTest {
             CreateShortenerRequest request = new CreateShortenerRequest();
             request.setFullUrl("https://example.com");
             request.setShortCode("taken123");
-            when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
             when(shortenerRepository.existsByShortCode("taken123")).thenReturn(true);
 
             assertThatThrownBy(() -> shortenerService.create(request, USER_ID))
@@ -150,7 +185,6 @@ class ShortenerServiceTest {
             CreateShortenerRequest request = new CreateShortenerRequest();
             request.setFullUrl("example.com/path");
             when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
-            when(shortenerRepository.existsByShortCode(any())).thenReturn(false);
             when(shortenerRepository.save(any(Shortener.class))).thenAnswer(inv -> {
                 Shortener s = inv.getArgument(0);
                 s.setId(1L);
@@ -165,6 +199,44 @@ class ShortenerServiceTest {
             assertThat(captor.getValue().getFullUrl()).isEqualTo("https://example.com/path");
         }
 
+        @Test
+        @SuppressWarnings("unchecked")
+        @DisplayName("uses allocated short code, screened against existing shortener codes by the allocator")
+        void generatedShortCode_screenedByAllocator() {
+            CreateShortenerRequest request = new CreateShortenerRequest();
+            request.setFullUrl("https://example.com");
+            when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
+            when(shortenerRepository.save(any(Shortener.class))).thenAnswer(inv -> inv.getArgument(0));
+
+            ShortenerResponse result = shortenerService.create(request, USER_ID);
+
+            assertThat(result.getShortCode()).isEqualTo("k3x9q2ab");
+            verify(shortenerRepository, never()).existsByShortCode(any());
+            verify(shortCodeFilter).add(ShortCodeFilter.Kind.SHORTENER, "k3x9q2ab");
+
+            ArgumentCaptor<Predicate<String>> exists = ArgumentCaptor.forClass(Predicate.class);
+            verify(shortCodeAllocator).insertWithNewCode(eq(ShortCodeFilter.Kind.SHORTENER), exists.capture(), any());
+            when(shortenerRepository.existsByShortCode("custom12")).thenReturn(true);
+            assertThat(exists.getValue().test("custom12")).isTrue();
+        }
+
+        @Test
+        @DisplayName("reports a custom code taken by a concurrent request between the check and the insert")
+        void customShortCode_raceReportedAsInUse() {
+            CreateShortenerRequest request = new CreateShortenerRequest();
+            request.setFullUrl("https://example.com");
+            request.setShortCode("mycode");
+            when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
+            when(shortenerRepository.existsByShortCode("mycode")).thenReturn(false, true);
+            when(shortenerRepository.save(any(Shortener.class)))
+                    .thenThrow(new DataIntegrityViolationException("Duplicate entry 'mycode'"));
+
+            assertThatThrownBy(() -> shortenerService.create(request, USER_ID))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Short code already in use: mycode");
+            verify(shortCodeFilter, never()).add(any(), any());
+        }
+
         @Test
         @DisplayName("saves with custom short code when provided")
         void withShortCode_success() {
@@ -219,6 +291,40 @@ class ShortenerServiceTest {
             assertThat(shortener.getFullUrl()).isEqualTo("https://newurl.com");
             assertThat(shortener.isActive()).isFalse();
             verify(shortenerRepository).save(shortener);
+            verify(resolutionCache).invalidate("abc12345");
+        }
+
+        @Test
+        @DisplayName("extending an expired, swept link reactivates it")
+        void extendExpired_reactivates() {
+            shortener.setExpiresAt(Instant.now().minusSeconds(60));
+            shortener.setActive(false);
+            shortener.setDeactivatedByExpiry(true);
+            UpdateShortenerRequest request = new UpdateShortenerRequest();
+            request.setExpiresAt(Instant.now().plusSeconds(3600));
+            when(shortenerRepository.findById(10L)).thenReturn(Optional.of(shortener));
+            when(shortenerRepository.save(any(Shortener.class))).thenReturn(shortener);
+
+            shortenerService.update(10L, request, USER_ID);
+
+            assertThat(shortener.isActive()).isTrue();
+            assertThat(shortener.isDeactivatedByExpiry()).isFalse();
+        }
+
+        @Test
+        @DisplayName("extending an expired link its owner turned off keeps it off")
+        void extendExpired_ownerDisabled_staysInactive() {
+            shortener.setExpiresAt(Instant.now().minusSeconds(60));
+            shortener.setActive(false);
+            UpdateShortenerRequest request = new UpdateShortenerRequest();
+            request.setExpiresAt(Instant.now().plusSeconds(3600));
+            when(shortenerRepository.findById(10L)).thenReturn(Optional.of(shortener));
+            when(shortenerRepository.save(any(Shortener.class))).thenReturn(shortener);
+
+            shortenerService.update(10L, request, USER_ID);
+
+            assertThat(shortener.isActive()).isFalse();
+            assertThat(shortener.getExpiresAt()).isAfter(Instant.now());
         }
     }
 
@@ -244,6 +350,34 @@ class ShortenerServiceTest {
             shortenerService.delete(10L, USER_ID);
 
             verify(shortenerRepository).delete(shortener);
+            verify(clickAnalyticsService).deleteForShortener(10L);
+            verify(resolutionCache).invalidate("abc12345");
+        }
+    }
+
+    @Nested
+    @DisplayName("getStats")
+    class GetStats {
+
+        @Test
+        @DisplayName("throws when shortener belongs to another user")
+        void wrongUser_throws() {
+            when(shortenerRepository.findById(10L)).thenReturn(Optional.of(shortener));
+
+            assertThatThrownBy(() -> shortenerService.getStats(10L, 999L, null, null, null))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Short link not found");
+            verify(clickAnalyticsService, never()).getStats(any(), any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("delegates to the rollup query when owner matches")
+        void success() {
+            when(shortenerRepository.findById(10L)).thenReturn(Optional.of(shortener));
+
+            shortenerService.getStats(10L, USER_ID, null, null, "day");
+
+            verify(clickAnalyticsService).getStats(10L, null, null, "day");
         }
     }
 
@@ -256,9 +390,10 @@ class ShortenerServiceTest {
         void notFound_throws() {
             when(shortenerRepository.findByShortCode("missing")).thenReturn(Optional.empty());
 
-            assertThatThrownBy(() -> shortenerService.resolveAndIncrementClick("missing"))
+            assertThatThrownBy(() -> shortenerService.resolveAndIncrementClick("missing", null, null))
                     .isInstanceOf(IllegalArgumentException.class)
                     .hasMessage("Short link not found");
+            verify(shortCodeFilter).recordFalsePositive(ShortCodeFilter.Kind.SHORTENER);
         }
 
         @Test
@@ -267,7 +402,7 @@ class ShortenerServiceTest {
             shortener.setActive(false);
             when(shortenerRepository.findByShortCode("abc12345")).thenReturn(Optional.of(shortener));
 
-            assertThatThrownBy(() -> shortenerService.resolveAndIncrementClick("abc12345"))
+            assertThatThrownBy(() -> shortenerService.resolveAndIncrementClick("abc12345", null, null))
                     .isInstanceOf(IllegalArgumentException.class)
                     .hasMessage("Short link is disabled");
         }
@@ -278,7 +413,7 @@ class ShortenerServiceTest {
             shortener.setExpiresAt(Instant.now().minusSeconds(1));
             when(shortenerRepository.findByShortCode("abc12345")).thenReturn(Optional.of(shortener));
 
-            assertThatThrownBy(() -> shortenerService.resolveAndIncrementClick("abc12345"))
+            assertThatThrownBy(() -> shortenerService.resolveAndIncrementClick("abc12345", null, null))
                     .isInstanceOf(IllegalArgumentException.class)
                     .hasMessage("Short link has expired");
         }
@@ -287,13 +422,26 @@ class ShortenerServiceTest {
         @DisplayName("returns fullUrl and increments click count")
         void success() {
             when(shortenerRepository.findByShortCode("abc12345")).thenReturn(Optional.of(shortener));
-            when(shortenerRepository.save(any(Shortener.class))).thenReturn(shortener);
 
-            String url = shortenerService.resolveAndIncrementClick("abc12345");
+            String url = shortenerService.resolveAndIncrementClick("abc12345", "https://t.co/x", "Mozilla/5.0");
 
             assertThat(url).isEqualTo("https://example.com/page");
-            assertThat(shortener.getClickCount()).isEqualTo(1);
-            verify(shortenerRepository).save(shortener);
+            verify(clickCounter).record(10L);
+            verify(clickAnalyticsService).record(10L, "https://t.co/x", "Mozilla/5.0");
+            verify(trendingLinksTracker).record(10L, "abc12345", "https://example.com/page");
+            verify(shortenerRepository, never()).save(any(Shortener.class));
+        }
+
+        @Test
+        @DisplayName("serves a cached resolution without reading the repository")
+        void cached_skipsRepository() {
+            when(resolutionCache.get(eq("abc12345"), any()))
+                    .thenReturn(ResolvedShortener.fromEntity(shortener));
+
+            String url = shortenerService.resolveAndIncrementClick("ABC12345", null, null);
+
+            assertThat(url).isEqualTo("https://example.com/page");
+            verify(shortenerRepository, never()).findByShortCode(any());
         }
     }
 }
@@ -0,0 +1,112 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.TrendingLinkResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TrendingLinksTrackerTest {
+
+    private static final long NOW = 29_000_000L;
+
+    private TrendingLinksTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new TrendingLinksTracker();
+        ReflectionTestUtils.setField(tracker, "capacity", 10);
+        ReflectionTestUtils.setField(tracker, "maxWindowMinutes", 60);
+        tracker.init();
+    }
+
+    private void click(long id, int times, long minute) {
+        for (int i = 0; i < times; i++) {
+            tracker.record(id, "code" + id, "https://example.com/" + id, minute);
+        }
+    }
+
+    @Test
+    @DisplayName("finds heavy hitters among many more links than its capacity, never undercounting")
+    void heavyHittersUnderCapacityPressure() {
+        // 6500 clicks, 20 counters: every link with more than 6500 / 20 = 325 clicks is guaranteed to be kept.
+        ReflectionTestUtils.setField(tracker, "capacity", 20);
+        tracker.init();
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            click(1000 + random.nextInt(2000), 1, NOW);
+            if (i % 5 == 0) {
+                click(1, 1, NOW);
+            }
+            if (i % 10 == 0) {
+                click(2, 1, NOW);
+            }
+        }
+
+        List<TrendingLinkResponse> top = tracker.top(15, 2, NOW);
+
+        assertThat(top).extracting(TrendingLinkResponse::getShortenerId).containsExactly(1L, 2L);
+        assertThat(top.get(0).getClicks()).isGreaterThanOrEqualTo(1000);
+        assertThat(top.get(0).getClicks() - top.get(0).getMaxOvercount()).isLessThanOrEqualTo(1000);
+        assertThat(top.get(0).getShortCode()).isEqualTo("code1");
+    }
+
+    @Test
+    @DisplayName("credits a link evicted from a full minute with that minute's minimum, so it is never undercounted")
+    void evictedInOneMinuteTrackedInAnother() {
+        ReflectionTestUtils.setField(tracker, "capacity", 2);
+        tracker.init();
+        // Minute 1: link 3 evicts link 2 (1 click), taking count 2 with error 1; the slot minimum is 2.
+        click(1, 3, NOW - 1);
+        click(2, 1, NOW - 1);
+        click(3, 1, NOW - 1);
+        // Minute 2: both counters taken; the slot minimum is 1 (link 1).
+        click(2, 5, NOW);
+        click(1, 1, NOW);
+
+        List<TrendingLinkResponse> top = tracker.top(2, 2, NOW);
+        TrendingLinkResponse link2 = top.get(0);
+        TrendingLinkResponse link1 = top.get(1);
+
+        assertThat(link2.getShortenerId()).isEqualTo(2L);
+        assertThat(link2.getClicks()).isEqualTo(7).isGreaterThanOrEqualTo(6);
+        assertThat(link2.getClicks() - link2.getMaxOvercount()).isLessThanOrEqualTo(6);
+        assertThat(link1.getShortenerId()).isEqualTo(1L);
+        assertThat(link1.getClicks()).isEqualTo(4);
+        assertThat(link1.getMaxOvercount()).isZero();
+    }
+
+    @Test
+    @DisplayName("sums minutes inside the window and ignores older or recycled slots")
+    void slidingWindow() {
+        click(4, 7, NOW - 60); // same ring slot as NOW; recycled when NOW starts
+        click(3, 50, NOW - 30);
+        click(2, 3, NOW - 10);
+        click(1, 2, NOW - 10);
+        click(1, 5, NOW);
+
+        List<TrendingLinkResponse> top = tracker.top(15, 10, NOW);
+
+        assertThat(top).extracting(TrendingLinkResponse::getShortenerId).containsExactly(1L, 2L);
+        assertThat(top.get(0).getClicks()).isEqualTo(7);
+        assertThat(top.get(0).getMaxOvercount()).isZero();
+        assertThat(tracker.top(60, 10, NOW)).extracting(TrendingLinkResponse::getShortenerId).containsExactly(3L, 1L, 2L);
+    }
+
+    @Test
+    @DisplayName("parses windows in minutes or hours and rejects out-of-range values")
+    void parseWindow() {
+        assertThat(tracker.parseWindowMinutes("15m")).isEqualTo(15);
+        assertThat(tracker.parseWindowMinutes("1h")).isEqualTo(60);
+        assertThat(tracker.parseWindowMinutes("5")).isEqualTo(5);
+        assertThatThrownBy(() -> tracker.parseWindowMinutes("2h")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> tracker.parseWindowMinutes("abc")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> tracker.top("15m", 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}